@@ -21,7 +21,7 @@ import com.jaamsim.input.Keyword;
 import com.jaamsim.input.Output;
 import com.jaamsim.units.DimensionlessUnit;
 import com.jaamsim.units.TimeUnit;
-import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.BooleanInput;
 import com.sandwell.JavaSimulation.EntityInput;
 import com.sandwell.JavaSimulation.EntityTarget;
 import com.sandwell.JavaSimulation.InputErrorException;
@@ -53,7 +53,13 @@ public class EntityGenerator extends LinkedComponent {
 	         example = "EntityGenerator-1 MaxNumber { 3 }")
 	private final IntegerInput maxNumber;
 
+	@Keyword(description = "If TRUE, entities destroyed by an EntitySink are kept and reused by this generator " +
+			"instead of creating new ones.  Only the inputs of a reused entity are reset from the prototype.",
+	         example = "EntityGenerator-1 RecycleEntities { TRUE }")
+	private final BooleanInput recycleEntities;
+
 	int numberGenerated = 0;  // Number of entities generated so far
+	private String namePrefix;  // Name prefix for the generated entities
 
 	{
 		firstArrivalTime = new SampleInput( "FirstArrivalTime", "Key Inputs", new SampleConstant(TimeUnit.class, 0.0));
@@ -70,6 +76,9 @@ public class EntityGenerator extends LinkedComponent {
 		maxNumber = new IntegerInput( "MaxNumber", "Key Inputs", null);
 		maxNumber.setValidRange(1, Integer.MAX_VALUE);
 		this.addInput( maxNumber);
+
+		recycleEntities = new BooleanInput( "RecycleEntities", "Key Inputs", false);
+		this.addInput( recycleEntities);
 	}
 
 	public EntityGenerator() {
@@ -97,6 +106,8 @@ public class EntityGenerator extends LinkedComponent {
 		super.earlyInit();
 
 		numberGenerated = 0;
+		namePrefix = null;
+		EntityPool.clear();
 	}
 
 	@Override
@@ -127,10 +138,13 @@ public class EntityGenerator extends LinkedComponent {
 		// Create the new entity
 		numberGenerated++;
 		DisplayEntity proto = prototypeEntity.getValue();
-		String name = String.format("Copy_of_%s-%s", proto.getInputName(), numberGenerated);
-		DisplayEntity ent = InputAgent.defineEntityWithUniqueName(proto.getClass(), name, true);
-		ent.copyInputs(proto);
-		ent.setFlag(Entity.FLAG_GENERATED);
+		if (namePrefix == null)
+			namePrefix = "Copy_of_" + proto.getInputName() + "-";
+		DisplayEntity ent;
+		if (recycleEntities.getValue())
+			ent = EntityPool.get(proto, namePrefix, numberGenerated);
+		else
+			ent = InputAgent.generateEntity(proto, namePrefix, numberGenerated);
 
 		// Send the entity to the next element in the chain
 		this.sendToNextComponent( ent );
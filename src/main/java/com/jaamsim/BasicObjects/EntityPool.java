@@ -0,0 +1,92 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.BasicObjects;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import com.jaamsim.input.InputAgent;
+import com.sandwell.JavaSimulation3D.DisplayEntity;
+
+/**
+ * EntityPool holds generated entities that have been killed so that they can
+ * be reused by an EntityGenerator with the same prototype. Only entities that
+ * were obtained from the pool are returned to it.
+ */
+class EntityPool {
+	// Prototype for each live entity obtained from the pool
+	private static final IdentityHashMap<DisplayEntity, DisplayEntity> protoMap;
+
+	// Killed entities available for reuse, keyed by prototype
+	private static final IdentityHashMap<DisplayEntity, ArrayList<DisplayEntity>> freeMap;
+
+	static {
+		protoMap = new IdentityHashMap<DisplayEntity, DisplayEntity>();
+		freeMap = new IdentityHashMap<DisplayEntity, ArrayList<DisplayEntity>>();
+	}
+
+	private EntityPool() {}
+
+	/**
+	 * Returns a copy of the given prototype, reusing a killed copy if one is
+	 * available. A reused entity has its inputs reset from the prototype, but
+	 * any other state it holds is left as it was when it was killed.
+	 */
+	static DisplayEntity get(DisplayEntity proto, String prefix, long num) {
+		DisplayEntity ent;
+		ArrayList<DisplayEntity> free = freeMap.get(proto);
+		if (free != null && !free.isEmpty()) {
+			ent = free.remove(free.size() - 1);
+			ent.restore();
+			ent.setLazyName(prefix, num);
+			ent.cloneInputs(proto);
+		}
+		else {
+			ent = InputAgent.generateEntity(proto, prefix, num);
+			if (ent == null)
+				return null;
+		}
+
+		protoMap.put(ent, proto);
+		return ent;
+	}
+
+	/**
+	 * Kills the given entity and, if it was obtained from the pool, keeps it
+	 * for reuse.
+	 */
+	static void release(DisplayEntity ent) {
+		ent.kill();
+
+		DisplayEntity proto = protoMap.remove(ent);
+		if (proto == null)
+			return;
+
+		ArrayList<DisplayEntity> free = freeMap.get(proto);
+		if (free == null) {
+			free = new ArrayList<DisplayEntity>();
+			freeMap.put(proto, free);
+		}
+		free.add(ent);
+	}
+
+	/**
+	 * Discards all the pooled entities.
+	 */
+	static void clear() {
+		protoMap.clear();
+		freeMap.clear();
+	}
+}
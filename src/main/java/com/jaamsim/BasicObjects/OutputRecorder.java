@@ -0,0 +1,252 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.BasicObjects;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.jaamsim.basicsim.ColumnFileWriter;
+import com.jaamsim.events.ProcessTarget;
+import com.jaamsim.input.InputAgent;
+import com.jaamsim.input.Keyword;
+import com.jaamsim.input.Output;
+import com.jaamsim.input.OutputHandle;
+import com.jaamsim.input.OutputListInput;
+import com.jaamsim.input.ValueInput;
+import com.jaamsim.units.DimensionlessUnit;
+import com.jaamsim.units.TimeUnit;
+import com.sandwell.JavaSimulation.BooleanInput;
+import com.sandwell.JavaSimulation.ErrorException;
+import com.sandwell.JavaSimulation.InputErrorException;
+import com.sandwell.JavaSimulation.IntegerInput;
+import com.sandwell.JavaSimulation.Simulation;
+import com.sandwell.JavaSimulation3D.DisplayEntity;
+
+/**
+ * OutputRecorder samples a list of outputs at a fixed interval and appends the
+ * values to a binary column file, one column per output. The file can be read
+ * back with ColumnFileReader. When more than one replication is run, each
+ * replication is written to its own file, numbered from 1.
+ */
+public class OutputRecorder extends DisplayEntity {
+
+	@Keyword(description = "The outputs to be recorded, each specified by an Entity and its Output. " +
+	                "Each output must return a number or a boolean value.",
+	         example = "OutputRecorder1 DataSource { { Queue1 QueueLength } { Server1 NumberProcessed } }")
+	private final OutputListInput<Object> dataSource;
+
+	@Keyword(description = "The simulated time between samples.",
+	         example = "OutputRecorder1 SamplingInterval { 1 min }")
+	private final ValueInput samplingInterval;
+
+	@Keyword(description = "If TRUE, a sample is recorded only if one or more of the outputs has " +
+	                "changed since the last sample that was recorded.",
+	         example = "OutputRecorder1 RecordOnChange { TRUE }")
+	private final BooleanInput recordOnChange;
+
+	@Keyword(description = "The number of samples that are buffered and written to the file together.",
+	         example = "OutputRecorder1 BlockSize { 4096 }")
+	private final IntegerInput blockSize;
+
+	private ColumnFileWriter writer;
+	private byte[] types;     // column type for each output
+	private long[] lastValues; // raw values of the last sample written
+	private boolean recorded; // true once a sample has been written
+
+	{
+		dataSource = new OutputListInput<Object>(Object.class, "DataSource", "Key Inputs", null);
+		this.addInput(dataSource);
+
+		samplingInterval = new ValueInput("SamplingInterval", "Key Inputs", 3600.0d);
+		samplingInterval.setUnitType(TimeUnit.class);
+		samplingInterval.setValidRange(1.0e-6d, Double.POSITIVE_INFINITY);
+		this.addInput(samplingInterval);
+
+		recordOnChange = new BooleanInput("RecordOnChange", "Key Inputs", false);
+		this.addInput(recordOnChange);
+
+		blockSize = new IntegerInput("BlockSize", "Key Inputs", 4096);
+		blockSize.setValidRange(1, 1 << 20);
+		this.addInput(blockSize);
+	}
+
+	public OutputRecorder() {}
+
+	private static byte getColumnType(Class<?> klass) {
+		if (klass == double.class || klass == Double.class ||
+		    klass == float.class  || klass == Float.class)
+			return ColumnFileWriter.TYPE_DOUBLE;
+
+		if (klass == long.class    || klass == Long.class    ||
+		    klass == int.class     || klass == Integer.class ||
+		    klass == short.class   || klass == Short.class   ||
+		    klass == char.class    || klass == Character.class ||
+		    klass == boolean.class || klass == Boolean.class)
+			return ColumnFileWriter.TYPE_LONG;
+
+		return 0;
+	}
+
+	@Override
+	public void validate() {
+		super.validate();
+
+		if (dataSource.getValue() == null || dataSource.getValue().isEmpty())
+			throw new InputErrorException("The keyword DataSource must be set.");
+
+		for (OutputHandle out : dataSource.getValue()) {
+			if (getColumnType(out.getReturnType()) == 0)
+				throw new InputErrorException("The output %s for %s does not return a number or a boolean value.",
+				                              out.getName(), out.ent.getInputName());
+		}
+	}
+
+	@Override
+	public void earlyInit() {
+		super.earlyInit();
+		this.closeFile();
+
+		ArrayList<OutputHandle> outs = dataSource.getValue();
+		String[] names = new String[outs.size()];
+		types = new byte[outs.size()];
+		for (int i = 0; i < outs.size(); i++) {
+			OutputHandle out = outs.get(i);
+			names[i] = out.ent.getInputName() + "." + out.getName();
+			types[i] = getColumnType(out.getReturnType());
+		}
+		lastValues = new long[outs.size()];
+		recorded = false;
+
+		String name = String.format("%s-%s", InputAgent.getRunName(), getName());
+		if (Simulation.getNumberOfReplications() > 1)
+			name = String.format("%s-rep%d", name, Simulation.getReplicationNumber() + 1);
+		String fileName = InputAgent.getReportFileName(name + ".col");
+		try {
+			writer = new ColumnFileWriter(new File(fileName), names, types, blockSize.getValue());
+		}
+		catch (IOException e) {
+			throw new ErrorException(e);
+		}
+	}
+
+	@Override
+	public void startUp() {
+		super.startUp();
+		this.doSample();
+	}
+
+	@Override
+	public void doEnd() {
+		super.doEnd();
+		this.closeFile();
+	}
+
+	private void closeFile() {
+		if (writer == null)
+			return;
+
+		try {
+			writer.close();
+		}
+		catch (IOException e) {
+			throw new ErrorException(e);
+		}
+		finally {
+			writer = null;
+		}
+	}
+
+	private static class SampleTarget extends ProcessTarget {
+		final OutputRecorder rec;
+
+		SampleTarget(OutputRecorder rec) {
+			this.rec = rec;
+		}
+
+		@Override
+		public String getDescription() {
+			return rec.getInputName() + ".doSample";
+		}
+
+		@Override
+		public void process() {
+			rec.doSample();
+		}
+	}
+
+	private final ProcessTarget sampleTarget = new SampleTarget(this);
+
+	/**
+	 * Records the present values of the outputs and schedules the next sample.
+	 */
+	void doSample() {
+		if (writer == null)
+			return;
+
+		this.recordSample(getSimTime());
+		scheduleProcess(samplingInterval.getValue(), 7, sampleTarget);
+	}
+
+	private void recordSample(double simTime) {
+		ArrayList<OutputHandle> outs = dataSource.getValue();
+		boolean changed = !recorded;
+		for (int i = 0; i < outs.size(); i++) {
+			long raw = getRawValue(outs.get(i), types[i], simTime);
+			if (raw != lastValues[i]) {
+				lastValues[i] = raw;
+				changed = true;
+			}
+		}
+
+		if (recordOnChange.getValue() && !changed)
+			return;
+
+		for (int i = 0; i < lastValues.length; i++)
+			writer.setLong(i, lastValues[i]);
+		writer.addRow(simTime);
+		recorded = true;
+	}
+
+	// Returns the value of an output in the form stored in its column
+	private static long getRawValue(OutputHandle out, byte type, double simTime) {
+		if (type == ColumnFileWriter.TYPE_DOUBLE)
+			return Double.doubleToRawLongBits(out.getDoubleValue(simTime));
+
+		Class<?> klass = out.getReturnType();
+		if (klass == boolean.class || klass == Boolean.class) {
+			Boolean val = (klass == boolean.class) ? out.getValue(simTime, boolean.class)
+			                                       : out.getValue(simTime, Boolean.class);
+			return (val != null && val.booleanValue()) ? 1L : 0L;
+		}
+
+		if (klass == long.class || klass == Long.class) {
+			Long val = (klass == long.class) ? out.getValue(simTime, long.class)
+			                                 : out.getValue(simTime, Long.class);
+			return val == null ? 0L : val.longValue();
+		}
+
+		return (long)out.getValueAsDouble(simTime, 0.0d);
+	}
+
+	@Output(name = "NumberRecorded",
+	 description = "The number of samples written to the file in the present run.",
+	    unitType = DimensionlessUnit.class)
+	public long getNumberRecorded(double simTime) {
+		if (writer == null)
+			return 0;
+		return writer.getRowCount();
+	}
+}
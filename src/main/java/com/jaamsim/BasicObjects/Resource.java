@@ -18,6 +18,7 @@ import java.util.ArrayList;
 
 import com.jaamsim.ProbabilityDistributions.Distribution;
 import com.jaamsim.Samples.SampleInput;
+import com.jaamsim.basicsim.TimeWeightedStatistic;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.Output;
 import com.jaamsim.units.DimensionlessUnit;
@@ -39,15 +40,11 @@ public class Resource extends DisplayEntity {
 	private ArrayList<Seize> seizeList;  // Seize objects that require this resource
 
 	//	Statistics
-	protected double timeOfLastUpdate; // time at which the statistics were last updated
-	protected double startOfStatisticsCollection; // time at which statistics collection was started
-	protected int minUnitsInUse; // minimum observed number of units in use
-	protected int maxUnitsInUse; // maximum observed number of units in use
-	protected double unitSeconds;  // total time that units have been used
-	protected double squaredUnitSeconds;  // total time for the square of the number of units in use
+	protected final TimeWeightedStatistic unitsInUseStats; // time-weighted statistics for the number of units in use
 	protected int unitsSeized;    // number of units that have been seized
 	protected int unitsReleased;  // number of units that have been released
-	protected DoubleVector unitsInUseDist;  // entry at position n is the total time that n units have been in use
+
+	private static final int MAX_UNITS_BINS = 1000;  // numbers of units beyond this are counted in the last bin
 
 	{
 		capacity = new SampleInput( "Capacity", "Key Inputs", null);
@@ -56,7 +53,7 @@ public class Resource extends DisplayEntity {
 	}
 
 	public Resource() {
-		unitsInUseDist = new DoubleVector();
+		unitsInUseStats = new TimeWeightedStatistic(MAX_UNITS_BINS);
 		seizeList = new ArrayList<Seize>();
 	}
 
@@ -110,9 +107,9 @@ public class Resource extends DisplayEntity {
 	 * @param n = number of units to seize
 	 */
 	public void seize(int n) {
-		this.updateStatistics(unitsInUse, unitsInUse+n);
 		unitsInUse += n;
 		unitsSeized += n;
+		this.updateStatistics();
 	}
 
 	/**
@@ -121,9 +118,9 @@ public class Resource extends DisplayEntity {
 	 */
 	public void release(int m) {
 		int n = Math.min(m, unitsInUse);
-		this.updateStatistics(unitsInUse, unitsInUse-n);
 		unitsInUse -= n;
 		unitsReleased += n;
+		this.updateStatistics();
 	}
 
 	/**
@@ -160,40 +157,20 @@ public class Resource extends DisplayEntity {
 	// *******************************************************************************************************
 
 	/**
-	 * Clear queue statistics
+	 * Clear resource statistics
 	 */
 	public void clearStatistics() {
-		double simTime = this.getSimTime();
-		startOfStatisticsCollection = simTime;
-		timeOfLastUpdate = simTime;
-		minUnitsInUse = unitsInUse;
-		maxUnitsInUse = unitsInUse;
-		unitSeconds = 0.0;
-		squaredUnitSeconds = 0.0;
+		unitsInUseStats.clear(this.getSimTime(), unitsInUse);
 		unitsSeized = 0;
 		unitsReleased = 0;
-		unitsInUseDist.clear();
 	}
 
-	public void updateStatistics( int oldValue, int newValue) {
-
-		minUnitsInUse = Math.min(newValue, minUnitsInUse);
-		maxUnitsInUse = Math.max(newValue, maxUnitsInUse);
-
-		// Add the necessary number of additional bins to the queue length distribution
-		int n = newValue + 1 - unitsInUseDist.size();
-		for( int i=0; i<n; i++ ) {
-			unitsInUseDist.add(0.0);
-		}
-
-		double simTime = this.getSimTime();
-		double dt = simTime - timeOfLastUpdate;
-		if( dt > 0.0 ) {
-			unitSeconds += dt * oldValue;
-			squaredUnitSeconds += dt * oldValue * oldValue;
-			unitsInUseDist.addAt(dt,oldValue);  // add dt to the entry at index queueSize
-			timeOfLastUpdate = simTime;
-		}
+	/**
+	 * Record the time spent with the previous number of units in use and
+	 * start the present one.  Called after each seize or release.
+	 */
+	public void updateStatistics() {
+		unitsInUseStats.update(this.getSimTime(), unitsInUse);
 	}
 
 	// ******************************************************************************************************
@@ -225,32 +202,21 @@ public class Resource extends DisplayEntity {
 	 description = "The average number of resource units that are in use.",
 	    unitType = DimensionlessUnit.class)
 	public double getUnitsInUseAverage(double simTime) {
-		double dt = simTime - timeOfLastUpdate;
-		double totalTime = simTime - startOfStatisticsCollection;
-		if( totalTime > 0.0 ) {
-			return (unitSeconds + dt*unitsInUse)/totalTime;
-		}
-		return 0.0;
+		return unitsInUseStats.getMean(simTime);
 	}
 
 	@Output(name = "UnitsInUseStandardDeviation",
 	 description = "The standard deviation of the number of resource units that are in use.",
 	    unitType = DimensionlessUnit.class)
 	public double getUnitsInUseStandardDeviation(double simTime) {
-		double dt = simTime - timeOfLastUpdate;
-		double mean = this.getUnitsInUseAverage(simTime);
-		double totalTime = simTime - startOfStatisticsCollection;
-		if( totalTime > 0.0 ) {
-			return Math.sqrt( (squaredUnitSeconds + dt*unitsInUse*unitsInUse)/totalTime - mean*mean );
-		}
-		return 0.0;
+		return unitsInUseStats.getStandardDeviation(simTime);
 	}
 
 	@Output(name = "UnitsInUseMinimum",
 	 description = "The minimum number of resource units that are in use.",
 	    unitType = DimensionlessUnit.class)
 	public int getUnitsInUseMinimum(double simTime) {
-		return minUnitsInUse;
+		return (int)unitsInUseStats.getMin();
 	}
 
 	@Output(name = "UnitsInUseMaximum",
@@ -259,29 +225,20 @@ public class Resource extends DisplayEntity {
 	public int getUnitsInUseMaximum(double simTime) {
 		// A unit that is seized and released immediately
 		// does not count as a non-zero maximum in use
-		if( maxUnitsInUse == 1 && unitsInUseDist.get(1) == 0.0 )
+		int max = (int)unitsInUseStats.getMax();
+		if( max == 1 && unitsInUseStats.getBinTime(1) == 0.0 )
 			return 0;
-		return maxUnitsInUse;
+		return max;
 	}
 
 	@Output(name = "UnitsInUseDistribution",
 	 description = "The fraction of time that the number of resource units in use was 0, 1, 2, etc.",
 	    unitType = DimensionlessUnit.class)
 	public DoubleVector getUnitsInUseDistribution(double simTime) {
-		DoubleVector ret = new DoubleVector(unitsInUseDist);
-		double dt = simTime - timeOfLastUpdate;
-		double totalTime = simTime - startOfStatisticsCollection;
-		if( totalTime > 0.0 ) {
-			if( ret.size() == 0 )
-				ret.add(0.0);
-			ret.addAt(dt, unitsInUse);  // adds dt to the entry at index unitsInUse
-			for( int i=0; i<ret.size(); i++ ) {
-				ret.set(i, ret.get(i)/totalTime);
-			}
-		}
-		else {
-			ret.clear();
-		}
+		double[] dist = unitsInUseStats.getDistribution(simTime);
+		DoubleVector ret = new DoubleVector(dist.length);
+		for (double each : dist)
+			ret.add(each);
 		return ret;
 	}
 
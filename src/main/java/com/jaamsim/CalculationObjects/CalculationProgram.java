@@ -0,0 +1,489 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.CalculationObjects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.jaamsim.Samples.SampleConstant;
+import com.jaamsim.Samples.SampleProvider;
+import com.jaamsim.math.RungeKutta45;
+import com.sandwell.JavaSimulation.DoubleVector;
+
+/**
+ * CalculationProgram is the network of calculations managed by a Controller,
+ * compiled into a flat list of operations on an array of values. Each
+ * calculation is performed once per update, after the calculations that
+ * provide its inputs, so an input is read from the array instead of being
+ * recalculated through getNextSample for every object that uses it.
+ * <p>
+ * Only networks made entirely of Lag, Integrator, WeightedSum and Polynomial
+ * objects, whose inputs are constants or other objects in the same network,
+ * can be compiled. The results are identical to those from calling update()
+ * for each object.
+ * <p>
+ * A continuous program treats the Lag and Integrator objects as differential
+ * equations instead, and solves them by an adaptive-step Runge-Kutta method.
+ * Each step ends early at the first time a calculated value crosses one of
+ * the given levels, so that the crossing can be acted on at the time it
+ * occurs.
+ */
+final class CalculationProgram implements RungeKutta45.Derivatives {
+	private static final int OP_LAG = 0;
+	private static final int OP_INTEGRATOR = 1;
+	private static final int OP_SUM = 2;
+	private static final int OP_POLYNOMIAL = 3;
+
+	private final int num;                   // number of calculations
+	private final DoubleCalculation[] ents;  // calculations in the order performed
+	private final int[] ops;                 // operation for each calculation
+	private final int[] in;                  // value slot for the input to each calculation
+	private final double[] param;            // LagTime, IntegralTime or Scale for each calculation
+	private final double[] initial;          // InitialValue for each Integrator
+	private final int[] argStart;            // first entry in coefs and args for each calculation
+	private final int[] argEnd;
+	private final double[] coefs;            // coefficients for WeightedSum and Polynomial objects
+	private final int[] args;                // value slots for the inputs to WeightedSum objects
+
+	private final double[] slots;            // calculated values, followed by the constants
+	private final double[] integral;         // state for Lag and Integrator objects
+	private final double[] presentValue;
+	private final double[] lastUpdateTime;
+
+	private final int[] state;               // index in y for Lag and Integrator objects in a continuous program, or -1
+	private final double[] y;                // state of a continuous program: Lag values and Integrator integrals
+	private final double[] yNext;            // state at the end of the step being taken
+	private final double[] yTrial;           // state while searching for a crossing
+	private final RungeKutta45 solver;
+	private double tolerance;                // error allowed in each step
+	private double time;                     // time for the state y
+	private double stepSize;                 // length for the next step
+	private int numSteps;                    // number of steps accepted
+
+	private int[] crossSlot;                 // value slot for each crossing
+	private double[] crossLevel;             // level for each crossing
+	private boolean[] above;                 // true if the value is above the level at the present time
+	private boolean[] crossed;               // true if the value is above the level at the time being tested
+
+	private CalculationProgram(ArrayList<DoubleCalculation> order, HashMap<SampleProvider, Integer> slotMap,
+	                           DoubleVector constants, boolean continuous, double startTime) {
+		num = order.size();
+		ents = order.toArray(new DoubleCalculation[num]);
+		ops = new int[num];
+		in = new int[num];
+		param = new double[num];
+		initial = new double[num];
+		argStart = new int[num];
+		argEnd = new int[num];
+
+		DoubleVector coefList = new DoubleVector();
+		ArrayList<Integer> argList = new ArrayList<Integer>();
+		for (int i = 0; i < num; i++) {
+			DoubleCalculation ent = ents[i];
+			argStart[i] = coefList.size();
+
+			if (ent instanceof Lag) {
+				ops[i] = OP_LAG;
+				in[i] = slotMap.get(ent.getInputProvider());
+				param[i] = ((Lag)ent).getLagTime();
+			}
+			else if (ent instanceof Integrator) {
+				ops[i] = OP_INTEGRATOR;
+				in[i] = slotMap.get(ent.getInputProvider());
+				param[i] = ((Integrator)ent).getIntegralTimeProvider().getNextSample(0.0d);
+				initial[i] = ((Integrator)ent).getInitialValue();
+			}
+			else if (ent instanceof WeightedSum) {
+				ops[i] = OP_SUM;
+				WeightedSum sum = (WeightedSum)ent;
+				DoubleVector c = sum.getCoefficients();
+				for (int j = 0; j < c.size(); j++) {
+					coefList.add(c.get(j));
+					argList.add(slotMap.get(sum.getInputList().get(j)));
+				}
+			}
+			else {
+				ops[i] = OP_POLYNOMIAL;
+				Polynomial poly = (Polynomial)ent;
+				in[i] = slotMap.get(ent.getInputProvider());
+				param[i] = poly.getScaleProvider().getNextSample(0.0d);
+				DoubleVector c = poly.getCoefficients();
+				for (int j = 0; j < c.size(); j++) {
+					coefList.add(c.get(j));
+					argList.add(-1);
+				}
+			}
+			argEnd[i] = coefList.size();
+		}
+
+		coefs = coefList.toArray();
+		args = new int[argList.size()];
+		for (int i = 0; i < args.length; i++)
+			args[i] = argList.get(i);
+
+		slots = new double[num + constants.size()];
+		for (int i = 0; i < constants.size(); i++)
+			slots[num + i] = constants.get(i);
+
+		// The same starting state as set by earlyInit
+		integral = new double[num];
+		presentValue = new double[num];
+		lastUpdateTime = new double[num];
+		Arrays.fill(lastUpdateTime, startTime);
+
+		state = new int[num];
+		int numStates = 0;
+		for (int i = 0; i < num; i++) {
+			if (continuous && (ops[i] == OP_LAG || ops[i] == OP_INTEGRATOR))
+				state[i] = numStates++;
+			else
+				state[i] = -1;
+		}
+		y = new double[numStates];
+		yNext = new double[numStates];
+		yTrial = new double[numStates];
+		solver = continuous ? new RungeKutta45(numStates) : null;
+		tolerance = 1.0e-6d;
+		time = startTime;
+		stepSize = 0.0d;
+		numSteps = 0;
+		this.setCrossings(new DoubleCalculation[0], new double[0]);
+	}
+
+	/**
+	 * Returns the compiled form of the given calculations, or null if the
+	 * calculations cannot be compiled and must be updated individually.
+	 * @param continuous - TRUE if the Lag and Integrator objects are to be
+	 * solved as differential equations, which allows them to be part of a loop
+	 * @param startTime - the simulation time in seconds at which the program starts
+	 */
+	static CalculationProgram compile(ArrayList<CalculationEntity> list, boolean continuous, double startTime) {
+		ArrayList<DoubleCalculation> calcs = new ArrayList<DoubleCalculation>(list.size());
+		HashMap<SampleProvider, Integer> index = new HashMap<SampleProvider, Integer>();
+		for (CalculationEntity each : list) {
+			if (!isCompilable(each))
+				return null;
+			index.put((DoubleCalculation)each, calcs.size());
+			calcs.add((DoubleCalculation)each);
+		}
+
+		// Find the calculations that use the value of each calculation
+		int n = calcs.size();
+		int[] numInputs = new int[n];
+		ArrayList<ArrayList<Integer>> users = new ArrayList<ArrayList<Integer>>(n);
+		for (int i = 0; i < n; i++)
+			users.add(new ArrayList<Integer>());
+
+		HashMap<SampleProvider, Integer> slotMap = new HashMap<SampleProvider, Integer>();
+		DoubleVector constants = new DoubleVector();
+		for (int i = 0; i < n; i++) {
+			DoubleCalculation calc = calcs.get(i);
+			for (SampleProvider each : getInputs(calc)) {
+				if (each instanceof SampleConstant) {
+					if (!slotMap.containsKey(each)) {
+						slotMap.put(each, n + constants.size());
+						constants.add(each.getNextSample(0.0d));
+					}
+					continue;
+				}
+
+				// Any other input must be calculated by this program
+				Integer j = index.get(each);
+				if (j == null)
+					return null;
+
+				// The value of a continuous Lag or Integrator is set by its state, not its input
+				if (continuous && (calc instanceof Lag || calc instanceof Integrator))
+					continue;
+
+				users.get(j).add(i);
+				numInputs[i]++;
+			}
+		}
+
+		// Order the calculations so that each follows its inputs, keeping the
+		// sequence order where there is a choice
+		ArrayList<DoubleCalculation> order = new ArrayList<DoubleCalculation>(n);
+		boolean[] done = new boolean[n];
+		while (order.size() < n) {
+			int next = -1;
+			for (int i = 0; i < n; i++) {
+				if (!done[i] && numInputs[i] == 0) {
+					next = i;
+					break;
+				}
+			}
+
+			// A loop cannot be compiled, each calculation uses the last value of the others
+			if (next == -1)
+				return null;
+
+			done[next] = true;
+			for (int each : users.get(next))
+				numInputs[each]--;
+
+			slotMap.put(calcs.get(next), order.size());
+			order.add(calcs.get(next));
+		}
+
+		return new CalculationProgram(order, slotMap, constants, continuous, startTime);
+	}
+
+	private static boolean isCompilable(CalculationEntity ent) {
+		Class<?> klass = ent.getClass();
+		if (klass != Lag.class && klass != Integrator.class &&
+		    klass != WeightedSum.class && klass != Polynomial.class)
+			return false;
+
+		if (ent instanceof Integrator)
+			return ((Integrator)ent).getIntegralTimeProvider() instanceof SampleConstant;
+		if (ent instanceof Polynomial)
+			return ((Polynomial)ent).getScaleProvider() instanceof SampleConstant;
+		return true;
+	}
+
+	private static ArrayList<SampleProvider> getInputs(DoubleCalculation ent) {
+		if (ent instanceof WeightedSum)
+			return ((WeightedSum)ent).getInputList();
+
+		ArrayList<SampleProvider> ret = new ArrayList<SampleProvider>(1);
+		ret.add(ent.getInputProvider());
+		return ret;
+	}
+
+	int getNumCalculations() {
+		return num;
+	}
+
+	/**
+	 * Performs every calculation for the given time and stores the results in
+	 * the calculation objects.
+	 */
+	void update(double simTime) {
+		for (int i = 0; i < num; i++) {
+			double val;
+			switch (ops[i]) {
+			case OP_LAG: {
+				double dt = simTime - lastUpdateTime[i];
+				double error = slots[in[i]] - presentValue[i];
+				val = ( integral[i] + error*dt ) / param[i];
+				integral[i] += error * dt;
+				presentValue[i] = val;
+				lastUpdateTime[i] = simTime;
+				break;
+			}
+			case OP_INTEGRATOR: {
+				double dt = simTime - lastUpdateTime[i];
+				double x = slots[in[i]];
+				val = ( integral[i] + x * dt )/param[i]  +  initial[i];
+				integral[i] += x * dt;
+				lastUpdateTime[i] = simTime;
+				break;
+			}
+			default:
+				val = this.calcAlgebraic(i);
+				break;
+			}
+			slots[i] = val;
+		}
+
+		this.store();
+	}
+
+	// Returns the value of a WeightedSum or Polynomial from the present values of its inputs
+	private double calcAlgebraic(int i) {
+		if (ops[i] == OP_SUM) {
+			double val = 0.0;
+			for (int j = argStart[i]; j < argEnd[i]; j++)
+				val += coefs[j] * slots[args[j]];
+			return val;
+		}
+
+		double x = slots[in[i]] / param[i];
+		double pow = 1.0;
+		double val = 0.0;
+		for (int j = argStart[i]; j < argEnd[i]; j++) {
+			val += coefs[j] * pow;
+			pow *= x;
+		}
+		return val;
+	}
+
+	/**
+	 * Stores the present results in the calculation objects, where they are
+	 * read by the objects outside this program.
+	 */
+	void store() {
+		for (int i = 0; i < num; i++) {
+			ents[i].setValue(slots[i]);
+			if (ops[i] == OP_LAG)
+				((Lag)ents[i]).setState(integral[i], presentValue[i], lastUpdateTime[i]);
+			else if (ops[i] == OP_INTEGRATOR)
+				((Integrator)ents[i]).setState(integral[i], lastUpdateTime[i]);
+		}
+	}
+
+	// ********************************************************************************
+	// Continuous programs
+	// ********************************************************************************
+
+	void setTolerance(double tol) {
+		tolerance = tol;
+	}
+
+	/**
+	 * Sets the levels at which a step is ended when a calculated value crosses
+	 * them. Each entity must be one of the calculations in this program.
+	 */
+	void setCrossings(DoubleCalculation[] calcs, double[] levels) {
+		crossSlot = new int[calcs.length];
+		crossLevel = levels.clone();
+		above = new boolean[calcs.length];
+		crossed = new boolean[calcs.length];
+		for (int k = 0; k < calcs.length; k++) {
+			crossSlot[k] = -1;
+			for (int i = 0; i < num; i++) {
+				if (ents[i] == calcs[k])
+					crossSlot[k] = i;
+			}
+		}
+
+		if (solver != null)
+			this.calcValues(y);
+		this.isCrossed(above);
+	}
+
+	double getTime() {
+		return time;
+	}
+
+	int getNumSteps() {
+		return numSteps;
+	}
+
+	double getValue(DoubleCalculation calc) {
+		for (int i = 0; i < num; i++) {
+			if (ents[i] == calc)
+				return slots[i];
+		}
+		return Double.NaN;
+	}
+
+	// Sets the value slots from the given state
+	private void calcValues(double[] st) {
+		for (int i = 0; i < num; i++) {
+			switch (ops[i]) {
+			case OP_LAG:
+				slots[i] = st[state[i]];
+				break;
+			case OP_INTEGRATOR:
+				slots[i] = st[state[i]]/param[i]  +  initial[i];
+				break;
+			default:
+				slots[i] = this.calcAlgebraic(i);
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void calcDerivatives(double t, double[] st, double[] dydt) {
+		this.calcValues(st);
+		for (int i = 0; i < num; i++) {
+			if (ops[i] == OP_LAG)
+				dydt[state[i]] = ( slots[in[i]] - st[state[i]] ) / param[i];
+			else if (ops[i] == OP_INTEGRATOR)
+				dydt[state[i]] = slots[in[i]];
+		}
+	}
+
+	// Returns true if any value has crossed its level since the present time,
+	// based on the values in the slots
+	private boolean isCrossed(boolean[] flags) {
+		boolean ret = false;
+		for (int k = 0; k < crossSlot.length; k++) {
+			flags[k] = crossSlot[k] >= 0 && slots[crossSlot[k]] > crossLevel[k];
+			if (flags[k] != above[k])
+				ret = true;
+		}
+		return ret;
+	}
+
+	/**
+	 * Takes one step of a continuous program, and returns the time at the end
+	 * of the step. The step is no longer than maxStep, and is shortened so
+	 * that it ends within minStep after the first crossing of a level. The
+	 * results are not stored in the calculation objects until store() is
+	 * called.
+	 */
+	double step(double maxStep, double minStep) {
+		double h = stepSize;
+		if (h <= 0.0d || h > maxStep)
+			h = maxStep;
+		h = Math.max(h, minStep);
+
+		// Reduce the step until it is accurate enough
+		double err;
+		while (true) {
+			err = solver.step(this, time, y, h, yNext, tolerance);
+			if (err <= 1.0d || h <= minStep)
+				break;
+			h = Math.max(minStep, RungeKutta45.getNextStepSize(h, err));
+		}
+		stepSize = RungeKutta45.getNextStepSize(h, err);
+
+		// Find the first crossing by bisection, each trial being a single step
+		// from the start that is shorter than the one just accepted
+		this.calcValues(yNext);
+		if (this.isCrossed(crossed)) {
+			double lo = 0.0d;
+			double hi = h;
+			while (hi - lo > minStep) {
+				double mid = 0.5d * (lo + hi);
+				solver.step(this, time, y, mid, yTrial, tolerance);
+				this.calcValues(yTrial);
+				if (this.isCrossed(crossed)) {
+					hi = mid;
+					System.arraycopy(yTrial, 0, yNext, 0, y.length);
+				}
+				else {
+					lo = mid;
+				}
+			}
+			h = hi;
+		}
+
+		// Accept the step
+		time += h;
+		numSteps++;
+		System.arraycopy(yNext, 0, y, 0, y.length);
+		this.calcValues(y);
+		this.isCrossed(above);
+
+		for (int i = 0; i < num; i++) {
+			if (ops[i] == OP_LAG) {
+				presentValue[i] = y[state[i]];
+				integral[i] = y[state[i]] * param[i];
+				lastUpdateTime[i] = time;
+			}
+			else if (ops[i] == OP_INTEGRATOR) {
+				integral[i] = y[state[i]];
+				lastUpdateTime[i] = time;
+			}
+		}
+		return time;
+	}
+}
@@ -18,10 +18,16 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 
+import com.jaamsim.Thresholds.SignalThreshold;
+import com.jaamsim.events.Process;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.ValueInput;
+import com.jaamsim.units.DimensionlessUnit;
 import com.jaamsim.units.TimeUnit;
+import com.sandwell.JavaSimulation.BooleanInput;
+import com.sandwell.JavaSimulation.DoubleVector;
 import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.ErrorException;
 import com.sandwell.JavaSimulation3D.DisplayEntity;
 
 /**
@@ -35,7 +41,22 @@ public class Controller extends DisplayEntity {
 	         example = "Controller1 SamplingTime { 100 ms }")
 	private final ValueInput samplingTime;
 
+	@Keyword(description = "If TRUE, the Lag and Integrator objects managed by the Controller are solved as differential equations " +
+			"by an adaptive-step Runge-Kutta method, instead of being updated every SamplingTime. " +
+			"The calculations are updated at the end of each step, which is no longer than SamplingTime. " +
+			"A step ends early at the time the Signal for a SignalThreshold crosses one of its limits.\n" +
+			"The calculations must be Lag, Integrator, WeightedSum, or Polynomial objects whose inputs are constants or other calculations managed by the Controller.",
+	         example = "Controller1 AdaptiveStep { TRUE }")
+	private final BooleanInput adaptiveStep;
+
+	@Keyword(description = "The error allowed in each step when AdaptiveStep is TRUE. " +
+			"The error is relative to the calculated value, or absolute for values less than one.",
+	         example = "Controller1 Tolerance { 1.0e-8 }")
+	private final ValueInput tolerance;
+
 	private final ArrayList<CalculationEntity> calculationEntityList;  // List of the CalculationEntities controller by this Controller.
+	private final ArrayList<SignalThreshold> thresholdList;  // List of the SignalThresholds for these CalculationEntities.
+	private CalculationProgram program;  // Compiled form of the calculations, or null if they cannot be compiled
 	private int count;  // Number of times that the controller has initiated its calculations.
 
 	{
@@ -43,16 +64,26 @@ public class Controller extends DisplayEntity {
 		samplingTime.setUnitType(TimeUnit.class);
 		samplingTime.setValidRange(0.0, Double.POSITIVE_INFINITY);
 		this.addInput(samplingTime);
+
+		adaptiveStep = new BooleanInput("AdaptiveStep", "Key Inputs", false);
+		this.addInput(adaptiveStep);
+
+		tolerance = new ValueInput("Tolerance", "Key Inputs", 1.0e-6d);
+		tolerance.setUnitType(DimensionlessUnit.class);
+		tolerance.setValidRange(1.0e-15, 1.0);
+		this.addInput(tolerance);
 	}
 
 	public Controller() {
 		calculationEntityList = new ArrayList<CalculationEntity>();
+		thresholdList = new ArrayList<SignalThreshold>();
 	}
 
 	@Override
 	public void earlyInit() {
 		super.earlyInit();
 		count = 0;
+		program = null;
 
 		// Prepare a list of the calculation entities managed by this controller
 		calculationEntityList.clear();
@@ -63,6 +94,13 @@ public class Controller extends DisplayEntity {
 
 		// Sort the calculation entities into the correct sequence
 		Collections.sort(calculationEntityList, new SequenceCompare());
+
+		// Prepare a list of the thresholds that are checked after each update
+		thresholdList.clear();
+		for (SignalThreshold th : Entity.getClonesOfIterator(SignalThreshold.class)) {
+			if (th.getSignal() != null && th.getSignal().getController() == this)
+				thresholdList.add(th);
+		}
 	}
 
 	// Sorts by increasing sequence number
@@ -77,6 +115,14 @@ public class Controller extends DisplayEntity {
 	public void startUp() {
 		super.startUp();
 
+		// Compile the calculations once every entity has been initialised
+		program = CalculationProgram.compile(calculationEntityList, adaptiveStep.getValue(), this.getSimTime());
+
+		if (adaptiveStep.getValue()) {
+			this.runAdaptiveStep();
+			return;
+		}
+
 		//Loop infinitely over the calculation entities
 		while( true ) {
 
@@ -85,15 +131,63 @@ public class Controller extends DisplayEntity {
 
 			// Update the last value for each entity
 			double simTime = this.getSimTime();
-			for( CalculationEntity ent : calculationEntityList ) {
-				ent.update(simTime);
+			if( program != null ) {
+				program.update(simTime);
+			}
+			else {
+				for( CalculationEntity ent : calculationEntityList ) {
+					ent.update(simTime);
+				}
 			}
 
+			this.updateThresholds();
+
 			// Increment the number of cycles
 			count++;
 		}
 	}
 
+	private void runAdaptiveStep() {
+		if (program == null)
+			throw new ErrorException("The calculations for Controller %s cannot be solved with AdaptiveStep. " +
+					"Only Lag, Integrator, WeightedSum, and Polynomial objects with inputs from the same Controller can be used.", this.getName());
+
+		// Each limit of a threshold is a level that ends a step
+		ArrayList<DoubleCalculation> calcs = new ArrayList<DoubleCalculation>();
+		DoubleVector levels = new DoubleVector();
+		for (SignalThreshold th : thresholdList) {
+			if (th.getMaxOpenLimit() != Double.POSITIVE_INFINITY) {
+				calcs.add(th.getSignal());
+				levels.add(th.getMaxOpenLimit());
+			}
+			if (th.getMinOpenLimit() != Double.NEGATIVE_INFINITY) {
+				calcs.add(th.getSignal());
+				levels.add(th.getMinOpenLimit());
+			}
+		}
+		program.setTolerance(tolerance.getValue());
+		program.setCrossings(calcs.toArray(new DoubleCalculation[calcs.size()]), levels.toArray());
+
+		// Steps are no shorter than one clock tick
+		double minStep = Process.ticksToSeconds(1);
+		while( true ) {
+			double time = program.step(samplingTime.getValue(), minStep);
+
+			// Wait until the end of the step, which may include a crossing
+			this.simWait( time - this.getSimTime() );
+
+			program.store();
+			this.updateThresholds();
+			count++;
+		}
+	}
+
+	private void updateThresholds() {
+		for (SignalThreshold th : thresholdList) {
+			th.doOpenClose();
+		}
+	}
+
 	public int getCount() {
 		return count;
 	}
@@ -100,7 +100,14 @@ implements SampleProvider {
 	@Override
 	public void earlyInit() {
 		super.earlyInit();
-		value = 0.0;
+		value = this.getStartValue();
+	}
+
+	/*
+	 * Return the value held by this calculation from earlyInit until its first update.
+	 */
+	public double getStartValue() {
+		return 0.0;
 	}
 
 	/*
@@ -110,6 +117,13 @@ implements SampleProvider {
 		return value;
 	}
 
+	/*
+	 * Store a value calculated by the Controller's CalculationProgram.
+	 */
+	void setValue(double val) {
+		value = val;
+	}
+
 	protected abstract double calculateValue(double simTime);
 
 	@Override
@@ -165,6 +179,10 @@ implements SampleProvider {
 		return value;
 	}
 
+	SampleProvider getInputProvider() {
+		return inputValue.getValue();
+	}
+
 	public double getInputValue( double simTime ) {
 		return inputValue.getValue().getNextSample(simTime);
 	}
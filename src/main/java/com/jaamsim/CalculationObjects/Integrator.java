@@ -17,6 +17,7 @@ package com.jaamsim.CalculationObjects;
 import com.jaamsim.ProbabilityDistributions.Distribution;
 import com.jaamsim.Samples.SampleConstant;
 import com.jaamsim.Samples.SampleInput;
+import com.jaamsim.Samples.SampleProvider;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.ValueInput;
 import com.jaamsim.ui.FrameBox;
@@ -90,4 +91,17 @@ public class Integrator extends DoubleCalculation {
 		lastUpdateTime = simTime;
 	}
 
+	SampleProvider getIntegralTimeProvider() {
+		return integralTime.getValue();
+	}
+
+	double getInitialValue() {
+		return initialValue.getValue();
+	}
+
+	void setState(double integral, double lastUpdateTime) {
+		this.integral = integral;
+		this.lastUpdateTime = lastUpdateTime;
+	}
+
 }
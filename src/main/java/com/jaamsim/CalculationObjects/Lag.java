@@ -69,6 +69,16 @@ public class Lag extends DoubleCalculation {
 		lastUpdateTime = simTime;
 	}
 
+	double getLagTime() {
+		return lagTime.getValue();
+	}
+
+	void setState(double integral, double presentValue, double lastUpdateTime) {
+		this.integral = integral;
+		this.presentValue = presentValue;
+		this.lastUpdateTime = lastUpdateTime;
+	}
+
 	@Output(name = "Error",
 	 description = "The value for InputValue - OutputValue.")
 	public double getError( double simTime ) {
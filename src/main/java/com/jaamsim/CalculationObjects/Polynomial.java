@@ -17,6 +17,7 @@ package com.jaamsim.CalculationObjects;
 import com.jaamsim.ProbabilityDistributions.Distribution;
 import com.jaamsim.Samples.SampleConstant;
 import com.jaamsim.Samples.SampleInput;
+import com.jaamsim.Samples.SampleProvider;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.ValueListInput;
 import com.jaamsim.ui.FrameBox;
@@ -81,4 +82,12 @@ public class Polynomial extends DoubleCalculation {
 		return val;
 	}
 
+	DoubleVector getCoefficients() {
+		return coefficientList.getValue();
+	}
+
+	SampleProvider getScaleProvider() {
+		return scale.getValue();
+	}
+
 }
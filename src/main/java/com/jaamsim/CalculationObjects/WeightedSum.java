@@ -14,7 +14,10 @@
  */
 package com.jaamsim.CalculationObjects;
 
+import java.util.ArrayList;
+
 import com.jaamsim.Samples.SampleListInput;
+import com.jaamsim.Samples.SampleProvider;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.ValueListInput;
 import com.jaamsim.ui.FrameBox;
@@ -83,4 +86,12 @@ public class WeightedSum extends DoubleCalculation {
 		return val;
 	}
 
+	ArrayList<SampleProvider> getInputList() {
+		return inputValueList.getValue();
+	}
+
+	DoubleVector getCoefficients() {
+		return coefficientList.getValue();
+	}
+
 }
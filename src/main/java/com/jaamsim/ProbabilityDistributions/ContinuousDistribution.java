@@ -43,6 +43,8 @@ public class ContinuousDistribution extends Distribution {
 	private final DoubleListInput cumulativeProbabilityListInput;
 
 	private final MRG1999a rng = new MRG1999a();
+	private double[] cumProbs;  // cumulative probabilities from the CumulativeProbabilityList
+	private double[] values;  // values from the ValueList
 
 	{
 		valueListInput = new ValueListInput("ValueList", "Key Inputs", null);
@@ -89,6 +91,9 @@ public class ContinuousDistribution extends Distribution {
 	public void earlyInit() {
 		super.earlyInit();
 		rng.setSeedStream(getStreamNumber(), getSubstreamNumber());
+
+		cumProbs = cumulativeProbabilityListInput.getValue().toArray();
+		values = valueListInput.getValue().toArray();
 	}
 
 	@Override
@@ -101,17 +106,26 @@ public class ContinuousDistribution extends Distribution {
 	protected double getNextSample() {
 
 		double rand = rng.nextUniform();
-		DoubleVector cumList = cumulativeProbabilityListInput.getValue();
-		for( int i=1; i<cumList.size(); i++) {
-			if( rand < cumList.get(i) ) {
-				double cum = cumList.get(i);
-				double lastCum = cumList.get(i-1);
-				double val = valueListInput.getValue().get(i);
-				double lastVal = valueListInput.getValue().get(i-1);
-				return lastVal + (rand-lastCum)*(val-lastVal)/(cum-lastCum);
-			}
+
+		// Binary search for the first cumulative probability greater than rand
+		int low = 1;
+		int high = cumProbs.length - 1;
+		if( rand >= cumProbs[high] )
+			return values[high];
+
+		while( low < high ) {
+			int mid = (low + high) >>> 1;
+			if( rand < cumProbs[mid] )
+				high = mid;
+			else
+				low = mid + 1;
 		}
-		return valueListInput.getValue().get( cumList.size()-1 );
+
+		double cum = cumProbs[low];
+		double lastCum = cumProbs[low-1];
+		double val = values[low];
+		double lastVal = values[low-1];
+		return lastVal + (rand-lastCum)*(val-lastVal)/(cum-lastCum);
 	}
 
 	@Override
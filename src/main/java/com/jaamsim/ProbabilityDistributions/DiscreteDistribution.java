@@ -16,11 +16,11 @@ package com.jaamsim.ProbabilityDistributions;
 
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.ValueListInput;
+import com.jaamsim.rng.AliasTable;
 import com.jaamsim.rng.MRG1999a;
 import com.jaamsim.units.Unit;
 import com.jaamsim.units.UserSpecifiedUnit;
 import com.sandwell.JavaSimulation.DoubleListInput;
-import com.sandwell.JavaSimulation.DoubleVector;
 import com.sandwell.JavaSimulation.InputErrorException;
 
 /**
@@ -42,6 +42,8 @@ public class DiscreteDistribution extends Distribution {
 	private final DoubleListInput probabilityListInput;
 
 	private final MRG1999a rng = new MRG1999a();
+	private AliasTable aliasTable;  // index sampler built from the ProbabilityList
+	private double[] values;  // values from the ValueList
 
 	{
 		valueListInput = new ValueListInput( "ValueList", "Key Inputs", null);
@@ -69,6 +71,9 @@ public class DiscreteDistribution extends Distribution {
 	public void earlyInit() {
 		super.earlyInit();
 		rng.setSeedStream(getStreamNumber(), getSubstreamNumber());
+
+		aliasTable = new AliasTable(probabilityListInput.getValue().toArray());
+		values = valueListInput.getValue().toArray();
 	}
 
 	@Override
@@ -80,16 +85,12 @@ public class DiscreteDistribution extends Distribution {
 	@Override
 	protected double getNextSample() {
 
-		double rand = rng.nextUniform();
-		double cumProb = 0.0;
-		DoubleVector probList = probabilityListInput.getValue();
-		for( int i=0; i<probList.size(); i++) {
-			cumProb += probList.get(i);
-			if( rand <= cumProb ) {
-				return valueListInput.getValue().get(i);
-			}
+		// The tables are built in earlyInit, or here if sampled before then
+		if( aliasTable == null ) {
+			aliasTable = new AliasTable(probabilityListInput.getValue().toArray());
+			values = valueListInput.getValue().toArray();
 		}
-		return valueListInput.getValue().get( probList.size()-1 );
+		return values[ aliasTable.getIndex(rng.nextUniform()) ];
 	}
 
 	@Override
@@ -27,6 +27,7 @@ import com.jaamsim.units.UserSpecifiedUnit;
 import com.sandwell.JavaSimulation.Input;
 import com.sandwell.JavaSimulation.InputErrorException;
 import com.sandwell.JavaSimulation.IntegerInput;
+import com.sandwell.JavaSimulation.Simulation;
 import com.sandwell.JavaSimulation3D.DisplayEntity;
 
 /**
@@ -96,6 +97,12 @@ implements SampleProvider {
 		if( maxValueInput.getValue() <= minValueInput.getValue() ) {
 			throw new InputErrorException( "The input for MaxValue must be greater than that for MinValue.");
 		}
+
+		// The substreams for the last replication must be representable
+		long numReps = Simulation.getNumberOfReplications();
+		if( globalSeedInput.getValue() * numReps + numReps - 1 > Integer.MAX_VALUE ) {
+			throw new InputErrorException( "The input for GlobalSubstreamSeed is too large for the NumberOfReplications.");
+		}
 	}
 
 	@Override
@@ -148,8 +155,13 @@ implements SampleProvider {
 		return randomSeedInput.getValue();
 	}
 
+	/**
+	 * Returns the substream for the present replication. Each global seed owns
+	 * a block of NumberOfReplications substreams, so that the replications for
+	 * one seed never share a substream with those for another.
+	 */
 	protected int getSubstreamNumber() {
-		return globalSeedInput.getValue();
+		return globalSeedInput.getValue() * Simulation.getNumberOfReplications() + Simulation.getReplicationNumber();
 	}
 
 	/**
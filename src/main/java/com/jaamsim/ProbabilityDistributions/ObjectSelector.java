@@ -39,7 +39,6 @@ public abstract class ObjectSelector extends DisplayEntity {
 	private int presentIndex;  // the index for entity that has been selected at present
 	private int totalCount;  // the total number of samples that have been selected
 	private int[] sampleCount;  // number of times each entity has been selected
-	private double[] sampleDifference;  // (actual number of samples) - (expected number)
 
 	{
 		entityListInput = new EntityListInput<DisplayEntity>( DisplayEntity.class, "EntityList", "Key Inputs", null);
@@ -76,7 +75,6 @@ public abstract class ObjectSelector extends DisplayEntity {
 		presentIndex = -1;
 		totalCount = 0;
 		sampleCount = new int[ entityListInput.getValue().size() ];
-		sampleDifference = new double[ entityListInput.getValue().size() ];
 	}
 
 	/**
@@ -90,9 +88,6 @@ public abstract class ObjectSelector extends DisplayEntity {
 		// Collect statistics on the sampled values
 		totalCount++;
 		sampleCount[presentIndex]++;
-		for(int i=0; i<sampleCount.length; i++) {
-			sampleDifference[i] = sampleCount[i] - totalCount*probabilityListInput.getValue().get(i);
-		}
 	}
 
 	/**
@@ -120,6 +115,8 @@ public abstract class ObjectSelector extends DisplayEntity {
 	}
 
 	public int getSampleCount( int i ) {
+		if( sampleCount == null )
+			return 0;
 		return sampleCount[i];
 	}
 
@@ -136,12 +133,23 @@ public abstract class ObjectSelector extends DisplayEntity {
 	@Output( name="SampleCount",
 			 description="The number samples for each entity.")
 	public int[] getSampleCount( double simTime ) {
+		if( sampleCount == null )
+			return new int[0];
 		return sampleCount;
 	}
 
 	@Output( name="SampleDifference",
 			 description="The difference between the actual number samples for each entity and the expected number.")
 	public double[] getSampleDifference( double simTime ) {
+		// No samples are counted until earlyInit
+		if( sampleCount == null )
+			return new double[0];
+
+		// (actual number of samples) - (expected number)
+		double[] sampleDifference = new double[ sampleCount.length ];
+		for(int i=0; i<sampleCount.length; i++) {
+			sampleDifference[i] = sampleCount[i] - totalCount*probabilityListInput.getValue().get(i);
+		}
 		return sampleDifference;
 	}
 }
@@ -0,0 +1,171 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.Thresholds;
+
+import java.util.Arrays;
+
+import com.jaamsim.math.LookupCursor;
+import com.sandwell.JavaSimulation.Tester;
+
+/**
+ * IntervalIndex holds the times at which a threshold's limits are crossed as
+ * a sorted list of alternating open and closed intervals. The intervals cover
+ * either a single cycle that repeats forever, or all time when nothing cycles.
+ * Lookups find the interval holding a given time with a LookupCursor, so
+ * the queries made by TimeSeriesThreshold do not step through every change
+ * in the time series.
+ * <p>
+ * Times are in hours and include the threshold's offset. The first interval
+ * starts at zero.
+ */
+final class IntervalIndex {
+	private final double cycle;      // length of the cycle, or POSITIVE_INFINITY
+	private final double[] starts;   // start of each interval within the cycle
+	private final boolean[] closed;  // true if the interval is closed
+	private final int num;
+	private final int[] nextLongOpen; // index of the next open interval that is long enough, or -1
+	private final LookupCursor cursor;
+
+	/**
+	 * @param cycle - the length of the cycle, or POSITIVE_INFINITY
+	 * @param starts - the start of each interval, beginning at zero
+	 * @param closed - the state of each interval, alternating between entries
+	 * @param num - the number of intervals
+	 * @param lookAhead - the time a threshold must remain open to be considered open
+	 */
+	IntervalIndex(double cycle, double[] starts, boolean[] closed, int num, double lookAhead) {
+		this.cycle = cycle;
+		this.starts = Arrays.copyOf(starts, num);
+		this.closed = Arrays.copyOf(closed, num);
+		this.num = num;
+		cursor = new LookupCursor();
+
+		// Mark the open intervals that last for at least the look ahead time
+		nextLongOpen = new int[num];
+		int next = -1;
+		for (int i = num - 1; i >= 0; i--) {
+			if (!closed[i] && this.isStart(i) && this.getNextChange(i, 0.0d) - starts[i] >= lookAhead)
+				next = i;
+			nextLongOpen[i] = next;
+		}
+	}
+
+	int getNumIntervals() {
+		return num;
+	}
+
+	// Returns true if the state changes at the start of the given interval
+	private boolean isStart(int i) {
+		if (i > 0)
+			return true;
+		if (cycle == Double.POSITIVE_INFINITY)
+			return true;
+		return num > 1 && closed[num - 1] != closed[0];
+	}
+
+	// Returns the number of cycles completed at the given time, in the same way as TimeSeries
+	private double getCompletedCycles(double time) {
+		if (cycle == Double.POSITIVE_INFINITY)
+			return 0.0d;
+
+		double completedCycles = Math.floor(time / cycle);
+		if (Tester.equalCheckTolerance(time - completedCycles * cycle, cycle))
+			completedCycles++;
+		return completedCycles;
+	}
+
+	private double getTimeInCycle(double time) {
+		if (cycle == Double.POSITIVE_INFINITY)
+			return time;
+
+		double timeInCycle = time - Math.floor(time / cycle) * cycle;
+		if (Tester.equalCheckTolerance(timeInCycle, cycle))
+			return 0.0d;
+		return timeInCycle;
+	}
+
+	// Returns the interval holding the given time within the cycle
+	private int getIndex(double timeInCycle) {
+		int i = cursor.floorIndex(starts, num, timeInCycle);
+
+		// A time within one tick of the next interval is treated as part of it
+		if (i + 1 < num && Tester.equalCheckTimeStep(timeInCycle, starts[i + 1]))
+			return i + 1;
+		return i;
+	}
+
+	// Returns the time at which the state next changes after the given interval
+	private double getNextChange(int i, double completedCycles) {
+		if (i + 1 < num)
+			return starts[i + 1] + this.getCycleOffset(completedCycles);
+
+		if (cycle == Double.POSITIVE_INFINITY)
+			return Double.POSITIVE_INFINITY;
+
+		// Carry on into the next cycle, where the first interval may continue the last one
+		if (closed[0] != closed[i])
+			return starts[0] + (completedCycles + 1) * cycle;
+		if (num > 1)
+			return starts[1] + (completedCycles + 1) * cycle;
+		return Double.POSITIVE_INFINITY;
+	}
+
+	private double getCycleOffset(double completedCycles) {
+		if (cycle == Double.POSITIVE_INFINITY)
+			return 0.0d;
+		return completedCycles * cycle;
+	}
+
+	/**
+	 * Returns true if the index covers the given time.
+	 */
+	boolean covers(double time) {
+		return time >= 0.0d;
+	}
+
+	/**
+	 * Returns true if the threshold's limits are crossed at the given time.
+	 */
+	boolean isPointClosed(double time) {
+		return closed[this.getIndex(this.getTimeInCycle(time))];
+	}
+
+	/**
+	 * Returns the first time after the given time at which the threshold's
+	 * limits go from being crossed to not crossed, or the reverse.
+	 */
+	double getNextChangeAfter(double time) {
+		int i = this.getIndex(this.getTimeInCycle(time));
+		return this.getNextChange(i, this.getCompletedCycles(time));
+	}
+
+	/**
+	 * Returns the start of the first open interval after the given time that
+	 * lasts for at least the look ahead time, or POSITIVE_INFINITY if there is
+	 * none.
+	 */
+	double getNextLongOpenAfter(double time) {
+		int i = this.getIndex(this.getTimeInCycle(time));
+		double completedCycles = this.getCompletedCycles(time);
+
+		if (i + 1 < num && nextLongOpen[i + 1] >= 0)
+			return starts[nextLongOpen[i + 1]] + this.getCycleOffset(completedCycles);
+
+		if (cycle == Double.POSITIVE_INFINITY || nextLongOpen[0] < 0)
+			return Double.POSITIVE_INFINITY;
+
+		return starts[nextLongOpen[0]] + (completedCycles + 1) * cycle;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.Thresholds;
+
+import com.jaamsim.CalculationObjects.DoubleCalculation;
+import com.jaamsim.input.Keyword;
+import com.jaamsim.input.ValueInput;
+import com.jaamsim.units.UserSpecifiedUnit;
+import com.sandwell.JavaSimulation.EntityInput;
+import com.sandwell.JavaSimulation.Input;
+import com.sandwell.JavaSimulation.InputErrorException;
+
+/**
+ * SignalThreshold is closed while the value of a calculation is outside its
+ * limits. The threshold is checked by the calculation's Controller each time
+ * the calculation is updated. A Controller with AdaptiveStep set ends a step
+ * at the time the value crosses a limit, so the threshold opens or closes at
+ * the time of the crossing instead of at the next update.
+ */
+public class SignalThreshold extends Threshold {
+
+	@Keyword(description = "The calculation whose value is compared with the limits.  " +
+			"The calculation must be updated by a Controller.",
+	         example = "Threshold1  Signal { Lag1 }")
+	private final EntityInput<DoubleCalculation> signal;
+
+	@Keyword(description = "The limit over which the threshold is closed.  " +
+			"The limit must be specified after the signal and " +
+			"will use the same unit type as the signal.",
+	         example = "Threshold1  MaxOpenLimit { 2.0 m }")
+	private final ValueInput maxOpenLimit;
+
+	@Keyword(description = "The limit under which the threshold is closed.  " +
+			"The limit must be specified after the signal and " +
+			"will use the same unit type as the signal.",
+	         example = "Threshold1  MinOpenLimit { 2.0 m }")
+	private final ValueInput minOpenLimit;
+
+	{
+		signal = new EntityInput<DoubleCalculation>( DoubleCalculation.class, "Signal", "Key Inputs", null);
+		this.addInput( signal);
+
+		maxOpenLimit = new ValueInput( "MaxOpenLimit", "Key Inputs", Double.POSITIVE_INFINITY );
+		maxOpenLimit.setUnitType(UserSpecifiedUnit.class);
+		this.addInput( maxOpenLimit );
+
+		minOpenLimit = new ValueInput( "MinOpenLimit", "Key Inputs", Double.NEGATIVE_INFINITY );
+		minOpenLimit.setUnitType(UserSpecifiedUnit.class);
+		this.addInput( minOpenLimit );
+	}
+
+	@Override
+	public void updateForInput( Input<?> in ) {
+		super.updateForInput( in );
+
+		if (in == signal) {
+			if (signal.getValue() == null)
+				return;
+			maxOpenLimit.setUnitType(signal.getValue().getUnitType());
+			minOpenLimit.setUnitType(signal.getValue().getUnitType());
+		}
+	}
+
+	@Override
+	public void validate() throws InputErrorException {
+		super.validate();
+
+		if( signal.getValue() == null )
+			throw new InputErrorException( "Missing Signal" );
+
+		if( signal.getValue().getController() == null )
+			throw new InputErrorException( "The Controller keyword must be set for the Signal %s", signal.getValue().getInputName() );
+
+		if( minOpenLimit.getValue() > maxOpenLimit.getValue() )
+			throw new InputErrorException( "MaxOpenLimit must be larger than MinOpenLimit" );
+	}
+
+	@Override
+	public void earlyInit() {
+		super.earlyInit();
+
+		// Start in the state for the signal's starting value, so that the
+		// threshold users see the right state whatever order they start in
+		closed = this.isClosedForValue(signal.getValue().getStartValue());
+	}
+
+	public DoubleCalculation getSignal() {
+		return signal.getValue();
+	}
+
+	public double getMaxOpenLimit() {
+		return maxOpenLimit.getValue();
+	}
+
+	public double getMinOpenLimit() {
+		return minOpenLimit.getValue();
+	}
+
+	/**
+	 * Return TRUE if the threshold is closed for the given value of the signal.
+	 */
+	public boolean isClosedForValue( double val ) {
+		return val > maxOpenLimit.getValue() || val < minOpenLimit.getValue();
+	}
+
+	/**
+	 * Sets the state of the threshold from the present value of the signal,
+	 * and notifies the threshold users if it has changed.
+	 */
+	@Override
+	public void doOpenClose() {
+		boolean bool = this.isClosedForValue( signal.getValue().getValue() );
+		if( bool == closed )
+			return;
+
+		this.setClosed(bool);
+		if( traceFlag ) this.trace( bool ? "Closed" : "Open" );
+		for( ThresholdUser user : userList ) {
+			if (!userUpdate.users.contains(user))
+				userUpdate.users.add(user);
+			if( bool )
+				user.thresholdClosed();
+			else
+				user.thresholdOpen();
+		}
+		if (!userUpdate.users.isEmpty())
+			this.scheduleSingleProcess(userUpdate, 2);
+	}
+
+	@Override
+	public double calcClosedTimeFromTime( double startTime ) {
+
+		// The future value of the signal is not known
+		if( closed )
+			return Double.POSITIVE_INFINITY;
+		return 0.0;
+	}
+}
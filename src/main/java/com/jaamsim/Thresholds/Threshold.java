@@ -16,9 +16,12 @@ package com.jaamsim.Thresholds;
 
 import java.util.ArrayList;
 
+import com.jaamsim.basicsim.TimeWeightedStatistic;
 import com.jaamsim.events.ProcessTarget;
 import com.jaamsim.input.Keyword;
+import com.jaamsim.input.Output;
 import com.jaamsim.math.Color4d;
+import com.jaamsim.units.DimensionlessUnit;
 import com.sandwell.JavaSimulation.BooleanInput;
 import com.sandwell.JavaSimulation.ColourInput;
 import com.sandwell.JavaSimulation.Entity;
@@ -50,9 +53,7 @@ public abstract class Threshold extends DisplayEntity {
 
 	protected boolean closed;
 
-	protected double simTimeOfLastUpdate; // Simulation time in seconds of last update
-	protected double openSimTime; // Number of seconds open
-	protected double closedSimTime; // Number of seconds closed
+	protected final TimeWeightedStatistic closedStats; // time-weighted statistics for the closed state, 1 if closed
 
 	{
 		openColour = new ColourInput( "OpenColour", "Graphics", ColourInput.GREEN );
@@ -72,6 +73,7 @@ public abstract class Threshold extends DisplayEntity {
 
 	public Threshold() {
 		userList = new ArrayList<ThresholdUser>();
+		closedStats = new TimeWeightedStatistic(2);
 	}
 
 	@Override
@@ -81,12 +83,9 @@ public abstract class Threshold extends DisplayEntity {
 		closed = false;
 
 		userList.clear();
-		for (Entity each : Entity.getAll()) {
-			if (each instanceof ThresholdUser) {
-				ThresholdUser tu = (ThresholdUser)each;
-				if (tu.getThresholds().contains(this))
-					userList.add(tu);
-			}
+		for (ThresholdUser tu : Entity.getClonesOf(ThresholdUser.class)) {
+			if (tu.getThresholds().contains(this))
+				userList.add(tu);
 		}
 	}
 
@@ -123,6 +122,14 @@ public abstract class Threshold extends DisplayEntity {
 		return closed;
 	}
 
+	/**
+	 * Sets the state of the threshold and records the time spent in the previous state.
+	 */
+	protected void setClosed(boolean bool) {
+		closed = bool;
+		closedStats.update(getSimTime(), closed ? 1.0d : 0.0d);
+	}
+
 	public abstract double calcClosedTimeFromTime( double startTime );
 
 	@Override
@@ -154,18 +161,7 @@ public abstract class Threshold extends DisplayEntity {
     // ********************************************************************************
 
 	public void clearStatistics() {
-		openSimTime = 0.0;
-		closedSimTime = 0.0;
-		simTimeOfLastUpdate = getSimTime();
-	}
-
-	public void update() {
-		if( closed )
-			closedSimTime += getSimTime() - simTimeOfLastUpdate;
-		else
-			openSimTime += getSimTime() - simTimeOfLastUpdate;
-
-		simTimeOfLastUpdate = getSimTime();
+		closedStats.clear(getSimTime(), closed ? 1.0d : 0.0d);
 	}
 
 	/**
@@ -181,20 +177,32 @@ public abstract class Threshold extends DisplayEntity {
 	 * Print the threshold name and percentage of time open and closed
 	 */
 	public void printUtilizationOn( FileEntity anOut ) {
-		this.update();
-
-		double totalSimTime = openSimTime + closedSimTime;
-		if (totalSimTime == 0.0d)
+		double simTime = getSimTime();
+		if (closedStats.getTotalTime(simTime) == 0.0d)
 			return;
 
 		anOut.format( "%s\t", getName() );
 
 		// Print percentage of time open
-		double fraction = openSimTime/totalSimTime;
-		anOut.format("%.1f%%\t", fraction * 100.0d);
+		anOut.format("%.1f%%\t", this.getOpenFraction(simTime) * 100.0d);
 
 		// Print percentage of time closed
-		fraction = closedSimTime/totalSimTime;
-		anOut.format("%.1f%%\t", fraction * 100.0d);
+		anOut.format("%.1f%%\t", this.getClosedFraction(simTime) * 100.0d);
+	}
+
+	@Output(name = "OpenFraction",
+	 description = "The fraction of time that the threshold has been open.",
+	    unitType = DimensionlessUnit.class)
+	public double getOpenFraction(double simTime) {
+		if (closedStats.getTotalTime(simTime) == 0.0d)
+			return 0.0d;
+		return 1.0d - closedStats.getMean(simTime);
+	}
+
+	@Output(name = "ClosedFraction",
+	 description = "The fraction of time that the threshold has been closed.",
+	    unitType = DimensionlessUnit.class)
+	public double getClosedFraction(double simTime) {
+		return closedStats.getMean(simTime);
 	}
 }
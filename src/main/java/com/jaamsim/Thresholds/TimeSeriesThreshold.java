@@ -14,6 +14,8 @@
  */
 package com.jaamsim.Thresholds;
 
+import java.util.Arrays;
+
 import com.jaamsim.events.Process;
 import com.jaamsim.events.ProcessTarget;
 import com.jaamsim.input.InputAgent;
@@ -24,8 +26,12 @@ import com.jaamsim.units.TimeUnit;
 import com.jaamsim.units.Unit;
 import com.jaamsim.units.UserSpecifiedUnit;
 import com.sandwell.JavaSimulation.EntityTarget;
+import com.sandwell.JavaSimulation.ErrorException;
 import com.sandwell.JavaSimulation.Input;
 import com.sandwell.JavaSimulation.InputErrorException;
+import com.sandwell.JavaSimulation.Tester;
+import com.sandwell.JavaSimulation.TimeSeries;
+import com.sandwell.JavaSimulation.TimeSeriesConstantDouble;
 import com.sandwell.JavaSimulation.TimeSeriesInput;
 import com.sandwell.JavaSimulation.TimeSeriesProvider;
 
@@ -84,9 +90,12 @@ public class TimeSeriesThreshold extends Threshold {
 		this.addInput( offset );
 	}
 
+	private IntervalIndex intervals; // open and closed intervals, or null if they have not been laid out
+
 	@Override
 	public void updateForInput( Input<?> in ) {
 		super.updateForInput( in );
+		intervals = null;
 
 		if (in == unitType) {
 			timeSeries.setUnitType(this.getUnitType());
@@ -125,10 +134,113 @@ public class TimeSeriesThreshold extends Threshold {
 			InputAgent.logWarning( "Threshold %s is closed forever.  MinOpenLimit = %f Min TimeSeries Value = %f", this, this.getMaxMinOpenLimit(), this.getTimeSeries().getMinValue() );
 	}
 
+	@Override
+	public void earlyInit() {
+		super.earlyInit();
+		this.buildIntervals();
+	}
+
 	public Class<? extends Unit> getUnitType() {
 		return unitType.getUnitType();
 	}
 
+	/**
+	 * Lays out the open and closed intervals over one cycle of the time series
+	 * and limits. No intervals are built if the inputs do not share a common
+	 * cycle, in which case each query steps through the time series.
+	 */
+	void buildIntervals() {
+		intervals = null;
+
+		double cycle = this.getCommonCycleInHours();
+		if (Double.isNaN(cycle))
+			return;
+
+		double[] starts = new double[16];
+		boolean[] states = new boolean[16];
+		int num = 0;
+		try {
+			double time = 0.0d;
+			while (true) {
+				// Leave inconsistent limits to be reported when the time is reached
+				if (this.getMinOpenLimitForTimeHours(time) > this.getMaxOpenLimitForTimeHours(time))
+					return;
+
+				// Only keep the times at which the state changes
+				boolean state = this.isPointClosed(time);
+				if (num == 0 || state != states[num - 1]) {
+					if (num == starts.length) {
+						starts = Arrays.copyOf(starts, num * 2);
+						states = Arrays.copyOf(states, num * 2);
+					}
+					starts[num] = time;
+					states[num] = state;
+					num++;
+				}
+
+				time = this.getNextChangeTimeAfterHours(time);
+				if (time == Double.POSITIVE_INFINITY || time >= cycle || Tester.equalCheckTolerance(time, cycle))
+					break;
+			}
+		}
+		catch (ErrorException e) {
+			// The series do not have values for the whole cycle
+			return;
+		}
+
+		intervals = new IntervalIndex(cycle, starts, states, num, this.getLookAheadInHours());
+	}
+
+	boolean hasIntervals() {
+		return intervals != null;
+	}
+
+	/**
+	 * Returns the cycle time in hours shared by the time series and limits,
+	 * POSITIVE_INFINITY if none of them cycle, or NaN if there is no single
+	 * cycle over which the intervals repeat.
+	 */
+	private double getCommonCycleInHours() {
+		TimeSeriesProvider[] list = { timeSeries.getValue(), maxOpenLimit.getValue(), minOpenLimit.getValue() };
+		double cycle = Double.POSITIVE_INFINITY;
+		boolean changesOnce = false; // true if an input changes but does not cycle
+		for (TimeSeriesProvider each : list) {
+			if (each == null || each instanceof TimeSeriesConstantDouble)
+				continue;
+
+			if (!(each instanceof TimeSeries))
+				return Double.NaN;
+
+			double eachCycle = ((TimeSeries)each).getCycleTimeInHours();
+			if (eachCycle == Double.POSITIVE_INFINITY) {
+				if (each.getNextChangeTimeAfterHours(0.0d) != Double.POSITIVE_INFINITY)
+					changesOnce = true;
+				continue;
+			}
+
+			if (cycle != Double.POSITIVE_INFINITY && eachCycle != cycle)
+				return Double.NaN;
+			cycle = eachCycle;
+		}
+
+		if (changesOnce && cycle != Double.POSITIVE_INFINITY)
+			return Double.NaN;
+
+		return cycle;
+	}
+
+	/**
+	 * Returns TRUE if the threshold is open for the whole of the given
+	 * duration starting at the given time.
+	 * @param time - The time in hours
+	 * @param duration - The duration in hours
+	 */
+	public boolean isOpenForHours( double time, double duration ) {
+		if( this.isClosedAtTime(time) )
+			return false;
+		return this.calcOpenTimeFromTime(time) >= duration;
+	}
+
 	private static class DoOpenCloseTarget extends EntityTarget<Threshold> {
 		public DoOpenCloseTarget(Threshold ent, String method) {
 			super(ent, method);
@@ -143,10 +255,9 @@ public class TimeSeriesThreshold extends Threshold {
 	private final ProcessTarget doOpenClose = new DoOpenCloseTarget(this, "doOpenClose");
 	@Override
 	public void doOpenClose() {
-		this.update();
 		double wait;
 		if( this.isClosedAtTime( getCurrentTime() ) ) {
-			closed = true;
+			this.setClosed(true);
 			if( traceFlag ) this.trace( "Closed" );
 			for( ThresholdUser user : userList ) {
 				if (!userUpdate.users.contains(user))
@@ -158,7 +269,7 @@ public class TimeSeriesThreshold extends Threshold {
 			wait = this.calcClosedTimeFromTime( getCurrentTime() );
 		}
 		else {
-			closed = false;
+			this.setClosed(false);
 			if( traceFlag ) this.trace( "Open" );
 			for( ThresholdUser user : userList ) {
 				if (!userUpdate.users.contains(user))
@@ -185,6 +296,15 @@ public class TimeSeriesThreshold extends Threshold {
 		// Add offset from input
 		time += this.getOffsetInHours();
 
+		IntervalIndex index = intervals;
+		if (index != null && index.covers(time)) {
+			if (index.isPointClosed(time))
+				return true;
+
+			// Open unless the next closed point is within the look ahead time
+			return (index.getNextChangeAfter(time) - this.getLookAheadInHours()) < time;
+		}
+
 		double changeTime = time;
 
 		// if the current point is closed, we are done
@@ -231,6 +351,14 @@ public class TimeSeriesThreshold extends Threshold {
 		startTime += this.getOffsetInHours();
 
 		// Threshold is currently closed. Find the next open point
+		IntervalIndex index = intervals;
+		if (index != null && index.covers(startTime)) {
+			double openTime = index.getNextLongOpenAfter(startTime);
+			if (openTime == Double.POSITIVE_INFINITY)
+				return Double.POSITIVE_INFINITY;
+			return openTime - startTime;
+		}
+
 		double openTime = -1;
 		double changeTime = startTime;
 		double maxTimeValueFromTimeSeries = this.getMaxTimeValueFromTimeSeries();
@@ -378,6 +506,15 @@ public class TimeSeriesThreshold extends Threshold {
 		// Add offset from input
 		startTime += this.getOffsetInHours();
 
+		// The threshold is open, so the next change is to a closed point
+		IntervalIndex index = intervals;
+		if (index != null && index.covers(startTime)) {
+			double changeTime = index.getNextChangeAfter(startTime);
+			if (changeTime == Double.POSITIVE_INFINITY)
+				return Double.POSITIVE_INFINITY;
+			return Math.max(changeTime - this.getLookAheadInHours() - startTime, Process.getEventTolerance());
+		}
+
 		// Find the next change point after startTime
 		double changeTime = startTime;
 		double maxTimeValueFromTimeSeries = this.getMaxTimeValueFromTimeSeries();
@@ -443,14 +580,8 @@ public class TimeSeriesThreshold extends Threshold {
 	 */
 	public boolean isPointClosed( double time ) {
 		double value = this.getTimeSeries().getValueForTimeHours(time);
-
-		double minOpenLimitVal = Double.NEGATIVE_INFINITY;
-		if (minOpenLimit.getValue() != null)
-			minOpenLimitVal = minOpenLimit.getValue().getValueForTimeHours(time);
-
-		double maxOpenLimitVal = Double.POSITIVE_INFINITY;
-		if (maxOpenLimit.getValue() != null)
-			maxOpenLimitVal = maxOpenLimit.getValue().getValueForTimeHours(time);
+		double minOpenLimitVal = this.getMinOpenLimitForTimeHours(time);
+		double maxOpenLimitVal = this.getMaxOpenLimitForTimeHours(time);
 
 		// Error check that threshold limits remain consistent
 		if (minOpenLimitVal > maxOpenLimitVal)
@@ -466,4 +597,18 @@ public class TimeSeriesThreshold extends Threshold {
 		return false;
 	}
 
+	private double getMinOpenLimitForTimeHours( double time ) {
+		if (minOpenLimit.getValue() == null)
+			return Double.NEGATIVE_INFINITY;
+
+		return minOpenLimit.getValue().getValueForTimeHours(time);
+	}
+
+	private double getMaxOpenLimitForTimeHours( double time ) {
+		if (maxOpenLimit.getValue() == null)
+			return Double.POSITIVE_INFINITY;
+
+		return maxOpenLimit.getValue().getValueForTimeHours(time);
+	}
+
 }
@@ -0,0 +1,248 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+import com.sandwell.JavaSimulation.ErrorException;
+
+/**
+ * AsyncLogWriter is an OutputStream that hands each write to a background
+ * thread, which gathers them into large writes to the underlying stream. The
+ * writing thread only copies the bytes into a ring buffer, so a slow disk does
+ * not hold up the simulation.
+ * <p>
+ * The ring buffer has a single producer and a single consumer and is
+ * coordinated through two volatile counters without locking. When the buffer
+ * is full, the producer waits for the background thread to catch up. flush()
+ * only wakes the background thread; sync() waits until everything written so
+ * far has reached the underlying stream. Writes must not be made from more
+ * than one thread at the same time.
+ */
+public class AsyncLogWriter extends OutputStream {
+	private static final int BUFFER_SIZE = 256 * 1024;
+	private static final long WAIT_NANOS = 10000000L; // longest wait before polling again
+
+	private static final ArrayList<AsyncLogWriter> openWriters = new ArrayList<AsyncLogWriter>();
+
+	private final OutputStream out;
+	private final byte[][] ring;
+	private final int mask;
+	private final Thread thread;
+
+	private volatile long tail;   // count of records added, written by the producer only
+	private volatile long head;   // count of records taken, written by the consumer only
+	private volatile long synced; // count of records written and flushed to the stream
+	private volatile boolean idle;   // true while the consumer is waiting for records
+	private volatile boolean closed;
+	private volatile IOException error;
+
+	/**
+	 * @param out - the stream to be written by the background thread
+	 * @param capacity - the number of writes that can be held before the writer waits
+	 */
+	public AsyncLogWriter(OutputStream out, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive");
+
+		this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+		int len = 1;
+		while (len < capacity)
+			len <<= 1;
+		ring = new byte[len][];
+		mask = ring.length - 1;
+
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				AsyncLogWriter.this.drain();
+			}
+		}, "AsyncLogWriter");
+		thread.setDaemon(true);
+		thread.start();
+
+		synchronized (openWriters) {
+			openWriters.add(this);
+		}
+	}
+
+	/**
+	 * Waits until every open writer has written its records to its stream.
+	 */
+	public static void syncAll() {
+		AsyncLogWriter[] writers;
+		synchronized (openWriters) {
+			writers = openWriters.toArray(new AsyncLogWriter[openWriters.size()]);
+		}
+		for (AsyncLogWriter each : writers) {
+			try {
+				each.sync();
+			}
+			catch (IOException e) {}
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		this.put(new byte[] { (byte)b });
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return;
+		this.put(Arrays.copyOfRange(b, off, off + len));
+	}
+
+	private void put(byte[] rec) throws IOException {
+		this.checkOpen();
+
+		long t = tail;
+		while (t - head >= ring.length) {
+			LockSupport.unpark(thread);
+			LockSupport.parkNanos(this, WAIT_NANOS);
+			this.checkOpen();
+		}
+
+		ring[(int)t & mask] = rec;
+		tail = t + 1;
+		if (idle)
+			LockSupport.unpark(thread);
+	}
+
+	private void checkOpen() throws IOException {
+		if (error != null)
+			throw error;
+		if (closed)
+			throw new IOException("AsyncLogWriter is closed");
+	}
+
+	/**
+	 * Asks the background thread to write the pending records without waiting
+	 * for it to do so.
+	 */
+	@Override
+	public void flush() throws IOException {
+		this.checkOpen();
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Waits until the records written so far have been written and flushed to
+	 * the underlying stream.
+	 */
+	public void sync() throws IOException {
+		long t = tail;
+		while (synced < t && error == null && thread.isAlive()) {
+			LockSupport.unpark(thread);
+			LockSupport.parkNanos(this, WAIT_NANOS);
+		}
+		if (error != null)
+			throw error;
+	}
+
+	/**
+	 * Writes the pending records, stops the background thread and closes the
+	 * underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+
+		synchronized (openWriters) {
+			openWriters.remove(this);
+		}
+
+		closed = true;
+		LockSupport.unpark(thread);
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			throw new ErrorException(e);
+		}
+
+		if (error != null)
+			throw error;
+	}
+
+	// Body of the background thread
+	private void drain() {
+		boolean dirty = false;
+		while (true) {
+			long h = head;
+			long t = tail;
+			if (h == t) {
+				if (dirty) {
+					this.flushStream();
+					dirty = false;
+				}
+				synced = h;
+
+				if (closed && tail == h)
+					break;
+
+				idle = true;
+				if (tail == h && !closed)
+					LockSupport.parkNanos(this, WAIT_NANOS);
+				idle = false;
+				continue;
+			}
+
+			for (; h < t; h++) {
+				int i = (int)h & mask;
+				byte[] rec = ring[i];
+				ring[i] = null;
+				if (error != null)
+					continue;
+
+				try {
+					out.write(rec);
+				}
+				catch (IOException e) {
+					error = e;
+				}
+			}
+			head = h;
+			dirty = true;
+		}
+
+		try {
+			out.close();
+		}
+		catch (IOException e) {
+			if (error == null)
+				error = e;
+		}
+	}
+
+	private void flushStream() {
+		if (error != null)
+			return;
+
+		try {
+			out.flush();
+		}
+		catch (IOException e) {
+			error = e;
+		}
+	}
+}
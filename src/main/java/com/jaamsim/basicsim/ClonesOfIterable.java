@@ -22,51 +22,29 @@ import com.sandwell.JavaSimulation.Entity;
 
 public class ClonesOfIterable<T extends Entity> implements Iterable<T>, Iterator<T> {
 
-	private final ArrayList<? extends Entity> allInstances = Entity.getAll();
+	private final ArrayList<? extends InstanceList<? extends Entity>> cloneLists;
 	private final Class<T> entClass;
-	private int curPos;
-	private int nextPos;
+	private final int[] pos; // position of the next entry in each list
 
 	public ClonesOfIterable(Class<T> aClass) {
 		entClass = aClass;
-		curPos = -1;
-		nextPos = -1;
-	}
-
-	private void updatePos() {
-		if (nextPos >= allInstances.size())
-			return;
-
-		while (++nextPos < allInstances.size()) {
-			// If we find a match, break out
-			if ( entClass.isAssignableFrom(allInstances.get(nextPos).getClass()))
-				break;
-		}
+		cloneLists = Entity.getCloneLists(aClass);
+		pos = new int[cloneLists.size()];
 	}
 
 	@Override
 	public boolean hasNext() {
-		if (curPos == nextPos)
-			updatePos();
-
-		if (nextPos < allInstances.size())
-			return true;
-		else
-			return false;
+		return Entity.nextClone(cloneLists, pos) >= 0;
 	}
 
 	@Override
 	public T next() {
-		if (curPos == nextPos)
-			updatePos();
-
-		if (nextPos < allInstances.size()) {
-			curPos = nextPos;
-			return entClass.cast(allInstances.get(curPos));
-		}
-		else {
+		// Merge the lists for each class so that clones are returned in order of creation
+		int listPos = Entity.nextClone(cloneLists, pos);
+		if (listPos >= 0)
+			return entClass.cast(cloneLists.get(listPos).get(pos[listPos]++));
+		else
 			throw new NoSuchElementException();
-		}
 	}
 
 	@Override
@@ -0,0 +1,244 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.sandwell.JavaSimulation.ErrorException;
+
+/**
+ * ColumnFileReader provides random access to the rows of a file written by
+ * ColumnFileWriter. Blocks are mapped into memory one at a time as they are
+ * reached, so files larger than the address space of a single mapping can be
+ * read.
+ */
+public class ColumnFileReader {
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+
+	private final String[] names;
+	private final byte[] types;
+	private final long rowCount;
+
+	private final int numBlocks;
+	private final long[] blockOffsets;
+	private final long[] blockFirstRows; // index of the first row in each block
+	private final int[] blockSizes;
+	private final double[] blockTimes;
+
+	private int curBlock; // block that is currently mapped, or -1
+	private MappedByteBuffer curMap;
+
+	public ColumnFileReader(File file) throws IOException {
+		raf = new RandomAccessFile(file, "r");
+		channel = raf.getChannel();
+
+		try {
+			ByteBuffer buf = this.read(0, 32);
+			if (buf.getInt() != ColumnFileWriter.MAGIC)
+				throw new IOException("Not a column file: " + file);
+			int version = buf.getInt();
+			if (version != ColumnFileWriter.VERSION)
+				throw new IOException("Unsupported column file version: " + version);
+			long indexOffset = buf.getLong();
+			rowCount = buf.getLong();
+			buf.getInt(); // rows per block, only needed by the writer
+			int numCols = buf.getInt();
+			if (indexOffset == 0L)
+				throw new IOException("Column file was not closed: " + file);
+
+			names = new String[numCols];
+			types = new byte[numCols];
+			long pos = 32;
+			for (int i = 0; i < numCols; i++) {
+				buf = this.read(pos, 3);
+				types[i] = buf.get();
+				int len = buf.getShort() & 0xFFFF;
+				names[i] = new String(this.read(pos + 3, len).array(), ColumnFileWriter.UTF8);
+				pos += 3 + len;
+			}
+
+			numBlocks = this.read(indexOffset, 4).getInt();
+			blockOffsets = new long[numBlocks];
+			blockFirstRows = new long[numBlocks];
+			blockSizes = new int[numBlocks];
+			blockTimes = new double[numBlocks];
+			buf = this.read(indexOffset + 4, 20 * numBlocks);
+			long firstRow = 0;
+			for (int i = 0; i < numBlocks; i++) {
+				blockOffsets[i] = buf.getLong();
+				blockSizes[i] = buf.getInt();
+				blockTimes[i] = buf.getDouble();
+				blockFirstRows[i] = firstRow;
+				firstRow += blockSizes[i];
+			}
+		}
+		catch (IOException e) {
+			raf.close();
+			throw e;
+		}
+
+		curBlock = -1;
+	}
+
+	private ByteBuffer read(long pos, int len) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(len);
+		while (buf.hasRemaining()) {
+			if (channel.read(buf, pos + buf.position()) < 0)
+				throw new IOException("Unexpected end of column file");
+		}
+		buf.flip();
+		return buf;
+	}
+
+	public int getColumnCount() {
+		return names.length;
+	}
+
+	public String getColumnName(int col) {
+		return names[col];
+	}
+
+	public byte getColumnType(int col) {
+		return types[col];
+	}
+
+	/**
+	 * Returns the index of the given column name, or -1 if there is no such column.
+	 */
+	public int getColumnIndex(String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name))
+				return i;
+		}
+		return -1;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	// Returns the block containing the given row
+	private int getBlock(long row) {
+		if (row < 0 || row >= rowCount)
+			throw new IndexOutOfBoundsException("Row: " + row + ", Rows: " + rowCount);
+
+		if (curBlock >= 0 && row >= blockFirstRows[curBlock] && row < blockFirstRows[curBlock] + blockSizes[curBlock])
+			return curBlock;
+
+		int lowIdx = 0;
+		int highIdx = numBlocks - 1;
+		while (lowIdx < highIdx) {
+			int testIdx = (lowIdx + highIdx + 1) >>> 1;
+			if (blockFirstRows[testIdx] <= row)
+				lowIdx = testIdx;
+			else
+				highIdx = testIdx - 1;
+		}
+		return lowIdx;
+	}
+
+	// Returns the mapping of the given block
+	private MappedByteBuffer map(int block) {
+		if (block == curBlock)
+			return curMap;
+
+		long size = 4 + 8L * blockSizes[block] * (names.length + 1);
+		try {
+			curMap = channel.map(FileChannel.MapMode.READ_ONLY, blockOffsets[block], size);
+		}
+		catch (IOException e) {
+			throw new ErrorException(e);
+		}
+		curBlock = block;
+		return curMap;
+	}
+
+	// Raw bits of the value in the given column and row, column -1 being the time
+	private long getRaw(int col, long row) {
+		int block = this.getBlock(row);
+		int rows = blockSizes[block];
+		int i = (int)(row - blockFirstRows[block]);
+		return this.map(block).getLong(4 + 8 * (rows * (col + 1) + i));
+	}
+
+	public double getTime(long row) {
+		return Double.longBitsToDouble(this.getRaw(-1, row));
+	}
+
+	/**
+	 * Returns the value in the given row and column, converting long values
+	 * to double.
+	 */
+	public double getDouble(int col, long row) {
+		long raw = this.getRaw(col, row);
+		if (types[col] == ColumnFileWriter.TYPE_LONG)
+			return raw;
+		return Double.longBitsToDouble(raw);
+	}
+
+	/**
+	 * Returns the value in the given row and column, truncating double values
+	 * to long.
+	 */
+	public long getLong(int col, long row) {
+		long raw = this.getRaw(col, row);
+		if (types[col] == ColumnFileWriter.TYPE_DOUBLE)
+			return (long)Double.longBitsToDouble(raw);
+		return raw;
+	}
+
+	/**
+	 * Returns the index of the last row whose time is less than or equal to
+	 * the given time, or -1 if every row is later.
+	 */
+	public long findRow(double time) {
+		// Find the last block that starts at or before the given time
+		int lowIdx = -1;
+		int highIdx = numBlocks - 1;
+		while (lowIdx < highIdx) {
+			int testIdx = (lowIdx + highIdx + 1) >>> 1;
+			if (blockTimes[testIdx] <= time)
+				lowIdx = testIdx;
+			else
+				highIdx = testIdx - 1;
+		}
+		if (lowIdx < 0)
+			return -1;
+
+		// Search the rows within the block
+		long low = blockFirstRows[lowIdx];
+		long high = low + blockSizes[lowIdx] - 1;
+		while (low < high) {
+			long test = (low + high + 1) >>> 1;
+			if (this.getTime(test) <= time)
+				low = test;
+			else
+				high = test - 1;
+		}
+		return low;
+	}
+
+	public void close() throws IOException {
+		curMap = null;
+		curBlock = -1;
+		raf.close();
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import com.sandwell.JavaSimulation.ErrorException;
+
+/**
+ * ColumnFileWriter appends rows of numbers to a binary file that is written
+ * through a memory mapping. Each row holds a time and one value per column.
+ * <p>
+ * Rows are buffered in blocks, and each block is written column by column so
+ * that a reader can scan one column without touching the others. The file
+ * layout is:
+ * <pre>
+ * header: int magic, int version, long indexOffset, long rowCount,
+ *         int blockRows, int numColumns,
+ *         numColumns x { byte type, short nameLength, UTF-8 name }
+ * blocks: int rows, rows x double time, numColumns x rows x 8-byte value
+ * index:  int numBlocks, numBlocks x { long offset, int rows, double firstTime }
+ * </pre>
+ * The index offset and row count in the header are zero until the file is
+ * closed, so a file left behind by an interrupted run is recognised as
+ * incomplete. All values are big-endian.
+ */
+public class ColumnFileWriter {
+	public static final int MAGIC = 0x4A53434F; // "JSCO"
+	public static final int VERSION = 1;
+
+	public static final byte TYPE_DOUBLE = 'D';
+	public static final byte TYPE_LONG = 'J';
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+	static final int INDEX_OFFSET_POS = 8;
+	static final int ROW_COUNT_POS = 16;
+
+	private static final int MAP_SIZE = 16 * 1024 * 1024; // size of each mapped window
+
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private MappedByteBuffer map; // current window, positioned at the end of the written data
+	private long mapStart;        // file position of the start of the current window
+
+	private final int numCols;
+	private final int blockRows;
+	private final double[] times;
+	private final long[][] values; // [column][row], doubles are stored as their raw bits
+	private int rows;              // rows buffered in the current block
+
+	private long rowCount;
+	private int numBlocks;
+	private long[] blockOffsets;
+	private int[] blockSizes;
+	private double[] blockTimes;
+
+	public ColumnFileWriter(File file, String[] names, byte[] types, int blockRows) throws IOException {
+		if (names.length != types.length)
+			throw new IllegalArgumentException("Each column requires a name and a type");
+		if (blockRows < 1)
+			throw new IllegalArgumentException("Blocks must hold at least one row");
+
+		for (byte type : types) {
+			if (type != TYPE_DOUBLE && type != TYPE_LONG)
+				throw new IllegalArgumentException("Unknown column type: " + (char)type);
+		}
+
+		numCols = names.length;
+		this.blockRows = blockRows;
+		times = new double[blockRows];
+		values = new long[numCols][blockRows];
+
+		blockOffsets = new long[16];
+		blockSizes = new int[16];
+		blockTimes = new double[16];
+
+		byte[][] nameBytes = new byte[numCols][];
+		int headerSize = 32;
+		for (int i = 0; i < numCols; i++) {
+			nameBytes[i] = names[i].getBytes(UTF8);
+			headerSize += 3 + nameBytes[i].length;
+		}
+
+		raf = new RandomAccessFile(file, "rw");
+		raf.setLength(0);
+		channel = raf.getChannel();
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putLong(0L);
+		header.putLong(0L);
+		header.putInt(blockRows);
+		header.putInt(numCols);
+		for (int i = 0; i < numCols; i++) {
+			header.put(types[i]);
+			header.putShort((short)nameBytes[i].length);
+			header.put(nameBytes[i]);
+		}
+
+		mapStart = headerSize;
+		map = channel.map(FileChannel.MapMode.READ_WRITE, mapStart, MAP_SIZE);
+	}
+
+	public int getColumnCount() {
+		return numCols;
+	}
+
+	/**
+	 * Returns the number of rows added so far, including those not yet written.
+	 */
+	public long getRowCount() {
+		return rowCount + rows;
+	}
+
+	public void setDouble(int col, double val) {
+		values[col][rows] = Double.doubleToRawLongBits(val);
+	}
+
+	public void setLong(int col, long val) {
+		values[col][rows] = val;
+	}
+
+	/**
+	 * Completes the current row using the values set since the last row.
+	 * The times of successive rows must be non-decreasing.
+	 */
+	public void addRow(double time) {
+		times[rows] = time;
+		rows++;
+		if (rows == blockRows)
+			this.writeBlock();
+	}
+
+	private long position() {
+		return mapStart + map.position();
+	}
+
+	// Makes sure the current window has room for the given number of bytes
+	private void reserve(int bytes) {
+		if (map.remaining() >= bytes)
+			return;
+
+		try {
+			mapStart = this.position();
+			map = channel.map(FileChannel.MapMode.READ_WRITE, mapStart, Math.max(MAP_SIZE, bytes));
+		}
+		catch (IOException e) {
+			throw new ErrorException(e);
+		}
+	}
+
+	private void writeBlock() {
+		if (rows == 0)
+			return;
+
+		this.reserve(4 + 8 * rows * (numCols + 1));
+		if (numBlocks == blockOffsets.length) {
+			int len = numBlocks * 2;
+			blockOffsets = Arrays.copyOf(blockOffsets, len);
+			blockSizes = Arrays.copyOf(blockSizes, len);
+			blockTimes = Arrays.copyOf(blockTimes, len);
+		}
+		blockOffsets[numBlocks] = this.position();
+		blockSizes[numBlocks] = rows;
+		blockTimes[numBlocks] = times[0];
+		numBlocks++;
+
+		map.putInt(rows);
+		for (int i = 0; i < rows; i++)
+			map.putDouble(times[i]);
+
+		for (int c = 0; c < numCols; c++) {
+			long[] col = values[c];
+			for (int i = 0; i < rows; i++)
+				map.putLong(col[i]);
+		}
+
+		rowCount += rows;
+		rows = 0;
+	}
+
+	/**
+	 * Writes any buffered rows and the index, and closes the file.
+	 */
+	public void close() throws IOException {
+		this.writeBlock();
+
+		this.reserve(4 + 20 * numBlocks);
+		long indexOffset = this.position();
+		map.putInt(numBlocks);
+		for (int i = 0; i < numBlocks; i++) {
+			map.putLong(blockOffsets[i]);
+			map.putInt(blockSizes[i]);
+			map.putDouble(blockTimes[i]);
+		}
+		long length = this.position();
+
+		header.putLong(INDEX_OFFSET_POS, indexOffset);
+		header.putLong(ROW_COUNT_POS, rowCount);
+		map.force();
+		header.force();
+		map = null;
+
+		// The mapping may prevent the unused tail from being removed on some
+		// platforms, which is harmless as the header locates the index
+		try {
+			channel.truncate(length);
+		}
+		catch (IOException e) {}
+
+		raf.close();
+	}
+}
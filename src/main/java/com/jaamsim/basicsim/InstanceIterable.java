@@ -14,7 +14,6 @@
  */
 package com.jaamsim.basicsim;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -22,51 +21,30 @@ import com.sandwell.JavaSimulation.Entity;
 
 public class InstanceIterable<T extends Entity> implements Iterable<T>, Iterator<T> {
 
-	private final ArrayList<? extends Entity> allInstances = Entity.getAll();
+	private final InstanceList<? extends Entity> instances;
 	private final Class<T> entClass;
-	private int curPos;
 	private int nextPos;
 
 	public InstanceIterable(Class<T> aClass) {
 		entClass = aClass;
-		curPos = -1;
-		nextPos = -1;
-	}
-
-	private void updatePos() {
-		if (nextPos >= allInstances.size())
-			return;
-
-		while (++nextPos < allInstances.size()) {
-			// If we find a match, break out
-			if (allInstances.get(nextPos).getClass() == entClass)
-				break;
-		}
+		instances = Entity.getInstanceList(aClass);
+		nextPos = 0;
 	}
 
 	@Override
 	public boolean hasNext() {
-		if (curPos == nextPos)
-			updatePos();
-
-		if (nextPos < allInstances.size())
-			return true;
-		else
-			return false;
+		// Skip the slots of killed instances
+		while (nextPos < instances.size() && instances.get(nextPos) == null)
+			nextPos++;
+		return nextPos < instances.size();
 	}
 
 	@Override
 	public T next() {
-		if (curPos == nextPos)
-			updatePos();
-
-		if (nextPos < allInstances.size()) {
-			curPos = nextPos;
-			return entClass.cast(allInstances.get(curPos));
-		}
-		else {
+		if (this.hasNext())
+			return entClass.cast(instances.get(nextPos++));
+		else
 			throw new NoSuchElementException();
-		}
 	}
 
 	@Override
@@ -0,0 +1,159 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import java.util.ArrayList;
+
+import com.sandwell.JavaSimulation.Entity;
+
+/**
+ * A list of entities in order of entity number, which is the order of
+ * creation. Each entity stores its position in the list, see getIndex and
+ * setIndex.
+ * <p>
+ * Removing an entity only marks its slot as empty by setting the stored
+ * position to -1, the entity stays in its slot until the list is compacted.
+ * The list is compacted once the empty slots outnumber the entities, or when
+ * it is needed without gaps by getList. An entity that is added back before
+ * then returns to its old slot.
+ */
+public abstract class InstanceList<T extends Entity> {
+	private final ArrayList<T> list;
+	private int numRemoved; // number of empty slots
+
+	public InstanceList() {
+		list = new ArrayList<T>();
+	}
+
+	/**
+	 * Returns the position of the entity in this list, or -1 if it has been
+	 * removed or was never added.
+	 */
+	protected abstract int getIndex(T ent);
+
+	protected abstract void setIndex(T ent, int idx);
+
+	public synchronized void add(T ent) {
+		if (getIndex(ent) >= 0)
+			return;
+
+		// New entities have the highest number and are added at the end
+		int idx = getInsertIndex(ent.getEntityNumber());
+		if (idx == list.size()) {
+			list.add(ent);
+			setIndex(ent, idx);
+			return;
+		}
+
+		// Back into the slot it was removed from
+		if (list.get(idx) == ent) {
+			setIndex(ent, idx);
+			numRemoved--;
+			return;
+		}
+
+		list.add(idx, ent);
+		setIndex(ent, idx);
+		for (int i = idx + 1; i < list.size(); i++) {
+			T each = list.get(i);
+			if (getIndex(each) >= 0)
+				setIndex(each, i);
+		}
+	}
+
+	public synchronized void remove(T ent) {
+		int idx = getIndex(ent);
+		if (idx < 0)
+			return;
+
+		setIndex(ent, -1);
+		numRemoved++;
+
+		// Empty slots at the end are dropped straight away
+		while (list.size() > 0 && getIndex(list.get(list.size() - 1)) < 0) {
+			list.remove(list.size() - 1);
+			numRemoved--;
+		}
+
+		if (numRemoved > list.size() - numRemoved)
+			this.compact();
+	}
+
+	private void compact() {
+		int num = 0;
+		for (int i = 0; i < list.size(); i++) {
+			T each = list.get(i);
+			if (getIndex(each) < 0)
+				continue;
+
+			list.set(num, each);
+			setIndex(each, num);
+			num++;
+		}
+		list.subList(num, list.size()).clear();
+		numRemoved = 0;
+	}
+
+	// Entity numbers are unique, so a removed entity is found at its old slot
+	private int getInsertIndex(long num) {
+		int hi = list.size();
+		if (hi == 0 || list.get(hi - 1).getEntityNumber() < num)
+			return hi;
+
+		int lo = 0;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (list.get(mid).getEntityNumber() < num)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the number of slots in the list, including the empty ones.
+	 */
+	public synchronized int size() {
+		return list.size();
+	}
+
+	/**
+	 * Returns the entity in the given slot, or null if the slot is empty.
+	 */
+	public synchronized T get(int idx) {
+		T ent = list.get(idx);
+		if (getIndex(ent) < 0)
+			return null;
+		return ent;
+	}
+
+	/**
+	 * Returns the number of entities in the list.
+	 */
+	public synchronized int getCount() {
+		return list.size() - numRemoved;
+	}
+
+	/**
+	 * Returns the live list of entities with the empty slots removed. The list
+	 * must not be modified.
+	 */
+	public synchronized ArrayList<T> getList() {
+		if (numRemoved > 0)
+			this.compact();
+		return list;
+	}
+}
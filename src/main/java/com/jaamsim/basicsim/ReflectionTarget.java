@@ -14,8 +14,12 @@
  */
 package com.jaamsim.basicsim;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.jaamsim.events.ProcessTarget;
 import com.sandwell.JavaSimulation.Entity;
@@ -23,43 +27,99 @@ import com.sandwell.JavaSimulation.ErrorException;
 
 public class ReflectionTarget extends ProcessTarget {
 	private final Entity target; // The entity whose method is to be executed
-	private final Method method; // The method to be executed
+	private final String methodName; // The name of the method to be executed
+	private final MethodHandle handle; // The method to be executed, as (Entity, Object[])void
 	private final Object[] arguments; // The arguments passed to the method to be executed
 
+	// Resolved methods for each class, method name and argument signature
+	private static final ConcurrentHashMap<MethodKey, MethodHandle> handleCache;
+
+	static {
+		handleCache = new ConcurrentHashMap<MethodKey, MethodHandle>();
+	}
+
 	public ReflectionTarget(Entity ent, String methodName, Object[] arguments) {
 		target = ent;
-		method = findEntityMethod(target.getClass(), methodName, arguments);
+		this.methodName = methodName;
+		handle = getMethodHandle(target.getClass(), methodName, arguments);
 		this.arguments = arguments;
 	}
 
 	@Override
 	public void process() {
 		try {
-			method.invoke(target, arguments);
-		}
-		// Normal exceptions thrown by the method called by invoke are wrapped
-		catch (InvocationTargetException e) {
-			Throwable cause = e.getCause();
-			if (cause instanceof RuntimeException)
-				throw (RuntimeException)cause;
-			else
-				throw new ErrorException(cause);
+			handle.invokeExact(target, arguments);
 		}
-		catch (IllegalArgumentException e) {
+		catch (RuntimeException e) {
 			throw e;
 		}
-		catch (IllegalAccessException e) {
+		catch (Throwable e) {
 			throw new ErrorException(e);
 		}
 	}
 
 	@Override
 	public String getDescription() {
-		return String.format("%s.%s", target.getInputName(), method.getName());
+		return target.getInputName() + "." + methodName;
 	}
 
-	// Look up the method with the given name for the given entity and argument list.
-	private Method findEntityMethod(Class<?> targetClass, String methodName, Object... arguments) {
+	private static final class MethodKey {
+		final Class<?> klass;
+		final String name;
+		final Class<?>[] argClasses;
+		final int hash;
+
+		MethodKey(Class<?> klass, String name, Class<?>[] argClasses) {
+			this.klass = klass;
+			this.name = name;
+			this.argClasses = argClasses;
+			hash = (klass.hashCode() * 31 + name.hashCode()) * 31 + Arrays.hashCode(argClasses);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MethodKey))
+				return false;
+
+			MethodKey key = (MethodKey)obj;
+			return klass == key.klass && name.equals(key.name) && Arrays.equals(argClasses, key.argClasses);
+		}
+	}
+
+	// Return the cached method handle for the given entity class, name and arguments,
+	// resolving and binding it on first use.
+	private static MethodHandle getMethodHandle(Class<?> targetClass, String methodName, Object[] arguments) {
+		if (methodName == null)
+			throw new ErrorException("Name passed to startProcess was NULL");
+
+		Class<?>[] argClasses = getArgClasses(arguments);
+		MethodKey key = new MethodKey(targetClass, methodName, argClasses);
+		MethodHandle ret = handleCache.get(key);
+		if (ret != null)
+			return ret;
+
+		Method method = findEntityMethod(targetClass, methodName, argClasses);
+		try {
+			int num = method.getParameterTypes().length;
+			MethodType type = MethodType.genericMethodType(num).changeReturnType(void.class)
+			                            .insertParameterTypes(0, Entity.class);
+			ret = MethodHandles.publicLookup().unreflect(method).asType(type)
+			                   .asSpreader(Object[].class, num);
+		}
+		catch (IllegalAccessException e) {
+			throw new ErrorException(e);
+		}
+
+		handleCache.putIfAbsent(key, ret);
+		return ret;
+	}
+
+	private static Class<?>[] getArgClasses(Object[] arguments) {
 		Class<?>[] argClasses = new Class<?>[arguments.length];
 
 		// Fill in the class of each argument, if there are any
@@ -82,7 +142,11 @@ public class ReflectionTarget extends ProcessTarget {
 				argClasses[i] = Integer.TYPE;
 			}
 		}
+		return argClasses;
+	}
 
+	// Look up the method with the given name for the given entity and argument list.
+	private static Method findEntityMethod(Class<?> targetClass, String methodName, Class<?>[] argClasses) {
 		// Attempt to lookup the method using exact type information
 		try {
 			return targetClass.getMethod(methodName, argClasses);
@@ -90,9 +154,6 @@ public class ReflectionTarget extends ProcessTarget {
 		catch (SecurityException e) {
 			throw new ErrorException("Security Exception when finding method: %s", methodName);
 		}
-		catch (NullPointerException e) {
-			throw new ErrorException("Name passed to startProcess was NULL");
-		}
 		catch (NoSuchMethodException e) {
 			// Get a list of all our methods
 			Method[] methods = targetClass.getMethods();
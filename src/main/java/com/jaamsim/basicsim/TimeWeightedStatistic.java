@@ -0,0 +1,201 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import java.util.Arrays;
+
+/**
+ * TimeWeightedStatistic accumulates the time-weighted mean, variance, minimum,
+ * maximum and distribution of a piecewise constant quantity, such as the
+ * length of a queue.  The caller reports each change of value together with
+ * the simulation time at which it occurs.
+ * <p>
+ * The mean and variance are updated incrementally using West's weighted form
+ * of Welford's algorithm, which avoids the loss of precision of a sum of
+ * squares over long runs.  The distribution holds the time spent at each
+ * integer value from zero to one less than the number of bins; values above
+ * that range are counted in the last bin and negative values in the first.
+ */
+public class TimeWeightedStatistic {
+	private final int maxBins;
+
+	private double startTime; // time at which collection was started
+	private double lastTime;  // time of the last update
+	private double value;     // value since the last update
+
+	private double totalTime; // total time recorded
+	private double sum;       // integral of the value over time
+	private double mean;
+	private double m2;        // time-weighted sum of squared differences from the mean
+	private double min;
+	private double max;
+
+	private double[] binTimes;
+	private int numBins; // one more than the highest bin used so far
+
+	public TimeWeightedStatistic(int maxBins) {
+		if (maxBins < 1)
+			throw new IllegalArgumentException("At least one bin is required");
+
+		this.maxBins = maxBins;
+		binTimes = new double[Math.min(maxBins, 16)];
+		this.clear(0.0d, 0.0d);
+	}
+
+	/**
+	 * Discards the recorded statistics and starts collection at the given time.
+	 */
+	public void clear(double simTime, double val) {
+		startTime = simTime;
+		lastTime = simTime;
+		value = val;
+		totalTime = 0.0d;
+		sum = 0.0d;
+		mean = 0.0d;
+		m2 = 0.0d;
+		min = val;
+		max = val;
+		Arrays.fill(binTimes, 0.0d);
+		numBins = 0;
+		this.touchBin(val);
+	}
+
+	/**
+	 * Records the time since the last update at the previous value and sets
+	 * the value to be used from the given time onwards.
+	 */
+	public void update(double simTime, double val) {
+		double dt = simTime - lastTime;
+		if (dt > 0.0d) {
+			totalTime += dt;
+			sum += dt * value;
+			double delta = value - mean;
+			mean += delta * dt / totalTime;
+			m2 += dt * delta * (value - mean);
+			binTimes[this.getBin(value)] += dt;
+			lastTime = simTime;
+		}
+
+		value = val;
+		min = Math.min(min, val);
+		max = Math.max(max, val);
+		this.touchBin(val);
+	}
+
+	private int getBin(double val) {
+		if (val <= 0.0d)
+			return 0;
+		if (val >= maxBins - 1)
+			return maxBins - 1;
+		return (int)val;
+	}
+
+	private void touchBin(double val) {
+		int bin = this.getBin(val);
+		if (bin >= binTimes.length) {
+			int len = binTimes.length;
+			while (len <= bin)
+				len *= 2;
+			binTimes = Arrays.copyOf(binTimes, Math.min(len, maxBins));
+		}
+		numBins = Math.max(numBins, bin + 1);
+	}
+
+	// Time since the last update that has not yet been recorded
+	private double pendingTime(double simTime) {
+		return Math.max(simTime - lastTime, 0.0d);
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public double getStartTime() {
+		return startTime;
+	}
+
+	public double getTotalTime(double simTime) {
+		return totalTime + this.pendingTime(simTime);
+	}
+
+	/**
+	 * Returns the integral of the value over time up to the given time.
+	 */
+	public double getSum(double simTime) {
+		return sum + this.pendingTime(simTime) * value;
+	}
+
+	public double getMean(double simTime) {
+		double dt = this.pendingTime(simTime);
+		double tot = totalTime + dt;
+		if (tot <= 0.0d)
+			return 0.0d;
+
+		return mean + (value - mean) * dt / tot;
+	}
+
+	public double getVariance(double simTime) {
+		double dt = this.pendingTime(simTime);
+		double tot = totalTime + dt;
+		if (tot <= 0.0d)
+			return 0.0d;
+
+		double delta = value - mean;
+		double newMean = mean + delta * dt / tot;
+		return Math.max((m2 + dt * delta * (value - newMean)) / tot, 0.0d);
+	}
+
+	public double getStandardDeviation(double simTime) {
+		return Math.sqrt(this.getVariance(simTime));
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public int getNumberOfBins() {
+		return numBins;
+	}
+
+	/**
+	 * Returns the total time recorded in the given bin, not including the
+	 * time since the last update.
+	 */
+	public double getBinTime(int bin) {
+		if (bin < 0 || bin >= numBins)
+			return 0.0d;
+		return binTimes[bin];
+	}
+
+	/**
+	 * Returns the fraction of the time up to the given time spent in each bin,
+	 * or an empty array if no time has elapsed.
+	 */
+	public double[] getDistribution(double simTime) {
+		double tot = this.getTotalTime(simTime);
+		if (tot <= 0.0d)
+			return new double[0];
+
+		double[] ret = Arrays.copyOf(binTimes, numBins);
+		ret[this.getBin(value)] += this.pendingTime(simTime);
+		for (int i = 0; i < ret.length; i++)
+			ret[i] /= tot;
+		return ret;
+	}
+}
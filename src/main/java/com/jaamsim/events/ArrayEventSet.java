@@ -0,0 +1,114 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.events;
+
+import java.util.Arrays;
+
+/**
+ * EventSet backed by an array sorted in reverse execution order, so that the
+ * next event is always at the end of the array. Events are located by binary
+ * search, but insertion and removal away from the head of the list require
+ * the tail of the array to be copied.
+ */
+final class ArrayEventSet extends EventSet {
+	private Event[] eventList;
+	private int headEvtIdx;
+
+	ArrayEventSet() {
+		eventList = new Event[10000];
+		headEvtIdx = -1;
+	}
+
+	@Override
+	void insert(Event newEvent) {
+		int lowIdx = 0;
+		int highIdx = headEvtIdx;
+
+		while (lowIdx <= highIdx) {
+			int testIdx = (lowIdx + highIdx) >>> 1; // use unsigned shift to avoid overflow
+
+			// Events executing before the new event remain above it in the stack
+			if (before(eventList[testIdx], newEvent))
+				highIdx = testIdx - 1;
+			else
+				lowIdx = testIdx + 1;
+		}
+
+		// Expand the eventList by doubling the size
+		if (eventList.length - 1 == headEvtIdx) {
+			eventList = Arrays.copyOf(eventList, eventList.length * 2);
+		}
+
+		// Insert the event in the stack, only copy array elements if not prepending
+		if (lowIdx <= headEvtIdx)
+			System.arraycopy(eventList, lowIdx, eventList, lowIdx + 1, (headEvtIdx - lowIdx + 1));
+
+		eventList[lowIdx] = newEvent;
+		headEvtIdx++;
+	}
+
+	@Override
+	Event peek() {
+		if (headEvtIdx == -1)
+			return null;
+
+		return eventList[headEvtIdx];
+	}
+
+	@Override
+	boolean delete(Event evt) {
+		if (headEvtIdx >= 0 && eventList[headEvtIdx] == evt) {
+			eventList[headEvtIdx] = null;
+			headEvtIdx--;
+			return true;
+		}
+
+		// The events are totally ordered, so binary search for the exact slot
+		int lowIdx = 0;
+		int highIdx = headEvtIdx;
+		while (lowIdx <= highIdx) {
+			int testIdx = (lowIdx + highIdx) >>> 1; // use unsigned shift to avoid overflow
+			Event test = eventList[testIdx];
+			if (test == evt) {
+				System.arraycopy(eventList, testIdx + 1, eventList, testIdx, headEvtIdx - testIdx);
+				eventList[headEvtIdx] = null;
+				headEvtIdx--;
+				return true;
+			}
+
+			if (before(test, evt))
+				highIdx = testIdx - 1;
+			else
+				lowIdx = testIdx + 1;
+		}
+		return false;
+	}
+
+	@Override
+	int size() {
+		return headEvtIdx + 1;
+	}
+
+	@Override
+	Event get(int idx) {
+		return eventList[idx];
+	}
+
+	@Override
+	void deleteAll() {
+		Arrays.fill(eventList, null);
+		headEvtIdx = -1;
+	}
+}
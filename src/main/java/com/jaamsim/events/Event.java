@@ -25,6 +25,10 @@ public class Event {
 
 	final ProcessTarget target;
 
+	long seqNum; // tie-breaker for events at equal time and priority, assigned by the EventSet
+	int setIdx;  // storage index used by the EventSet, -1 when not held in a set
+	Event nextForKey; // the next event in the EventSet index for the same target
+
 	/**
 	 * Constructs a new event object.
 	 * @param currentTick the current simulation tick
@@ -39,6 +43,7 @@ public class Event {
 		priority = prio;
 
 		this.target = target;
+		setIdx = -1;
 	}
 
 	public String getDesc() {
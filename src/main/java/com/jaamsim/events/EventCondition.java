@@ -0,0 +1,49 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.events;
+
+import java.util.ArrayList;
+
+/**
+ * A condition variable for conditional waits. A Process that calls
+ * EventManager.waitUntil(EventCondition) is only re-tested after the model
+ * has called EventManager.signal() for the same EventCondition, rather than
+ * before every advance of the simulation time. The owner of the state being
+ * tested is responsible for signalling whenever that state changes.
+ * <p>
+ * The usual pattern for the waiting process is:
+ * <pre>
+ * while (!isReady())
+ *     evt.waitUntil(readyCondition);
+ * evt.waitUntilEnded();
+ * </pre>
+ */
+public final class EventCondition {
+	public final String name;
+
+	final ArrayList<Process> waiters; // Processes waiting for the next signal
+	boolean registered; // true if the EventManager holding the waiters knows of this condition
+
+	public EventCondition(String name) {
+		this.name = name;
+		waiters = new ArrayList<Process>();
+		registered = false;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -15,7 +15,6 @@
 package com.jaamsim.events;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 
 /**
  * Class EventManager - Sandwell Discrete Event Simulation
@@ -36,7 +35,9 @@ import java.util.Arrays;
  * <p>
  * The EventManager thread is always the bottom thread on the threadStack, so
  * that after each event has finished, along with any spawned events, the
- * program control will pass back to the EventManager.
+ * program control will pass back to the EventManager. When the next event is
+ * to be executed at the current time, control is instead handed directly to
+ * the Process for that event, avoiding a second thread switch per event.
  * <p>
  * The runnable interface is implemented so that the eventManager runs as a
  * separate thread.
@@ -45,15 +46,18 @@ import java.util.Arrays;
  * all entities will schedule themselves with the same event manager.
  */
 public final class EventManager implements Runnable {
+	private static final int DEFAULT_RECORDER_SIZE = 1024;
+
 	public final String name;
 
 	private final Object lockObject; // Object used as global lock for synchronization
-	private Event[] eventList;
-	private int headEvtIdx;
+	private EventSet eventList;
 
 	private boolean executeEvents;
+	private boolean running; // TRUE unless the event loop is idle in threadWait()
 
-	private final ArrayList<Process> conditionalList; // List of all conditionally waiting processes
+	private final ArrayList<Process> conditionalList; // List of all conditionally waiting processes to be tested
+	private final ArrayList<EventCondition> conditions; // List of all EventConditions that have held waiting processes
 	private final Thread eventManagerThread;
 
 	private long currentTick; // Master simulation time (long)
@@ -73,6 +77,7 @@ public final class EventManager implements Runnable {
 	private EventTimeListener timelistener;
 	private EventErrorListener errListener;
 	private EventTraceListener trcListener;
+	private EventRecorder recorder; // the most recent scheduling operations, always recorded
 
 	/**
 	 * Allocates a new EventManager with the given parent and name
@@ -94,16 +99,18 @@ public final class EventManager implements Runnable {
 
 		ticksPerSecond = 1000000.0d;
 
-		eventList = new Event[10000];
-		headEvtIdx = -1;
+		eventList = new HeapEventSet();
 		conditionalList = new ArrayList<Process>();
+		conditions = new ArrayList<EventCondition>();
 
 		executeEvents = false;
+		running = true;
 		executeRealTime = false;
 		realTimeFactor = 1;
 		rebaseRealTime = true;
 		setTimeListener(null);
 		setErrorListener(null);
+		recorder = new EventRecorder(DEFAULT_RECORDER_SIZE);
 	}
 
 	// Used to handshake with the calling thread and make sure the evt thread
@@ -166,6 +173,59 @@ public final class EventManager implements Runnable {
 		}
 	}
 
+	/**
+	 * Sets the number of recent scheduling operations that are kept for
+	 * getRecentEvents(), zero turns the recording off. Discards the
+	 * operations recorded so far.
+	 */
+	public final void setRecorderSize(int size) {
+		synchronized (lockObject) {
+			recorder = new EventRecorder(size);
+		}
+	}
+
+	/**
+	 * Returns a line of text for each of the most recent scheduling
+	 * operations, oldest first. Each line holds the tick at which the
+	 * operation was made, the operation, and for operations on an event its
+	 * scheduled tick, priority and target.
+	 */
+	public final ArrayList<String> getRecentEvents() {
+		synchronized (lockObject) {
+			return recorder.dump();
+		}
+	}
+
+	/**
+	 * The data structures available to hold the future events.
+	 */
+	public static enum EventSetType {
+		SORTED_ARRAY, // sorted array, O(n) insertion and removal away from the next event
+		BINARY_HEAP,  // binary heap, O(log n) insertion and removal
+	}
+
+	/**
+	 * Select the data structure used to hold the future events, may only be
+	 * called when there are no events scheduled.
+	 */
+	public final void setEventSetType(EventSetType type) {
+		synchronized (lockObject) {
+			if (eventList.size() > 0)
+				throw new ProcessError("EVT:%s - Cannot change the event set with events scheduled", name);
+
+			switch (type) {
+			case SORTED_ARRAY:
+				if (!(eventList instanceof ArrayEventSet))
+					eventList = new ArrayEventSet();
+				break;
+			case BINARY_HEAP:
+				if (!(eventList instanceof HeapEventSet))
+					eventList = new HeapEventSet();
+				break;
+			}
+		}
+	}
+
 	public void clear() {
 		synchronized (lockObject) {
 			currentTick = 0;
@@ -173,10 +233,11 @@ public final class EventManager implements Runnable {
 			targetTick = Long.MAX_VALUE;
 			timelistener.tickUpdate(currentTick);
 			rebaseRealTime = true;
+			recorder.clear();
 
 			// Kill threads on the event stack
-			for (int i = 0; i <= headEvtIdx; i++) {
-				Process proc = eventList[i].target.getProcess();
+			for (int i = 0; i < eventList.size(); i++) {
+				Process proc = eventList.get(i).target.getProcess();
 				if (proc == null)
 					continue;
 
@@ -187,8 +248,7 @@ public final class EventManager implements Runnable {
 				proc.setFlag(Process.TERMINATE);
 				proc.interrupt();
 			}
-			Arrays.fill(eventList, null);
-			headEvtIdx = -1;
+			eventList.clear();
 
 			// Kill conditional threads
 			for (Process each : conditionalList) {
@@ -200,6 +260,22 @@ public final class EventManager implements Runnable {
 				each.interrupt();
 			}
 			conditionalList.clear();
+
+			// Kill threads waiting for a signal
+			for (EventCondition cond : conditions) {
+				for (Process each : cond.waiters) {
+					if (each.testFlag(Process.ACTIVE)) {
+						throw new ProcessError("EVT:%s - Cannot terminate an active thread", name);
+					}
+
+					each.waitCond = null;
+					each.setFlag(Process.TERMINATE);
+					each.interrupt();
+				}
+				cond.waiters.clear();
+				cond.registered = false;
+			}
+			conditions.clear();
 		}
 	}
 
@@ -216,38 +292,32 @@ public final class EventManager implements Runnable {
 		synchronized (lockObject) {
 			// Loop continuously
 			while (true) {
-				if (headEvtIdx == -1 ||
-				    eventList[headEvtIdx].schedTick >= targetTick) {
+				Event headEvent = eventList.peek();
+				if (headEvent == null ||
+				    headEvent.schedTick >= targetTick) {
 					executeEvents = false;
 				}
 
 				if (!executeEvents) {
+					running = false;
+					lockObject.notifyAll();
 					timelistener.timeRunning(false);
 					this.threadWait();
+					running = true;
 					timelistener.timeRunning(true);
 					continue;
 				}
 
 				// If the next event is at the current tick, execute it
-				if (eventList[headEvtIdx].schedTick == currentTick) {
-					// Remove the event from the future events
-					Event nextEvent = eventList[headEvtIdx];
-					eventList[headEvtIdx] = null;
-					headEvtIdx--;
-
-					if (trcListener != null) trcListener.traceEvent(this, nextEvent);
-					Process p = nextEvent.target.getProcess();
-					if (p == null)
-						p = Process.allocate(this, nextEvent.target);
+				if (headEvent.schedTick == currentTick) {
 					// Pass control to this event's thread
-					p.setNextProcess(null);
-					switchThread(p);
+					switchThread(dispatchNextEvent());
 					continue;
 				}
 
 				// If the next event would require us to advance the time, check the
 				// conditonal events
-				if (eventList[headEvtIdx].schedTick > nextTick) {
+				if (headEvent.schedTick > nextTick) {
 					if (conditionalList.size() > 0) {
 						// Loop through the conditions in reverse order and add to the linked
 						// list of active threads
@@ -264,7 +334,7 @@ public final class EventManager implements Runnable {
 					// If a conditional event was satisfied, we will have a new event at the
 					// beginning of the eventStack for the current tick, go back to the
 					// beginning, otherwise fall through to the time-advance
-					nextTick = eventList[headEvtIdx].schedTick;
+					nextTick = eventList.peek().schedTick;
 					if (nextTick == currentTick)
 						continue;
 				}
@@ -315,6 +385,7 @@ public final class EventManager implements Runnable {
 	void releaseProcess() {
 		synchronized (lockObject) {
 			assertNotWaitUntil();
+			recorder.record(EventRecorder.EXIT, currentTick);
 			if (trcListener != null) trcListener.traceProcessEnd(this);
 			Process cur = Process.current();
 			Process next = cur.getNextProcess();
@@ -323,6 +394,8 @@ public final class EventManager implements Runnable {
 
 			if (next != null) {
 				next.interrupt();
+			} else if (canDispatchDirect()) {
+				dispatchNextEvent().interrupt();
 			} else {
 				// TODO: check for the switching of eventmanagers
 				eventManagerThread.interrupt();
@@ -330,6 +403,41 @@ public final class EventManager implements Runnable {
 		}
 	}
 
+	/**
+	 * Returns true if the next event is to be executed at the current tick, in
+	 * which case a Process that is giving up control may hand it directly to
+	 * the Process for that event instead of waking the EventManager thread
+	 * only to have it wake the next Process. Time advance and conditional
+	 * evaluation are always left to the EventManager thread.
+	 * Must hold the lockObject when calling this method.
+	 */
+	private boolean canDispatchDirect() {
+		if (!executeEvents)
+			return false;
+
+		Event headEvent = eventList.peek();
+		return headEvent != null &&
+		       headEvent.schedTick == currentTick &&
+		       headEvent.schedTick < targetTick;
+	}
+
+	/**
+	 * Remove the next event from the event set and return the Process that
+	 * will execute it.
+	 * Must hold the lockObject when calling this method.
+	 */
+	private Process dispatchNextEvent() {
+		Event nextEvent = eventList.poll();
+		recorder.record(EventRecorder.EVENT, currentTick, nextEvent);
+		if (trcListener != null) trcListener.traceEvent(this, nextEvent);
+		Process p = nextEvent.target.getProcess();
+		if (p == null)
+			p = Process.allocate(this, nextEvent.target);
+
+		p.setNextProcess(null);
+		return p;
+	}
+
 	/**
 	// Pause the current active thread and restart the next thread on the
 	// active thread list. For this case, a future event or conditional event
@@ -347,6 +455,8 @@ public final class EventManager implements Runnable {
 		cur.setNextProcess(null);
 		if (next != null)
 			switchThread(next);
+		else if (canDispatchDirect())
+			switchThread(dispatchNextEvent());
 		else
 			switchThread(eventManagerThread);
 		cur.wake(this);
@@ -393,24 +503,17 @@ public final class EventManager implements Runnable {
 		assertNotWaitUntil();
 		synchronized (lockObject) {
 			long eventTime = calculateEventTime(waitLength);
-			for (int i = headEvtIdx; i >= 0; i--) {
-				Event each = eventList[i];
-				// We passed where any duplicate could be, break out to the
-				// insertion part
-				if (each.schedTick > eventTime)
-					break;
-
-				// if we have an exact match, do not schedule another event
-				if (each.schedTick == eventTime &&
-				    each.priority == eventPriority &&
-				    each.target == t) {
-					if (trcListener != null) trcListener.traceSchedProcess(this, each);
-					return;
-				}
+			// if we have an exact match, do not schedule another event
+			Event dup = eventList.find(eventTime, eventPriority, t);
+			if (dup != null) {
+				recorder.record(EventRecorder.SCHEDULE, currentTick, dup);
+				if (trcListener != null) trcListener.traceSchedProcess(this, dup);
+				return;
 			}
 
 			// Create an event for the new process at the present time, and place it on the event stack
 			Event newEvent = new Event(currentTick, eventTime, eventPriority, t);
+			recorder.record(EventRecorder.SCHEDULE, currentTick, newEvent);
 			if (trcListener != null) trcListener.traceSchedProcess(this, newEvent);
 			addEventToStack(newEvent, fifo);
 		}
@@ -429,6 +532,7 @@ public final class EventManager implements Runnable {
 			long nextEventTime = calculateEventTime(ticks);
 			WaitTarget t = new WaitTarget(Process.current());
 			Event temp = new Event(currentTick, nextEventTime, priority, t);
+			recorder.record(EventRecorder.WAIT, currentTick, temp);
 			if (trcListener != null) trcListener.traceWait(this, temp);
 			addEventToStack(temp, fifo);
 			popProcess();
@@ -443,53 +547,7 @@ public final class EventManager implements Runnable {
 	 * Must hold the lockObject when calling this method.
 	 */
 	private void addEventToStack(Event newEvent, boolean fifo) {
-		int lowIdx = 0;
-		int highIdx = headEvtIdx;
-
-		while (lowIdx <= highIdx) {
-			int testIdx = (lowIdx + highIdx) >>> 1; // use unsigned shift to avoid overflow
-
-			// Compare events by scheduled time first
-			if (eventList[testIdx].schedTick < newEvent.schedTick) {
-				highIdx = testIdx - 1;
-				continue;
-			}
-
-			if (eventList[testIdx].schedTick > newEvent.schedTick) {
-				lowIdx = testIdx + 1;
-				continue;
-			}
-
-			// events at the same time use priority as a tie-breaker
-			if (eventList[testIdx].priority < newEvent.priority) {
-				highIdx = testIdx - 1;
-				continue;
-			}
-
-			if (eventList[testIdx].priority > newEvent.priority) {
-				lowIdx = testIdx + 1;
-				continue;
-			}
-
-			// Events at equal time and priority are done in fifo or lifo order
-			// depending on the passed in policy
-			if (fifo)
-				highIdx = testIdx - 1;
-			else
-				lowIdx = testIdx + 1;
-		}
-
-		// Expand the eventList by doubling the size
-		if (eventList.length - 1 == headEvtIdx) {
-			eventList = Arrays.copyOf(eventList, eventList.length * 2);
-		}
-
-		// Insert the event in the stack, only copy array elements if not prepending
-		if (lowIdx <= headEvtIdx)
-			System.arraycopy(eventList, lowIdx, eventList, lowIdx + 1, (headEvtIdx - lowIdx + 1));
-
-		eventList[lowIdx] = newEvent;
-		headEvtIdx++;
+		eventList.add(newEvent, fifo);
 	}
 
 	/**
@@ -516,6 +574,7 @@ public final class EventManager implements Runnable {
 	public void waitUntil() {
 		synchronized (lockObject) {
 			if (!conditionalList.contains(Process.current())) {
+				recorder.record(EventRecorder.WAIT_UNTIL, currentTick);
 				if (trcListener != null) trcListener.traceWaitUntil(this);
 				Process.current().setFlag(Process.COND_WAIT);
 				conditionalList.add(Process.current());
@@ -524,6 +583,54 @@ public final class EventManager implements Runnable {
 		}
 	}
 
+	/**
+	 * Used to achieve conditional waits that are only re-tested when signalled.
+	 * Moves the calling thread to the waiting list for the given condition,
+	 * then wakes the next waiting thread on the thread stack. After the
+	 * condition is signalled, the thread will be woken with the other
+	 * conditional threads before the next advance of the simulation time.
+	 */
+	public void waitUntil(EventCondition cond) {
+		synchronized (lockObject) {
+			Process cur = Process.current();
+			if (!cur.testFlag(Process.COND_WAIT)) {
+				recorder.record(EventRecorder.WAIT_UNTIL, currentTick);
+				if (trcListener != null) trcListener.traceWaitUntil(this);
+				cur.setFlag(Process.COND_WAIT);
+			}
+			else {
+				// Re-testing after a signal or a waitUntil() without a condition
+				conditionalList.remove(cur);
+			}
+
+			if (!cond.registered) {
+				conditions.add(cond);
+				cond.registered = true;
+			}
+			cur.waitCond = cond;
+			cond.waiters.add(cur);
+			popProcess();
+		}
+	}
+
+	/**
+	 * Indicate that the state tested by the threads waiting for the given
+	 * condition may have changed. The waiting threads will be re-tested
+	 * before the next advance of the simulation time.
+	 */
+	public void signal(EventCondition cond) {
+		synchronized (lockObject) {
+			if (cond.waiters.isEmpty())
+				return;
+
+			for (Process each : cond.waiters) {
+				each.waitCond = null;
+				conditionalList.add(each);
+			}
+			cond.waiters.clear();
+		}
+	}
+
 	public void waitUntilEnded() {
 		synchronized (lockObject) {
 			// Do not wait at all if we never actually were on the waitUntilStack
@@ -542,6 +649,7 @@ public final class EventManager implements Runnable {
 			cur.clearFlag(Process.COND_WAIT);
 			WaitTarget t = new WaitTarget(cur);
 			Event temp = new Event(currentTick, currentTick, 0, t);
+			recorder.record(EventRecorder.WAIT_UNTIL_ENDED, currentTick, temp);
 			if (trcListener != null) trcListener.traceWaitUntilEnded(this, temp);
 			addEventToStack(temp, true);
 			popProcess();
@@ -552,24 +660,13 @@ public final class EventManager implements Runnable {
 		Process newProcess = Process.allocate(this, t);
 		// Notify the eventManager that a new process has been started
 		synchronized (lockObject) {
+			recorder.record(EventRecorder.START, currentTick, currentTick, 0, t);
 			if (trcListener != null) trcListener.traceProcessStart(this, t);
 			// Transfer control to the new process
 			pushProcess(newProcess);
 		}
 	}
 
-	/**
-	 * Remove an event from the eventList, must hold the lockObject.
-	 * @param idx
-	 * @return
-	 */
-	private Event removeEvent(int idx) {
-		Event e = eventList[idx];
-		System.arraycopy(eventList, idx + 1, eventList, idx, headEvtIdx - idx);
-		eventList[headEvtIdx] = null;
-		headEvtIdx--;
-		return e;
-	}
 	/**
 	 *	Removes the thread from the pending list and executes it immediately
 	 */
@@ -581,14 +678,14 @@ public final class EventManager implements Runnable {
 
 			assertNotWaitUntil();
 
-			for (int i = headEvtIdx; i >= 0; i--) {
-				if (eventList[i].target.getProcess() == intThread) {
-					Event interruptEvent = removeEvent(i);
-					Process proc = interruptEvent.target.getProcess();
-					if (trcListener != null) trcListener.traceInterrupt(this, interruptEvent);
-					pushProcess(proc);
-					return;
-				}
+			Event interruptEvent = eventList.find(intThread);
+			if (interruptEvent != null) {
+				eventList.remove(interruptEvent);
+				Process proc = interruptEvent.target.getProcess();
+				recorder.record(EventRecorder.INTERRUPT, currentTick, interruptEvent);
+				if (trcListener != null) trcListener.traceInterrupt(this, interruptEvent);
+				pushProcess(proc);
+				return;
 			}
 			throw new ProcessError("EVT:%s - Tried to interrupt a Process that couldn't be found in event list", name);
 		}
@@ -601,14 +698,14 @@ public final class EventManager implements Runnable {
 		synchronized (lockObject) {
 			assertNotWaitUntil();
 
-			for (int i = headEvtIdx; i >= 0; i--) {
-				if (eventList[i].target == t) {
-					Event interruptEvent = removeEvent(i);
-					if (trcListener != null) trcListener.traceInterrupt(this, interruptEvent);
-					Process proc = Process.allocate(this, interruptEvent.target);
-					pushProcess(proc);
-					return;
-				}
+			Event interruptEvent = eventList.find(t);
+			if (interruptEvent != null) {
+				eventList.remove(interruptEvent);
+				recorder.record(EventRecorder.INTERRUPT, currentTick, interruptEvent);
+				if (trcListener != null) trcListener.traceInterrupt(this, interruptEvent);
+				Process proc = Process.allocate(this, interruptEvent.target);
+				pushProcess(proc);
+				return;
 			}
 			throw new ProcessError("EVT:%s - Tried to interrupt a ProcessTarget that couldn't be found in event list", name);
 		}
@@ -628,14 +725,23 @@ public final class EventManager implements Runnable {
 				return;
 			}
 
-			for (int i = headEvtIdx; i >= 0; i--) {
-				if (eventList[i].target.getProcess() == killThread) {
-					Event temp = removeEvent(i);
-					if (trcListener != null) trcListener.traceKill(this, temp);
-					killThread.setFlag(Process.TERMINATE);
-					killThread.interrupt();
-					return;
-				}
+			EventCondition cond = killThread.waitCond;
+			if (cond != null) {
+				cond.waiters.remove(killThread);
+				killThread.waitCond = null;
+				killThread.setFlag(Process.TERMINATE);
+				killThread.interrupt();
+				return;
+			}
+
+			Event temp = eventList.find(killThread);
+			if (temp != null) {
+				eventList.remove(temp);
+				recorder.record(EventRecorder.KILL, currentTick, temp);
+				if (trcListener != null) trcListener.traceKill(this, temp);
+				killThread.setFlag(Process.TERMINATE);
+				killThread.interrupt();
+				return;
 			}
 		}
 		throw new ProcessError("EVT:%s - Tried to terminate a Process that couldn't be found in event list", name);
@@ -648,12 +754,12 @@ public final class EventManager implements Runnable {
 		synchronized (lockObject) {
 			assertNotWaitUntil();
 
-			for (int i = headEvtIdx; i >= 0; i--) {
-				if (eventList[i].target == t) {
-					Event temp = removeEvent(i);
-					if (trcListener != null) trcListener.traceKill(this, temp);
-					return;
-				}
+			Event temp = eventList.find(t);
+			if (temp != null) {
+				eventList.remove(temp);
+				recorder.record(EventRecorder.KILL, currentTick, temp);
+				if (trcListener != null) trcListener.traceKill(this, temp);
+				return;
 			}
 		}
 		throw new ProcessError("EVT:%s - Tried to terminate a ProcessTarget that couldn't be found in event list", name);
@@ -704,12 +810,55 @@ public final class EventManager implements Runnable {
 
 	}
 
-	public void scheduleProcess(long waitLength, int eventPriority, boolean fifo, ProcessTarget t) {
+	/**
+	 * Schedules the target to be executed after the given number of ticks.
+	 * @return the scheduled event, which may be used to cancel or reschedule it
+	 */
+	public Event scheduleProcess(long waitLength, int eventPriority, boolean fifo, ProcessTarget t) {
 		synchronized (lockObject) {
 			long schedTick = calculateEventTime(waitLength);
 			Event e = new Event(currentTick, schedTick, eventPriority, t);
+			recorder.record(EventRecorder.SCHEDULE, currentTick, e);
 			if (trcListener != null) trcListener.traceSchedProcess(this, e);
 			addEventToStack(e, fifo);
+			return e;
+		}
+	}
+
+	/**
+	 * Removes a scheduled event from the pending list without executing it.
+	 * @return false if the event was not pending, i.e. it has already been
+	 * executed or cancelled
+	 */
+	public boolean cancel(Event evt) {
+		synchronized (lockObject) {
+			if (!eventList.remove(evt))
+				return false;
+
+			recorder.record(EventRecorder.KILL, currentTick, evt);
+			if (trcListener != null) trcListener.traceKill(this, evt);
+			return true;
+		}
+	}
+
+	/**
+	 * Moves a scheduled event to a new time, measured in ticks from now.
+	 * @return the event replacing the given one, or null if the given event
+	 * was not pending
+	 */
+	public Event reschedule(Event evt, long waitLength, boolean fifo) {
+		synchronized (lockObject) {
+			if (!eventList.remove(evt))
+				return null;
+
+			recorder.record(EventRecorder.KILL, currentTick, evt);
+			if (trcListener != null) trcListener.traceKill(this, evt);
+			long schedTick = calculateEventTime(waitLength);
+			Event e = new Event(currentTick, schedTick, evt.priority, evt.target);
+			recorder.record(EventRecorder.SCHEDULE, currentTick, e);
+			if (trcListener != null) trcListener.traceSchedProcess(this, e);
+			addEventToStack(e, fifo);
+			return e;
 		}
 	}
 
@@ -726,6 +875,19 @@ public final class EventManager implements Runnable {
 		}
 	}
 
+	/**
+	 * Blocks the calling thread until the eventManager has been paused and has
+	 * finished executing the present event, so that the event list can be
+	 * modified safely. Must not be called from a model process as the
+	 * eventManager cannot go idle while that process is running.
+	 */
+	public void waitForPause() throws InterruptedException {
+		synchronized (lockObject) {
+			while (executeEvents || running)
+				lockObject.wait();
+		}
+	}
+
 	/**
 	 * Sets the value that is tested in the doProcess loop to determine if the
 	 * next event should be executed.  Generates an interrupt of activeThread
@@ -0,0 +1,131 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.events;
+
+import java.util.ArrayList;
+
+/**
+ * EventRecorder keeps the most recent scheduling operations of an
+ * EventManager in a fixed-size ring buffer, so that the history leading up to
+ * an error can be reported after the fact. Entries are held in preallocated
+ * parallel arrays and recording one does not allocate. The description of each
+ * target is only built when the entries are dumped.
+ * <p>
+ * The recorder is not synchronized, it relies on the EventManager calling it
+ * while holding its lock.
+ */
+final class EventRecorder {
+	static final byte SCHEDULE = 1;
+	static final byte EVENT = 2;
+	static final byte WAIT = 3;
+	static final byte WAIT_UNTIL = 4;
+	static final byte WAIT_UNTIL_ENDED = 5;
+	static final byte START = 6;
+	static final byte EXIT = 7;
+	static final byte INTERRUPT = 8;
+	static final byte KILL = 9;
+
+	private static final String[] OP_NAMES = { null, "Schedule", "Event", "Wait", "WaitUntil",
+	                                           "WaitUntilEnded", "StartProcess", "Exit", "Int", "Kill" };
+
+	private final byte[] ops;
+	private final long[] curTicks;
+	private final long[] schedTicks;
+	private final int[] priorities;
+	private final ProcessTarget[] targets;
+	private final int mask;
+	private long count; // total number of entries recorded
+
+	/**
+	 * @param size - the number of entries kept, rounded up to a power of two,
+	 * or zero to record nothing
+	 */
+	EventRecorder(int size) {
+		int len = 0;
+		if (size > 0) {
+			len = 1;
+			while (len < size)
+				len <<= 1;
+		}
+
+		ops = new byte[len];
+		curTicks = new long[len];
+		schedTicks = new long[len];
+		priorities = new int[len];
+		targets = new ProcessTarget[len];
+		mask = len - 1;
+	}
+
+	int capacity() {
+		return ops.length;
+	}
+
+	void record(byte op, long curTick, long schedTick, int priority, ProcessTarget t) {
+		if (ops.length == 0)
+			return;
+
+		int i = (int)count & mask;
+		ops[i] = op;
+		curTicks[i] = curTick;
+		schedTicks[i] = schedTick;
+		priorities[i] = priority;
+		targets[i] = t;
+		count++;
+	}
+
+	void record(byte op, long curTick, Event evt) {
+		this.record(op, curTick, evt.schedTick, evt.priority, evt.target);
+	}
+
+	void record(byte op, long curTick) {
+		this.record(op, curTick, curTick, 0, null);
+	}
+
+	void clear() {
+		for (int i = 0; i < targets.length; i++)
+			targets[i] = null;
+		count = 0;
+	}
+
+	/**
+	 * Returns a line of text for each entry held, oldest first.
+	 */
+	ArrayList<String> dump() {
+		int n = (int)Math.min(count, ops.length);
+		ArrayList<String> ret = new ArrayList<String>(n);
+		for (long j = count - n; j < count; j++) {
+			int i = (int)j & mask;
+			StringBuilder line = new StringBuilder();
+			line.append(curTicks[i]).append('\t').append(OP_NAMES[ops[i]]);
+			if (ops[i] != EXIT && ops[i] != WAIT_UNTIL) {
+				line.append('\t').append(schedTicks[i]);
+				line.append('\t').append(priorities[i]);
+			}
+
+			if (targets[i] != null) {
+				String desc;
+				try {
+					desc = targets[i].getDescription();
+				}
+				catch (RuntimeException e) {
+					desc = targets[i].getClass().getSimpleName();
+				}
+				line.append('\t').append(desc);
+			}
+			ret.add(line.toString());
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.events;
+
+import java.util.IdentityHashMap;
+
+/**
+ * The set of future events held by an EventManager. Implementations must
+ * return events in the order:
+ * <ul>
+ * <li>1 - The execution time scheduled for the event
+ * <li>2 - The priority of the event (if scheduled to occur at the same time)
+ * <li>3 - If both 1) and 2) are equal, the FIFO/LIFO policy requested when
+ * the event was added. A LIFO event is placed ahead of every event already
+ * present with equal time and priority, a FIFO event behind all of them.
+ * </ul>
+ * The events are also indexed by their target (or by the waiting Process for
+ * events that resume a Process) so that the events for a given target can be
+ * found without searching the whole set.
+ * <p>
+ * All methods must be called while holding the EventManager lockObject.
+ */
+abstract class EventSet {
+	private long fifoSeq; // the next sequence number for a FIFO event, increasing
+	private long lifoSeq; // the next sequence number for a LIFO event, decreasing
+
+	// The first event for each target or waiting Process, further events for
+	// the same key are chained through Event.nextForKey
+	private final IdentityHashMap<Object, Event> index;
+
+	EventSet() {
+		index = new IdentityHashMap<Object, Event>();
+		resetSequence();
+	}
+
+	/**
+	 * Add an event to the set using the given policy for equal time/priority.
+	 */
+	final void add(Event evt, boolean fifo) {
+		// LIFO events count down from zero and FIFO events count up so that
+		// the ordering in before() reproduces the requested policy
+		if (fifo)
+			evt.seqNum = fifoSeq++;
+		else
+			evt.seqNum = lifoSeq--;
+
+		Object key = keyFor(evt.target);
+		evt.nextForKey = index.put(key, evt);
+		insert(evt);
+	}
+
+	/**
+	 * Remove and return the next event to be executed, or null if the set is
+	 * empty.
+	 */
+	final Event poll() {
+		Event evt = peek();
+		if (evt == null)
+			return null;
+
+		delete(evt);
+		removeIndex(evt);
+		return evt;
+	}
+
+	/**
+	 * Remove the given event from the set, returns false if it was not found.
+	 */
+	final boolean remove(Event evt) {
+		if (!delete(evt))
+			return false;
+
+		removeIndex(evt);
+		return true;
+	}
+
+	final void clear() {
+		deleteAll();
+		index.clear();
+		resetSequence();
+	}
+
+	/**
+	 * Return the first event to be executed for the given target, or null.
+	 */
+	final Event find(ProcessTarget t) {
+		Event ret = null;
+		for (Event each = index.get(keyFor(t)); each != null; each = each.nextForKey) {
+			if (each.target == t && (ret == null || before(each, ret)))
+				ret = each;
+		}
+		return ret;
+	}
+
+	/**
+	 * Return the first event to be executed for the given process, or null.
+	 */
+	final Event find(Process p) {
+		Event ret = null;
+		for (Event each = index.get(p); each != null; each = each.nextForKey) {
+			if (ret == null || before(each, ret))
+				ret = each;
+		}
+		return ret;
+	}
+
+	/**
+	 * Return an event for the given target scheduled at the exact time and
+	 * priority given, or null if no such event exists.
+	 */
+	final Event find(long schedTick, int priority, ProcessTarget t) {
+		for (Event each = index.get(keyFor(t)); each != null; each = each.nextForKey) {
+			if (each.schedTick == schedTick &&
+			    each.priority == priority &&
+			    each.target == t)
+				return each;
+		}
+		return null;
+	}
+
+	/**
+	 * Return the next event to be executed without removing it, or null if
+	 * the set is empty.
+	 */
+	abstract Event peek();
+
+	abstract int size();
+
+	/**
+	 * Return the event at the given storage index, the order of the events
+	 * is not guaranteed and this is only intended for iterating the entire set.
+	 */
+	abstract Event get(int idx);
+
+	/**
+	 * Store a new event, its sequence number has already been assigned.
+	 */
+	abstract void insert(Event evt);
+
+	/**
+	 * Remove the given event from storage, returns false if it was not found.
+	 */
+	abstract boolean delete(Event evt);
+
+	abstract void deleteAll();
+
+	private void resetSequence() {
+		fifoSeq = 1;
+		lifoSeq = 0;
+	}
+
+	private void removeIndex(Event evt) {
+		Object key = keyFor(evt.target);
+		Event first = index.get(key);
+		if (first == evt) {
+			if (evt.nextForKey == null)
+				index.remove(key);
+			else
+				index.put(key, evt.nextForKey);
+			evt.nextForKey = null;
+			return;
+		}
+
+		for (Event each = first; each != null; each = each.nextForKey) {
+			if (each.nextForKey == evt) {
+				each.nextForKey = evt.nextForKey;
+				evt.nextForKey = null;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Events resuming a waiting Process are indexed by the Process, all other
+	 * events by their target.
+	 */
+	private static Object keyFor(ProcessTarget t) {
+		Process p = t.getProcess();
+		if (p != null)
+			return p;
+
+		return t;
+	}
+
+	/**
+	 * Returns true if event a is to be executed before event b.
+	 */
+	static final boolean before(Event a, Event b) {
+		if (a.schedTick != b.schedTick)
+			return a.schedTick < b.schedTick;
+
+		if (a.priority != b.priority)
+			return a.priority < b.priority;
+
+		return a.seqNum < b.seqNum;
+	}
+}
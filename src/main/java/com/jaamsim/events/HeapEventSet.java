@@ -0,0 +1,133 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.events;
+
+import java.util.Arrays;
+
+/**
+ * EventSet backed by an array-based binary heap. Insertion and removal of any
+ * event are O(log n), each event records its own position in the heap so that
+ * it can be removed without searching.
+ */
+final class HeapEventSet extends EventSet {
+	private Event[] heap;
+	private int size;
+
+	HeapEventSet() {
+		heap = new Event[10000];
+		size = 0;
+	}
+
+	@Override
+	void insert(Event evt) {
+		// Expand the heap by doubling the size
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length * 2);
+		}
+
+		siftUp(size, evt);
+		size++;
+	}
+
+	@Override
+	Event peek() {
+		if (size == 0)
+			return null;
+
+		return heap[0];
+	}
+
+	@Override
+	boolean delete(Event evt) {
+		int idx = evt.setIdx;
+		if (idx < 0 || idx >= size || heap[idx] != evt)
+			return false;
+
+		removeAt(idx);
+		return true;
+	}
+
+	@Override
+	int size() {
+		return size;
+	}
+
+	@Override
+	Event get(int idx) {
+		return heap[idx];
+	}
+
+	@Override
+	void deleteAll() {
+		for (int i = 0; i < size; i++)
+			heap[i].setIdx = -1;
+
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+	}
+
+	private void removeAt(int idx) {
+		Event removed = heap[idx];
+		removed.setIdx = -1;
+
+		size--;
+		Event last = heap[size];
+		heap[size] = null;
+		if (idx == size)
+			return;
+
+		// Re-insert the last event at the hole, it may need to move either way
+		siftDown(idx, last);
+		if (heap[idx] == last)
+			siftUp(idx, last);
+	}
+
+	private void siftUp(int idx, Event evt) {
+		while (idx > 0) {
+			int parentIdx = (idx - 1) >>> 1;
+			Event parent = heap[parentIdx];
+			if (!before(evt, parent))
+				break;
+
+			heap[idx] = parent;
+			parent.setIdx = idx;
+			idx = parentIdx;
+		}
+		heap[idx] = evt;
+		evt.setIdx = idx;
+	}
+
+	private void siftDown(int idx, Event evt) {
+		int half = size >>> 1;
+		while (idx < half) {
+			int childIdx = 2 * idx + 1;
+			Event child = heap[childIdx];
+			int rightIdx = childIdx + 1;
+			if (rightIdx < size && before(heap[rightIdx], child)) {
+				childIdx = rightIdx;
+				child = heap[rightIdx];
+			}
+
+			if (!before(child, evt))
+				break;
+
+			heap[idx] = child;
+			child.setIdx = idx;
+			idx = childIdx;
+		}
+		heap[idx] = evt;
+		evt.setIdx = idx;
+	}
+}
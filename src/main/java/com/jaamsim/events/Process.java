@@ -43,6 +43,7 @@ public final class Process extends Thread {
 
 	private EventManager eventManager; // The EventManager that is currently managing this Process
 	private Process nextProcess; // The Process from which the present process was created
+	EventCondition waitCond; // The condition this Process is waiting to be signalled, guarded by the EventManager lock
 
 	private int flags;  // Present execution state of the process
 	static final int TERMINATE = 0x01;  // The process should terminate immediately
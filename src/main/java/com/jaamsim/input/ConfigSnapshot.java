@@ -0,0 +1,386 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.input;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.sandwell.JavaSimulation.ErrorException;
+import com.sandwell.JavaSimulation.Input.ParseContext;
+import com.sandwell.JavaSimulation.InputErrorException;
+
+/**
+ * ConfigSnapshot holds the records of a configuration file, with its includes
+ * expanded, in a binary form. Each record is stored as the tokens that were
+ * passed to InputAgent, with every distinct token written once and referred
+ * to by number afterwards.
+ * <p>
+ * Replaying a snapshot only skips reading the text, tokenizing, matching
+ * braces and resolving includes. The parsed values are not stored, so every
+ * keyword still goes through Input.parse, updateForInput and the same
+ * validation as a text load, which is where most of the load time is spent.
+ * <p>
+ * The snapshot lists every file that was read along with a SHA-1 hash of its
+ * contents, starting with the configuration file itself. Files are recorded
+ * relative to the folder of the configuration file, so a copied model folder
+ * is checked against its own files. A snapshot is only used for the
+ * configuration file it was made from and only if each of its files still
+ * has the same hash, so any change to the configuration file or one of its
+ * includes causes it to be ignored.
+ */
+final class ConfigSnapshot {
+	static final int MAGIC = 0x4A53434D; // "JSCM"
+	static final int VERSION = 2;
+
+	// Record types
+	private static final byte DEFINE = 1;
+	private static final byte KEYWORD = 2;
+	private static final byte RECORD_EDITS = 3;
+
+	private final URI dir;
+	private final ArrayList<URI> sources;
+	private final ArrayList<MessageDigest> digests;
+	private final ByteArrayOutputStream body;
+	private final DataOutputStream out;
+	private final HashMap<String, Integer> strings;
+	private final HashMap<ParseContext, Integer> contexts;
+	private int numRecords;
+	private IOException error;
+
+	/**
+	 * Creates an empty snapshot for the given configuration file.
+	 */
+	ConfigSnapshot(File file) {
+		dir = getDirURI(file);
+		sources = new ArrayList<URI>();
+		digests = new ArrayList<MessageDigest>();
+		body = new ByteArrayOutputStream(64 * 1024);
+		out = new DataOutputStream(body);
+		strings = new HashMap<String, Integer>();
+		strings.put("{", 0);
+		strings.put("}", 1);
+		contexts = new HashMap<ParseContext, Integer>();
+	}
+
+	/**
+	 * Returns the snapshot file for the given configuration file.
+	 */
+	static File getSnapshotFile(File file) {
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		if (dot > 0)
+			name = name.substring(0, dot);
+		return new File(file.getParentFile(), name + ".cfgc");
+	}
+
+	private static URI getDirURI(File file) {
+		return file.getAbsoluteFile().getParentFile().toURI();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new ErrorException(e);
+		}
+	}
+
+	/**
+	 * Adds a file to the list of sources and returns a stream that computes
+	 * the hash of its contents as it is read.
+	 */
+	InputStream addSource(URI uri, InputStream in) {
+		MessageDigest md = newDigest();
+		sources.add(dir.relativize(uri.normalize()));
+		digests.add(md);
+		return new DigestInputStream(in, md);
+	}
+
+	void addDefine(ArrayList<String> record) {
+		try {
+			out.writeByte(DEFINE);
+			this.writeTokens(record);
+			numRecords++;
+		}
+		catch (IOException e) {
+			error = e;
+		}
+	}
+
+	void addKeyword(ArrayList<String> record, ParseContext pc) {
+		try {
+			out.writeByte(KEYWORD);
+			Integer id = contexts.get(pc);
+			if (id == null) {
+				writeVarLong(out, 0);
+				this.writeString(pc.jail);
+				this.writeString(dir.relativize(pc.context.normalize()).toString());
+				contexts.put(pc, contexts.size());
+			}
+			else {
+				writeVarLong(out, id + 1);
+			}
+			this.writeTokens(record);
+			numRecords++;
+		}
+		catch (IOException e) {
+			error = e;
+		}
+	}
+
+	void addRecordEdits() {
+		try {
+			out.writeByte(RECORD_EDITS);
+			numRecords++;
+		}
+		catch (IOException e) {
+			error = e;
+		}
+	}
+
+	int getNumRecords() {
+		return numRecords;
+	}
+
+	private void writeTokens(ArrayList<String> record) throws IOException {
+		writeVarLong(out, record.size());
+		for (String each : record)
+			this.writeString(each);
+	}
+
+	private void writeString(String str) throws IOException {
+		Integer id = strings.get(str);
+		if (id != null) {
+			writeVarLong(out, id + 1);
+			return;
+		}
+
+		// First appearance, write the text and give it the next number
+		writeVarLong(out, 0);
+		out.writeUTF(str);
+		strings.put(str, strings.size());
+	}
+
+	/**
+	 * Writes the snapshot to the given file.
+	 */
+	void write(File file) throws IOException {
+		if (error != null)
+			throw error;
+
+		DataOutputStream fileOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+		try {
+			fileOut.writeInt(MAGIC);
+			fileOut.writeInt(VERSION);
+			fileOut.writeInt(sources.size());
+			for (int i = 0; i < sources.size(); i++) {
+				fileOut.writeUTF(sources.get(i).toString());
+				byte[] hash = digests.get(i).digest();
+				fileOut.writeShort(hash.length);
+				fileOut.write(hash);
+			}
+			fileOut.writeInt(numRecords);
+			fileOut.writeInt(body.size());
+			body.writeTo(fileOut);
+		}
+		finally {
+			fileOut.close();
+		}
+	}
+
+	/**
+	 * Replays the records of a snapshot file through InputAgent in place of
+	 * the given configuration file. Returns false, without changing the model,
+	 * if the snapshot cannot be read, was made from a different configuration
+	 * file or if one of the files it was made from has changed.
+	 */
+	static boolean load(File file, File cfg) {
+		URI dir = getDirURI(cfg);
+		URI cfgURI = dir.relativize(cfg.getAbsoluteFile().toURI());
+		byte[] data;
+		int num;
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION)
+					return false;
+
+				int numSources = in.readInt();
+				if (numSources == 0)
+					return false;
+
+				for (int i = 0; i < numSources; i++) {
+					URI uri = new URI(in.readUTF());
+					if (i == 0 && !uri.equals(cfgURI))
+						return false;
+
+					byte[] hash = new byte[in.readUnsignedShort()];
+					in.readFully(hash);
+					if (!Arrays.equals(hash, hashSource(dir.resolve(uri))))
+						return false;
+				}
+
+				num = in.readInt();
+				data = new byte[in.readInt()];
+				in.readFully(data);
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			return false;
+		}
+		catch (URISyntaxException e) {
+			return false;
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+
+		try {
+			replay(new DataInputStream(new ByteArrayInputStream(data)), num, dir);
+		}
+		catch (IOException e) {
+			throw new InputErrorException("The snapshot file %s is not valid: %s", file.getName(), e.getMessage());
+		}
+		return true;
+	}
+
+	private static byte[] hashSource(URI uri) throws IOException {
+		MessageDigest md = newDigest();
+		InputStream in = uri.toURL().openStream();
+		try {
+			byte[] buf = new byte[64 * 1024];
+			while (true) {
+				int n = in.read(buf);
+				if (n < 0)
+					break;
+				md.update(buf, 0, n);
+			}
+		}
+		finally {
+			in.close();
+		}
+		return md.digest();
+	}
+
+	private static void replay(DataInput in, int num, URI dir) throws IOException {
+		ArrayList<String> strings = new ArrayList<String>();
+		strings.add("{");
+		strings.add("}");
+		ArrayList<ParseContext> contexts = new ArrayList<ParseContext>();
+
+		for (int i = 0; i < num; i++) {
+			byte type = in.readByte();
+			switch (type) {
+			case DEFINE:
+				ArrayList<String> def = readTokens(in, strings);
+				InputAgent.echoInputRecord(def);
+				InputAgent.processDefineRecord(def);
+				break;
+
+			case KEYWORD:
+				int id = (int)readVarLong(in);
+				ParseContext pc;
+				if (id == 0) {
+					pc = new ParseContext();
+					pc.jail = readString(in, strings);
+					try {
+						pc.context = dir.resolve(new URI(readString(in, strings)));
+					}
+					catch (URISyntaxException e) {
+						throw new IOException(e.getMessage());
+					}
+					contexts.add(pc);
+				}
+				else {
+					pc = contexts.get(id - 1);
+				}
+				ArrayList<String> rec = readTokens(in, strings);
+				InputAgent.echoInputRecord(rec);
+				InputAgent.processKeywordRecord(rec, pc);
+				break;
+
+			case RECORD_EDITS:
+				InputAgent.setRecordEditsFound(true);
+				InputAgent.setRecordEdits(true);
+				break;
+
+			default:
+				throw new IOException("Unknown record type: " + type);
+			}
+		}
+	}
+
+	private static ArrayList<String> readTokens(DataInput in, ArrayList<String> strings) throws IOException {
+		int n = (int)readVarLong(in);
+		ArrayList<String> ret = new ArrayList<String>(n);
+		for (int i = 0; i < n; i++)
+			ret.add(readString(in, strings));
+		return ret;
+	}
+
+	private static String readString(DataInput in, ArrayList<String> strings) throws IOException {
+		long ref = readVarLong(in);
+		if (ref == 0) {
+			String str = in.readUTF();
+			strings.add(str);
+			return str;
+		}
+		if (ref > strings.size())
+			throw new IOException("Bad string reference: " + ref);
+		return strings.get((int)(ref - 1));
+	}
+
+	private static void writeVarLong(DataOutput out, long val) throws IOException {
+		while ((val & ~0x7FL) != 0) {
+			out.writeByte((int)(val & 0x7F) | 0x80);
+			val >>>= 7;
+		}
+		out.writeByte((int)val);
+	}
+
+	private static long readVarLong(DataInput in) throws IOException {
+		long val = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			val |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return val;
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+}
@@ -16,10 +16,14 @@ package com.jaamsim.input;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -33,6 +37,7 @@ import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import com.jaamsim.basicsim.AsyncLogWriter;
 import com.jaamsim.ui.ExceptionBox;
 import com.jaamsim.ui.FrameBox;
 import com.jaamsim.ui.LogBox;
@@ -57,12 +62,16 @@ public class InputAgent {
 	private static FileEntity logFile;
 
 	private static double lastTimeForTrace;
+	private static AsyncLogWriter traceWriter; // writes the trace to standard output in the background
+	private static PrintStream traceStream;
 
 	private static File configFile;           // present configuration file
 	private static boolean batchRun;
 	private static boolean sessionEdited;     // TRUE if any inputs have been changed after loading a configuration file
 	private static boolean recordEditsFound;  // TRUE if the "RecordEdits" marker is found in the configuration file
 	private static boolean recordEdits;       // TRUE if input changes are to be marked as edited.
+	private static boolean compileSnapshot;   // TRUE if configuration files are loaded through a binary snapshot
+	private static ConfigSnapshot snapshot;   // collects the records read while compiling a snapshot
 
 	private static final String INP_ERR_DEFINEUSED = "The name: %s has already been used and is a %s";
 
@@ -212,6 +221,17 @@ public class InputAgent {
 		return sessionEdited;
 	}
 
+	/**
+	 * Sets whether configuration files are loaded through a binary snapshot.
+	 * When set, a valid snapshot is used in place of the configuration file
+	 * and a new one is written after a load without errors. Snapshots are
+	 * never used otherwise, as they save the tokenizing of the text only,
+	 * see ConfigSnapshot.
+	 */
+	public static void setCompileSnapshot(boolean bool) {
+		compileSnapshot = bool;
+	}
+
 	public static void setBatch(boolean batch) {
 		batchRun = batch;
 	}
@@ -332,6 +352,8 @@ public class InputAgent {
 		BufferedReader buf = null;
 		try {
 			InputStream in = url.openStream();
+			if (snapshot != null)
+				in = snapshot.addSource(resolved, in);
 			buf = new BufferedReader(new InputStreamReader(in));
 		} catch (IOException e) {
 			InputAgent.logWarning("Could not read from %s", url.toString());
@@ -364,6 +386,8 @@ public class InputAgent {
 				InputAgent.echoInputRecord(record);
 
 				if ("DEFINE".equalsIgnoreCase(record.get(0))) {
+					if (snapshot != null)
+						snapshot.addDefine(record);
 					InputAgent.processDefineRecord(record);
 					record.clear();
 					continue;
@@ -381,6 +405,8 @@ public class InputAgent {
 				}
 
 				if ("RECORDEDITS".equalsIgnoreCase(record.get(0))) {
+					if (snapshot != null)
+						snapshot.addRecordEdits();
 					InputAgent.setRecordEditsFound(true);
 					InputAgent.setRecordEdits(true);
 					record.clear();
@@ -388,6 +414,8 @@ public class InputAgent {
 				}
 
 				// Otherwise assume it is a Keyword record
+				if (snapshot != null)
+					snapshot.addKeyword(record, pc);
 				InputAgent.processKeywordRecord(record, pc);
 				record.clear();
 			}
@@ -413,7 +441,7 @@ public class InputAgent {
 		InputAgent.readStream(pc.jail, pc.context, record.get(1).replaceAll("\\\\", "/"));
 	}
 
-	private static void processDefineRecord(ArrayList<String> record) {
+	static void processDefineRecord(ArrayList<String> record) {
 		if (record.size() < 5 ||
 		    !record.get(2).equals("{") ||
 		    !record.get(record.size() - 1).equals("}")) {
@@ -470,6 +498,40 @@ public class InputAgent {
 		}
 	}
 
+	/**
+	 * Creates a copy of the given prototype for use during a simulation run.
+	 * The copy is not registered by name and its inputs are cloned from the
+	 * prototype without being re-parsed.  Its name, prefix+num, is only built
+	 * if it is requested.
+	 * @param proto - the entity to be copied
+	 * @param prefix - the name prefix for the copy
+	 * @param num - the number appended to the prefix to form the name
+	 * @return the new entity, or null if it could not be created
+	 */
+	public static <T extends Entity> T generateEntity(T proto, String prefix, long num) {
+		T ent = null;
+		try {
+			@SuppressWarnings("unchecked")
+			Class<T> klass = (Class<T>)proto.getClass();
+			ent = klass.getDeclaredConstructor().newInstance();
+		}
+		catch (InstantiationException e) {}
+		catch (IllegalAccessException e) {}
+		catch (NoSuchMethodException e) {}
+		catch (InvocationTargetException e) {}
+		finally {
+			if (ent == null) {
+				InputAgent.logError("Could not create new Entity: %s%d", prefix, num);
+				return null;
+			}
+		}
+
+		ent.setLazyName(prefix, num);
+		ent.cloneInputs(proto);
+		ent.setFlag(Entity.FLAG_GENERATED);
+		return ent;
+	}
+
 	/**
 	 * if addedEntity is true then this is an entity defined
 	 * by user interaction or after added record flag is found;
@@ -607,8 +669,31 @@ public class InputAgent {
 			InputAgent.logWarning("Could not create trace file");
 		}
 
-		URI dirURI = file.getParentFile().toURI();
-		InputAgent.readStream("", dirURI, file.getName());
+		// Use the snapshot of the configuration file if none of its sources have changed
+		File snapFile = ConfigSnapshot.getSnapshotFile(file);
+		boolean loaded = false;
+		if (compileSnapshot && snapFile.isFile()) {
+			GUIFrame.instance().setProgressText(snapFile.getName());
+			loaded = ConfigSnapshot.load(snapFile, file);
+			if (loaded)
+				LogBox.format("Loaded snapshot %s", snapFile.getName());
+		}
+
+		if (!loaded) {
+			if (compileSnapshot)
+				snapshot = new ConfigSnapshot(file);
+
+			try {
+				URI dirURI = file.getParentFile().toURI();
+				InputAgent.readStream("", dirURI, file.getName());
+			}
+			finally {
+				ConfigSnapshot snap = snapshot;
+				snapshot = null;
+				if (snap != null && InputAgent.numWarnings == 0 && InputAgent.numErrors == 0)
+					InputAgent.writeSnapshot(snap, snapFile);
+			}
+		}
 
 		GUIFrame.instance().setProgressText(null);
 		GUIFrame.instance().setProgress(0);
@@ -635,6 +720,17 @@ public class InputAgent {
 			InputAgent.printInputFileKeywords();
 	}
 
+	private static void writeSnapshot(ConfigSnapshot snap, File snapFile) {
+		try {
+			snap.write(snapFile);
+			LogBox.format("Wrote snapshot %s with %d records", snapFile.getName(), snap.getNumRecords());
+		}
+		catch (IOException e) {
+			snapFile.delete();
+			LogBox.format("Unable to write snapshot %s: %s", snapFile.getName(), e.getMessage());
+		}
+	}
+
 	public static final void apply(Entity ent, KeywordIndex kw) {
 		Input<?> in = ent.getInput(kw.keyword);
 		if (in == null) {
@@ -1019,7 +1115,7 @@ public class InputAgent {
 		return numWarnings;
 	}
 
-	private static void echoInputRecord(ArrayList<String> tokens) {
+	static void echoInputRecord(ArrayList<String> tokens) {
 		if (logFile == null)
 			return;
 		StringBuilder line = new StringBuilder();
@@ -1047,6 +1143,7 @@ public class InputAgent {
 
 	public static void logMessage(String fmt, Object... args) {
 		String msg = String.format(fmt, args);
+		InputAgent.syncTrace();
 		System.out.println(msg);
 		LogBox.logLine(msg);
 
@@ -1065,20 +1162,40 @@ public class InputAgent {
 			ind.append("   ");
 		String spacer = ind.toString();
 
+		if (traceStream == null) {
+			traceWriter = new AsyncLogWriter(new FileOutputStream(FileDescriptor.out), 1024);
+			traceStream = new PrintStream(traceWriter, false);
+		}
+
 		// Print a TIME header every time time has advanced
 		double traceTime = ent.getCurrentTime();
 		if (lastTimeForTrace != traceTime) {
-			System.out.format(" \nTIME = %.5f\n", traceTime);
+			traceStream.format(" \nTIME = %.5f\n", traceTime);
 			lastTimeForTrace = traceTime;
 		}
 
 		// Output the traces line(s)
-		System.out.format("%s%s %s\n", spacer, ent.getName(), meth);
+		traceStream.format("%s%s %s\n", spacer, ent.getName(), meth);
 		for (String line : text) {
-			System.out.format("%s%s\n", spacer, line);
+			traceStream.format("%s%s\n", spacer, line);
 		}
 
-		System.out.flush();
+		traceStream.flush();
+	}
+
+	/**
+	 * Waits until the trace output has been written, so that it is not
+	 * interleaved with messages printed directly to standard output.
+	 */
+	public static void syncTrace() {
+		if (traceStream == null)
+			return;
+
+		traceStream.flush();
+		try {
+			traceWriter.sync();
+		}
+		catch (IOException e) {}
 	}
 
 	public static void logWarning(String fmt, Object... args) {
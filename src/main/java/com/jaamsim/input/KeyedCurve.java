@@ -14,30 +14,46 @@
  */
 package com.jaamsim.input;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 
+import com.jaamsim.math.LookupCursor;
+
 public abstract class KeyedCurve<T> {
 
-	private class Key {
-		public double time;
-		public T val;
-	}
-	private ArrayList<Key> keys;
+	// Keys are held in parallel arrays, sorted by time before the first lookup
+	private double[] times;
+	private Object[] vals;
+	private int numKeys;
 	private boolean isSorted;
+	private final LookupCursor cursor;
 
 	public KeyedCurve() {
-		keys = new ArrayList<Key>();
+		times = new double[4];
+		vals = new Object[4];
+		numKeys = 0;
 		isSorted = true;
+		cursor = new LookupCursor();
 	}
 
 	public void addKey(double time, T val) {
-		Key k = new Key();
-		k.time = time;
-		k.val = val;
-		keys.add(k);
-		isSorted = false;
+		if (numKeys == times.length) {
+			times = Arrays.copyOf(times, numKeys * 2);
+			vals = Arrays.copyOf(vals, numKeys * 2);
+		}
+
+		// Keys added in order of time do not need to be sorted
+		if (numKeys > 0 && !(time >= times[numKeys - 1]))
+			isSorted = false;
+
+		times[numKeys] = time;
+		vals[numKeys] = val;
+		numKeys++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T getVal(int i) {
+		return (T)vals[i];
 	}
 
 	public T getValAtTime(double time) {
@@ -49,61 +65,69 @@ public abstract class KeyedCurve<T> {
 		if (Double.isNaN(time)) {
 			time = Double.NEGATIVE_INFINITY;
 		}
-		if (keys.size() == 0) {
+		if (numKeys == 0) {
 			 return null;
 		}
-		if (keys.size() == 1) {
-			return keys.get(0).val;
+		if (numKeys == 1) {
+			return getVal(0);
 		}
 		// Are we ahead of the beginning?
-		if (time <= keys.get(0).time) {
-			return keys.get(0).val;
+		if (time <= times[0]) {
+			return getVal(0);
 		}
 		// Are we past the end?
-		if (time >= keys.get(keys.size()-1).time) {
-			return keys.get(keys.size()-1).val;
+		if (time >= times[numKeys - 1]) {
+			return getVal(numKeys - 1);
 		}
 
-		// Use a binary search to find the segment we want
-		int start = 0;
-		int end = keys.size() - 1;
-		while (end - start > 1) {
-			int pivot = (end + start)/2;
-			double pivotTime = keys.get(pivot).time;
-			if (pivotTime == time) {
-				return keys.get(pivot).val;
-			}
-			if (pivotTime > time) {
-				end = pivot;
-			} else {
-				start = pivot;
-			}
+		// Find the segment we want, starting from the previous one
+		int start = cursor.floorIndex(times, numKeys, time);
+		if (times[start] == time) {
+			return getVal(start);
 		}
+		int end = start + 1;
 
-		double startTime = keys.get(start).time;
-		double endTime = keys.get(end).time;
+		double startTime = times[start];
+		double endTime = times[end];
 		double ratio = (time - startTime) / (endTime - startTime);
 
-		return interpVal(keys.get(start).val, keys.get(end).val, ratio);
+		return interpVal(getVal(start), getVal(end), ratio);
 	}
 
 	public boolean hasKeys() {
-		return keys.size() != 0;
+		return numKeys != 0;
 	}
 
 	protected abstract T interpVal(T val0, T val1, double ratio);
 
 	private void sortKeys() {
-		Collections.sort(keys, sorter);
+		// Sort the positions of the keys, keeping keys with equal times in the order added
+		Integer[] order = new Integer[numKeys];
+		for (int i = 0; i < numKeys; i++)
+			order[i] = i;
+		Arrays.sort(order, new KeySorter(times));
+
+		double[] sortedTimes = new double[times.length];
+		Object[] sortedVals = new Object[vals.length];
+		for (int i = 0; i < numKeys; i++) {
+			sortedTimes[i] = times[order[i]];
+			sortedVals[i] = vals[order[i]];
+		}
+		times = sortedTimes;
+		vals = sortedVals;
 		isSorted = true;
 	}
 
-	private class KeySorter implements Comparator<Key>{
+	private static class KeySorter implements Comparator<Integer> {
+		private final double[] times;
+
+		KeySorter(double[] times) {
+			this.times = times;
+		}
 
 		@Override
-		public int compare(Key arg0, Key arg1) {
-			return Double.compare(arg0.time, arg1.time);
+		public int compare(Integer arg0, Integer arg1) {
+			return Double.compare(times[arg0], times[arg1]);
 		}
 	}
-	private final KeySorter sorter = new KeySorter();
 }
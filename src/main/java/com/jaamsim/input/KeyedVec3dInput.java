@@ -37,6 +37,12 @@ public class KeyedVec3dInput extends Input<Vec3d> {
 		unitType = units;
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		// The curve is held outside the value and must be re-parsed
+		return false;
+	}
+
 	@Override
 	public void parse(StringVector input) throws InputErrorException {
 		ArrayList<String> strings = new ArrayList<String>(input.size());
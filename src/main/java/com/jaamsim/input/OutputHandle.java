@@ -14,12 +14,16 @@
  */
 package com.jaamsim.input;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.jaamsim.units.Unit;
 import com.sandwell.JavaSimulation.Entity;
@@ -37,10 +41,13 @@ public class OutputHandle {
 	public OutputPair pair;
 	public Class<? extends Unit> unitType;
 
-	private static final HashMap<Class<? extends Entity>, ArrayList<OutputPair>> outputPairCache;
+	private static final ConcurrentHashMap<Class<? extends Entity>, OutputPairList> outputPairCache;
+
+	private static final MethodType OBJECT_TYPE = MethodType.methodType(Object.class, Entity.class, double.class);
+	private static final MethodType DOUBLE_TYPE = MethodType.methodType(double.class, Entity.class, double.class);
 
 	static {
-		outputPairCache = new HashMap<Class<? extends Entity>, ArrayList<OutputPair>>();
+		outputPairCache = new ConcurrentHashMap<Class<? extends Entity>, OutputPairList>();
 	}
 
 	public OutputHandle(Entity e, String outputName) {
@@ -50,13 +57,70 @@ public class OutputHandle {
 	}
 
 	private static class OutputPair {
-		public Method method;
-		public Output annotation;
+		public final Method method;
+		public final Output annotation;
+
+		// Accessors bound once per output, null if the method cannot be looked up
+		private final MethodHandle handle;       // (Entity, double)Object
+		private final MethodHandle doubleHandle; // (Entity, double)double, primitive numeric outputs only
 
 		public OutputPair(Method m, Output a) {
 			method = m;
 			annotation = a;
+
+			MethodHandle h = null;
+			MethodHandle dh = null;
+			try {
+				MethodHandle mh = MethodHandles.publicLookup().unreflect(m);
+				h = mh.asType(OBJECT_TYPE);
+				Class<?> rtype = m.getReturnType();
+				if (rtype.isPrimitive() && rtype != boolean.class && rtype != void.class)
+					dh = mh.asType(DOUBLE_TYPE);
+			}
+			catch (IllegalAccessException e) {}
+			handle = h;
+			doubleHandle = dh;
 		}
+
+		Object getValue(Entity ent, double simTime) {
+			try {
+				if (handle != null)
+					return handle.invokeExact(ent, simTime);
+
+				return method.invoke(ent, simTime);
+			}
+			catch (InvocationTargetException e) {
+				throw OutputPair.rethrow(e.getCause());
+			}
+			catch (Throwable e) {
+				throw OutputPair.rethrow(e);
+			}
+		}
+
+		double getDoubleValue(Entity ent, double simTime) {
+			try {
+				return (double)doubleHandle.invokeExact(ent, simTime);
+			}
+			catch (Throwable e) {
+				throw OutputPair.rethrow(e);
+			}
+		}
+
+		private static RuntimeException rethrow(Throwable e) {
+			if (e instanceof RuntimeException)
+				return (RuntimeException)e;
+			if (e instanceof Error)
+				throw (Error)e;
+			return new ErrorException(e);
+		}
+	}
+
+	/**
+	 * The outputs for a class, in the order returned by getMethods() and indexed by name.
+	 */
+	private static class OutputPairList {
+		final ArrayList<OutputPair> list = new ArrayList<OutputPair>();
+		final HashMap<String, OutputPair> nameMap = new HashMap<String, OutputPair>();
 	}
 
 	public static Boolean hasOutput(Class<? extends Entity> klass, String outputName) {
@@ -64,20 +128,20 @@ public class OutputHandle {
 	}
 
 	private static OutputPair getOutputPair(Class<? extends Entity> klass, String outputName) {
-		for (OutputPair p : getOutputPair(klass)) {
-			if( p.annotation.name().equals(outputName) )
-				return p;
-		}
-		return null;
+		return getOutputPairList(klass).nameMap.get(outputName);
 	}
 
 	private static ArrayList<OutputPair> getOutputPair(Class<? extends Entity> klass) {
-		ArrayList<OutputPair> ret = outputPairCache.get(klass);
+		return getOutputPairList(klass).list;
+	}
+
+	private static OutputPairList getOutputPairList(Class<? extends Entity> klass) {
+		OutputPairList ret = outputPairCache.get(klass);
 		if (ret != null)
 			return ret;
 
 		// klass has not been cached yet, generate pairs
-		ret = new ArrayList<OutputPair>();
+		ret = new OutputPairList();
 		for (Method m : klass.getMethods()) {
 			Output a = m.getAnnotation(Output.class);
 			if (a == null)
@@ -90,10 +154,15 @@ public class OutputHandle {
 				continue;
 			}
 
-			ret.add(new OutputPair(m, a));
+			OutputPair p = new OutputPair(m, a);
+			ret.list.add(p);
+			if (!ret.nameMap.containsKey(a.name()))
+				ret.nameMap.put(a.name(), p);
 		}
-		outputPairCache.put(klass, ret);
-		return ret;
+
+		// Another thread may have built the same list, keep whichever was first
+		OutputPairList prev = outputPairCache.putIfAbsent(klass, ret);
+		return prev != null ? prev : ret;
 	}
 
 	/**
@@ -136,17 +205,20 @@ public class OutputHandle {
 		if( pair.method == null )
 			return null;
 
-		T ret = null;
-		try {
-			if (!klass.isAssignableFrom(pair.method.getReturnType()))
-				return null;
+		if (!klass.isAssignableFrom(pair.method.getReturnType()))
+			return null;
 
-			ret = (T)pair.method.invoke(ent, simTime);
-		}
-		catch (InvocationTargetException ex) {}
-		catch (IllegalAccessException ex) {}
-		catch (ClassCastException ex) {}
-		return ret;
+		return (T)pair.getValue(ent, simTime);
+	}
+
+	/**
+	 * Returns the value of a numeric output without boxing it when the output
+	 * method returns a primitive type.
+	 * @param simTime
+	 * @return the value, or NaN if the output is null or not a number value
+	 */
+	public double getDoubleValue(double simTime) {
+		return getValueAsDouble(simTime, Double.NaN);
 	}
 
 	public boolean isNumericValue() {
@@ -193,6 +265,9 @@ public class OutputHandle {
 	 * @return
 	 */
 	public double getValueAsDouble(double simTime, double def) {
+		if (pair.doubleHandle != null)
+			return pair.getDoubleValue(ent, simTime);
+
 		Class<?> retType = this.getReturnType();
 		if (retType == double.class)
 			return this.getValue(simTime, double.class);
@@ -32,6 +32,21 @@ public class OutputInput<T> extends Input<String> {
 		this.klass = klass;
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		if (!super.copyFrom(in))
+			return false;
+
+		OutputInput<?> src = (OutputInput<?>)in;
+		ent = src.ent;
+		outputName = src.outputName;
+		out = src.out;
+		outputNameList = null;
+		if (src.outputNameList != null)
+			outputNameList = new StringVector(src.outputNameList);
+		return true;
+	}
+
 	@Override
 	public void parse(StringVector input) throws InputErrorException {
 
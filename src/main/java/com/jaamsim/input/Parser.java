@@ -44,52 +44,56 @@ public static final void tokenize(ArrayList<String> tokens, String rec, boolean
 	// Records can be divided into two pieces, the contents portion and possibly
 	// a commented portion, the division point is the first " character, if no
 	// quoting in a record, the entire line is contents for tokenizing
-	final int cIndex = rec.indexOf("\"");
-	final String contents;
-	if (cIndex == -1)
-		contents = rec;
-	else
-		contents = rec.substring(0, cIndex);
+	final int cIndex = rec.indexOf('"');
+	final int len = (cIndex == -1) ? rec.length() : cIndex;
 
-	// Split the contents along single-quoted substring boundaries to allow
-	// us to parse quoted and unquoted sections separately
-	String[] substring = contents.split("'", -1);
-	for (int i = 0; i < substring.length; i++) {
-		// Odd indices were single-quoted strings in the original record
-		// append the whole string as a single token even if there was nothing
-		// between the quotes (an empty string)
-		if (i % 2 != 0) {
-			tokens.add(substring[i]);
-			continue;
-		}
+	// Scan the contents once, cutting each token directly from the record.
+	// Spaces, tabs and commas delimit tokens and runs of them count as one
+	// delimiter, braces are always tokens of their own, and the text between
+	// single quotes is a token even if it is empty or contains delimiters.
+	int start = -1; // start of the unquoted token being read, -1 between tokens
+	for (int i = 0; i < len; i++) {
+		char c = rec.charAt(i);
+		switch (c) {
+		case ' ':
+		case ',':
+		case '\t':
+			if (start != -1) {
+				tokens.add(rec.substring(start, i));
+				start = -1;
+			}
+			break;
 
-		// The even-index strings need tokenizing, we allow spaces, tabs and
-		// commas to delimit token boundaries, we also want all braces {} to
-		// appear as a single token
-		// Ensure { or } has tabs separating if from adjacent characters
-		String temp = substring[i].replaceAll("([\\{\\}])", "\t$1\t");
-		// Split along space, comma and tab characters, treat consecutive
-		// characters as one delimiter
-		String[] delimTokens = temp.split("[ ,\t]+", 0);
-		// Append the new tokens that have greater than zero length
-		for (String each : delimTokens) {
-			if (each.length() == 0)
-				continue;
+		case '{':
+		case '}':
+			if (start != -1) {
+				tokens.add(rec.substring(start, i));
+				start = -1;
+			}
+			tokens.add(c == '{' ? "{" : "}");
+			break;
 
-			if (each.length() == 1) {
-				if ("{".equals(each)) {
-					tokens.add("{");
-					continue;
-				}
-				if ("}".equals(each)) {
-					tokens.add("}");
-					continue;
-				}
+		case '\'':
+			if (start != -1) {
+				tokens.add(rec.substring(start, i));
+				start = -1;
 			}
 
-			tokens.add(each);
+			// An unterminated quote runs to the end of the contents
+			int end = rec.indexOf('\'', i + 1);
+			if (end == -1 || end > len)
+				end = len;
+			tokens.add(rec.substring(i + 1, end));
+			i = end;
+			break;
+
+		default:
+			if (start == -1)
+				start = i;
 		}
 	}
+	if (start != -1)
+		tokens.add(rec.substring(start, len));
 
 	// add comments if they exist including the leading " to denote it as commented
 	if (!stripComments && cIndex > -1)
@@ -32,6 +32,15 @@ public class UnitTypeInput extends Input<ObjectType> {
 		unitType = ut;
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		if (!super.copyFrom(in))
+			return false;
+
+		unitType = ((UnitTypeInput)in).unitType;
+		return true;
+	}
+
 	@Override
 	public void parse(StringVector input)
 	throws InputErrorException {
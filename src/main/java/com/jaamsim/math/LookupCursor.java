@@ -0,0 +1,63 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.math;
+
+import java.util.Arrays;
+
+/**
+ * LookupCursor finds entries in a sorted array of doubles, starting from the
+ * index found by the previous lookup. Lookups that move forward through the
+ * array by a few entries at a time, such as those made as simulation time
+ * advances, take constant time. Any other lookup falls back to a binary
+ * search.
+ * <p>
+ * The remembered index is only a hint and is checked before it is used, so a
+ * cursor shared by more than one thread still returns correct results.
+ */
+public class LookupCursor {
+	private static final int MAX_STEPS = 8; // entries scanned before using a binary search
+
+	private int index;
+
+	public LookupCursor() {
+		index = 0;
+	}
+
+	/**
+	 * Returns the index of the last entry in the first len entries of the
+	 * sorted list that is less than or equal to the given value, or -1 if
+	 * every entry is greater than the value.
+	 */
+	public int floorIndex(double[] list, int len, double val) {
+		int i = index;
+		if (i >= 0 && i < len && list[i] <= val) {
+			for (int n = 0; n < MAX_STEPS; n++) {
+				if (i + 1 == len || list[i + 1] > val) {
+					index = i;
+					return i;
+				}
+				i++;
+			}
+		}
+
+		int ret = Arrays.binarySearch(list, 0, len, val);
+		if (ret < 0)
+			ret = -ret - 2;
+
+		if (ret >= 0)
+			index = ret;
+		return ret;
+	}
+}
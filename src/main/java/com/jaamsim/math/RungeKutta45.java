@@ -0,0 +1,127 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.math;
+
+/**
+ * RungeKutta45 takes steps of the Dormand-Prince embedded Runge-Kutta method
+ * for a system of ordinary differential equations. Each step returns the
+ * fifth order solution together with an estimate of its error, from which the
+ * caller can accept or reject the step and choose the length of the next one.
+ * <p>
+ * The work arrays are allocated once, so a stepper is not shared between
+ * threads.
+ */
+public class RungeKutta45 {
+
+	/**
+	 * The system of equations being solved.
+	 */
+	public interface Derivatives {
+		/**
+		 * Sets dydt to the derivatives of the state y at time t.
+		 */
+		public void calcDerivatives(double t, double[] y, double[] dydt);
+	}
+
+	private static final double C2 = 1.0d/5.0d, C3 = 3.0d/10.0d, C4 = 4.0d/5.0d, C5 = 8.0d/9.0d;
+
+	private static final double A21 = 1.0d/5.0d;
+	private static final double A31 = 3.0d/40.0d, A32 = 9.0d/40.0d;
+	private static final double A41 = 44.0d/45.0d, A42 = -56.0d/15.0d, A43 = 32.0d/9.0d;
+	private static final double A51 = 19372.0d/6561.0d, A52 = -25360.0d/2187.0d, A53 = 64448.0d/6561.0d,
+	                            A54 = -212.0d/729.0d;
+	private static final double A61 = 9017.0d/3168.0d, A62 = -355.0d/33.0d, A63 = 46732.0d/5247.0d,
+	                            A64 = 49.0d/176.0d, A65 = -5103.0d/18656.0d;
+
+	// Fifth order weights, also the last row of the tableau
+	private static final double B1 = 35.0d/384.0d, B3 = 500.0d/1113.0d, B4 = 125.0d/192.0d,
+	                            B5 = -2187.0d/6784.0d, B6 = 11.0d/84.0d;
+
+	// Difference between the fifth and fourth order weights
+	private static final double E1 = 71.0d/57600.0d, E3 = -71.0d/16695.0d, E4 = 71.0d/1920.0d,
+	                            E5 = -17253.0d/339200.0d, E6 = 22.0d/525.0d, E7 = -1.0d/40.0d;
+
+	private final int num;
+	private final double[] k1, k2, k3, k4, k5, k6, k7;
+	private final double[] tmp;
+
+	public RungeKutta45(int num) {
+		this.num = num;
+		k1 = new double[num];
+		k2 = new double[num];
+		k3 = new double[num];
+		k4 = new double[num];
+		k5 = new double[num];
+		k6 = new double[num];
+		k7 = new double[num];
+		tmp = new double[num];
+	}
+
+	/**
+	 * Takes a single step of length h from the state y at time t, and stores
+	 * the new state in yOut. Returns the estimated error in the step relative
+	 * to the given tolerance, so that the step is accurate enough if the
+	 * returned value is no more than one. The tolerance is applied to each
+	 * state as a relative error for values larger than one and an absolute
+	 * error otherwise.
+	 */
+	public double step(Derivatives f, double t, double[] y, double h, double[] yOut, double tol) {
+		f.calcDerivatives(t, y, k1);
+
+		for (int i = 0; i < num; i++)
+			tmp[i] = y[i] + h*A21*k1[i];
+		f.calcDerivatives(t + C2*h, tmp, k2);
+
+		for (int i = 0; i < num; i++)
+			tmp[i] = y[i] + h*(A31*k1[i] + A32*k2[i]);
+		f.calcDerivatives(t + C3*h, tmp, k3);
+
+		for (int i = 0; i < num; i++)
+			tmp[i] = y[i] + h*(A41*k1[i] + A42*k2[i] + A43*k3[i]);
+		f.calcDerivatives(t + C4*h, tmp, k4);
+
+		for (int i = 0; i < num; i++)
+			tmp[i] = y[i] + h*(A51*k1[i] + A52*k2[i] + A53*k3[i] + A54*k4[i]);
+		f.calcDerivatives(t + C5*h, tmp, k5);
+
+		for (int i = 0; i < num; i++)
+			tmp[i] = y[i] + h*(A61*k1[i] + A62*k2[i] + A63*k3[i] + A64*k4[i] + A65*k5[i]);
+		f.calcDerivatives(t + h, tmp, k6);
+
+		for (int i = 0; i < num; i++)
+			yOut[i] = y[i] + h*(B1*k1[i] + B3*k3[i] + B4*k4[i] + B5*k5[i] + B6*k6[i]);
+		f.calcDerivatives(t + h, yOut, k7);
+
+		double err = 0.0d;
+		for (int i = 0; i < num; i++) {
+			double e = h*(E1*k1[i] + E3*k3[i] + E4*k4[i] + E5*k5[i] + E6*k6[i] + E7*k7[i]);
+			double scale = tol * (1.0d + Math.max(Math.abs(y[i]), Math.abs(yOut[i])));
+			err = Math.max(err, Math.abs(e) / scale);
+		}
+		return err;
+	}
+
+	/**
+	 * Returns the length for the next step given the length of the last step
+	 * and its error relative to the tolerance.
+	 */
+	public static double getNextStepSize(double h, double err) {
+		if (err == 0.0d)
+			return h * 5.0d;
+
+		double factor = 0.9d * Math.pow(err, -0.2d);
+		return h * Math.min(5.0d, Math.max(0.2d, factor));
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.rng;
+
+/**
+ * Walker's alias method for sampling an index from a discrete probability
+ * distribution in constant time, the table is built using Vose's algorithm.
+ */
+public class AliasTable {
+	private final double[] prob; // probability of keeping each column's own index
+	private final int[] alias;   // index returned when the column's own index is rejected
+
+	/**
+	 * Builds the alias table for the given probabilities, which are normalised
+	 * by their sum.
+	 * @param probs the probability for each index, must not be negative
+	 * @param num the number of entries of probs to use
+	 */
+	public AliasTable(double[] probs, int num) {
+		if (num <= 0)
+			throw new IllegalArgumentException("At least one probability is required");
+
+		prob = new double[num];
+		alias = new int[num];
+
+		double sum = 0.0d;
+		for (int i = 0; i < num; i++) {
+			if (probs[i] < 0.0d)
+				throw new IllegalArgumentException("Probabilities must not be negative");
+			sum += probs[i];
+		}
+		if (sum <= 0.0d)
+			throw new IllegalArgumentException("Probabilities must not all be zero");
+
+		// Scale each probability so that the average column height is one and
+		// split the columns into those below and above the average
+		double[] scaled = new double[num];
+		int[] small = new int[num];
+		int[] large = new int[num];
+		int numSmall = 0;
+		int numLarge = 0;
+		for (int i = 0; i < num; i++) {
+			scaled[i] = probs[i] * num / sum;
+			if (scaled[i] < 1.0d)
+				small[numSmall++] = i;
+			else
+				large[numLarge++] = i;
+		}
+
+		// Fill each short column with part of a tall one
+		while (numSmall > 0 && numLarge > 0) {
+			int s = small[--numSmall];
+			int l = large[--numLarge];
+			prob[s] = scaled[s];
+			alias[s] = l;
+
+			scaled[l] = (scaled[l] + scaled[s]) - 1.0d;
+			if (scaled[l] < 1.0d)
+				small[numSmall++] = l;
+			else
+				large[numLarge++] = l;
+		}
+
+		// The remaining columns are full, up to round-off
+		while (numLarge > 0) {
+			int l = large[--numLarge];
+			prob[l] = 1.0d;
+			alias[l] = l;
+		}
+		while (numSmall > 0) {
+			int s = small[--numSmall];
+			prob[s] = 1.0d;
+			alias[s] = s;
+		}
+	}
+
+	public AliasTable(double[] probs) {
+		this(probs, probs.length);
+	}
+
+	/**
+	 * Returns the number of indices in the table.
+	 */
+	public int size() {
+		return prob.length;
+	}
+
+	/**
+	 * Returns the index selected by the given uniform random number U(0,1),
+	 * the integer part of u * size() selects the column and the fractional
+	 * part decides between the column and its alias.
+	 */
+	public int getIndex(double u) {
+		double x = u * prob.length;
+		int col = (int)x;
+		// Guard against u == 1.0
+		if (col >= prob.length)
+			col = prob.length - 1;
+
+		if (x - col < prob[col])
+			return col;
+
+		return alias[col];
+	}
+}
@@ -76,12 +76,19 @@ public class MRG1999a {
 		if (substream < 0)
 			throw new IllegalArgumentException("Substream numbers must be positive");
 
+		// Jump ahead using the binary expansion of the stream and substream
+		// numbers, the advance matrices are all powers of the same generator
+		// matrix so may be applied in any order
 		long seeds[] = { 12345, 12345, 12345, 12345, 12345, 12345 };
-		for (int i = 0; i < stream; i++)
-			advanceStream(seeds);
+		for (int i = 0; stream != 0; i++, stream >>>= 1) {
+			if ((stream & 1) != 0)
+				advance(streamJump[i], seeds);
+		}
 
-		for (int i = 0; i < substream; i++)
-			advanceSubstream(seeds);
+		for (int i = 0; substream != 0; i++, substream >>>= 1) {
+			if ((substream & 1) != 0)
+				advance(substreamJump[i], seeds);
+		}
 
 		setSeed(seeds[0], seeds[1], seeds[2], seeds[3], seeds[4], seeds[5]);
 	}
@@ -123,6 +130,35 @@ public class MRG1999a {
 		return p * norm;
 	}
 
+	/**
+	 * Fill the given array with uniformly distributed double values U(0,1),
+	 * equivalent to calling nextUniform() for each element in turn.
+	 * @param out the array to fill
+	 * @param off the index of the first element to fill
+	 * @param len the number of elements to fill
+	 */
+	public void nextUniforms(double[] out, int off, int len) {
+		long t0 = uint(s0), t1 = uint(s1), t2 = uint(s2);
+		long t3 = uint(s3), t4 = uint(s4), t5 = uint(s5);
+
+		for (int i = off; i < off + len; i++) {
+			long p1 = (1403580l * t1 - 810728l * t0) % m1;
+			if (p1 < 0) p1 += m1;
+			t0 = t1; t1 = t2; t2 = p1;
+
+			long p2 = (527612l * t5 - 1370589l * t3) % m2;
+			if (p2 < 0) p2 += m2;
+			t3 = t4; t4 = t5; t5 = p2;
+
+			long p = p1 - p2;
+			if (p <= 0) p += m1;
+			out[i] = p * norm;
+		}
+
+		s0 = (int)t0; s1 = (int)t1; s2 = (int)t2;
+		s3 = (int)t3; s4 = (int)t4; s5 = (int)t5;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%d, %d, %d, %d, %d, %d",
@@ -172,29 +208,67 @@ public class MRG1999a {
 		{ 3859662829L, 4292754251L, 3708466080L }
 	};
 
-	static void advanceStream(long[] seeds) {
-		long s0 = mixHalf1(streamAdvance[0], seeds);
-		long s1 = mixHalf1(streamAdvance[1], seeds);
-		long s2 = mixHalf1(streamAdvance[2], seeds);
+	// Entry i advances the seeds by 2^i streams (substreams), enough entries
+	// to reach any positive int stream number
+	private static final long streamJump[][][];
+	private static final long substreamJump[][][];
 
-		long s3 = mixHalf2(streamAdvance[3], seeds);
-		long s4 = mixHalf2(streamAdvance[4], seeds);
-		long s5 = mixHalf2(streamAdvance[5], seeds);
+	static {
+		streamJump = calcJumpTable(streamAdvance);
+		substreamJump = calcJumpTable(substreamAdvance);
+	}
 
-		seeds[0] = s0; seeds[1] = s1; seeds[2] = s2;
-		seeds[3] = s3; seeds[4] = s4; seeds[5] = s5;
+	private static long[][][] calcJumpTable(long[][] adv) {
+		long[][][] ret = new long[31][][];
+		ret[0] = adv;
+		for (int i = 1; i < ret.length; i++)
+			ret[i] = square(ret[i - 1]);
+
+		return ret;
 	}
 
-	static void advanceSubstream(long[] seeds) {
-		long s0 = mixHalf1(substreamAdvance[0], seeds);
-		long s1 = mixHalf1(substreamAdvance[1], seeds);
-		long s2 = mixHalf1(substreamAdvance[2], seeds);
+	/**
+	 * Return the square of the given advance matrix, the first three rows
+	 * hold the 3x3 matrix for the first half of the state (mod m1), the last
+	 * three rows the matrix for the second half (mod m2).
+	 */
+	private static long[][] square(long[][] a) {
+		long[][] ret = new long[6][3];
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				ret[i][j]     = mulEntry(a, i    , j, 0, m1);
+				ret[i + 3][j] = mulEntry(a, i + 3, j, 3, m2);
+			}
+		}
+		return ret;
+	}
+
+	private static long mulEntry(long[][] a, int row, int col, int offset, long mod) {
+		long tmp;
+		tmp = ulong_mod(a[row][0] * a[offset    ][col]      , mod);
+		tmp = ulong_mod(a[row][1] * a[offset + 1][col] + tmp, mod);
+		tmp = ulong_mod(a[row][2] * a[offset + 2][col] + tmp, mod);
+		return tmp;
+	}
+
+	private static void advance(long[][] adv, long[] seeds) {
+		long s0 = mixHalf1(adv[0], seeds);
+		long s1 = mixHalf1(adv[1], seeds);
+		long s2 = mixHalf1(adv[2], seeds);
 
-		long s3 = mixHalf2(substreamAdvance[3], seeds);
-		long s4 = mixHalf2(substreamAdvance[4], seeds);
-		long s5 = mixHalf2(substreamAdvance[5], seeds);
+		long s3 = mixHalf2(adv[3], seeds);
+		long s4 = mixHalf2(adv[4], seeds);
+		long s5 = mixHalf2(adv[5], seeds);
 
 		seeds[0] = s0; seeds[1] = s1; seeds[2] = s2;
 		seeds[3] = s3; seeds[4] = s4; seeds[5] = s5;
 	}
+
+	static void advanceStream(long[] seeds) {
+		advance(streamAdvance, seeds);
+	}
+
+	static void advanceSubstream(long[] seeds) {
+		advance(substreamAdvance, seeds);
+	}
 }
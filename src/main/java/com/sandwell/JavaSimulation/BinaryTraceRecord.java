@@ -0,0 +1,404 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.sandwell.JavaSimulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.jaamsim.events.Event;
+import com.jaamsim.events.EventManager;
+import com.jaamsim.events.EventTraceListener;
+import com.jaamsim.events.ProcessTarget;
+
+/**
+ * BinaryTraceRecord collects the same records as EventTraceRecord, but holds
+ * each entry as an opcode, tick, priority and description rather than as a
+ * line of text. Records are written as variable-length integers, with each
+ * distinct event manager name and description written once and referred to
+ * by number afterwards.
+ */
+class BinaryTraceRecord implements EventTraceListener {
+	static final int MAGIC = 0x4A534554; // "JSET"
+	static final int VERSION = 1;
+
+	// Opcodes for each kind of entry
+	static final byte WAIT = 1;
+	static final byte EVENT = 2;
+	static final byte INTERRUPT = 3;
+	static final byte KILL = 4;
+	static final byte WAIT_UNTIL = 5;
+	static final byte WAIT_UNTIL_ENDED = 6;
+	static final byte START_PROCESS = 7;
+	static final byte EXIT = 8;
+	static final byte SCHED_PROCESS = 9;
+
+	private static final String[] OP_NAMES = { null, "Wait", "Event", "Int", "Kill", "WaitUntil",
+	                                           "WaitUntilEnded", "StartProcess", "Exit", "SchedProcess" };
+
+	// Record tags
+	private static final int TAG_RECORD = 1;
+	private static final int TAG_CLEAR_STRINGS = 2;
+
+	private static final int MAX_STRINGS = 65536; // strings held before the table is restarted
+
+	private String eventManagerName;
+	private long internalTime;
+	private int count;
+	private byte[] ops;
+	private long[] ticks;
+	private int[] priorities;
+	private String[] descs;
+	private int traceLevel;
+
+	BinaryTraceRecord() {
+		ops = new byte[8];
+		ticks = new long[8];
+		priorities = new int[8];
+		descs = new String[8];
+		traceLevel = 0;
+	}
+
+	private void append(byte op, long tick, int priority, String desc) {
+		if (count == ops.length) {
+			int len = count * 2;
+			ops = Arrays.copyOf(ops, len);
+			ticks = Arrays.copyOf(ticks, len);
+			priorities = Arrays.copyOf(priorities, len);
+			descs = Arrays.copyOf(descs, len);
+		}
+		ops[count] = op;
+		ticks[count] = tick;
+		priorities[count] = priority;
+		descs[count] = desc;
+		count++;
+	}
+
+	private void append(byte op, Event evt) {
+		this.append(op, evt.schedTick, evt.priority, evt.getDesc());
+	}
+
+	private void addHeader(String name, long time) {
+		// Don't write anything if not at level 0
+		if (traceLevel != 0)
+			return;
+
+		eventManagerName = name;
+		internalTime = time;
+		traceLevel++;
+	}
+
+	private void finish() {
+		if (traceLevel != 1)
+			return;
+
+		EventTracer.processTraceData(this);
+		count = 0;
+		traceLevel--;
+	}
+
+	synchronized void clearTrace() {
+		traceLevel = 0;
+		count = 0;
+	}
+
+	@Override
+	public synchronized void traceWait(EventManager e, Event evt) {
+		this.addHeader(e.name, evt.schedTick);
+		traceLevel--;
+		this.append(WAIT, evt);
+		this.finish();
+	}
+
+	@Override
+	public synchronized void traceEvent(EventManager e, Event evt) {
+		this.addHeader(e.name, evt.schedTick);
+		this.append(EVENT, evt);
+		traceLevel++;
+		this.finish();
+	}
+
+	@Override
+	public synchronized void traceInterrupt(EventManager e, Event evt) {
+		this.addHeader(e.name, evt.schedTick);
+		this.append(INTERRUPT, evt);
+		traceLevel++;
+		this.finish();
+	}
+
+	@Override
+	public synchronized void traceKill(EventManager e, Event evt) {
+		this.addHeader(e.name, evt.schedTick);
+		this.append(KILL, evt);
+		this.finish();
+	}
+
+	@Override
+	public synchronized void traceWaitUntil(EventManager e) {
+		this.addHeader(e.name, e.currentTick());
+		traceLevel--;
+		this.append(WAIT_UNTIL, 0, 0, null);
+		this.finish();
+	}
+
+	@Override
+	public synchronized void traceWaitUntilEnded(EventManager e, Event evt) {
+		this.addHeader(e.name, e.currentTick());
+		this.append(WAIT_UNTIL_ENDED, evt);
+		this.finish();
+	}
+
+	@Override
+	public synchronized void traceProcessStart(EventManager e, ProcessTarget t) {
+		this.addHeader(e.name, e.currentTick());
+		this.append(START_PROCESS, 0, 0, t.getDescription());
+		traceLevel++;
+		this.finish();
+	}
+
+	@Override
+	public synchronized void traceProcessEnd(EventManager e) {
+		this.addHeader(e.name, e.currentTick());
+		traceLevel--;
+		this.append(EXIT, 0, 0, null);
+		this.finish();
+	}
+
+	@Override
+	public synchronized void traceSchedProcess(EventManager e, Event evt) {
+		this.addHeader(e.name, e.currentTick());
+		this.append(SCHED_PROCESS, evt);
+		this.finish();
+	}
+
+	boolean isDefaultEventManager() {
+		return eventManagerName.equals("DefaultEventManager");
+	}
+
+	long getInternalTime() {
+		return internalTime;
+	}
+
+	/**
+	 * Returns the key used to match this record, based on the first entry in
+	 * the same way as EventTraceRecord.
+	 */
+	TraceKey getKey() {
+		String target = null;
+		int prio = -1;
+		if (count > 0) {
+			switch (ops[0]) {
+			case EVENT:
+			case WAIT_UNTIL_ENDED:
+			case SCHED_PROCESS:
+				prio = priorities[0];
+				target = descs[0];
+				break;
+			case START_PROCESS:
+				target = descs[0];
+				break;
+			}
+		}
+		return new TraceKey(eventManagerName, internalTime, prio, target, count);
+	}
+
+	/**
+	 * Returns the index of the first entry that differs from the given
+	 * record, or -1 if the records are the same.
+	 */
+	int compare(BinaryTraceRecord rec) {
+		int n = Math.min(count, rec.count);
+		for (int i = 0; i < n; i++) {
+			if (ops[i] != rec.ops[i] ||
+			    ticks[i] != rec.ticks[i] ||
+			    priorities[i] != rec.priorities[i] ||
+			    !(descs[i] == null ? rec.descs[i] == null : descs[i].equals(rec.descs[i])))
+				return i;
+		}
+		if (count != rec.count)
+			return n;
+		return -1;
+	}
+
+	/**
+	 * Returns the entry in the form used by the text trace.
+	 */
+	String getLine(int i) {
+		switch (ops[i]) {
+		case WAIT_UNTIL:
+		case EXIT:
+			return OP_NAMES[ops[i]];
+		case START_PROCESS:
+			return OP_NAMES[ops[i]] + "\t" + descs[i];
+		default:
+			return OP_NAMES[ops[i]] + "\t" + ticks[i] + "\t" + priorities[i] + "\t" + descs[i];
+		}
+	}
+
+	void print() {
+		System.out.println(eventManagerName + "\t" + internalTime);
+		for (int i = 0; i < count; i++)
+			System.out.println(this.getLine(i));
+	}
+
+	static void writeVarLong(DataOutput out, long val) throws IOException {
+		while ((val & ~0x7FL) != 0) {
+			out.writeByte((int)(val & 0x7F) | 0x80);
+			val >>>= 7;
+		}
+		out.writeByte((int)val);
+	}
+
+	static long readVarLong(DataInput in) throws IOException {
+		long val = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			val |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return val;
+		}
+		throw new IOException("Malformed variable-length integer");
+	}
+
+	// Zig-zag encoding keeps small negative numbers short
+	private static void writeVarInt(DataOutput out, int val) throws IOException {
+		writeVarLong(out, (val << 1) ^ (val >> 31));
+	}
+
+	private static int readVarInt(DataInput in) throws IOException {
+		int val = (int)readVarLong(in);
+		return (val >>> 1) ^ -(val & 1);
+	}
+
+	private static void writeString(DataOutput out, String str, HashMap<String, Integer> strings) throws IOException {
+		if (str == null) {
+			writeVarLong(out, 0);
+			return;
+		}
+
+		Integer id = strings.get(str);
+		if (id != null) {
+			writeVarLong(out, id + 2);
+			return;
+		}
+
+		// First appearance, write the text and give it the next number
+		writeVarLong(out, 1);
+		out.writeUTF(str);
+		strings.put(str, strings.size());
+	}
+
+	private static String readString(DataInput in, ArrayList<String> strings) throws IOException {
+		long ref = readVarLong(in);
+		if (ref == 0)
+			return null;
+
+		if (ref == 1) {
+			String str = in.readUTF();
+			strings.add(str);
+			return str;
+		}
+
+		return strings.get((int)(ref - 2));
+	}
+
+	static void writeHeader(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	}
+
+	static void readHeader(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC)
+			throw new IOException("Not a binary event trace");
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported event trace version: " + version);
+	}
+
+	void write(DataOutput out, HashMap<String, Integer> strings) throws IOException {
+		if (strings.size() >= MAX_STRINGS) {
+			writeVarLong(out, TAG_CLEAR_STRINGS);
+			strings.clear();
+		}
+
+		writeVarLong(out, TAG_RECORD);
+		writeString(out, eventManagerName, strings);
+		writeVarLong(out, internalTime);
+		writeVarLong(out, count);
+		for (int i = 0; i < count; i++) {
+			out.writeByte(ops[i]);
+			switch (ops[i]) {
+			case WAIT_UNTIL:
+			case EXIT:
+				break;
+			case START_PROCESS:
+				writeString(out, descs[i], strings);
+				break;
+			default:
+				writeVarLong(out, ticks[i]);
+				writeVarInt(out, priorities[i]);
+				writeString(out, descs[i], strings);
+			}
+		}
+	}
+
+	/**
+	 * Reads the next record, or returns null at the end of the trace.
+	 */
+	static BinaryTraceRecord read(DataInput in, ArrayList<String> strings) throws IOException {
+		long tag;
+		try {
+			tag = readVarLong(in);
+		}
+		catch (EOFException e) {
+			return null;
+		}
+
+		if (tag == TAG_CLEAR_STRINGS) {
+			strings.clear();
+			tag = readVarLong(in);
+		}
+		if (tag != TAG_RECORD)
+			throw new IOException("Malformed event trace record");
+
+		BinaryTraceRecord rec = new BinaryTraceRecord();
+		rec.eventManagerName = readString(in, strings);
+		rec.internalTime = readVarLong(in);
+		int n = (int)readVarLong(in);
+		for (int i = 0; i < n; i++) {
+			byte op = in.readByte();
+			switch (op) {
+			case WAIT_UNTIL:
+			case EXIT:
+				rec.append(op, 0, 0, null);
+				break;
+			case START_PROCESS:
+				rec.append(op, 0, 0, readString(in, strings));
+				break;
+			default:
+				if (op < WAIT || op > SCHED_PROCESS)
+					throw new IOException("Unknown event trace entry: " + op);
+				long tick = readVarLong(in);
+				int prio = readVarInt(in);
+				rec.append(op, tick, prio, readString(in, strings));
+			}
+		}
+		return rec;
+	}
+}
@@ -29,6 +29,12 @@ public class CompatInput extends Input<String> {
 		appendable = false;
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		// Parsing is delegated to the target entity, so it must be repeated
+		return false;
+	}
+
 	@Override
 	public void parse(StringVector input)
 	throws InputErrorException {
@@ -29,6 +29,12 @@ public class DeprecatedInput extends Input<String> {
 		this.fatal = fatal;
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		// Parse again so that the deprecation is reported for the copy
+		return false;
+	}
+
 	@Override
 	public void parse(StringVector input)
 	throws InputErrorException {
@@ -86,6 +86,13 @@ public class DoubleVector {
 			return storage[index];
 	}
 
+	/**
+	 * Return a copy of the doubles in this vector as an array.
+	 */
+	public double[] toArray() {
+		return Arrays.copyOf(storage, numElements);
+	}
+
 	/**
 	 * Return the last double in this vector.
 	 */
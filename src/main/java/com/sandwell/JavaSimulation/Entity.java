@@ -16,10 +16,14 @@ package com.sandwell.JavaSimulation;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
 
 import com.jaamsim.basicsim.ClonesOfIterable;
 import com.jaamsim.basicsim.InstanceIterable;
+import com.jaamsim.basicsim.InstanceList;
 import com.jaamsim.basicsim.ReflectionTarget;
+import com.jaamsim.events.EventCondition;
 import com.jaamsim.events.EventManager;
 import com.jaamsim.events.Process;
 import com.jaamsim.events.ProcessError;
@@ -38,12 +42,24 @@ public class Entity {
 	static EventManager root;
 
 	private static long entityCount = 0;
-	private static final ArrayList<Entity> allInstances;
+	private static final InstanceList<Entity> allInstances;
 	private static final HashMap<String, Entity> namedEntities;
+	private static final HashMap<Long, Entity> numberedEntities;
+
+	// Instances of each class, not including instances of its subclasses
+	private static final LinkedHashMap<Class<?>, InstanceList<Entity>> classInstances;
+
+	// Instance lists of the classes assignable to a given class or interface,
+	// discarded whenever a new class is added to classInstances
+	private static final HashMap<Class<?>, ArrayList<InstanceList<Entity>>> cloneLists;
 
 	private String entityName;
 	private String entityInputName; // Name input by user
 	private final long entityNumber;
+	private int instanceIdx = -1; // position of this entity in allInstances, -1 if removed
+	private int classIdx = -1; // position of this entity in the list for its class, -1 if removed
+	private String namePrefix; // entityName is built lazily from namePrefix and nameNumber
+	private long nameNumber;
 
 	//public static final int FLAG_TRACE = 0x01; // reserved in case we want to treat tracing like the other flags
 	public static final int FLAG_TRACEREQUIRED = 0x02;
@@ -71,8 +87,21 @@ public class Entity {
 	public static final int PRIO_LOWEST = 11;
 
 	static {
-		allInstances = new ArrayList<Entity>(100);
+		allInstances = new InstanceList<Entity>() {
+			@Override
+			protected int getIndex(Entity ent) {
+				return ent.instanceIdx;
+			}
+
+			@Override
+			protected void setIndex(Entity ent, int idx) {
+				ent.instanceIdx = idx;
+			}
+		};
 		namedEntities = new HashMap<String, Entity>(100);
+		numberedEntities = new HashMap<Long, Entity>(100);
+		classInstances = new LinkedHashMap<Class<?>, InstanceList<Entity>>();
+		cloneLists = new HashMap<Class<?>, ArrayList<InstanceList<Entity>>>();
 	}
 
 	{
@@ -89,20 +118,98 @@ public class Entity {
 	 */
 	public Entity() {
 		entityNumber = getNextID();
-		synchronized(allInstances) {
-			allInstances.add(this);
-		}
+		addInstance(this);
 
 		flags = 0;
 	}
 
+	/**
+	 * Adds the entity to allInstances and to the list for its class. Both lists
+	 * are kept in order of entity number, which is the order of creation, so an
+	 * entity that is restored returns to its original place.
+	 */
+	private static void addInstance(Entity ent) {
+		synchronized (allInstances) {
+			allInstances.add(ent);
+			getClassList(ent.getClass()).add(ent);
+			numberedEntities.put(ent.entityNumber, ent);
+		}
+	}
+
+	/**
+	 * Removes the entity from allInstances and from the list for its class.
+	 * Its slots are left empty, so the removal does not move the remaining
+	 * entities, see InstanceList.
+	 */
+	private static void removeInstance(Entity ent) {
+		synchronized (allInstances) {
+			if (ent.instanceIdx < 0)
+				return;
+
+			allInstances.remove(ent);
+			classInstances.get(ent.getClass()).remove(ent);
+			numberedEntities.remove(ent.entityNumber);
+		}
+	}
+
+	/**
+	 * Returns the live list of instances of the given class, not including
+	 * instances of its subclasses.  The list may contain empty slots for the
+	 * instances that have been killed.
+	 */
+	public static InstanceList<? extends Entity> getInstanceList(Class<?> proto) {
+		synchronized (allInstances) {
+			return getClassList(proto);
+		}
+	}
+
+	private static InstanceList<Entity> getClassList(Class<?> proto) {
+		InstanceList<Entity> classList = classInstances.get(proto);
+		if (classList == null) {
+			classList = new InstanceList<Entity>() {
+				@Override
+				protected int getIndex(Entity ent) {
+					return ent.classIdx;
+				}
+
+				@Override
+				protected void setIndex(Entity ent, int idx) {
+					ent.classIdx = idx;
+				}
+			};
+			classInstances.put(proto, classList);
+			cloneLists.clear();
+		}
+		return classList;
+	}
+
+	/**
+	 * Returns the live instance lists for every class that is assignable to the
+	 * given class or interface, in the order the classes were first registered.
+	 * Each list is in order of creation and may contain empty slots.
+	 */
+	public static ArrayList<? extends InstanceList<? extends Entity>> getCloneLists(Class<?> proto) {
+		synchronized (allInstances) {
+			ArrayList<InstanceList<Entity>> lists = cloneLists.get(proto);
+			if (lists == null) {
+				lists = new ArrayList<InstanceList<Entity>>();
+				for (Entry<Class<?>, InstanceList<Entity>> each : classInstances.entrySet()) {
+					if (proto.isAssignableFrom(each.getKey()))
+						lists.add(each.getValue());
+				}
+				cloneLists.put(proto, lists);
+			}
+			return lists;
+		}
+	}
+
 	private static synchronized long getNextID() {
 		return ++entityCount;
 	}
 
 	public static ArrayList<? extends Entity> getAll() {
 		synchronized(allInstances) {
-			return allInstances;
+			return allInstances.getList();
 		}
 	}
 
@@ -113,15 +220,15 @@ public class Entity {
 	}
 
 	public static <T extends Entity> ArrayList<T> getInstancesOf(Class<T> proto) {
-		ArrayList<T> instanceList = new ArrayList<T>();
-
-		for (Entity each : allInstances) {
-			if (proto == each.getClass()) {
-				instanceList.add(proto.cast(each));
+		synchronized (allInstances) {
+			ArrayList<? extends Entity> classList = getClassList(proto).getList();
+			ArrayList<T> instanceList = new ArrayList<T>(classList.size());
+			for (int i = 0; i < classList.size(); i++) {
+				instanceList.add(proto.cast(classList.get(i)));
 			}
-		}
 
-		return instanceList;
+			return instanceList;
+		}
 	}
 
 	public static <T extends Entity> InstanceIterable<T> getInstanceIterator(Class<T> proto){
@@ -132,26 +239,56 @@ public class Entity {
 		return new ClonesOfIterable<T>(proto);
 	}
 
-	public static <T extends Entity> ArrayList<T> getClonesOf(Class<T> proto) {
+	/**
+	 * Returns every instance of the given class or interface, including the
+	 * instances of its subclasses, in order of creation.
+	 */
+	public static <T> ArrayList<T> getClonesOf(Class<T> proto) {
 		ArrayList<T> cloneList = new ArrayList<T>();
 
-		for (Entity each : allInstances) {
-			if (proto.isAssignableFrom(each.getClass())) {
-				cloneList.add(proto.cast(each));
+		synchronized (allInstances) {
+			ArrayList<? extends InstanceList<? extends Entity>> lists = getCloneLists(proto);
+			int[] pos = new int[lists.size()];
+			while (true) {
+				int next = nextClone(lists, pos);
+				if (next < 0)
+					break;
+				cloneList.add(proto.cast(lists.get(next).get(pos[next]++)));
 			}
 		}
 
 		return cloneList;
 	}
 
+	/**
+	 * Returns the index of the list whose entry at the given position was
+	 * created first, or -1 if every list has been used up. Merging the clone
+	 * lists in this way returns the clones in order of creation. Each position
+	 * is first moved past any empty slots.
+	 */
+	public static int nextClone(ArrayList<? extends InstanceList<? extends Entity>> lists, int[] pos) {
+		int ret = -1;
+		long num = Long.MAX_VALUE;
+		for (int i = 0; i < lists.size(); i++) {
+			InstanceList<? extends Entity> list = lists.get(i);
+			Entity ent = null;
+			while (pos[i] < list.size()) {
+				ent = list.get(pos[i]);
+				if (ent != null)
+					break;
+				pos[i]++;
+			}
+			if (ent != null && ent.getEntityNumber() < num) {
+				num = ent.getEntityNumber();
+				ret = i;
+			}
+		}
+		return ret;
+	}
+
 	public static Entity idToEntity(long id) {
 		synchronized (allInstances) {
-			for (Entity e : allInstances) {
-				if (e.getEntityNumber() == id) {
-					return e;
-				}
-			}
-			return null;
+			return numberedEntities.get(id);
 		}
 	}
 
@@ -163,18 +300,29 @@ public class Entity {
 	public void startUp() {}
 
 	public void kill() {
-		synchronized (allInstances) {
-			allInstances.remove(this);
-		}
+		removeInstance(this);
 		removeInputName();
 
 		setFlag(FLAG_DEAD);
 	}
 
+	/**
+	 * Returns an entity that has been killed to the list of instances so that
+	 * it can be reused.  Subclasses that remove the entity from their own lists
+	 * in kill() must add it back here.
+	 */
+	public void restore() {
+		if (!testFlag(FLAG_DEAD))
+			return;
+
+		addInstance(this);
+		clearFlag(FLAG_DEAD);
+	}
+
 	public void doEnd() {}
 
 	public static long getEntitySequence() {
-		long seq = (long)allInstances.size() << 32;
+		long seq = (long)allInstances.getCount() << 32;
 		seq += entityCount;
 		return seq;
 	}
@@ -281,6 +429,42 @@ public class Entity {
 		}
 	}
 
+	/**
+	 * Copy the inputs for each keyword from the given prototype without the
+	 * string round-trip used by copyInputs().  Parsed values are shared with
+	 * the prototype and no edit records are made, so this is intended for
+	 * entities generated during a simulation run.
+	 * @param proto = entity whose inputs are to be copied
+	 */
+	public void cloneInputs(Entity proto) {
+		ArrayList<Input<?>> protoInputs = proto.getEditableInputs();
+		boolean sameClass = proto.getClass() == this.getClass();
+		for (int i = 0; i < protoInputs.size(); i++) {
+			Input<?> sourceInput = protoInputs.get(i);
+
+			// Instances of the same class add their inputs in the same order
+			Input<?> targetInput;
+			if (sameClass)
+				targetInput = editableInputs.get(i);
+			else
+				targetInput = this.getInput(sourceInput.getKeyword());
+
+			String val = sourceInput.getValueString();
+			if (val.isEmpty()) {
+				if (!targetInput.getValueString().isEmpty()) {
+					targetInput.reset();
+					this.updateForInput(targetInput);
+				}
+				continue;
+			}
+
+			if (targetInput.copyFrom(sourceInput))
+				this.updateForInput(targetInput);
+			else
+				InputAgent.processEntity_Keyword_Value(this, targetInput, val);
+		}
+	}
+
 	public void setFlag(int flag) {
 		flags |= flag;
 	}
@@ -313,10 +497,13 @@ public class Entity {
 	 * Note that the name of the entity may not be the unique identifier used in the namedEntityHashMap; see Entity.toString()
 	 */
 	public String getName() {
-		if (entityName == null)
-			return "Entity-" + entityNumber;
-		else
-			return entityName;
+		if (entityName == null) {
+			if (namePrefix == null)
+				return "Entity-" + entityNumber;
+
+			entityName = namePrefix + nameNumber;
+		}
+		return entityName;
 	}
 
 	/**
@@ -334,6 +521,17 @@ public class Entity {
 		entityName = newName;
 	}
 
+	/**
+	 * Method to set the name of the entity to prefix+num.  The name String is
+	 * not built until it is first requested, and is not registered as an
+	 * input name.
+	 */
+	public void setLazyName(String prefix, long num) {
+		entityName = null;
+		namePrefix = prefix;
+		nameNumber = num;
+	}
+
 	/**
 	 * Method to set the name of the entity to prefix+entityNumber.
 	 */
@@ -555,6 +753,14 @@ public class Entity {
 		getEventManager().waitUntil();
 	}
 
+	public final void waitUntil(EventCondition cond) {
+		getEventManager().waitUntil(cond);
+	}
+
+	public final void signal(EventCondition cond) {
+		getEventManager().signal(cond);
+	}
+
 	public final void waitUntilEnded() {
 		getEventManager().waitUntilEnded();
 	}
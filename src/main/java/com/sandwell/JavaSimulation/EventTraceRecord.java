@@ -25,6 +25,7 @@ class EventTraceRecord extends ArrayList<String> implements EventTraceListener {
 	private String eventManagerName;
 	private long internalTime;
 	private String targetName;
+	private int priority;
 	private int traceLevel;
 
 	public EventTraceRecord() {
@@ -41,14 +42,18 @@ class EventTraceRecord extends ArrayList<String> implements EventTraceListener {
 
 		// Try to parse a target entity and method form the second line
 		temp = this.get(1).split("\t");
+		targetName = null;
+		priority = -1;
 
 		// A regular event wakeup, parse target/method
 		if (temp[0].endsWith("Event")) {
+			priority = Integer.parseInt(temp[2]);
 			targetName = temp[3];
 			return;
 		}
 
 		if (temp[0].endsWith("WaitUntilEnded")) {
+			priority = Integer.parseInt(temp[2]);
 			targetName = temp[3];
 			return;
 		}
@@ -59,6 +64,7 @@ class EventTraceRecord extends ArrayList<String> implements EventTraceListener {
 		}
 
 		if (temp[0].endsWith("SchedProcess")) {
+			priority = Integer.parseInt(temp[2]);
 			targetName = temp[3];
 			return;
 		}
@@ -190,19 +196,10 @@ class EventTraceRecord extends ArrayList<String> implements EventTraceListener {
 	}
 
 	/**
-	 * Does a superficial comparison of two records, check number of entries,
-	 * time/target/method and finally the basic contents of the record.
+	 * Returns the key used to find the matching record: the number of lines,
+	 * the time, and the priority and target of the first entry.
 	 */
-	boolean basicCompare(EventTraceRecord record) {
-		if (record.size() != this.size())
-			return false;
-
-		if (record.internalTime != this.internalTime)
-			return false;
-
-		if (!record.targetName.equals(this.targetName))
-			return false;
-
-		return true;
+	TraceKey getKey() {
+		return new TraceKey(eventManagerName, internalTime, priority, targetName, this.size());
 	}
 }
@@ -14,34 +14,67 @@
  */
 package com.sandwell.JavaSimulation;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
+import com.jaamsim.basicsim.AsyncLogWriter;
 import com.jaamsim.events.EventManager;
 import com.jaamsim.input.InputAgent;
 import com.jaamsim.ui.LogBox;
 
 class EventTracer {
+	/**
+	 * The formats in which the event trace can be written.
+	 */
+	static enum TraceFormat {
+		TEXT,   // tab separated lines in a .evt file
+		BINARY, // variable-length integers in a .evb file
+	}
+
+	// Largest number of records read ahead from the verification file
+	private static final int WINDOW_SIZE = 100000;
+
 	private static FileEntity eventTraceFile;
 	private static BufferedReader eventVerifyReader;
+
+	private static DataOutputStream binaryTraceStream;
+	private static HashMap<String, Integer> binaryTraceStrings;
+	private static DataInputStream binaryVerifyStream;
+	private static ArrayList<String> binaryVerifyStrings;
+
 	private static long bufferTime; // Internal sim time buffer has been filled to
-	private static final ArrayList<EventTraceRecord> eventBuffer;
+	private static final TraceWindow<EventTraceRecord> eventBuffer;
+	private static final TraceWindow<BinaryTraceRecord> binaryBuffer;
 
 	static {
-		eventBuffer = new ArrayList<EventTraceRecord>();
+		eventBuffer = new TraceWindow<EventTraceRecord>(WINDOW_SIZE);
+		binaryBuffer = new TraceWindow<BinaryTraceRecord>(WINDOW_SIZE);
 	}
 
 	private EventTracer() {}
 
 	static void init() {
 		eventBuffer.clear();
+		binaryBuffer.clear();
 		bufferTime = 0;
 	}
 
+	private static File getTraceFile(TraceFormat format) {
+		String ext = (format == TraceFormat.BINARY) ? ".evb" : ".evt";
+		return new File(InputAgent.getConfigFile().getParentFile(), InputAgent.getRunName() + ext);
+	}
+
 	private static void fillBufferUntil(long internalTime) {
 		while (bufferTime <= internalTime) {
 			// Read a full trace record form the file, terminated at a blank line
@@ -70,36 +103,123 @@ class EventTracer {
 			if (temp.isDefaultEventManager() && temp.getInternalTime() > bufferTime) {
 				bufferTime = temp.getInternalTime();
 			}
-			eventBuffer.add(temp);
+			eventBuffer.add(temp.getKey(), temp);
+
+			EventTraceRecord old = eventBuffer.evict();
+			if (old != null) {
+				System.out.println("Expected event was not received:");
+				for (String line : old) {
+					System.out.println(line);
+				}
+				Simulation.pause();
+			}
+		}
+	}
+
+	private static void fillBinaryBufferUntil(long internalTime) {
+		while (bufferTime <= internalTime) {
+			BinaryTraceRecord temp;
+			try {
+				temp = BinaryTraceRecord.read(binaryVerifyStream, binaryVerifyStrings);
+			}
+			catch (IOException e) {
+				LogBox.format("Unable to read the event verification file: %s", e.getMessage());
+				temp = null;
+			}
+
+			if (temp == null)
+				break;
+
+			if (temp.isDefaultEventManager() && temp.getInternalTime() > bufferTime) {
+				bufferTime = temp.getInternalTime();
+			}
+			binaryBuffer.add(temp.getKey(), temp);
+
+			BinaryTraceRecord old = binaryBuffer.evict();
+			if (old != null) {
+				System.out.println("Expected event was not received:");
+				old.print();
+				Simulation.pause();
+			}
 		}
 	}
 
-	static void traceAllEvents(EventManager evt, boolean enable) {
+	static void traceAllEvents(EventManager evt, boolean enable, TraceFormat format) {
 		if (enable) {
-			verifyAllEvents(evt, false);
-			eventTraceFile = new FileEntity(InputAgent.getConfigFile().getParentFile()+ File.separator+ InputAgent.getRunName() + ".evt");
-			evt.setTraceListener(new EventTraceRecord());
-		} else if (eventTraceFile != null) {
+			verifyAllEvents(evt, false, format);
+			traceAllEvents(evt, false, format);
+			File file = getTraceFile(format);
+			if (format == TraceFormat.BINARY) {
+				try {
+					AsyncLogWriter out = new AsyncLogWriter(new FileOutputStream(file), 1024);
+					binaryTraceStream = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+					binaryTraceStrings = new HashMap<String, Integer>();
+					BinaryTraceRecord.writeHeader(binaryTraceStream);
+				}
+				catch (IOException e) {
+					throw new ErrorException("Unable to open the event trace file: " + e);
+				}
+				evt.setTraceListener(new BinaryTraceRecord());
+			}
+			else {
+				eventTraceFile = new FileEntity(file.getPath());
+				evt.setTraceListener(new EventTraceRecord());
+			}
+			return;
+		}
+
+		if (eventTraceFile != null) {
 			eventTraceFile.close();
 			eventTraceFile = null;
 			evt.setTraceListener(null);
 		}
+
+		if (binaryTraceStream != null) {
+			try {
+				binaryTraceStream.close();
+			}
+			catch (IOException e) {
+				LogBox.logLine("Unable to close the event trace file.");
+			}
+			binaryTraceStream = null;
+			binaryTraceStrings = null;
+			evt.setTraceListener(null);
+		}
 	}
 
-	static void verifyAllEvents(EventManager evt, boolean enable) {
+	static void verifyAllEvents(EventManager evt, boolean enable, TraceFormat format) {
 		if (enable) {
-			traceAllEvents(evt, false);
+			traceAllEvents(evt, false, format);
+			verifyAllEvents(evt, false, format);
 			eventBuffer.clear();
+			binaryBuffer.clear();
 			bufferTime = 0;
-			File evtFile = new File(InputAgent.getConfigFile().getParentFile(), InputAgent.getRunName() + ".evt");
-			try {
-				eventVerifyReader = new BufferedReader(new FileReader(evtFile));
+			File evtFile = getTraceFile(format);
+			if (format == TraceFormat.BINARY) {
+				try {
+					binaryVerifyStream = new DataInputStream(new BufferedInputStream(new FileInputStream(evtFile), 64 * 1024));
+					BinaryTraceRecord.readHeader(binaryVerifyStream);
+					binaryVerifyStrings = new ArrayList<String>();
+				}
+				catch (IOException e) {
+					closeBinaryVerify();
+					LogBox.logLine("Unable to open an event verification file.");
+				}
+				evt.setTraceListener(new BinaryTraceRecord());
+			}
+			else {
+				try {
+					eventVerifyReader = new BufferedReader(new FileReader(evtFile));
+				}
+				catch (FileNotFoundException e) {}
+				if (eventVerifyReader == null)
+					LogBox.logLine("Unable to open an event verification file.");
+				evt.setTraceListener(new EventTraceRecord());
 			}
-			catch (FileNotFoundException e) {}
-			if (eventVerifyReader == null)
-				LogBox.logLine("Unable to open an event verification file.");
-			evt.setTraceListener(new EventTraceRecord());
-		} else if (eventVerifyReader != null) {
+			return;
+		}
+
+		if (eventVerifyReader != null) {
 			try {
 				eventVerifyReader.close();
 			}
@@ -107,59 +227,108 @@ class EventTracer {
 			eventVerifyReader = null;
 			evt.setTraceListener(null);
 		}
+
+		if (binaryVerifyStream != null) {
+			closeBinaryVerify();
+			evt.setTraceListener(null);
+		}
+	}
+
+	/**
+	 * Writes out the buffered part of a binary trace.
+	 */
+	static void flush() {
+		DataOutputStream out = binaryTraceStream;
+		if (out == null)
+			return;
+
+		synchronized (out) {
+			try {
+				out.flush();
+			}
+			catch (IOException e) {
+				LogBox.logLine("Unable to write the event trace file.");
+			}
+		}
+	}
+
+	private static void closeBinaryVerify() {
+		if (binaryVerifyStream != null) {
+			try {
+				binaryVerifyStream.close();
+			}
+			catch (IOException e) {}
+		}
+		binaryVerifyStream = null;
+		binaryVerifyStrings = null;
 	}
 
 	private static void findEventInBuffer(EventTraceRecord record) {
 		// Ensure we have read enough from the log to find this record
 		EventTracer.fillBufferUntil(record.getInternalTime());
 
-		// Try an optimistic approach first looking for exact matches
-		for (EventTraceRecord each : eventBuffer) {
-			if (!each.basicCompare(record)) {
-				continue;
+		EventTraceRecord each = eventBuffer.remove(record.getKey());
+		if (each == null) {
+			System.out.println("No matching event found for:");
+			for (String line : record) {
+				System.out.println(line);
 			}
+			System.out.println("Buffered records: " + eventBuffer.size());
+			Simulation.pause();
+			return;
+		}
 
-			for (int i = 1; i < record.size(); i++) {
-				if (!record.get(i).equals(each.get(i))) {
-					System.out.println("Difference in event stream detected");
-					System.out.println("Received:");
-					for (String line : record) {
-						System.out.println(line);
-					}
+		for (int i = 1; i < record.size(); i++) {
+			if (!record.get(i).equals(each.get(i))) {
+				System.out.println("Difference in event stream detected");
+				System.out.println("Received:");
+				for (String line : record) {
+					System.out.println(line);
+				}
 
-					System.out.println("Expected:");
-					for (String line : each) {
-						System.out.println(line);
-					}
+				System.out.println("Expected:");
+				for (String line : each) {
+					System.out.println(line);
+				}
 
-					System.out.println("Lines:");
-					System.out.println("R:" + record.get(i));
-					System.out.println("E:" + each.get(i));
+				System.out.println("Lines:");
+				System.out.println("R:" + record.get(i));
+				System.out.println("E:" + each.get(i));
 
-					Simulation.pause();
-					new Throwable().printStackTrace();
-					break;
-				}
+				Simulation.pause();
+				new Throwable().printStackTrace();
+				break;
 			}
+		}
+	}
+
+	private static void findEventInBuffer(BinaryTraceRecord record) {
+		EventTracer.fillBinaryBufferUntil(record.getInternalTime());
 
-			// Found the event, it compared OK, remove from the buffer
-			eventBuffer.remove(each);
-			//System.out.println("Buffersize:" + eventBuffer.size());
+		BinaryTraceRecord each = binaryBuffer.remove(record.getKey());
+		if (each == null) {
+			System.out.println("No matching event found for:");
+			record.print();
+			System.out.println("Buffered records: " + binaryBuffer.size());
+			Simulation.pause();
 			return;
 		}
 
-		System.out.println("No matching event found for:");
-		for (String line : record) {
-			System.out.println(line);
-		}
-		for (EventTraceRecord rec : eventBuffer) {
-			System.out.println("Buffered Record:");
-			for (String line : rec) {
-				System.out.println(line);
-			}
-			System.out.println();
-		}
+		int i = record.compare(each);
+		if (i < 0)
+			return;
+
+		System.out.println("Difference in event stream detected");
+		System.out.println("Received:");
+		record.print();
+		System.out.println("Expected:");
+		each.print();
+		System.out.println("Lines:");
+		System.out.println("R:" + record.getLine(i));
+		System.out.println("E:" + each.getLine(i));
+
 		Simulation.pause();
+		new Throwable().printStackTrace();
 	}
 
 	private static void writeEventToBuffer(EventTraceRecord record) {
@@ -183,4 +352,25 @@ class EventTracer {
 			}
 		}
 	}
+
+	static void processTraceData(BinaryTraceRecord traceRecord) {
+		DataOutputStream out = binaryTraceStream;
+		if (out != null) {
+			synchronized (out) {
+				try {
+					traceRecord.write(out, binaryTraceStrings);
+				}
+				catch (IOException e) {
+					throw new ErrorException("Unable to write the event trace file: " + e);
+				}
+			}
+		}
+
+		DataInputStream in = binaryVerifyStream;
+		if (in != null) {
+			synchronized (in) {
+				EventTracer.findEventInBuffer(traceRecord);
+			}
+		}
+	}
 }
@@ -16,10 +16,13 @@ package com.sandwell.JavaSimulation;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.text.DecimalFormat;
 
+import com.jaamsim.basicsim.AsyncLogWriter;
 import com.jaamsim.ui.LogBox;
 
 /**
@@ -29,8 +32,11 @@ public class FileEntity {
 	public static int ALIGNMENT_LEFT = 0;
 	public static int ALIGNMENT_RIGHT = 1;
 
+	private static final int ASYNC_CAPACITY = 1024; // buffered writes before an asynchronous file blocks
+
 	private File backingFileObject;
 	private BufferedWriter outputStream;
+	private final boolean async; // TRUE if the text is written by a background thread
 
 	private DecimalFormat formatter;
 
@@ -39,12 +45,28 @@ public class FileEntity {
 	}
 
 	public FileEntity(String fileName, boolean append) {
+		this(fileName, append, false);
+	}
+
+	/**
+	 * Opens the given file for writing. If async is true, the text is written
+	 * to the file by a background thread and flush() returns without waiting
+	 * for the disk, see AsyncLogWriter.
+	 */
+	public FileEntity(String fileName, boolean append, boolean async) {
 		backingFileObject = new File( fileName);
 		formatter = new DecimalFormat( "##0.00" );
+		this.async = async;
 
 		try {
 			backingFileObject.createNewFile();
-			outputStream = new BufferedWriter( new FileWriter( backingFileObject, append ) );
+			if (async) {
+				AsyncLogWriter out = new AsyncLogWriter(new FileOutputStream(backingFileObject, append), ASYNC_CAPACITY);
+				outputStream = new BufferedWriter( new OutputStreamWriter( out ) );
+			}
+			else {
+				outputStream = new BufferedWriter( new FileWriter( backingFileObject, append ) );
+			}
 		}
 		catch( IOException e ) {
 			throw new InputErrorException( "IOException thrown trying to open FileEntity: " + e );
@@ -125,7 +147,10 @@ public class FileEntity {
 			if( alignment == ALIGNMENT_RIGHT ) {
 				outputStream.write( spaces + string );
 			}
-			outputStream.flush();
+
+			// An asynchronous file is flushed by its callers at the end of each record
+			if( !async )
+				outputStream.flush();
 		}
 		catch( IOException e ) {
 			return;
@@ -94,6 +94,24 @@ public abstract class Input<T> {
 		edited = false;
 	}
 
+	/**
+	 * Copies the parsed value of the given input into this input without
+	 * re-parsing its value string.  The value object is shared, not duplicated.
+	 * @param in - an input of the same class as this one
+	 * @return false if the value could not be copied and the caller must parse
+	 * the value string of the given input instead
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean copyFrom(Input<?> in) {
+		if (in.getClass() != this.getClass())
+			return false;
+
+		value = ((Input<T>)in).value;
+		valueString = in.valueString;
+		edited = in.edited;
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("%s", value);
@@ -496,8 +514,6 @@ public abstract class Input<T> {
 		return value;
 	}
 
-	private static final Pattern is8601date = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
-	private static final Pattern is8601time = Pattern.compile("\\d{4}-\\d{2}-\\d{2}[ T]\\d{2}:\\d{2}:\\d{2}");
 	private static final Pattern isextendtime = Pattern.compile("\\d{1,}:\\d{2}:\\d{2}");
 	private static final long usPerSec = 1000000;
 	private static final long usPerMin = 60 * usPerSec;
@@ -516,22 +532,9 @@ public abstract class Input<T> {
 	 * @return
 	 */
 	public static long parseRFC8601DateTime(String input) {
-		if (is8601time.matcher(input).matches()) {
-			int YY = Integer.parseInt(input.substring(0, 4));
-			int MM = Integer.parseInt(input.substring(5, 7));
-			int DD = Integer.parseInt(input.substring(8, 10));
-			int hh = Integer.parseInt(input.substring(11, 13));
-			int mm = Integer.parseInt(input.substring(14, 16));
-			int ss = Integer.parseInt(input.substring(17, 19));
-			return getUS(input, YY, MM, DD, hh, mm, ss);
-		}
-
-		if (is8601date.matcher(input).matches()) {
-			int YY = Integer.parseInt(input.substring(0, 4));
-			int MM = Integer.parseInt(input.substring(5, 7));
-			int DD = Integer.parseInt(input.substring(8, 10));
-			return getUS(input, YY, MM, DD, 0, 0, 0);
-		}
+		long us = Input.parseFixedDateTime(input, 0, input.length());
+		if (us >= 0)
+			return us;
 
 		if (isextendtime.matcher(input).matches()) {
 			int len = input.length();
@@ -552,19 +555,64 @@ public abstract class Input<T> {
 		throw new InputErrorException(INP_ERR_BADDATE, input);
 	}
 
-	private static final long getUS(String input, int YY, int MM, int DD, int hh, int mm, int ss) {
-		// Validate ranges
-		if (MM <= 0 || MM > 12)
-			throw new InputErrorException(INP_ERR_BADDATE, input);
-
-		if (DD <= 0 || DD > Clock.getDaysInMonth(MM))
-			throw new InputErrorException(INP_ERR_BADDATE, input);
-
-		if (hh < 0 || hh > 23)
-			throw new InputErrorException(INP_ERR_BADDATE, input);
+	/**
+	 * Parse a date time of the fixed form YYYY-MM-DD, YYYY-MM-DD HH:MM:SS or
+	 * YYYY-MM-DDTHH:MM:SS held between start and end, without building any
+	 * intermediate strings.
+	 *
+	 * @return the offset in microseconds from 0AD, or -1 if the text is not in
+	 * one of these forms
+	 */
+	static long parseFixedDateTime(CharSequence input, int start, int end) {
+		int len = end - start;
+		if (len != 10 && len != 19)
+			return -1;
+
+		if (input.charAt(start + 4) != '-' || input.charAt(start + 7) != '-')
+			return -1;
+
+		int YY = parseDigits(input, start, 4);
+		int MM = parseDigits(input, start + 5, 2);
+		int DD = parseDigits(input, start + 8, 2);
+		if (YY < 0 || MM < 0 || DD < 0)
+			return -1;
+
+		if (len == 10)
+			return getUS(input, start, end, YY, MM, DD, 0, 0, 0);
+
+		char sep = input.charAt(start + 10);
+		if ((sep != ' ' && sep != 'T') ||
+		    input.charAt(start + 13) != ':' || input.charAt(start + 16) != ':')
+			return -1;
+
+		int hh = parseDigits(input, start + 11, 2);
+		int mm = parseDigits(input, start + 14, 2);
+		int ss = parseDigits(input, start + 17, 2);
+		if (hh < 0 || mm < 0 || ss < 0)
+			return -1;
+
+		return getUS(input, start, end, YY, MM, DD, hh, mm, ss);
+	}
+
+	// Returns the value of the given number of decimal digits, or -1 if one of them is not a digit
+	private static int parseDigits(CharSequence input, int start, int num) {
+		int ret = 0;
+		for (int i = start; i < start + num; i++) {
+			char c = input.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			ret = ret * 10 + (c - '0');
+		}
+		return ret;
+	}
 
-		if (mm < 0 || mm > 59 || ss < 0 || ss > 59)
-			throw new InputErrorException(INP_ERR_BADDATE, input);
+	private static final long getUS(CharSequence input, int start, int end, int YY, int MM, int DD, int hh, int mm, int ss) {
+		// Validate ranges
+		if (MM <= 0 || MM > 12 ||
+		    DD <= 0 || DD > Clock.getDaysInMonth(MM) ||
+		    hh < 0 || hh > 23 ||
+		    mm < 0 || mm > 59 || ss < 0 || ss > 59)
+			throw new InputErrorException(INP_ERR_BADDATE, input.subSequence(start, end));
 
 		long ret = 0;
 		ret += YY * usPerYr;
@@ -862,7 +910,7 @@ public abstract class Input<T> {
 		}
 	}
 
-	private static <T extends Entity> T castEntity(Entity ent, Class<T> aClass)
+	static <T extends Entity> T castEntity(Entity ent, Class<T> aClass)
 	throws InputErrorException {
 		try {
 			return aClass.cast(ent);
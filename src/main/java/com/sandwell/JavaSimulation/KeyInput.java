@@ -52,6 +52,12 @@ public class KeyInput<K1 extends Entity, V> extends Input<V> {
 		unitString = units;
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		// The keyed values are held outside the value and must be re-parsed
+		return false;
+	}
+
 	@Override
 	public void parse(StringVector input)
 	throws InputErrorException {
@@ -35,6 +35,12 @@ public class KeyListInput<K1 extends Entity, V extends Entity> extends Input<Arr
 		hashMap = new HashMap<K1,ArrayList<V>>();
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		// The keyed values are held outside the value and must be re-parsed
+		return false;
+	}
+
 	@Override
 	public void parse(StringVector input)
 	throws InputErrorException {
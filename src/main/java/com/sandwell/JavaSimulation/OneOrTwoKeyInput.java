@@ -54,6 +54,12 @@ public class OneOrTwoKeyInput<K1 extends Entity, K2 extends Entity, V> extends I
 		unitString = null;
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		// The keyed values are held outside the value and must be re-parsed
+		return false;
+	}
+
 	@Override
 	public void parse(StringVector input)
 	throws InputErrorException {
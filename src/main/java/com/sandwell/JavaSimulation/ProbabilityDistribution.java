@@ -15,10 +15,11 @@
 package com.sandwell.JavaSimulation;
 
 import java.util.ArrayList;
-import java.util.Random;
 
 import com.jaamsim.Samples.SampleProvider;
 import com.jaamsim.input.Keyword;
+import com.jaamsim.rng.AliasTable;
+import com.jaamsim.rng.MRG1999a;
 import com.jaamsim.units.TimeUnit;
 import com.jaamsim.units.Unit;
 
@@ -57,7 +58,8 @@ implements SampleProvider {
 	protected DoubleVector cumValueList; // list of values associated with cumulative probabilities
 	protected Vector cumObjectList; // list of objects associated with cumulative probabilities
 
-	protected Random randomGenerator; // random generator for picking values
+	protected MRG1999a randomGenerator; // random generator for picking values
+	private AliasTable probTable; // sampler for probList, built when first needed
 
 	@Keyword(description = "An integer greater than or equal to 0 specifying the seed for the random number generator." +
 			        "  If empty or zero, then the values are chosen deterministically and Interpolate must be set to FALSE.",
@@ -105,7 +107,7 @@ implements SampleProvider {
 		cumValueList = new DoubleVector( 1, 1 );
 		cumObjectList = new Vector( 1, 1 );
 
-		randomGenerator = new Random( 2345 );
+		randomGenerator = new MRG1999a();
 		randomSeed = 0;
 		interpolate = false;
 		initialized = false;
@@ -221,12 +223,12 @@ implements SampleProvider {
 	 * Reset the random generator (required for model re-starts)
 	 */
 	public void reset() {
-		randomGenerator = new Random( 2345 );
+		randomGenerator.setSeedStream( 0, 0 );
 
 		if( objectList.size() == 0 ) {
 			// Initialize the random generator
 			if( randomSeed > 0 ) {
-				randomGenerator.setSeed( randomSeed );
+				randomGenerator.setSeedStream( randomSeed, 0 );
 			}
 
 			if( randomSeed == 0 ) {
@@ -333,6 +335,7 @@ implements SampleProvider {
 		else {
 			counts.fillWithEntriesOf( objectList.size(), 0 );
 		}
+		probTable = null;
 		initialized = true;
 	}
 
@@ -342,6 +345,7 @@ implements SampleProvider {
 
 	public void setProbList( DoubleVector v ) {
 		probList = v;
+		probTable = null;
 	}
 
 	public DoubleVector getCumProbList() {
@@ -366,7 +370,17 @@ implements SampleProvider {
 
 	public void setRandomSeed( int s ) {
 		randomSeed = s;
-		randomGenerator.setSeed( randomSeed );
+		randomGenerator.setSeedStream( randomSeed, 0 );
+	}
+
+	/**
+	 * Returns the alias table used to sample an index from probList in
+	 * constant time.
+	 */
+	private AliasTable getProbTable() {
+		if( probTable == null )
+			probTable = new AliasTable( probList.toArray() );
+		return probTable;
 	}
 
 	// ******************************************************************************************
@@ -421,7 +435,15 @@ implements SampleProvider {
 				return this.selectValueFrom_UsingCumProbs( cumValueList, cumProbList ) * valueFactor;
 			}
 			else {
-				return this.selectValueFrom_UsingProbs( valueList, probList ) * valueFactor;
+				double rand = randomGenerator.nextUniform();
+
+				// Should the value be zero?
+				if (rand < (1.0d - nonZeroProb.getValue()))
+					return 0.0;
+
+				// Adjust the random number so that it is again between 0 and 1
+				rand = (rand - (1.0d - nonZeroProb.getValue())) / nonZeroProb.getValue();
+				return valueList.get( this.getProbTable().getIndex( rand ) ) * valueFactor;
 			}
 		}
 	}
@@ -438,7 +460,7 @@ implements SampleProvider {
 		}
 		// Otherwise, select the value using the random number generator
 		else {
-			return this.selectObjectFrom_UsingProbs( objectList, probList );
+			return objectList.get( this.getProbTable().getIndex( randomGenerator.nextUniform() ) );
 		}
 	}
 
@@ -448,7 +470,7 @@ implements SampleProvider {
 	public double selectValueFrom_UsingProbs( DoubleVector binValues, DoubleVector probs ) {
 
 		// Select a random number that is uniformly distributed between 0 and 1.
-		double rand = randomGenerator.nextDouble();
+		double rand = randomGenerator.nextUniform();
 
 		// Should the value be zero?
 		if (rand < (1.0d - nonZeroProb.getValue())) {
@@ -478,7 +500,7 @@ implements SampleProvider {
 	public Object selectObjectFrom_UsingProbs( Vector binValues, DoubleVector probs ) {
 
 		// Select a random number that is uniformly distributed between 0 and 1.
-		double rand = randomGenerator.nextDouble();
+		double rand = randomGenerator.nextUniform();
 
 		// Compare the random number to the cummulative probabilities calculated from the distribution.
 		double cumProb = 0.0;
@@ -510,7 +532,7 @@ implements SampleProvider {
 		}
 
 		//  Select a random number from 0 to 1.
-		double rand = randomGenerator.nextDouble();
+		double rand = randomGenerator.nextUniform();
 
 		// Should the value be zero?
 		if (rand < (1.0d - nonZeroProb.getValue())) {
@@ -521,15 +543,16 @@ implements SampleProvider {
 			rand = (rand - (1.0d - nonZeroProb.getValue())) / nonZeroProb.getValue();
 		}
 
-		//  Determine the first bin whose cumulative probability is greater than or equal to the random number
-		int bin = -1;
-		int index = 0;
-		while( bin == -1 ) {
-			if( cumProbs.get( index ) >= rand ) {
-				bin = index;
+		//  Binary search for the first bin whose cumulative probability is greater than or equal to the random number
+		int bin = cumProbs.size() - 1;
+		int low = 0;
+		while( low < bin ) {
+			int mid = (low + bin) >>> 1;
+			if( cumProbs.get( mid ) >= rand ) {
+				bin = mid;
 			}
 			else {
-				index += 1;
+				low = mid + 1;
 			}
 		}
 
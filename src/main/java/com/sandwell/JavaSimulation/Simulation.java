@@ -14,10 +14,17 @@
  */
 package com.sandwell.JavaSimulation;
 
+import java.util.ArrayList;
+
+import com.jaamsim.basicsim.AsyncLogWriter;
+import com.jaamsim.events.EventManager.EventSetType;
+import com.jaamsim.events.Process;
 import com.jaamsim.events.ProcessTarget;
 import com.jaamsim.input.InputAgent;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.Output;
+import com.jaamsim.input.OutputHandle;
+import com.jaamsim.input.OutputListInput;
 import com.jaamsim.input.ValueInput;
 import com.jaamsim.ui.ExceptionBox;
 import com.jaamsim.units.TimeUnit;
@@ -71,6 +78,31 @@ public class Simulation extends Entity {
 	         example = "This is placeholder example text")
 	private static final BooleanInput verifyEventsInput;
 
+	@Keyword(description = "The format of the event trace written by TraceEvents and read by " +
+	                "VerifyEvents. TEXT writes tab separated lines to a .evt file, BINARY writes " +
+	                "a compact binary file with the extension .evb that is faster to write and verify.",
+	         example = "Simulation EventTraceFormat { BINARY }")
+	private static final EnumInput<EventTracer.TraceFormat> eventTraceFormat;
+
+	@Keyword(description = "The data structure used to hold the future events. SORTED_ARRAY " +
+	                "keeps the events in a sorted array, BINARY_HEAP keeps them in a binary heap " +
+	                "which is faster for models with a large number of pending events. Both " +
+	                "execute the events in the same order.",
+	         example = "Simulation EventSet { SORTED_ARRAY }")
+	private static final EnumInput<EventSetType> eventSetInput;
+
+	@Keyword(description = "The number of independent replications to run. The replications " +
+	                "are run one after another, each restarting the model from its initial state " +
+	                "with the random distributions advanced to the next substream.",
+	         example = "Simulation NumberOfReplications { 10 }")
+	private static final IntegerInput numberOfReplications;
+
+	@Keyword(description = "The outputs to be recorded at the end of each replication. The " +
+	                "mean, standard deviation, minimum and maximum over all the replications " +
+	                "are written to the file <run name>.rep when the last replication ends.",
+	         example = "Simulation ReplicationOutputs { { Queue1 QueueLengthAverage } }")
+	private static final OutputListInput<Double> replicationOutputs;
+
 	@Keyword(description = "The real time speed up factor",
 	         example = "RunControl RealTimeFactor { 1200 }")
 	private static final IntegerInput realTimeFactor;
@@ -88,6 +120,10 @@ public class Simulation extends Entity {
 	private static double startTime;
 	private static double endTime;
 
+	private static int replicationNumber; // index of the present replication, starting from zero
+	private static ReplicationStatistics[] replicationStats;
+	private static Thread replicationThread; // resets the model for the next replication
+
 	private static String modelName = "JaamSim";
 
 	static {
@@ -110,9 +146,17 @@ public class Simulation extends Entity {
 
 		traceEventsInput = new BooleanInput("TraceEvents", "Key Inputs", false);
 		verifyEventsInput = new BooleanInput("VerifyEvents", "Key Inputs", false);
+		eventTraceFormat = new EnumInput<EventTracer.TraceFormat>(EventTracer.TraceFormat.class, "EventTraceFormat", "Key Inputs", EventTracer.TraceFormat.TEXT);
+
+		eventSetInput = new EnumInput<EventSetType>(EventSetType.class, "EventSet", "Key Inputs", EventSetType.BINARY_HEAP);
 
 		printInputReport = new BooleanInput("PrintInputReport", "Key Inputs", false);
 
+		numberOfReplications = new IntegerInput("NumberOfReplications", "Key Inputs", 1);
+		numberOfReplications.setValidRange(1, Integer.MAX_VALUE);
+
+		replicationOutputs = new OutputListInput<Double>(Double.class, "ReplicationOutputs", "Key Inputs", null);
+
 		realTimeFactor = new IntegerInput("RealTimeFactor", "Key Inputs", DEFAULT_REAL_TIME_FACTOR);
 		realTimeFactor.setValidRange(MIN_REAL_TIME_FACTOR, MAX_REAL_TIME_FACTOR);
 
@@ -140,9 +184,15 @@ public class Simulation extends Entity {
 
 		this.addInput(traceEventsInput);
 		this.addInput(verifyEventsInput);
+		this.addInput(eventTraceFormat);
+
+		this.addInput(eventSetInput);
 
 		this.addInput(printInputReport);
 
+		this.addInput(numberOfReplications);
+		this.addInput(replicationOutputs);
+
 		this.addInput(realTimeFactor);
 		this.addInput(realTime);
 
@@ -171,6 +221,8 @@ public class Simulation extends Entity {
 	}
 
 	public static void clear() {
+		cancelNextReplication();
+		resetReplications();
 		EventTracer.init();
 		root.clear();
 		root.setTraceListener(null);
@@ -180,7 +232,11 @@ public class Simulation extends Entity {
 		simTimeScaleInput.reset();
 		traceEventsInput.reset();
 		verifyEventsInput.reset();
+		eventTraceFormat.reset();
+		eventSetInput.reset();
 		printInputReport.reset();
+		numberOfReplications.reset();
+		replicationOutputs.reset();
 		realTimeFactor.reset();
 		realTime.reset();
 		updateRealTime();
@@ -225,16 +281,18 @@ public class Simulation extends Entity {
 			}
 		}
 
+		cancelNextReplication();
 		InputAgent.prepareReportDirectory();
 		EventTracer.init();
 		root.clear();
 		root.setTraceListener(null);
+		root.setEventSetType(eventSetInput.getValue());
 
 		if( traceEventsInput.getValue() ) {
-			EventTracer.traceAllEvents(root, traceEventsInput.getValue());
+			EventTracer.traceAllEvents(root, traceEventsInput.getValue(), eventTraceFormat.getValue());
 		}
 		else if( verifyEventsInput.getValue() ) {
-			EventTracer.verifyAllEvents(root, verifyEventsInput.getValue());
+			EventTracer.verifyAllEvents(root, verifyEventsInput.getValue(), eventTraceFormat.getValue());
 		}
 		root.setSimTimeScale(simTimeScaleInput.getValue());
 		if( startDate.getValue() != null ) {
@@ -244,9 +302,179 @@ public class Simulation extends Entity {
 		startTime = Clock.calcTimeForYear_Month_Day_Hour(1, Clock.getStartingMonth(), Clock.getStartingDay(), startTimeHours);
 		endTime = startTime + Simulation.getInitializationHours() + Simulation.getRunDurationHours();
 
+		resetReplications();
+		if (replicationOutputs.getValue() != null) {
+			replicationStats = new ReplicationStatistics[replicationOutputs.getValue().size()];
+			for (int i = 0; i < replicationStats.length; i++)
+				replicationStats[i] = new ReplicationStatistics();
+		}
+
 		root.scheduleProcess(0, Entity.PRIO_DEFAULT, false, new InitModelTarget());
 	}
 
+	/**
+	 * Returns the index of the present replication, starting from zero.
+	 */
+	public static int getReplicationNumber() {
+		return replicationNumber;
+	}
+
+	/**
+	 * Returns the number of replications to be run.
+	 */
+	public static int getNumberOfReplications() {
+		return numberOfReplications.getValue();
+	}
+
+	/**
+	 * Record the replication outputs and, if replications remain, pause the
+	 * model and hand the reset for the next replication to a separate thread.
+	 * Called from the end of run event, which is itself a model process, so
+	 * the event list cannot be cleared until the EventManager has gone idle.
+	 * @return true if another replication will be started
+	 */
+	private static boolean endReplication() {
+		double simTime = Process.ticksToSeconds(Process.currentTick());
+		if (replicationStats != null) {
+			ArrayList<OutputHandle> outs = replicationOutputs.getValue();
+			for (int i = 0; i < replicationStats.length; i++)
+				replicationStats[i].add(outs.get(i).getValueAsDouble(simTime, Double.NaN));
+		}
+
+		if (replicationNumber + 1 >= numberOfReplications.getValue()) {
+			printReplicationReport();
+			resetReplications();
+			return false;
+		}
+
+		root.pause();
+		synchronized (Simulation.class) {
+			replicationThread = new Thread(new NextReplication(), "NextReplication");
+			replicationThread.start();
+		}
+		return true;
+	}
+
+	/**
+	 * Waits for the EventManager to finish the end of run event, then returns
+	 * the model to its initial state and starts the next replication. The
+	 * reset is abandoned if the run is stopped in the meantime.
+	 */
+	private static class NextReplication implements Runnable {
+		NextReplication() {}
+
+		@Override
+		public void run() {
+			try {
+				root.waitForPause();
+			}
+			catch (InterruptedException e) {
+				return;
+			}
+
+			synchronized (Simulation.class) {
+				if (replicationThread != Thread.currentThread())
+					return;
+				replicationThread = null;
+
+				// The remaining events and waiting processes belong to the completed
+				// replication, discard them along with the generated entities
+				replicationNumber++;
+				root.clear();
+				killGeneratedEntities();
+
+				root.scheduleProcess(0, Entity.PRIO_DEFAULT, false, new InitModelTarget());
+				root.resume(Long.MAX_VALUE);
+			}
+		}
+	}
+
+	/**
+	 * Returns to the first replication, so that a model initialised outside
+	 * of a multi-replication run draws from the same substreams as a single
+	 * run.
+	 */
+	static void resetReplications() {
+		replicationNumber = 0;
+		replicationStats = null;
+	}
+
+	/**
+	 * Cancels a pending reset for the next replication.
+	 */
+	private static synchronized void cancelNextReplication() {
+		if (replicationThread == null)
+			return;
+
+		replicationThread.interrupt();
+		replicationThread = null;
+	}
+
+	private static void killGeneratedEntities() {
+		for (int i = 0; i < Entity.getAll().size();) {
+			Entity ent = Entity.getAll().get(i);
+			if (ent.testFlag(Entity.FLAG_GENERATED))
+				ent.kill();
+			else
+				i++;
+		}
+	}
+
+	private static void printReplicationReport() {
+		if (replicationStats == null || InputAgent.getConfigFile() == null)
+			return;
+
+		FileEntity file = new FileEntity(InputAgent.getReportFileName(InputAgent.getRunName() + ".rep"));
+		file.format("Replications\t%d%n", numberOfReplications.getValue());
+		file.format("Entity\tOutput\tMean\tStandardDeviation\tMinimum\tMaximum%n");
+		ArrayList<OutputHandle> outs = replicationOutputs.getValue();
+		for (int i = 0; i < replicationStats.length; i++) {
+			ReplicationStatistics stats = replicationStats[i];
+			file.format("%s\t%s\t%s\t%s\t%s\t%s%n", outs.get(i).ent.getInputName(), outs.get(i).getName(),
+			            stats.getMean(), stats.getStandardDeviation(), stats.getMin(), stats.getMax());
+		}
+		file.close();
+	}
+
+	/**
+	 * Running mean and variance of an output over the replications, using
+	 * Welford's update to avoid the loss of precision from squared sums.
+	 */
+	private static class ReplicationStatistics {
+		private int count;
+		private double mean;
+		private double sumSqDev;
+		private double min = Double.POSITIVE_INFINITY;
+		private double max = Double.NEGATIVE_INFINITY;
+
+		void add(double val) {
+			count++;
+			double delta = val - mean;
+			mean += delta / count;
+			sumSqDev += delta * (val - mean);
+			min = Math.min(min, val);
+			max = Math.max(max, val);
+		}
+
+		double getMean() {
+			return mean;
+		}
+
+		double getStandardDeviation() {
+			if (count < 2)
+				return 0.0d;
+			return Math.sqrt(sumSqDev / (count - 1));
+		}
+
+		double getMin() {
+			return min;
+		}
+
+		double getMax() {
+			return max;
+		}
+	}
+
 
 	public static final void resume(double secs) {
 		long ticks = root.secondsToNearestTick(secs);
@@ -264,18 +492,16 @@ public class Simulation extends Entity {
 	 *	Requests the EventManager to stop processing events.
 	 */
 	public static final void stop() {
+		cancelNextReplication();
+		resetReplications();
 		root.pause();
 		root.clear();
+		EventTracer.flush();
+		AsyncLogWriter.syncAll();
 		GUIFrame.instance().updateForSimulationState(GUIFrame.SIM_STATE_STOPPED);
 
 		// kill all generated objects
-		for (int i = 0; i < Entity.getAll().size();) {
-			Entity ent = Entity.getAll().get(i);
-			if (ent.testFlag(Entity.FLAG_GENERATED))
-				ent.kill();
-			else
-				i++;
-		}
+		killGeneratedEntities();
 	}
 
 	private static class StartUpTarget extends ProcessTarget {
@@ -344,10 +570,16 @@ public class Simulation extends Entity {
 
 		@Override
 		public void process() {
-			Simulation.pause();
 			for (int i = 0; i < Entity.getAll().size(); i++) {
 				Entity.getAll().get(i).doEnd();
 			}
+			EventTracer.flush();
+			AsyncLogWriter.syncAll();
+
+			if (Simulation.endReplication())
+				return;
+
+			Simulation.pause();
 
 			System.out.println( "Made it to do end at" );
 			// close warning/error trace file
@@ -429,6 +661,12 @@ public class Simulation extends Entity {
 		return printInputReport.getValue();
 	}
 
+	@Output(name = "ReplicationNumber",
+	         description = "The number of the present replication, starting from one.")
+	public int getReplicationNumber(double simTime) {
+		return replicationNumber + 1;
+	}
+
 	@Output(name = "Configuration File",
 			 description = "The present configuration file.")
 	public String getConfigFileName(double simTime) {
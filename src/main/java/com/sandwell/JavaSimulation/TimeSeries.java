@@ -14,13 +14,12 @@
  */
 package com.sandwell.JavaSimulation;
 
-import java.util.Arrays;
-
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.Output;
 import com.jaamsim.input.OutputHandle;
 import com.jaamsim.input.UnitTypeInput;
 import com.jaamsim.input.ValueInput;
+import com.jaamsim.math.LookupCursor;
 import com.jaamsim.units.TimeUnit;
 import com.jaamsim.units.Unit;
 import com.jaamsim.units.UserSpecifiedUnit;
@@ -41,6 +40,13 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 	         example = "TimeSeries1  Value { { '2010-01-01 00:00:00' 0.5 m } { '2010-01-01 03:00:00' 1.5 m } { '2010-01-01 06:00:00' 1.2 m } }")
 	private final TimeSeriesDataInput value;
 
+	@Keyword(description = "A file containing the time series records, as an alternative to the Value keyword. " +
+	                "Each line of the file has the form 'YYYY-MM-DD hh:mm:ss, value, units', where the units are " +
+	                "optional for a dimensionless series. Entities that use the same file share its data. " +
+	                "If the UnitType keyword is specified, it must be specified before the DataFile keyword.",
+	         example = "TimeSeries1  DataFile { 'demand.csv' }")
+	private final FileInput dataFile;
+
 	@Keyword(description = "The unit type for the time series (e.g. DistanceUnit, TimeUnit, MassUnit).  " +
 			"If the UnitType keyword is specified, it must be specified before the Value keyword.",
      example = "TimeSeries1  UnitType { DistanceUnit }")
@@ -58,11 +64,20 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 		value.setUnitType(UserSpecifiedUnit.class);
 		this.addInput(value);
 
+		dataFile = new FileInput("DataFile", "Key Inputs", null);
+		dataFile.setFileType("Time Series");
+		dataFile.setValidFileExtensions("csv", "txt");
+		dataFile.setValidFileDescriptions("Comma Separated Values (*.csv)", "Text (*.txt)");
+		this.addInput(dataFile);
+
 		cycleTime = new ValueInput( "CycleTime", "Key Inputs", Double.POSITIVE_INFINITY );
 		cycleTime.setUnitType(TimeUnit.class);
 		this.addInput( cycleTime );
 	}
 
+	private TimeSeriesData fileData; // data loaded from the DataFile
+	private final LookupCursor cursor = new LookupCursor(); // index of the previous lookup
+
 	public TimeSeries() { }
 
 	@Override
@@ -72,10 +87,13 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 		if( unitType.getValue() == null )
 			throw new InputErrorException( "UnitType must be specified first" );
 
-		if( value.getValue() == null || value.getValue().timeList.length == 0 )
+		if (value.getValue() != null && dataFile.getValue() != null)
+			throw new InputErrorException( "Only one of the Value and DataFile keywords can be specified" );
+
+		if( this.getData() == null || this.getData().timeList.length == 0 )
 			throw new InputErrorException( "Time series Value must be specified" );
 
-		double[] tList = value.getValue().timeList;
+		double[] tList = this.getData().timeList;
 		if (this.getCycleTimeInHours() < tList[tList.length - 1])
 			throw new InputErrorException( "CycleTime must be larger than the last time in the series" );
 	}
@@ -89,6 +107,30 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 			this.getOutputHandle("PresentValue").setUnitType( unitType.getUnitType() );
 			return;
 		}
+
+		if (in == dataFile) {
+			fileData = null;
+			if (dataFile.getValue() == null)
+				return;
+
+			if (unitType.getUnitType() == UserSpecifiedUnit.class)
+				throw new InputErrorException( "UnitType must be specified first" );
+
+			TimeSeriesData data = TimeSeriesData.load(dataFile.getValue(), unitType.getUnitType());
+			value.checkRange(data);
+			fileData = data;
+			return;
+		}
+	}
+
+	/**
+	 * Returns the records of the time series, given either by the Value or
+	 * the DataFile keyword.
+	 */
+	private TimeSeriesData getData() {
+		if (fileData != null)
+			return fileData;
+		return value.getValue();
 	}
 
 	@Override
@@ -112,7 +154,7 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 	 */
 	@Override
 	public double getValueForTimeHours( double time ) {
-		double[] valueList = value.getValue().valueList;
+		double[] valueList = this.getData().valueList;
 		return valueList[ getIndexForTimeHours( time ) ];
 	}
 
@@ -120,7 +162,7 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 	 * Return the index for the given simulation time in hours
 	 */
 	public int getIndexForTimeHours( double time ) {
-		double[] timeList = value.getValue().timeList;
+		double[] timeList = this.getData().timeList;
 
 		// Determine the time in the cycle for the given time
 		double timeInCycle = time;
@@ -137,29 +179,23 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 			return timeList.length - 1;
 		}
 		else {
-			// Otherwise, find the index with a binary search
-			int index = Arrays.binarySearch(timeList, timeInCycle);
+			// Otherwise, find the last time at or before the time in the cycle,
+			// starting from the index of the previous lookup
+			int index = cursor.floorIndex(timeList, timeList.length, timeInCycle);
 
-			// If the returned index is greater or equal to zero,
-			// then an exact match was found
-			if( index >= 0 ) {
+			// Check for an exact match
+			if( index >= 0 && timeList[index] == timeInCycle ) {
 				return index;
 			}
-			else {
-				// If the returned index is negative,
-				// then index = -(insertion index)-1
-				// or (insertion index) = -(index+1) = -index-1
-				// If the time at the insertion index is within one tick,
-				// then return it
-				if( Tester.equalCheckTimeStep( timeInCycle, timeList[-index - 1] ) )
-					return -index - 1;
-				else
-					// Otherwise, return the index before the insertion index
-					if( index == -1 )
-						throw new ErrorException( this + " does not have a value at time " + time );
-					else
-						return -index - 2;
-			}
+
+			// If the time at the next index is within one tick, then return it
+			if( Tester.equalCheckTimeStep( timeInCycle, timeList[index + 1] ) )
+				return index + 1;
+
+			if( index == -1 )
+				throw new ErrorException( this + " does not have a value at time " + time );
+
+			return index;
 		}
 	}
 
@@ -182,7 +218,7 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 			completedCycles++;
 		}
 
-		double[] timeList = value.getValue().timeList;
+		double[] timeList = this.getData().timeList;
 		// If this is the last point in the cycle, need to cycle around to get the next point
 		if( startIndex > timeList.length - 1 ) {
 
@@ -221,7 +257,7 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 		if (this.getCycleLength() < Double.POSITIVE_INFINITY)
 			return this.getCycleLength();
 
-		double[] tList = value.getValue().timeList;
+		double[] tList = this.getData().timeList;
 		return tList[ tList.length-1 ] * 3600.0d;
 	}
 
@@ -232,12 +268,12 @@ public class TimeSeries extends DisplayEntity implements TimeSeriesProvider {
 
 	@Override
 	public double getMaxValue() {
-		return value.getValue().getMaxValue();
+		return this.getData().getMaxValue();
 	}
 
 	@Override
 	public double getMinValue() {
-		return value.getValue().getMinValue();
+		return this.getData().getMinValue();
 	}
 
 	@Override
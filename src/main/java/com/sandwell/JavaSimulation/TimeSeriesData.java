@@ -14,22 +14,59 @@
  */
 package com.sandwell.JavaSimulation;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.jaamsim.units.DimensionlessUnit;
+import com.jaamsim.units.Unit;
+
 public class TimeSeriesData {
+	private static final int MAGIC = 0x4A535453; // "JSTS"
+	private static final int VERSION = 2;
+
+	// Data already loaded from a file, shared by every entity that uses the file
+	private static final HashMap<String, LoadedData> loadedData;
+	private static final ReferenceQueue<TimeSeriesData> clearedData;
+
+	static {
+		loadedData = new HashMap<String, LoadedData>();
+		clearedData = new ReferenceQueue<TimeSeriesData>();
+	}
+
 	final double[] timeList;
 	final double[] valueList;
 	private double maxValue;  // The maximum value that occurs in valueList
 	private double minValue;  // The minimum value that occurs in valueList
 
+	// The conversion factor for each unit used in a data file, keyed by unit name
+	private LinkedHashMap<String, Double> unitFactors;
+
 	public TimeSeriesData( DoubleVector times, DoubleVector values ) {
-		timeList = new double[times.size()];
-		for (int i = 0; i < times.size(); i++)
-			timeList[i] = times.get(i);
+		this(times.toArray(), values.toArray());
+	}
+
+	TimeSeriesData(double[] times, double[] values) {
+		timeList = times;
+		valueList = values;
 
-		valueList = new double[values.size()];
 		maxValue = Double.NEGATIVE_INFINITY;
 		minValue = Double.POSITIVE_INFINITY;
-		for (int i = 0; i < values.size(); i++) {
-			valueList[i] = values.get(i);
+		for (int i = 0; i < valueList.length; i++) {
 			maxValue = Math.max(maxValue, valueList[i]);
 			minValue = Math.min(minValue, valueList[i]);
 		}
@@ -42,4 +79,340 @@ public class TimeSeriesData {
 	public double getMinValue() {
 		return minValue;
 	}
+
+	/**
+	 * Returns the time series held in the given file, with values converted to
+	 * SI units of the given unit type. Entities that load the same file share
+	 * the returned object.
+	 * <p>
+	 * The file holds one record per line of the form
+	 * 'YYYY-MM-DD hh:mm:ss, value, units', with the fields separated by commas
+	 * or tabs and the units optional for a dimensionless series. Blank lines,
+	 * lines starting with '#' and a header line are ignored. The first time a
+	 * local file is read, its records are also written to a binary file with
+	 * the extension .tsb that is memory-mapped on later loads, until the
+	 * original file is changed.
+	 */
+	public static synchronized TimeSeriesData load(URI uri, Class<? extends Unit> unitType) {
+		File file = null;
+		if ("file".equals(uri.getScheme()))
+			file = new File(uri);
+
+		String key = uri.toString() + "|" + unitType.getName();
+		if (file != null)
+			key += "|" + file.length() + "|" + file.lastModified();
+
+		removeClearedData();
+		LoadedData ref = loadedData.get(key);
+		TimeSeriesData ret = (ref == null) ? null : ref.get();
+		if (ret != null && ret.hasSameUnitFactors(unitType))
+			return ret;
+
+		File cache = null;
+		if (file != null) {
+			cache = new File(file.getPath() + ".tsb");
+			ret = readBinary(cache, file, unitType);
+		}
+
+		if (ret == null) {
+			ret = readText(uri, unitType);
+			if (cache != null)
+				writeBinary(cache, file, unitType, ret);
+		}
+
+		loadedData.put(key, new LoadedData(key, ret));
+		return ret;
+	}
+
+	/**
+	 * A reference to loaded data that remembers its key, so that the entry
+	 * can be removed from loadedData once the data has been collected.
+	 */
+	private static class LoadedData extends WeakReference<TimeSeriesData> {
+		final String key;
+
+		LoadedData(String key, TimeSeriesData data) {
+			super(data, clearedData);
+			this.key = key;
+		}
+	}
+
+	private static void removeClearedData() {
+		while (true) {
+			LoadedData ref = (LoadedData)clearedData.poll();
+			if (ref == null)
+				return;
+
+			// The key may have been reused for a later load of the same file
+			if (loadedData.get(ref.key) == ref)
+				loadedData.remove(ref.key);
+		}
+	}
+
+	/**
+	 * Returns the number of files whose data is held for sharing.
+	 */
+	static synchronized int getNumLoadedFiles() {
+		removeClearedData();
+		return loadedData.size();
+	}
+
+	/**
+	 * Returns TRUE if each unit used in the data file still has the conversion
+	 * factor that was applied to the values.
+	 */
+	private boolean hasSameUnitFactors(Class<? extends Unit> unitType) {
+		for (Map.Entry<String, Double> each : unitFactors.entrySet()) {
+			try {
+				if (getConversionFactor(each.getKey(), unitType) != each.getValue())
+					return false;
+			}
+			catch (InputErrorException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static TimeSeriesData readText(URI uri, Class<? extends Unit> unitType) {
+		DoubleVector times = new DoubleVector(1024);
+		DoubleVector values = new DoubleVector(1024);
+		long startingYearOffset = -1;
+		long lastTime = -1;
+
+		// The units of the previous record, which are usually the same for the whole file
+		String lastUnit = null;
+		double factor = 1.0d;
+		LinkedHashMap<String, Double> units = new LinkedHashMap<String, Double>();
+
+		BufferedReader in = null;
+		int lineNum = 0;
+		try {
+			in = new BufferedReader(new InputStreamReader(uri.toURL().openStream(), "UTF-8"), 64 * 1024);
+			while (true) {
+				String line = in.readLine();
+				if (line == null)
+					break;
+				lineNum++;
+
+				int len = line.length();
+				int pos = skipSpace(line, 0, len);
+				if (pos == len || line.charAt(pos) == '#')
+					continue;
+
+				// A header line is allowed before the first record
+				if (times.size() == 0 && !isDigit(line.charAt(pos)) && line.charAt(pos) != '\'')
+					continue;
+
+				// Date and time
+				int end = nextDelimiter(line, pos, len);
+				int dateEnd = trimEnd(line, pos, end);
+				if (dateEnd - pos > 2 && line.charAt(pos) == '\'' && line.charAt(dateEnd - 1) == '\'') {
+					pos++;
+					dateEnd--;
+				}
+				long recordus = Input.parseFixedDateTime(line, pos, dateEnd);
+				if (recordus < 0)
+					throw new InputErrorException(Input.INP_ERR_BADDATE, line.substring(pos, dateEnd));
+
+				if (recordus <= lastTime)
+					throw new InputErrorException("The times must be given in increasing order on " + line.substring(pos, dateEnd));
+				lastTime = recordus;
+
+				// set the offset to the number of whole years from the first record
+				if (startingYearOffset == -1)
+					startingYearOffset = (recordus / Input.usPerYr) * Input.usPerYr;
+
+				// Value
+				if (end == len)
+					throw new InputErrorException("Missing value");
+				pos = skipSpace(line, end + 1, len);
+				end = nextDelimiter(line, pos, len);
+				double val = Double.parseDouble(line.substring(pos, trimEnd(line, pos, end)));
+
+				// Units
+				String unit = null;
+				if (end < len) {
+					pos = skipSpace(line, end + 1, len);
+					unit = line.substring(pos, trimEnd(line, pos, len));
+				}
+				if (unit == null || unit.isEmpty()) {
+					if (unitType != DimensionlessUnit.class)
+						throw new InputErrorException(Input.INP_ERR_NOUNITFOUND, "", unitType.getSimpleName());
+					factor = 1.0d;
+				}
+				else if (!unit.equals(lastUnit)) {
+					factor = getConversionFactor(unit, unitType);
+					units.put(unit, factor);
+				}
+				lastUnit = unit;
+
+				times.add((recordus - startingYearOffset) / 3.6e9d); // convert to hours 3600 secs * 1e6 us
+				values.add(val * factor);
+			}
+		}
+		catch (IOException e) {
+			throw new InputErrorException("Unable to read the time series file %s: %s", uri, e.getMessage());
+		}
+		catch (NumberFormatException e) {
+			throw new InputErrorException("Line %d of %s: %s", lineNum, uri, e.getMessage());
+		}
+		catch (InputErrorException e) {
+			throw new InputErrorException("Line %d of %s: %s", lineNum, uri, e.getMessage());
+		}
+		finally {
+			if (in != null) {
+				try { in.close(); } catch (IOException e) {}
+			}
+		}
+
+		TimeSeriesData ret = new TimeSeriesData(times, values);
+		ret.unitFactors = units;
+		return ret;
+	}
+
+	private static double getConversionFactor(String unitName, Class<? extends Unit> unitType) {
+		Entity ent = Entity.getNamedEntity(unitName);
+		if (ent == null)
+			throw new InputErrorException(Input.INP_ERR_NOUNITFOUND, unitName, unitType.getSimpleName());
+
+		Unit unit = Input.castEntity(ent, unitType);
+		if (unit == null)
+			throw new InputErrorException(Input.INP_ERR_ENTCLASS, unitType.getSimpleName(), ent.getInputName(), ent.getClass().getSimpleName());
+
+		return unit.getConversionFactorToSI();
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static int skipSpace(String line, int pos, int len) {
+		while (pos < len && (line.charAt(pos) == ' ' || line.charAt(pos) == '\t'))
+			pos++;
+		return pos;
+	}
+
+	private static int trimEnd(String line, int start, int end) {
+		while (end > start && (line.charAt(end - 1) == ' ' || line.charAt(end - 1) == '\t'))
+			end--;
+		return end;
+	}
+
+	// Returns the index of the next comma or tab, or the length of the line
+	private static int nextDelimiter(String line, int pos, int len) {
+		for (int i = pos; i < len; i++) {
+			char c = line.charAt(i);
+			if (c == ',' || c == '\t')
+				return i;
+		}
+		return len;
+	}
+
+	/**
+	 * Returns the data held in a binary file, or null if the file does not
+	 * exist, was not made from the present version of the source file or was
+	 * converted with unit conversion factors that have since changed.
+	 */
+	private static TimeSeriesData readBinary(File cache, File source, Class<? extends Unit> unitType) {
+		if (!cache.isFile())
+			return null;
+
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(cache, "r");
+			MappedByteBuffer buf = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+				return null;
+
+			if (buf.getLong() != source.length() || buf.getLong() != source.lastModified())
+				return null;
+
+			byte[] name = new byte[buf.getShort()];
+			buf.get(name);
+			if (!unitType.getName().equals(new String(name, "UTF-8")))
+				return null;
+
+			LinkedHashMap<String, Double> units = new LinkedHashMap<String, Double>();
+			int numUnits = buf.getInt();
+			for (int i = 0; i < numUnits; i++) {
+				byte[] unit = new byte[buf.getShort()];
+				buf.get(unit);
+				units.put(new String(unit, "UTF-8"), buf.getDouble());
+			}
+
+			int num = buf.getInt();
+			double[] times = new double[num];
+			double[] values = new double[num];
+
+			// The records start on an eight-byte boundary after the header
+			buf.position((buf.position() + 7) & ~7);
+			buf.asDoubleBuffer().get(times).get(values);
+			TimeSeriesData ret = new TimeSeriesData(times, values);
+			ret.unitFactors = units;
+			if (!ret.hasSameUnitFactors(unitType))
+				return null;
+			return ret;
+		}
+		catch (IOException e) {
+			return null;
+		}
+		catch (RuntimeException e) {
+			// A truncated or malformed file is simply rebuilt
+			return null;
+		}
+		finally {
+			if (raf != null) {
+				try { raf.close(); } catch (IOException e) {}
+			}
+		}
+	}
+
+	private static void writeBinary(File cache, File source, Class<? extends Unit> unitType, TimeSeriesData data) {
+		DataOutputStream out = null;
+		try {
+			byte[] name = unitType.getName().getBytes("UTF-8");
+			int num = data.timeList.length;
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			DataOutputStream header = new DataOutputStream(bytes);
+			header.writeInt(MAGIC);
+			header.writeInt(VERSION);
+			header.writeLong(source.length());
+			header.writeLong(source.lastModified());
+			header.writeShort(name.length);
+			header.write(name);
+			header.writeInt(data.unitFactors.size());
+			for (Map.Entry<String, Double> each : data.unitFactors.entrySet()) {
+				byte[] unit = each.getKey().getBytes("UTF-8");
+				header.writeShort(unit.length);
+				header.write(unit);
+				header.writeDouble(each.getValue());
+			}
+			header.writeInt(num);
+
+			// The records start on an eight-byte boundary after the header
+			while ((bytes.size() & 7) != 0)
+				header.writeByte(0);
+
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cache), 64 * 1024));
+			bytes.writeTo(out);
+			for (int i = 0; i < num; i++)
+				out.writeDouble(data.timeList[i]);
+			for (int i = 0; i < num; i++)
+				out.writeDouble(data.valueList[i]);
+			out.close();
+			out = null;
+		}
+		catch (IOException e) {
+			// The binary file is only an aid to loading, carry on without it
+			cache.delete();
+		}
+		finally {
+			if (out != null) {
+				try { out.close(); } catch (IOException e) {}
+				cache.delete();
+			}
+		}
+	}
 }
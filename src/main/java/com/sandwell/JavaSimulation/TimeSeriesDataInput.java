@@ -93,4 +93,20 @@ public class TimeSeriesDataInput extends Input<TimeSeriesData> {
 	public void setUnitType(Class<? extends Unit> u) {
 		unitType = u;
 	}
+
+	public void setValidRange(double min, double max) {
+		minValue = min;
+		maxValue = max;
+	}
+
+	/**
+	 * Applies the range check made on the values of this input to time series
+	 * data read from elsewhere, such as a data file.
+	 */
+	public void checkRange(TimeSeriesData data) throws InputErrorException {
+		if (data.getMinValue() < minValue)
+			throw new InputErrorException(INP_ERR_DOUBLERANGE, minValue, maxValue, data.getMinValue());
+		if (data.getMaxValue() > maxValue)
+			throw new InputErrorException(INP_ERR_DOUBLERANGE, minValue, maxValue, data.getMaxValue());
+	}
 }
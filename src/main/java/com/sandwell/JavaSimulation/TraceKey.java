@@ -0,0 +1,59 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.sandwell.JavaSimulation;
+
+/**
+ * The identity of an event trace record used to find the matching record in
+ * a trace being verified: the event manager, the time, the priority and
+ * target of the event that started the record, and the number of entries.
+ */
+class TraceKey {
+	private final String eventManagerName;
+	private final long internalTime;
+	private final int priority;
+	private final String targetName;
+	private final int size;
+
+	TraceKey(String em, long time, int prio, String target, int size) {
+		eventManagerName = em;
+		internalTime = time;
+		priority = prio;
+		targetName = target;
+		this.size = size;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof TraceKey))
+			return false;
+
+		TraceKey key = (TraceKey)obj;
+		return internalTime == key.internalTime &&
+		       priority == key.priority &&
+		       size == key.size &&
+		       eventManagerName.equals(key.eventManagerName) &&
+		       (targetName == null ? key.targetName == null : targetName.equals(key.targetName));
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = (int)(internalTime ^ (internalTime >>> 32));
+		hash = 31 * hash + priority;
+		hash = 31 * hash + size;
+		if (targetName != null)
+			hash = 31 * hash + targetName.hashCode();
+		return hash;
+	}
+}
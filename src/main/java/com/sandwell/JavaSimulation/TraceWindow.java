@@ -0,0 +1,114 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.sandwell.JavaSimulation;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * TraceWindow holds the records read ahead from an event trace that have not
+ * yet been matched by the running model. Records are found by key in constant
+ * time, records with equal keys are returned in the order they were added,
+ * and the oldest records are dropped once the window is full.
+ */
+class TraceWindow<T> {
+	private static class Entry<T> {
+		final Object key;
+		final T rec;
+		boolean matched;
+
+		Entry(Object key, T rec) {
+			this.key = key;
+			this.rec = rec;
+		}
+	}
+
+	private final int capacity;
+	private final HashMap<Object, ArrayDeque<Entry<T>>> map;
+	private final ArrayDeque<Entry<T>> order; // oldest first, may include matched entries
+	private int size; // number of unmatched records
+
+	TraceWindow(int capacity) {
+		this.capacity = capacity;
+		map = new HashMap<Object, ArrayDeque<Entry<T>>>();
+		order = new ArrayDeque<Entry<T>>();
+	}
+
+	void add(Object key, T rec) {
+		Entry<T> e = new Entry<T>(key, rec);
+		ArrayDeque<Entry<T>> list = map.get(key);
+		if (list == null) {
+			list = new ArrayDeque<Entry<T>>(2);
+			map.put(key, list);
+		}
+		list.add(e);
+		order.add(e);
+		size++;
+	}
+
+	/**
+	 * Removes and returns the oldest record with the given key, or null if
+	 * there is none.
+	 */
+	T remove(Object key) {
+		ArrayDeque<Entry<T>> list = map.get(key);
+		if (list == null)
+			return null;
+
+		Entry<T> e = list.poll();
+		if (list.isEmpty())
+			map.remove(key);
+		e.matched = true;
+		size--;
+
+		// Discard matched entries from the front of the window
+		while (!order.isEmpty() && order.peek().matched)
+			order.poll();
+
+		return e.rec;
+	}
+
+	/**
+	 * Removes and returns the oldest unmatched record if the window, including
+	 * matched records not yet discarded, holds more than its capacity.
+	 * Otherwise returns null.
+	 */
+	T evict() {
+		if (order.size() <= capacity)
+			return null;
+
+		Entry<T> e = order.poll();
+		ArrayDeque<Entry<T>> list = map.get(e.key);
+		list.poll(); // the oldest entry for a key is always at the front of its list
+		if (list.isEmpty())
+			map.remove(e.key);
+		size--;
+
+		while (!order.isEmpty() && order.peek().matched)
+			order.poll();
+
+		return e.rec;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		map.clear();
+		order.clear();
+		size = 0;
+	}
+}
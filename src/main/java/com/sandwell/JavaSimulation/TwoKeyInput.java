@@ -47,6 +47,12 @@ public class TwoKeyInput<K1 extends Entity, K2 extends Entity, V> extends Input<
 		unitString = units;
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		// The keyed values are held outside the value and must be re-parsed
+		return false;
+	}
+
 	@Override
 	public void parse(StringVector input)
 	throws InputErrorException {
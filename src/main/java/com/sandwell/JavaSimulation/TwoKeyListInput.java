@@ -35,6 +35,12 @@ public class TwoKeyListInput<K1 extends Entity, K2 extends Entity, V extends Ent
 		hashMap = new HashMap<K1,HashMap<K2,ArrayList<V>>>();
 	}
 
+	@Override
+	public boolean copyFrom(Input<?> in) {
+		// The keyed values are held outside the value and must be re-parsed
+		return false;
+	}
+
 	@Override
 	public void parse(StringVector input)
 	throws InputErrorException {
@@ -20,6 +20,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import com.jaamsim.DisplayModels.DisplayModel;
+import com.jaamsim.basicsim.InstanceList;
 import com.jaamsim.input.InputAgent;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.Output;
@@ -49,7 +50,7 @@ import com.sandwell.JavaSimulation.Vec3dInput;
  * components like the eventManager.
  */
 public class DisplayEntity extends Entity {
-	private static final ArrayList<DisplayEntity> allInstances;
+	private static final InstanceList<DisplayEntity> allInstances;
 
 	@Keyword(description = "The point in the region at which the alignment point of the object is positioned.",
 	         example = "Object1 Position { -3.922 -1.830 0.000 m }")
@@ -185,9 +186,20 @@ public class DisplayEntity extends Entity {
 	}
 
 	private TagSet tags;
+	private int displayIdx = -1; // position of this entity in allInstances, -1 if removed
 
 	static {
-		allInstances = new ArrayList<DisplayEntity>(100);
+		allInstances = new InstanceList<DisplayEntity>() {
+			@Override
+			protected int getIndex(DisplayEntity ent) {
+				return ent.displayIdx;
+			}
+
+			@Override
+			protected void setIndex(DisplayEntity ent, int idx) {
+				ent.displayIdx = idx;
+			}
+		};
 	}
 
 	{
@@ -237,7 +249,7 @@ public class DisplayEntity extends Entity {
 
 		setRegion(null);
 
-		allInstances.add(this);
+		addDisplayInstance(this);
 
 		DisplayModel dm = DisplayModel.getDefaultDisplayModelForClass(this.getClass());
 		if(dm != null) {
@@ -248,7 +260,16 @@ public class DisplayEntity extends Entity {
 	}
 
 	public static ArrayList<? extends DisplayEntity> getAll() {
-		return allInstances;
+		return allInstances.getList();
+	}
+
+	// Kept in order of entity number, as for Entity.getAll()
+	private static void addDisplayInstance(DisplayEntity ent) {
+		allInstances.add(ent);
+	}
+
+	private static void removeDisplayInstance(DisplayEntity ent) {
+		allInstances.remove(ent);
 	}
 
 	@Override
@@ -276,10 +297,29 @@ public class DisplayEntity extends Entity {
 	public void kill() {
 		super.kill();
 
-		allInstances.remove(this);
+		removeDisplayInstance(this);
 		currentRegion = null;
 	}
 
+	/**
+	 * Returns a killed entity to the list of DisplayEntities and restores its
+	 * position, size, orientation and alignment from its inputs.
+	 */
+	@Override
+	public void restore() {
+		if (!testFlag(FLAG_DEAD))
+			return;
+
+		super.restore();
+		addDisplayInstance(this);
+
+		this.setPosition(positionInput.getValue());
+		this.setSize(sizeInput.getValue());
+		this.setOrientation(orientationInput.getValue());
+		this.setAlignment(alignmentInput.getValue());
+		this.setRegion(regionInput.getValue());
+	}
+
 	public Region getCurrentRegion() {
 		return currentRegion;
 	}
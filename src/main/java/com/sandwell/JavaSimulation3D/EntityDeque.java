@@ -0,0 +1,388 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.sandwell.JavaSimulation3D;
+
+import java.util.Arrays;
+
+/**
+ * EntityDeque is a ring buffer of DisplayEntities with a parallel array of
+ * entry times and priorities. Entries at either end are added and removed in
+ * constant time, and an entry at position i is reached without a search.
+ * Inserting or removing in the middle moves the shorter side of the buffer.
+ * <p>
+ * Entries must be added in order of priority. Each entry is also given a
+ * sequence number, so that the entries are sorted by priority and then by
+ * sequence number. An entry added at the end of the entries with its
+ * priority takes a number above all the others, and one added at the start
+ * takes a number below them, so FIFO, LIFO and priority ordering never run
+ * out of numbers. Only an entry placed between two of the same priority
+ * takes the midpoint of its neighbours' numbers, and the numbers are
+ * respaced once there is no room left.
+ * <p>
+ * The priority and sequence number of the first entry for each entity are
+ * held in an open addressing table, so that an entity is found by a binary
+ * search rather than a scan of the entries, without boxing either value.
+ */
+class EntityDeque {
+	private static final long SPACING = 1L << 32; // gap between new sequence numbers
+
+	private DisplayEntity[] items;
+	private double[] times;
+	private double[] priorities;
+	private long[] seqs;
+	private int head; // array index of the entry at position 0
+	private int count;
+	private long minSeq; // no greater than any sequence number in use
+	private long maxSeq; // no less than any sequence number in use
+
+	// Priority and sequence number of the first entry for each entity in the
+	// deque, with linear probing on the entity number
+	private DisplayEntity[] firstEnts;
+	private double[] firstPriorities;
+	private long[] firstSeqs;
+	private int numFirst;
+
+	EntityDeque() {
+		items = new DisplayEntity[16];
+		times = new double[16];
+		priorities = new double[16];
+		seqs = new long[16];
+		head = 0;
+		count = 0;
+		minSeq = 0;
+		maxSeq = 0;
+
+		firstEnts = new DisplayEntity[16];
+		firstPriorities = new double[16];
+		firstSeqs = new long[16];
+		numFirst = 0;
+	}
+
+	int size() {
+		return count;
+	}
+
+	// Array index for the given position, the capacity is always a power of two
+	private int idx(int i) {
+		return (head + i) & (items.length - 1);
+	}
+
+	DisplayEntity get(int i) {
+		return items[idx(i)];
+	}
+
+	double getTime(int i) {
+		return times[idx(i)];
+	}
+
+	double getPriority(int i) {
+		return priorities[idx(i)];
+	}
+
+	/**
+	 * Returns the position of the first entry for the given entity, or -1 if
+	 * it is not in the deque.
+	 */
+	int indexOf(DisplayEntity ent) {
+		int s = this.slotOf(ent);
+		if (firstEnts[s] == null)
+			return -1;
+		return this.indexOfKey(firstPriorities[s], firstSeqs[s]);
+	}
+
+	private int indexOfKey(double priority, long seq) {
+		int lowIdx = 0;
+		int highIdx = count - 1;
+		while (lowIdx <= highIdx) {
+			int testIdx = (lowIdx + highIdx) >>> 1;
+			int k = idx(testIdx);
+			if (isBefore(priorities[k], seqs[k], priority, seq))
+				lowIdx = testIdx + 1;
+			else if (isBefore(priority, seq, priorities[k], seqs[k]))
+				highIdx = testIdx - 1;
+			else
+				return testIdx;
+		}
+		return -1;
+	}
+
+	private static boolean isBefore(double p1, long s1, double p2, long s2) {
+		return p1 < p2 || (p1 == p2 && s1 < s2);
+	}
+
+	// Linear search used only when an entity has more than one entry
+	private int indexOfFrom(DisplayEntity ent, int start) {
+		for (int i = start; i < count; i++) {
+			if (items[idx(i)] == ent)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the position after the last entry whose priority is less than or
+	 * equal to the given value, assuming the entries are sorted by priority.
+	 */
+	int getInsertionIndex(double priority) {
+		int lowIdx = 0;
+		int highIdx = count;
+		while (lowIdx < highIdx) {
+			int testIdx = (lowIdx + highIdx) >>> 1;
+			if (priorities[idx(testIdx)] <= priority)
+				lowIdx = testIdx + 1;
+			else
+				highIdx = testIdx;
+		}
+		return lowIdx;
+	}
+
+	/**
+	 * Inserts an entry at position i, which must keep the entries sorted by
+	 * priority.
+	 */
+	void add(int i, DisplayEntity ent, double time, double priority) {
+		if (i < 0 || i > count)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+
+		if (count == items.length)
+			grow();
+
+		if (i < count - i) {
+			// Shift the entries before position i one place towards the head
+			head = (head - 1) & (items.length - 1);
+			for (int j = 0; j < i; j++)
+				move(j + 1, j);
+		}
+		else {
+			// Shift the entries from position i one place towards the tail
+			for (int j = count; j > i; j--)
+				move(j - 1, j);
+		}
+
+		int k = idx(i);
+		items[k] = ent;
+		times[k] = time;
+		priorities[k] = priority;
+		count++;
+		this.setSeq(i);
+
+		int s = this.slotOf(ent);
+		if (firstEnts[s] == null || isBefore(priority, seqs[k], firstPriorities[s], firstSeqs[s]))
+			this.putFirst(ent, priority, seqs[k]);
+	}
+
+	// Sets the sequence number for the new entry at position i
+	private void setSeq(int i) {
+		int k = idx(i);
+		double priority = priorities[k];
+
+		// Last entry with its priority
+		if (i == count - 1 || priorities[idx(i + 1)] > priority) {
+			if (maxSeq > Long.MAX_VALUE - SPACING) {
+				this.renumberSeqs();
+				return;
+			}
+			maxSeq += SPACING;
+			seqs[k] = maxSeq;
+			return;
+		}
+
+		// First entry with its priority
+		if (i == 0 || priorities[idx(i - 1)] < priority) {
+			if (minSeq < Long.MIN_VALUE + SPACING) {
+				this.renumberSeqs();
+				return;
+			}
+			minSeq -= SPACING;
+			seqs[k] = minSeq;
+			return;
+		}
+
+		// Between two entries with the same priority
+		long prev = seqs[idx(i - 1)];
+		long gap = (seqs[idx(i + 1)] - prev) >>> 1;
+		if (gap == 0) {
+			this.renumberSeqs();
+			return;
+		}
+		seqs[k] = prev + gap;
+	}
+
+	// Spaces the sequence numbers evenly and rebuilds the table of first entries
+	private void renumberSeqs() {
+		Arrays.fill(firstEnts, null);
+		numFirst = 0;
+		for (int i = 0; i < count; i++) {
+			int k = idx(i);
+			seqs[k] = (i - count / 2) * SPACING;
+			if (firstEnts[this.slotOf(items[k])] == null)
+				this.putFirst(items[k], priorities[k], seqs[k]);
+		}
+		minSeq = seqs[idx(0)];
+		maxSeq = seqs[idx(count - 1)];
+	}
+
+	DisplayEntity remove(int i) {
+		if (i < 0 || i >= count)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+
+		DisplayEntity ret = items[idx(i)];
+		long seq = seqs[idx(i)];
+		if (i < count - 1 - i) {
+			// Close the gap from the head side
+			for (int j = i; j > 0; j--)
+				move(j - 1, j);
+			items[head] = null;
+			head = (head + 1) & (items.length - 1);
+		}
+		else {
+			// Close the gap from the tail side
+			for (int j = i; j < count - 1; j++)
+				move(j + 1, j);
+			items[idx(count - 1)] = null;
+		}
+		count--;
+
+		// Find the next entry for the entity if the first one was removed,
+		// sequence numbers are unique
+		int s = this.slotOf(ret);
+		if (firstEnts[s] != null && firstSeqs[s] == seq) {
+			int next = -1;
+			if (numFirst < count + 1)
+				next = this.indexOfFrom(ret, i);
+			if (next < 0) {
+				this.removeFirst(s);
+			}
+			else {
+				firstPriorities[s] = priorities[idx(next)];
+				firstSeqs[s] = seqs[idx(next)];
+			}
+		}
+		return ret;
+	}
+
+	void clear() {
+		Arrays.fill(items, null);
+		head = 0;
+		count = 0;
+		minSeq = 0;
+		maxSeq = 0;
+		Arrays.fill(firstEnts, null);
+		numFirst = 0;
+	}
+
+	private void move(int from, int to) {
+		int f = idx(from);
+		int t = idx(to);
+		items[t] = items[f];
+		times[t] = times[f];
+		priorities[t] = priorities[f];
+		seqs[t] = seqs[f];
+	}
+
+	private void grow() {
+		int len = items.length;
+		DisplayEntity[] newItems = new DisplayEntity[len * 2];
+		double[] newTimes = new double[len * 2];
+		double[] newPriorities = new double[len * 2];
+		long[] newSeqs = new long[len * 2];
+
+		// Unwrap the buffer so that the head is at index zero
+		int n = len - head;
+		System.arraycopy(items, head, newItems, 0, n);
+		System.arraycopy(items, 0, newItems, n, head);
+		System.arraycopy(times, head, newTimes, 0, n);
+		System.arraycopy(times, 0, newTimes, n, head);
+		System.arraycopy(priorities, head, newPriorities, 0, n);
+		System.arraycopy(priorities, 0, newPriorities, n, head);
+		System.arraycopy(seqs, head, newSeqs, 0, n);
+		System.arraycopy(seqs, 0, newSeqs, n, head);
+
+		items = newItems;
+		times = newTimes;
+		priorities = newPriorities;
+		seqs = newSeqs;
+		head = 0;
+	}
+
+	// Home slot in the table of first entries
+	private int hash(DisplayEntity ent) {
+		long num = ent.getEntityNumber() * 0x9E3779B97F4A7C15L;
+		return (int)(num >>> 32) & (firstEnts.length - 1);
+	}
+
+	// Returns the slot holding the entity, or the empty slot where it belongs
+	private int slotOf(DisplayEntity ent) {
+		int mask = firstEnts.length - 1;
+		int s = this.hash(ent);
+		while (firstEnts[s] != null && firstEnts[s] != ent)
+			s = (s + 1) & mask;
+		return s;
+	}
+
+	private void putFirst(DisplayEntity ent, double priority, long seq) {
+		int s = this.slotOf(ent);
+		if (firstEnts[s] == null) {
+			// Keep the table no more than half full
+			if (2 * (numFirst + 1) > firstEnts.length) {
+				this.growFirst();
+				s = this.slotOf(ent);
+			}
+			firstEnts[s] = ent;
+			numFirst++;
+		}
+		firstPriorities[s] = priority;
+		firstSeqs[s] = seq;
+	}
+
+	// Empties the slot and moves back any later entries that can no longer be reached
+	private void removeFirst(int s) {
+		int mask = firstEnts.length - 1;
+		firstEnts[s] = null;
+		numFirst--;
+		int j = s;
+		while (true) {
+			j = (j + 1) & mask;
+			DisplayEntity ent = firstEnts[j];
+			if (ent == null)
+				return;
+
+			if (((j - this.hash(ent)) & mask) >= ((j - s) & mask)) {
+				firstEnts[s] = ent;
+				firstPriorities[s] = firstPriorities[j];
+				firstSeqs[s] = firstSeqs[j];
+				firstEnts[j] = null;
+				s = j;
+			}
+		}
+	}
+
+	private void growFirst() {
+		DisplayEntity[] oldEnts = firstEnts;
+		double[] oldPriorities = firstPriorities;
+		long[] oldSeqs = firstSeqs;
+		firstEnts = new DisplayEntity[oldEnts.length * 2];
+		firstPriorities = new double[oldEnts.length * 2];
+		firstSeqs = new long[oldEnts.length * 2];
+		for (int i = 0; i < oldEnts.length; i++) {
+			if (oldEnts[i] == null)
+				continue;
+			int s = this.slotOf(oldEnts[i]);
+			firstEnts[s] = oldEnts[i];
+			firstPriorities[s] = oldPriorities[i];
+			firstSeqs[s] = oldSeqs[i];
+		}
+	}
+}
@@ -1431,6 +1431,7 @@ public class GUIFrame extends JFrame implements EventTimeListener, EventErrorLis
 		boolean batch = false;
 		boolean minimize = false;
 		boolean quiet = false;
+		boolean compile = false;
 
 		for (String each : args) {
 			// Batch mode
@@ -1457,6 +1458,12 @@ public class GUIFrame extends JFrame implements EventTimeListener, EventErrorLis
 				quiet = true;
 				continue;
 			}
+			// Load configuration files through a tokenized snapshot
+			if (each.equalsIgnoreCase("-c") ||
+			    each.equalsIgnoreCase("-compile")) {
+				compile = true;
+				continue;
+			}
 			if (each.equalsIgnoreCase("-sg") ||
 					each.equalsIgnoreCase("-safe_graphics")) {
 				SAFE_GRAPHICS = true;
@@ -1504,6 +1511,9 @@ public class GUIFrame extends JFrame implements EventTimeListener, EventErrorLis
 		if (batch)
 			InputAgent.setBatch(true);
 
+		if (compile)
+			InputAgent.setCompileSnapshot(true);
+
 		if (minimize)
 			gui.setExtendedState(JFrame.ICONIFIED);
 
@@ -1662,6 +1672,10 @@ public class GUIFrame extends JFrame implements EventTimeListener, EventErrorLis
 			LogBox.logLine("Error: " + t.getMessage());
 			for (StackTraceElement each : t.getStackTrace())
 				LogBox.logLine(each.toString());
+
+			LogBox.logLine("Most recent event operations (tick, operation, scheduled tick, priority, target):");
+			for (String each : evt.getRecentEvents())
+				LogBox.logLine(each);
 			LogBox.getInstance().setVisible(true);
 		}
 
@@ -16,6 +16,9 @@ package com.sandwell.JavaSimulation3D;
 
 import java.util.ArrayList;
 
+import com.jaamsim.Samples.SampleConstant;
+import com.jaamsim.Samples.SampleInput;
+import com.jaamsim.basicsim.TimeWeightedStatistic;
 import com.jaamsim.input.Keyword;
 import com.jaamsim.input.Output;
 import com.jaamsim.input.ValueInput;
@@ -25,6 +28,7 @@ import com.jaamsim.units.DistanceUnit;
 import com.jaamsim.units.TimeUnit;
 import com.sandwell.JavaSimulation.DoubleVector;
 import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.EnumInput;
 import com.sandwell.JavaSimulation.ErrorException;
 import com.sandwell.JavaSimulation.FileEntity;
 import com.sandwell.JavaSimulation.IntegerInput;
@@ -39,19 +43,30 @@ public class Queue extends DisplayEntity {
 			example = "Queue-1 MaxPerLine { 4 }")
 	protected final IntegerInput maxPerLineInput; // maximum items per sub line-up of queue
 
-	protected ArrayList<DisplayEntity> itemList;
-	private ArrayList<Double> timeAddedList;
+	@Keyword(description = "The order in which entities leave the queue. " +
+			"FIFO - first in, first out.\n" +
+			"LIFO - last in, first out.\n" +
+			"PRIORITY - lowest Priority value first, FIFO for equal values.",
+	         example = "Queue-1 Ordering { PRIORITY }")
+	private final EnumInput<Ordering> orderingInput;
+
+	@Keyword(description = "The priority assigned to each entity as it is added to the queue when Ordering is PRIORITY. " +
+			"A constant value or a distribution to be sampled can be entered. Lower values leave the queue first.",
+	         example = "Queue-1 Priority { 1 }")
+	private final SampleInput priorityInput;
+
+	public enum Ordering {
+		FIFO, LIFO, PRIORITY
+	}
+
+	private static final int MAX_LENGTH_BINS = 1000;  // queue lengths beyond this are counted in the last bin
+
+	private final EntityDeque itemList;  // entities in the queue, with their entry times
 
 	//	Statistics
-	protected double timeOfLastUpdate; // time at which the statistics were last updated
-	protected double startOfStatisticsCollection; // time at which statistics collection was started
-	protected int minElements; // minimum observed number of entities in the queue
-	protected int maxElements; // maximum observed number of entities in the queue
-	protected double elementSeconds;  // total time that entities have spent in the queue
-	protected double squaredElementSeconds;  // total time for the square of the number of elements in the queue
+	protected final TimeWeightedStatistic lengthStats; // time-weighted statistics for the number of entities in the queue
 	protected int numberAdded;    // number of entities that have been added to the queue
 	protected int numberRemoved;  // number of entities that have been removed from the queue
-	protected DoubleVector queueLengthDist;  // entry at position n is the total time the queue has had length n
 	protected ArrayList<QueueRecorder> recorderList;
 
 	{
@@ -63,12 +78,18 @@ public class Queue extends DisplayEntity {
 		maxPerLineInput = new IntegerInput("MaxPerLine", "Key Inputs", Integer.MAX_VALUE);
 		maxPerLineInput.setValidRange( 1, Integer.MAX_VALUE);
 		this.addInput(maxPerLineInput);
+
+		orderingInput = new EnumInput<Ordering>(Ordering.class, "Ordering", "Key Inputs", Ordering.FIFO);
+		this.addInput(orderingInput);
+
+		priorityInput = new SampleInput("Priority", "Key Inputs", new SampleConstant(DimensionlessUnit.class, 0.0d));
+		priorityInput.setUnitType(DimensionlessUnit.class);
+		this.addInput(priorityInput);
 	}
 
 	public Queue() {
-		itemList = new ArrayList<DisplayEntity>();
-		timeAddedList = new ArrayList<Double>();
-		queueLengthDist = new DoubleVector(10,10);
+		itemList = new EntityDeque();
+		lengthStats = new TimeWeightedStatistic(MAX_LENGTH_BINS);
 	}
 
 	@Override
@@ -77,7 +98,6 @@ public class Queue extends DisplayEntity {
 
 		// Clear the entries in the queue
 		itemList.clear();
-		timeAddedList.clear();
 
 		// Clear statistics
 		this.clearStatistics();
@@ -97,12 +117,20 @@ public class Queue extends DisplayEntity {
 	/**
 	 * Inserts the specified element at the specified position in this Queue.
 	 * Shifts the element currently at that position (if any) and any subsequent elements to the right (adds one to their indices).
+	 * When Ordering is PRIORITY the position is ignored and the entity is
+	 * placed according to its sampled priority, as for addLast.
 	 */
 	public void add( int i, DisplayEntity perf ) {
-		this.updateStatistics();  // update the queue length distribution
-		itemList.add( i, perf );
-		timeAddedList.add( i, this.getSimTime() );
-		this.updateStatistics();  // update the min and max queue length
+		if (orderingInput.getValue() == Ordering.PRIORITY) {
+			this.addLast(perf);
+			return;
+		}
+		this.add(i, perf, 0.0d);
+	}
+
+	private void add( int i, DisplayEntity perf, double priority ) {
+		itemList.add( i, perf, this.getSimTime(), priority );
+		this.updateStatistics();
 		numberAdded++;
 
 		for( QueueRecorder rec : recorderList ) {
@@ -111,10 +139,21 @@ public class Queue extends DisplayEntity {
 	}
 
 	/**
-	 * Add an entity to the end of the queue
+	 * Add an entity to the queue in the position given by the ordering
+	 * policy; this is the end of the queue for FIFO ordering.
 	 */
 	public void addLast( DisplayEntity perf ) {
-		this.add(itemList.size(), perf);
+		switch (orderingInput.getValue()) {
+		case LIFO:
+			this.add(0, perf, 0.0d);
+			return;
+		case PRIORITY:
+			double priority = priorityInput.getValue().getNextSample(this.getSimTime());
+			this.add(itemList.getInsertionIndex(priority), perf, priority);
+			return;
+		default:
+			this.add(itemList.size(), perf, 0.0d);
+		}
 	}
 
 	/**
@@ -122,11 +161,8 @@ public class Queue extends DisplayEntity {
 	 */
 	public DisplayEntity remove(int i) {
 		if( i < itemList.size() && i >= 0 ) {
-			this.updateStatistics();  // update the queue length distribution
 			DisplayEntity out = itemList.remove(i);
-			//double queueTime = this.getSimTime() - timeAddedList.remove(i);
-			timeAddedList.remove(i);
-			this.updateStatistics();  // update the min and max queue length
+			this.updateStatistics();
 			numberRemoved++;
 
 			for( QueueRecorder rec : recorderList ) {
@@ -176,7 +212,7 @@ public class Queue extends DisplayEntity {
 	 * Returns the number of seconds spent by the first object in the queue
 	 */
 	public double getQueueTime() {
-		return this.getSimTime() - timeAddedList.get(0);
+		return this.getSimTime() - itemList.getTime(0);
 	}
 
 	/**
@@ -229,8 +265,21 @@ public class Queue extends DisplayEntity {
 		}
 	}
 
+	/**
+	 * Returns the entity at the specified position in the queue
+	 */
+	public DisplayEntity get(int i) {
+		return itemList.get(i);
+	}
+
+	/**
+	 * Returns a list of the entities in the queue, in order.
+	 */
 	public ArrayList<DisplayEntity> getItemList() {
-		return itemList;
+		ArrayList<DisplayEntity> ret = new ArrayList<DisplayEntity>(itemList.size());
+		for (int i = 0; i < itemList.size(); i++)
+			ret.add(itemList.get(i));
+		return ret;
 	}
 
 	public double getPhysicalLength() {
@@ -267,38 +316,17 @@ public class Queue extends DisplayEntity {
 	 * Clear queue statistics
 	 */
 	public void clearStatistics() {
-		double simTime = this.getSimTime();
-		startOfStatisticsCollection = simTime;
-		timeOfLastUpdate = simTime;
-		minElements = itemList.size();
-		maxElements = itemList.size();
-		elementSeconds = 0.0;
-		squaredElementSeconds = 0.0;
+		lengthStats.clear(this.getSimTime(), itemList.size());
 		numberAdded = 0;
 		numberRemoved = 0;
-		queueLengthDist.clear();
 	}
 
+	/**
+	 * Record the time spent at the previous queue length and start the
+	 * present one.  Called after each change to the queue.
+	 */
 	public void updateStatistics() {
-
-		int queueSize = itemList.size();  // present number of entities in the queue
-		minElements = Math.min(queueSize, minElements);
-		maxElements = Math.max(queueSize, maxElements);
-
-		// Add the necessary number of additional bins to the queue length distribution
-		int n = queueSize + 1 - queueLengthDist.size();
-		for( int i=0; i<n; i++ ) {
-			queueLengthDist.add(0.0);
-		}
-
-		double simTime = this.getSimTime();
-		double dt = simTime - timeOfLastUpdate;
-		if( dt > 0.0 ) {
-			elementSeconds += dt * queueSize;
-			squaredElementSeconds += dt * queueSize * queueSize;
-			queueLengthDist.addAt(dt,queueSize);  // add dt to the entry at index queueSize
-			timeOfLastUpdate = simTime;
-		}
+		lengthStats.update(this.getSimTime(), itemList.size());
 	}
 
 	// ******************************************************************************************************
@@ -349,34 +377,21 @@ public class Queue extends DisplayEntity {
 	 description = "The average number of entities in the queue.",
 	    unitType = DimensionlessUnit.class)
 	public double getQueueLengthAverage(double simTime) {
-		double dt = simTime - timeOfLastUpdate;
-		int queueSize = itemList.size();
-		double totalTime = simTime - startOfStatisticsCollection;
-		if( totalTime > 0.0 ) {
-			return (elementSeconds + dt*queueSize)/totalTime;
-		}
-		return 0.0;
+		return lengthStats.getMean(simTime);
 	}
 
 	@Output(name = "QueueLengthStandardDeviation",
 	 description = "The standard deviation of the number of entities in the queue.",
 	    unitType = DimensionlessUnit.class)
 	public double getQueueLengthStandardDeviation(double simTime) {
-		double dt = simTime - timeOfLastUpdate;
-		int queueSize = itemList.size();
-		double mean = this.getQueueLengthAverage(simTime);
-		double totalTime = simTime - startOfStatisticsCollection;
-		if( totalTime > 0.0 ) {
-			return Math.sqrt( (squaredElementSeconds + dt*queueSize*queueSize)/totalTime - mean*mean );
-		}
-		return 0.0;
+		return lengthStats.getStandardDeviation(simTime);
 	}
 
 	@Output(name = "QueueLengthMinimum",
 	 description = "The minimum number of entities in the queue.",
 	    unitType = DimensionlessUnit.class)
 	public Integer getQueueLengthMinimum(double simTime) {
-		return minElements;
+		return (int)lengthStats.getMin();
 	}
 
 	@Output(name = "QueueLengthMaximum",
@@ -385,30 +400,20 @@ public class Queue extends DisplayEntity {
 	public Integer getQueueLengthMaximum(double simTime) {
 		// An entity that is added to an empty queue and removed immediately
 		// does not count as a non-zero queue length
-		if( maxElements == 1 && queueLengthDist.get(1) == 0.0 )
+		int max = (int)lengthStats.getMax();
+		if( max == 1 && lengthStats.getBinTime(1) == 0.0 )
 			return 0;
-		return maxElements;
+		return max;
 	}
 
 	@Output(name = "QueueLengthDistribution",
 	 description = "The fraction of time that the queue has length 0, 1, 2, etc.",
 	    unitType = DimensionlessUnit.class)
 	public DoubleVector getQueueLengthDistribution(double simTime) {
-		DoubleVector ret = new DoubleVector(queueLengthDist);
-		double dt = simTime - timeOfLastUpdate;
-		int queueSize = itemList.size();
-		double totalTime = simTime - startOfStatisticsCollection;
-		if( totalTime > 0.0 ) {
-			if( ret.size() == 0 )
-				ret.add(0.0);
-			ret.addAt(dt, queueSize);  // adds dt to the entry at index queueSize
-			for( int i=0; i<ret.size(); i++ ) {
-				ret.set(i, ret.get(i)/totalTime);
-			}
-		}
-		else {
-			ret.clear();
-		}
+		double[] dist = lengthStats.getDistribution(simTime);
+		DoubleVector ret = new DoubleVector(dist.length);
+		for (double each : dist)
+			ret.add(each);
 		return ret;
 	}
 
@@ -419,9 +424,7 @@ public class Queue extends DisplayEntity {
 	public double getAverageQueueTime(double simTime) {
 		if( numberAdded == 0 )
 			return 0.0;
-		double dt = simTime - timeOfLastUpdate;
-		int queueSize = itemList.size();
-		return (elementSeconds + dt*queueSize)/numberAdded;
+		return lengthStats.getSum(simTime)/numberAdded;
 	}
 
 }
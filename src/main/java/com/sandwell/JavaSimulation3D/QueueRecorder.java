@@ -41,6 +41,11 @@ public class QueueRecorder extends DisplayEntity {
 	@Override
 	public void earlyInit() {
 		super.earlyInit();
+		if( outputFile != null ) {
+			outputFile.close();
+			outputFile = null;
+		}
+
 		if( getQueueList().size() == 0 )
 			return;
 
@@ -48,11 +53,18 @@ public class QueueRecorder extends DisplayEntity {
 		String outputFileName = InputAgent.getReportFileName(String.format("%s-%s.%s",
 		                                                     InputAgent.getRunName(), getName(), "que"));
 
-		outputFile = new FileEntity( outputFileName);
+		outputFile = new FileEntity( outputFileName, false, true );
 		this.printOutputFileHeader();
 		outputFile.flush();
 	}
 
+	@Override
+	public void doEnd() {
+		super.doEnd();
+		if( outputFile != null )
+			outputFile.flush();
+	}
+
 	public ArrayList<Queue> getQueueList() {
 		return queueList.getValue();
 	}
@@ -21,6 +21,15 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({
 	com.jaamsim.events.TestEventManager.class,
+	com.jaamsim.events.TestEventSet.class,
+	com.sandwell.JavaSimulation.TestEventTrace.class,
+	com.sandwell.JavaSimulation.TestReplications.class,
+	com.sandwell.JavaSimulation.TestTimeSeriesData.class,
+	com.jaamsim.basicsim.TestEntityRegistry.class,
+	com.jaamsim.basicsim.TestReflectionTarget.class,
+	com.jaamsim.basicsim.TestTimeWeightedStatistic.class,
+	com.jaamsim.basicsim.TestColumnFile.class,
+	com.jaamsim.basicsim.TestAsyncLogWriter.class,
 	com.jaamsim.math.TestAABB.class,
 	com.jaamsim.math.TestQuaternion.class,
 	com.jaamsim.math.TestTransform.class,
@@ -31,15 +40,23 @@ import org.junit.runners.Suite.SuiteClasses;
 	com.jaamsim.math.TestVec2d.class,
 	com.jaamsim.math.TestVec3d.class,
 	com.jaamsim.math.TestVec4d.class,
+	com.jaamsim.math.TestLookupCursor.class,
+	com.jaamsim.math.TestRungeKutta45.class,
+	com.jaamsim.Thresholds.TestSignalThreshold.class,
+	com.jaamsim.Thresholds.TestTimeSeriesThreshold.class,
+	com.jaamsim.CalculationObjects.TestCalculationProgram.class,
 	com.jaamsim.math.TestMat4d.class,
 	com.jaamsim.math.TestInterners.class,
 	com.jaamsim.rng.TestMRG1999a.class,
+	com.jaamsim.rng.TestAliasTable.class,
 	com.jaamsim.video.vp8.TestBoolEncoder.class,
 	com.jaamsim.video.vp8.TestTransforms.class,
 	com.jaamsim.video.vp8.TestYUV.class,
 	com.jaamsim.input.TestKeyedVec3dCurve.class,
 	com.jaamsim.input.TestParser.class,
+	com.jaamsim.input.TestConfigSnapshot.class,
 	com.jaamsim.input.TestOutput.class,
+	com.jaamsim.input.TestGenerateEntity.class,
 	com.jaamsim.probability.TestContinuousDistribution.class,
 	com.jaamsim.probability.TestDiscreteDistribution.class,
 	com.jaamsim.probability.TestErlangDistribution.class,
@@ -55,5 +72,6 @@ import org.junit.runners.Suite.SuiteClasses;
 	com.jaamsim.probability.TestRandomSelector.class,
 	com.jaamsim.MeshFiles.TestVertexMap.class,
 	com.jaamsim.MeshFiles.TestDataBlocks.class,
+	com.sandwell.JavaSimulation3D.TestQueue.class,
 })
 public class AllTests {}
@@ -0,0 +1,207 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.CalculationObjects;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.jaamsim.input.InputAgent;
+import com.jaamsim.units.TimeUnit;
+import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.ObjectType;
+
+public class TestCalculationProgram {
+
+	private static void defineUnits() {
+		if (Entity.getNamedEntity("h") == null) {
+			TimeUnit h = InputAgent.defineEntityWithUniqueName(TimeUnit.class, "h", true);
+			InputAgent.processEntity_Keyword_Value(h, "ConversionFactorToSI", "3600");
+		}
+		if (Entity.getNamedEntity("CalcTestType") == null) {
+			ObjectType t = InputAgent.defineEntityWithUniqueName(ObjectType.class, "CalcTestType", true);
+			InputAgent.processEntity_Keyword_Value(t, "JavaClass", "com.jaamsim.units.DimensionlessUnit");
+		}
+	}
+
+	private static <T extends CalculationEntity> T define(Class<T> klass, String name, Controller ctrl, String seq) {
+		T ent = InputAgent.defineEntityWithUniqueName(klass, name, true);
+		InputAgent.processEntity_Keyword_Value(ent, "Controller", ctrl.getInputName());
+		InputAgent.processEntity_Keyword_Value(ent, "SequenceNumber", seq);
+		if (ent instanceof DoubleCalculation)
+			InputAgent.processEntity_Keyword_Value(ent, "UnitType", "CalcTestType");
+		return ent;
+	}
+
+	// Builds a network whose sequence numbers run against the flow of values
+	private static ArrayList<CalculationEntity> makeNetwork() {
+		defineUnits();
+		Controller ctrl = InputAgent.defineEntityWithUniqueName(Controller.class, "CalcTestController", true);
+
+		Lag lag = define(Lag.class, "CalcTestLag", ctrl, "5");
+		InputAgent.processEntity_Keyword_Value(lag, "InputValue", "5.0");
+		InputAgent.processEntity_Keyword_Value(lag, "LagTime", "3 h");
+
+		Integrator integ = define(Integrator.class, "CalcTestIntegrator", ctrl, "4");
+		InputAgent.processEntity_Keyword_Value(integ, "InputValue", lag.getInputName());
+		InputAgent.processEntity_Keyword_Value(integ, "IntegralTime", "2 h");
+		InputAgent.processEntity_Keyword_Value(integ, "InitialValue", "1.5");
+
+		WeightedSum sum = define(WeightedSum.class, "CalcTestSum", ctrl, "3");
+		InputAgent.processEntity_Keyword_Value(sum, "InputValueList", lag.getInputName() + " " + integ.getInputName());
+		InputAgent.processEntity_Keyword_Value(sum, "CoefficientList", "0.5 -0.25");
+
+		Polynomial poly = define(Polynomial.class, "CalcTestPolynomial", ctrl, "2");
+		InputAgent.processEntity_Keyword_Value(poly, "InputValue", sum.getInputName());
+		InputAgent.processEntity_Keyword_Value(poly, "CoefficientList", "1.0 0.3 -0.02");
+		InputAgent.processEntity_Keyword_Value(poly, "Scale", "1.5");
+
+		Lag lag2 = define(Lag.class, "CalcTestLag", ctrl, "1");
+		InputAgent.processEntity_Keyword_Value(lag2, "InputValue", poly.getInputName());
+		InputAgent.processEntity_Keyword_Value(lag2, "LagTime", "1 h");
+
+		ArrayList<CalculationEntity> ret = new ArrayList<CalculationEntity>();
+		ret.add(lag2);
+		ret.add(poly);
+		ret.add(sum);
+		ret.add(integ);
+		ret.add(lag);
+		for (CalculationEntity each : ret) {
+			each.validate();
+			each.earlyInit();
+		}
+		return ret;
+	}
+
+	@Test
+	public void testMatchesUpdate() {
+		ArrayList<CalculationEntity> ref = makeNetwork();
+		ArrayList<CalculationEntity> comp = makeNetwork();
+
+		CalculationProgram prog = CalculationProgram.compile(comp, false, 0.0d);
+		assertTrue(prog != null);
+		assertTrue(prog.getNumCalculations() == comp.size());
+
+		for (int n = 1; n <= 500; n++) {
+			double simTime = n * 360.0d + (n % 7) * 13.0d;
+			for (CalculationEntity each : ref)
+				each.update(simTime);
+			prog.update(simTime);
+
+			for (int i = 0; i < ref.size(); i++) {
+				DoubleCalculation r = (DoubleCalculation)ref.get(i);
+				DoubleCalculation c = (DoubleCalculation)comp.get(i);
+				assertTrue(r.getValue() == c.getValue());
+				assertTrue(r.getNextSample(simTime) == c.getNextSample(simTime));
+			}
+		}
+	}
+
+	@Test
+	public void testNotCompiled() {
+		ArrayList<CalculationEntity> list = makeNetwork();
+
+		// A loop between calculations
+		Lag lag = (Lag)list.get(4);
+		InputAgent.processEntity_Keyword_Value(lag, "InputValue", list.get(0).getInputName());
+		assertTrue(CalculationProgram.compile(list, false, 0.0d) == null);
+
+		// An input from outside the network
+		list.remove(0);
+		assertTrue(CalculationProgram.compile(list, false, 0.0d) == null);
+
+		// A calculation type that is not compiled
+		InputAgent.processEntity_Keyword_Value(lag, "InputValue", "2.0");
+		assertTrue(CalculationProgram.compile(list, false, 0.0d) != null);
+		list.add(InputAgent.defineEntityWithUniqueName(ConstantBoolean.class, "CalcTestBoolean", true));
+		assertTrue(CalculationProgram.compile(list, false, 0.0d) == null);
+	}
+
+	// A Lag whose input is fed back through a Polynomial: value' = (5 - 2*value) / LagTime
+	private static ArrayList<CalculationEntity> makeLoop() {
+		defineUnits();
+		Controller ctrl = InputAgent.defineEntityWithUniqueName(Controller.class, "CalcTestController", true);
+
+		Lag lag = define(Lag.class, "CalcTestLag", ctrl, "1");
+		InputAgent.processEntity_Keyword_Value(lag, "LagTime", "1 h");
+
+		Polynomial poly = define(Polynomial.class, "CalcTestPolynomial", ctrl, "2");
+		InputAgent.processEntity_Keyword_Value(poly, "InputValue", lag.getInputName());
+		InputAgent.processEntity_Keyword_Value(poly, "CoefficientList", "5.0 -1.0");
+		InputAgent.processEntity_Keyword_Value(lag, "InputValue", poly.getInputName());
+
+		ArrayList<CalculationEntity> ret = new ArrayList<CalculationEntity>();
+		ret.add(lag);
+		ret.add(poly);
+		for (CalculationEntity each : ret) {
+			each.validate();
+			each.earlyInit();
+		}
+		return ret;
+	}
+
+	@Test
+	public void testContinuous() {
+		ArrayList<CalculationEntity> list = makeLoop();
+
+		// The loop can only be solved continuously
+		assertTrue(CalculationProgram.compile(list, false, 0.0d) == null);
+		CalculationProgram prog = CalculationProgram.compile(list, true, 0.0d);
+		assertTrue(prog != null);
+		prog.setTolerance(1.0e-10d);
+
+		// The value approaches 2.5 with a time constant of half an hour, and
+		// the step ends when it reaches 2.0
+		Lag lag = (Lag)list.get(0);
+		double crossTime = 1800.0d * Math.log(5.0d);
+		prog.setCrossings(new DoubleCalculation[] { lag }, new double[] { 2.0d });
+		while (prog.getValue(lag) <= 2.0d) {
+			prog.step(1.0e6d, 1.0e-6d);
+			assertTrue(prog.getTime() <= crossTime + 1.0e-3d);
+		}
+		assertTrue(Math.abs(prog.getTime() - crossTime) < 1.0e-3d);
+		prog.store();
+		assertTrue(lag.getValue() == prog.getValue(lag));
+
+		// A long quiet period takes few steps compared with a one second sampling time
+		int num = prog.getNumSteps();
+		while (prog.getTime() < 100.0d * 3600.0d)
+			prog.step(1.0e9d, 1.0e-6d);
+		assertTrue(prog.getNumSteps() - num < 300);
+		assertTrue(Math.abs(prog.getValue(lag) - 2.5d) < 1.0e-8d);
+	}
+
+	@Test
+	public void testStartTime() {
+		ArrayList<CalculationEntity> list = makeLoop();
+
+		// A program compiled after the start of the run measures its steps from that time
+		double startTime = 7200.0d;
+		CalculationProgram prog = CalculationProgram.compile(list, true, startTime);
+		prog.setTolerance(1.0e-10d);
+		assertTrue(prog.getTime() == startTime);
+
+		Lag lag = (Lag)list.get(0);
+		double crossTime = startTime + 1800.0d * Math.log(5.0d);
+		prog.setCrossings(new DoubleCalculation[] { lag }, new double[] { 2.0d });
+		while (prog.getValue(lag) <= 2.0d) {
+			double time = prog.step(1.0e6d, 1.0e-6d);
+			assertTrue(time > startTime);
+		}
+		assertTrue(Math.abs(prog.getTime() - crossTime) < 1.0e-3d);
+	}
+}
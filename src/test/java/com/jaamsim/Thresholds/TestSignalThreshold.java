@@ -0,0 +1,57 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.Thresholds;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jaamsim.CalculationObjects.Controller;
+import com.jaamsim.CalculationObjects.Lag;
+import com.jaamsim.input.InputAgent;
+import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.ObjectType;
+
+public class TestSignalThreshold {
+
+	@Test
+	public void testInitialState() {
+		Entity.initEVT();
+		ObjectType t = InputAgent.defineEntityWithUniqueName(ObjectType.class, "SignalTestType", true);
+		InputAgent.processEntity_Keyword_Value(t, "JavaClass", "com.jaamsim.units.DimensionlessUnit");
+
+		Controller ctrl = InputAgent.defineEntityWithUniqueName(Controller.class, "SignalTestController", true);
+		Lag lag = InputAgent.defineEntityWithUniqueName(Lag.class, "SignalTestLag", true);
+		InputAgent.processEntity_Keyword_Value(lag, "Controller", ctrl.getInputName());
+		InputAgent.processEntity_Keyword_Value(lag, "UnitType", t.getInputName());
+
+		SignalThreshold thr = InputAgent.defineEntityWithUniqueName(SignalThreshold.class, "SignalTestThreshold", true);
+
+		// An empty Signal leaves the limits unchanged
+		thr.updateForInput(thr.getInput("Signal"));
+
+		InputAgent.processEntity_Keyword_Value(thr, "Signal", lag.getInputName());
+		InputAgent.processEntity_Keyword_Value(thr, "MinOpenLimit", "1.0");
+		thr.validate();
+
+		// The calculations start from zero, which is below the MinOpenLimit
+		thr.earlyInit();
+		assertTrue(thr.isClosed());
+
+		InputAgent.processEntity_Keyword_Value(thr, "MinOpenLimit", "-1.0");
+		thr.earlyInit();
+		assertTrue(!thr.isClosed());
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.Thresholds;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jaamsim.input.InputAgent;
+import com.jaamsim.units.TimeUnit;
+import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.ObjectType;
+import com.sandwell.JavaSimulation.TimeSeries;
+
+public class TestTimeSeriesThreshold {
+
+	private static ObjectType unitType;
+
+	private static String getUnitType() {
+		if (unitType == null) {
+			unitType = InputAgent.defineEntityWithUniqueName(ObjectType.class, "ThresholdTestType", true);
+			InputAgent.processEntity_Keyword_Value(unitType, "JavaClass", "com.jaamsim.units.DimensionlessUnit");
+		}
+		return unitType.getInputName();
+	}
+
+	// Time inputs require a unit
+	private static void defineHours() {
+		if (Entity.getNamedEntity("h") != null)
+			return;
+		TimeUnit h = InputAgent.defineEntityWithUniqueName(TimeUnit.class, "h", true);
+		InputAgent.processEntity_Keyword_Value(h, "ConversionFactorToSI", "3600");
+	}
+
+	// Builds a series with a value on each of the given number of hours
+	private static TimeSeries makeSeries(Random rng, int hours, String cycle) {
+		StringBuilder val = new StringBuilder();
+		for (int i = 0; i < hours; i++) {
+			val.append(String.format("{ '2010-01-%02d %02d:00:00' %d } ", 1 + i / 24, i % 24, rng.nextInt(10)));
+		}
+
+		defineHours();
+		TimeSeries ts = InputAgent.defineEntityWithUniqueName(TimeSeries.class, "ThresholdTestSeries", true);
+		InputAgent.processEntity_Keyword_Value(ts, "UnitType", getUnitType());
+		InputAgent.processEntity_Keyword_Value(ts, "Value", val.toString());
+		if (cycle != null)
+			InputAgent.processEntity_Keyword_Value(ts, "CycleTime", cycle);
+		return ts;
+	}
+
+	private static void compare(TimeSeriesThreshold th, double maxTime) {
+		int num = (int)(maxTime * 4.0d);
+		boolean[] closed = new boolean[num];
+		double[] closedTime = new double[num];
+		double[] openTime = new double[num];
+
+		// Results found by stepping through the series
+		assertTrue(!th.hasIntervals());
+		for (int i = 0; i < num; i++) {
+			double t = i * 0.25d;
+			closed[i] = th.isClosedAtTime(t);
+			closedTime[i] = th.calcClosedTimeFromTime(t);
+			openTime[i] = th.calcOpenTimeFromTime(t);
+		}
+
+		// Results from the intervals
+		th.buildIntervals();
+		for (int i = 0; i < num; i++) {
+			double t = i * 0.25d;
+			assertTrue(th.isClosedAtTime(t) == closed[i]);
+			assertTrue(th.calcClosedTimeFromTime(t) == closedTime[i]);
+			assertTrue(th.calcOpenTimeFromTime(t) == openTime[i]);
+		}
+	}
+
+	private static TimeSeriesThreshold makeThreshold(TimeSeries ts, String max, String min, String lookAhead) {
+		TimeSeriesThreshold th = InputAgent.defineEntityWithUniqueName(TimeSeriesThreshold.class, "ThresholdTest", true);
+		InputAgent.processEntity_Keyword_Value(th, "UnitType", getUnitType());
+		InputAgent.processEntity_Keyword_Value(th, "TimeSeries", ts.getInputName());
+		if (max != null)
+			InputAgent.processEntity_Keyword_Value(th, "MaxOpenLimit", max);
+		if (min != null)
+			InputAgent.processEntity_Keyword_Value(th, "MinOpenLimit", min);
+		if (lookAhead != null)
+			InputAgent.processEntity_Keyword_Value(th, "LookAhead", lookAhead);
+		return th;
+	}
+
+	@Test
+	public void testCycle() {
+		Random rng = new Random(7);
+		for (int i = 0; i < 5; i++) {
+			TimeSeries ts = makeSeries(rng, 48, "48 h");
+			TimeSeriesThreshold th = makeThreshold(ts, "6", "2", null);
+			compare(th, 200.0d);
+
+			th = makeThreshold(ts, "6", null, "2.5 h");
+			compare(th, 200.0d);
+			assertTrue(th.hasIntervals());
+		}
+	}
+
+	@Test
+	public void testNoCycle() {
+		Random rng = new Random(11);
+		for (int i = 0; i < 5; i++) {
+			TimeSeries ts = makeSeries(rng, 72, null);
+			TimeSeriesThreshold th = makeThreshold(ts, "5", null, "3 h");
+			compare(th, 100.0d);
+			assertTrue(th.hasIntervals());
+		}
+	}
+
+	@Test
+	public void testLimitSeries() {
+		Random rng = new Random(13);
+		for (int i = 0; i < 5; i++) {
+			TimeSeries ts = makeSeries(rng, 24, "24 h");
+			TimeSeries limit = makeSeries(rng, 24, "24 h");
+			TimeSeriesThreshold th = makeThreshold(ts, limit.getInputName(), null, "1 h");
+			compare(th, 100.0d);
+			assertTrue(th.hasIntervals());
+		}
+
+		// Different cycles are left to the step-by-step search
+		TimeSeries ts = makeSeries(rng, 24, "24 h");
+		TimeSeries limit = makeSeries(rng, 36, "36 h");
+		TimeSeriesThreshold th = makeThreshold(ts, limit.getInputName(), null, null);
+		th.buildIntervals();
+		assertTrue(!th.hasIntervals());
+	}
+}
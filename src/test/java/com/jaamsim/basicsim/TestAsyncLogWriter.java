@@ -0,0 +1,89 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+public class TestAsyncLogWriter {
+
+	@Test
+	public void testOrderAndSync() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		// A small capacity makes the writer wait for the background thread
+		AsyncLogWriter out = new AsyncLogWriter(bytes, 4);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			String line = "Line " + i + "\n";
+			out.write(line.getBytes("UTF-8"));
+			expected.append(line);
+		}
+		out.flush();
+		out.sync();
+		assertTrue(bytes.toString("UTF-8").equals(expected.toString()));
+
+		out.write('x');
+		AsyncLogWriter.syncAll();
+		expected.append('x');
+		assertTrue(bytes.toString("UTF-8").equals(expected.toString()));
+
+		out.close();
+		boolean thrown = false;
+		try {
+			out.write('y');
+		}
+		catch (IOException e) {
+			thrown = true;
+		}
+		assertTrue(thrown);
+	}
+
+	private static class FailingStream extends OutputStream {
+		@Override
+		public void write(int b) throws IOException {
+			throw new IOException("Disk full");
+		}
+	}
+
+	@Test
+	public void testError() throws IOException {
+		AsyncLogWriter out = new AsyncLogWriter(new FailingStream(), 16);
+		out.write(new byte[300000]);
+
+		boolean thrown = false;
+		try {
+			out.sync();
+		}
+		catch (IOException e) {
+			thrown = e.getMessage().equals("Disk full");
+		}
+		assertTrue(thrown);
+
+		thrown = false;
+		try {
+			out.close();
+		}
+		catch (IOException e) {
+			thrown = true;
+		}
+		assertTrue(thrown);
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class TestColumnFile {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		File file = File.createTempFile("TestColumnFile", ".col");
+		file.deleteOnExit();
+
+		String[] names = { "Queue1.QueueLength", "Server1.Utilisation" };
+		byte[] types = { ColumnFileWriter.TYPE_LONG, ColumnFileWriter.TYPE_DOUBLE };
+		ColumnFileWriter writer = new ColumnFileWriter(file, names, types, 7);
+		for (int i = 0; i < 100; i++) {
+			writer.setLong(0, i * 3);
+			writer.setDouble(1, i * 0.5d);
+			writer.addRow(i * 60.0d);
+		}
+		assertTrue(writer.getRowCount() == 100);
+		writer.close();
+
+		ColumnFileReader reader = new ColumnFileReader(file);
+		try {
+			assertTrue(reader.getColumnCount() == 2);
+			assertTrue(reader.getColumnName(1).equals("Server1.Utilisation"));
+			assertTrue(reader.getColumnType(0) == ColumnFileWriter.TYPE_LONG);
+			assertTrue(reader.getColumnIndex("Queue1.QueueLength") == 0);
+			assertTrue(reader.getColumnIndex("Missing") == -1);
+			assertTrue(reader.getRowCount() == 100);
+
+			// Read out of order so that blocks are remapped
+			for (int i = 99; i >= 0; i -= 5) {
+				assertTrue(reader.getTime(i) == i * 60.0d);
+				assertTrue(reader.getLong(0, i) == i * 3);
+				assertTrue(reader.getDouble(1, i) == i * 0.5d);
+				assertTrue(reader.getDouble(0, i) == i * 3.0d);
+			}
+
+			assertTrue(reader.findRow(-1.0d) == -1);
+			assertTrue(reader.findRow(0.0d) == 0);
+			assertTrue(reader.findRow(419.0d) == 6);
+			assertTrue(reader.findRow(420.0d) == 7);
+			assertTrue(reader.findRow(1.0e9d) == 99);
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		File file = File.createTempFile("TestColumnFile", ".col");
+		file.deleteOnExit();
+
+		ColumnFileWriter writer = new ColumnFileWriter(file, new String[0], new byte[0], 16);
+		writer.close();
+
+		ColumnFileReader reader = new ColumnFileReader(file);
+		assertTrue(reader.getRowCount() == 0);
+		assertTrue(reader.findRow(10.0d) == -1);
+		reader.close();
+	}
+}
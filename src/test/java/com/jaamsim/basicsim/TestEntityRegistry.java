@@ -0,0 +1,187 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation3D.DisplayEntity;
+
+public class TestEntityRegistry {
+
+	public static class RegBase extends DisplayEntity {}
+	public static class RegSub extends RegBase {}
+
+	@Test
+	public void testInstancesAndClones() {
+		RegBase base1 = new RegBase();
+		RegSub sub1 = new RegSub();
+		RegBase base2 = new RegBase();
+
+		ArrayList<RegBase> bases = Entity.getInstancesOf(RegBase.class);
+		assertTrue(bases.size() == 2);
+		assertTrue(bases.contains(base1) && bases.contains(base2));
+
+		// The cached clone lists must include a class first seen after the cache was built
+		assertTrue(Entity.getClonesOf(RegBase.class).size() == 3);
+		RegSub sub2 = new RegSub();
+		assertTrue(Entity.getClonesOf(RegBase.class).size() == 4);
+
+		int count = 0;
+		for (RegBase each : Entity.getClonesOfIterator(RegBase.class)) {
+			assertTrue(each == base1 || each == base2 || each == sub1 || each == sub2);
+			count++;
+		}
+		assertTrue(count == 4);
+
+		base1.kill();
+		count = 0;
+		for (RegBase each : Entity.getInstanceIterator(RegBase.class)) {
+			assertTrue(each == base2);
+			count++;
+		}
+		assertTrue(count == 1);
+		assertTrue(Entity.getClonesOf(RegBase.class).size() == 3);
+
+		sub1.kill();
+		sub2.kill();
+		base2.kill();
+		assertTrue(!Entity.getClonesOfIterator(RegBase.class).hasNext());
+	}
+
+	@Test
+	public void testIdToEntity() {
+		RegBase ent = new RegBase();
+		assertTrue(Entity.idToEntity(ent.getEntityNumber()) == ent);
+
+		ent.kill();
+		assertTrue(Entity.idToEntity(ent.getEntityNumber()) == null);
+
+		ent.restore();
+		assertTrue(Entity.idToEntity(ent.getEntityNumber()) == ent);
+		assertTrue(Entity.getInstancesOf(RegBase.class).contains(ent));
+		ent.kill();
+	}
+
+	@Test
+	public void testKillKeepsOrder() {
+		RegSub sub1 = new RegSub();
+		RegBase base1 = new RegBase();
+		RegSub sub2 = new RegSub();
+		RegBase base2 = new RegBase();
+		RegSub sub3 = new RegSub();
+
+		// Killing an entity leaves the others in order
+		base1.kill();
+		ArrayList<? extends Entity> all = Entity.getAll();
+		int idx = all.indexOf(sub2);
+		assertTrue(all.get(idx - 1) == sub1);
+		assertTrue(all.get(idx + 1) == base2 && all.get(idx + 2) == sub3);
+		assertTrue(Entity.getInstancesOf(RegSub.class).indexOf(sub2) == 1);
+		ArrayList<? extends DisplayEntity> disp = DisplayEntity.getAll();
+		idx = disp.indexOf(sub2);
+		assertTrue(disp.get(idx - 1) == sub1 && disp.get(idx + 1) == base2);
+
+		// A restored entity returns to its original place
+		base1.restore();
+		assertTrue(all.get(all.indexOf(sub1) + 1) == base1);
+		assertTrue(disp.get(disp.indexOf(sub1) + 1) == base1);
+		assertTrue(Entity.getInstancesOf(RegBase.class).indexOf(base1) == 0);
+
+		sub1.kill();
+		base1.kill();
+		sub2.kill();
+		base2.kill();
+		sub3.kill();
+	}
+
+	@Test
+	public void testKillLeavesEmptySlot() {
+		RegBase base1 = new RegBase();
+		RegBase base2 = new RegBase();
+		RegBase base3 = new RegBase();
+
+		// Killing an entity empties its slot without moving the others
+		InstanceList<? extends Entity> list = Entity.getInstanceList(RegBase.class);
+		int slots = list.size();
+		base2.kill();
+		assertTrue(list.size() == slots);
+		assertTrue(list.get(slots - 2) == null);
+		assertTrue(list.get(slots - 1) == base3);
+
+		// Iteration skips the empty slot
+		int count = 0;
+		for (RegBase each : Entity.getInstanceIterator(RegBase.class)) {
+			assertTrue(each == base1 || each == base3);
+			count++;
+		}
+		assertTrue(count == 2);
+		count = 0;
+		for (RegBase each : Entity.getClonesOfIterator(RegBase.class)) {
+			assertTrue(each != base2);
+			count++;
+		}
+		assertTrue(count == Entity.getClonesOf(RegBase.class).size());
+
+		// A restored entity returns to its slot
+		base2.restore();
+		assertTrue(list.size() == slots);
+		assertTrue(list.get(slots - 2) == base2);
+
+		// The lists without gaps are compacted on request
+		base2.kill();
+		ArrayList<? extends Entity> all = Entity.getAll();
+		assertTrue(!all.contains(base2));
+		assertTrue(all.get(all.indexOf(base1) + 1) == base3);
+		assertTrue(!Entity.getInstancesOf(RegBase.class).contains(base2));
+
+		base1.kill();
+		base3.kill();
+	}
+
+	@Test
+	public void testClonesInCreationOrder() {
+		RegSub sub1 = new RegSub();
+		RegBase base1 = new RegBase();
+		RegSub sub2 = new RegSub();
+		RegBase base2 = new RegBase();
+		RegSub sub3 = new RegSub();
+
+		// Clones are returned in order of creation, not grouped by class
+		RegBase[] expected = { sub1, base1, sub2, base2, sub3 };
+		ArrayList<RegBase> clones = Entity.getClonesOf(RegBase.class);
+		assertTrue(clones.size() == expected.length);
+		int i = 0;
+		for (RegBase each : Entity.getClonesOfIterator(RegBase.class)) {
+			assertTrue(clones.get(i) == expected[i]);
+			assertTrue(each == expected[i]);
+			i++;
+		}
+
+		// Including after an entity is killed and restored
+		base1.kill();
+		base1.restore();
+		clones = Entity.getClonesOf(RegBase.class);
+		for (i = 0; i < expected.length; i++)
+			assertTrue(clones.get(i) == expected[i]);
+
+		for (RegBase each : expected)
+			each.kill();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.ErrorException;
+
+public class TestReflectionTarget {
+
+	public static class CallTarget extends Entity {
+		double total = 0.0d;
+		int calls = 0;
+		String last = null;
+
+		public void add(double val, int times) {
+			total += val * times;
+			calls++;
+		}
+
+		public void add(String str) {
+			last = str;
+			calls++;
+		}
+
+		public void noArgs() {
+			calls++;
+		}
+
+		public void fail() {
+			throw new IllegalStateException("failed");
+		}
+	}
+
+	@Test
+	public void testProcess() {
+		CallTarget ent = new CallTarget();
+		ent.setInputName("CallTarget1");
+
+		new ReflectionTarget(ent, "add", new Object[] { 1.5d, 2 }).process();
+		new ReflectionTarget(ent, "add", new Object[] { 2.0d, 1 }).process();
+		new ReflectionTarget(ent, "add", new Object[] { "text" }).process();
+		ReflectionTarget t = new ReflectionTarget(ent, "noArgs", new Object[0]);
+		t.process();
+
+		assertTrue(ent.total == 5.0d);
+		assertTrue("text".equals(ent.last));
+		assertTrue(ent.calls == 4);
+		assertTrue(t.getDescription().equals("CallTarget1.noArgs"));
+		ent.kill();
+	}
+
+	@Test
+	public void testErrors() {
+		CallTarget ent = new CallTarget();
+
+		boolean thrown = false;
+		try {
+			new ReflectionTarget(ent, "missing", new Object[0]);
+		}
+		catch (ErrorException e) {
+			thrown = true;
+		}
+		assertTrue(thrown);
+
+		thrown = false;
+		try {
+			new ReflectionTarget(ent, "fail", new Object[0]).process();
+		}
+		catch (IllegalStateException e) {
+			thrown = true;
+		}
+		assertTrue(thrown);
+		ent.kill();
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.basicsim;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestTimeWeightedStatistic {
+
+	private static boolean near(double a, double b) {
+		return Math.abs(a - b) < 1.0e-10d;
+	}
+
+	@Test
+	public void testMeanAndVariance() {
+		TimeWeightedStatistic stat = new TimeWeightedStatistic(10);
+		stat.clear(0.0d, 0.0d);
+		stat.update(2.0d, 3.0d);
+		stat.update(4.0d, 1.0d);
+
+		// Values 0 for 2s, 3 for 2s, 1 for 4s
+		double simTime = 8.0d;
+		assertTrue(near(stat.getTotalTime(simTime), 8.0d));
+		assertTrue(near(stat.getSum(simTime), 10.0d));
+		assertTrue(near(stat.getMean(simTime), 1.25d));
+
+		double var = (2.0d * 0.0d + 2.0d * 9.0d + 4.0d * 1.0d) / 8.0d - 1.25d * 1.25d;
+		assertTrue(near(stat.getVariance(simTime), var));
+		assertTrue(stat.getMin() == 0.0d);
+		assertTrue(stat.getMax() == 3.0d);
+
+		// Querying must not change the recorded values
+		assertTrue(near(stat.getMean(simTime), 1.25d));
+		stat.update(simTime, 1.0d);
+		assertTrue(near(stat.getVariance(simTime), var));
+	}
+
+	@Test
+	public void testDistribution() {
+		TimeWeightedStatistic stat = new TimeWeightedStatistic(3);
+		stat.clear(1.0d, 1.0d);
+		stat.update(2.0d, 5.0d);
+		stat.update(4.0d, 0.0d);
+
+		assertTrue(stat.getNumberOfBins() == 3);
+		assertTrue(near(stat.getBinTime(1), 1.0d));
+		assertTrue(near(stat.getBinTime(2), 2.0d));
+
+		double[] dist = stat.getDistribution(5.0d);
+		assertTrue(dist.length == 3);
+		assertTrue(near(dist[0], 0.25d));
+		assertTrue(near(dist[1], 0.25d));
+		assertTrue(near(dist[2], 0.5d));
+
+		stat.clear(6.0d, 0.0d);
+		assertTrue(stat.getNumberOfBins() == 1);
+		assertTrue(stat.getDistribution(6.0d).length == 0);
+		assertTrue(stat.getMean(6.0d) == 0.0d);
+	}
+
+	@Test
+	public void testBinGrowth() {
+		TimeWeightedStatistic stat = new TimeWeightedStatistic(1000);
+		stat.clear(0.0d, 0.0d);
+		stat.update(1.0d, 100.0d);
+		stat.update(2.0d, 5000.0d);
+		stat.update(3.0d, 0.0d);
+		assertTrue(stat.getNumberOfBins() == 1000);
+		assertTrue(near(stat.getBinTime(100), 1.0d));
+		assertTrue(near(stat.getBinTime(999), 1.0d));
+	}
+}
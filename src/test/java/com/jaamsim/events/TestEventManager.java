@@ -188,6 +188,178 @@ public class TestEventManager {
 		}
 	}
 
+	/**
+	 * Repeat the mixed FIFO/LIFO ordering test using the sorted array event set.
+	 */
+	@Test
+	public void testScheduleMixedSortedArray() {
+		EventManager evt = EventManager.initEventManager("TestEVT");
+		evt.clear();
+		evt.setEventSetType(EventManager.EventSetType.SORTED_ARRAY);
+
+		ArrayList<String> log = new ArrayList<String>();
+		for (int i = 0; i < 5; i++)
+			evt.scheduleProcess(i, 0, false, new LogTarget(i, log));
+		for (int i = 0; i < 5; i++)
+			evt.scheduleProcess(i, 0, true, new LogTarget(10 + i, log));
+		for (int i = 0; i < 5; i++)
+			evt.scheduleProcess(i, 0, false, new LogTarget(20 + i, log));
+
+		TestFrameworkHelpers.runEventsToTick(evt, 100, 1000);
+
+		ArrayList<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 5; i++) {
+			expected.add("Target:" + (20 + i));
+			expected.add("Target:" + i);
+			expected.add("Target:" + (10 + i));
+		}
+
+		assertTrue(expected.size() == log.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertTrue(expected.get(i).equals(log.get(i)));
+		}
+	}
+
+	/**
+	 * Processes that wait part way through must resume in time order, with
+	 * events at the same time executed in LIFO order.
+	 */
+	@Test
+	public void testWaitInterleaving() {
+		EventManager evt = EventManager.initEventManager("TestEVT");
+		evt.clear();
+
+		ArrayList<String> log = new ArrayList<String>();
+		evt.scheduleProcess(0, 0, false, new WaitLogTarget(evt, 0, 3, log));
+		evt.scheduleProcess(0, 0, false, new WaitLogTarget(evt, 1, 2, log));
+		evt.scheduleProcess(1, 0, false, new LogTarget(2, log));
+
+		TestFrameworkHelpers.runEventsToTick(evt, 100, 1000);
+
+		ArrayList<String> expected = new ArrayList<String>();
+		expected.add("Start:1");
+		expected.add("Start:0");
+		expected.add("Target:2");
+		expected.add("End:1");
+		expected.add("End:0");
+
+		assertTrue(expected.size() == log.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertTrue(expected.get(i).equals(log.get(i)));
+		}
+	}
+
+	/**
+	 * A long chain of events at the same time is handed from process to process.
+	 */
+	@Test
+	public void testManyEvents() {
+		EventManager evt = EventManager.initEventManager("TestEVT");
+		evt.clear();
+
+		ArrayList<String> log = new ArrayList<String>();
+		for (int i = 0; i < 10000; i++)
+			evt.scheduleProcess(i % 10, 0, true, new LogTarget(i, log));
+
+		TestFrameworkHelpers.runEventsToTick(evt, 100, 10000);
+
+		assertTrue(log.size() == 10000);
+		assertTrue(log.get(0).equals("Target:0"));
+		assertTrue(log.get(1).equals("Target:10"));
+		assertTrue(log.get(9999).equals("Target:9999"));
+	}
+
+	@Test
+	public void testCancelReschedule() {
+		EventManager evt = EventManager.initEventManager("TestEVT");
+		evt.clear();
+
+		ArrayList<String> log = new ArrayList<String>();
+		Event e0 = evt.scheduleProcess(0, 0, false, new LogTarget(0, log));
+		Event e1 = evt.scheduleProcess(1, 0, false, new LogTarget(1, log));
+		evt.scheduleProcess(2, 0, false, new LogTarget(2, log));
+		Event e3 = evt.scheduleProcess(3, 0, false, new LogTarget(3, log));
+
+		assertTrue(evt.cancel(e0));
+		assertFalse(evt.cancel(e0));
+		Event e1b = evt.reschedule(e1, 5, false);
+		assertTrue(e1b.schedTick == 5);
+		assertTrue(evt.reschedule(e1, 6, false) == null);
+		assertTrue(evt.cancel(e3));
+
+		TestFrameworkHelpers.runEventsToTick(evt, 100, 1000);
+
+		ArrayList<String> expected = new ArrayList<String>();
+		expected.add("Target:2");
+		expected.add("Target:1");
+
+		assertTrue(expected.size() == log.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertTrue(expected.get(i).equals(log.get(i)));
+		}
+	}
+
+	/**
+	 * A process waiting on an EventCondition is only re-tested after a signal.
+	 */
+	@Test
+	public void testConditionSignal() {
+		EventManager evt = EventManager.initEventManager("TestEVT");
+		evt.clear();
+
+		ArrayList<String> log = new ArrayList<String>();
+		CondState state = new CondState();
+		evt.scheduleProcess(0, 0, false, new CondWaitTarget(evt, state, log));
+		evt.scheduleProcess(2, 0, false, new LogTarget(2, log));
+		evt.scheduleProcess(3, 0, false, new SignalTarget(evt, state, false));
+		evt.scheduleProcess(5, 0, false, new SignalTarget(evt, state, true));
+		evt.scheduleProcess(7, 0, false, new LogTarget(7, log));
+
+		TestFrameworkHelpers.runEventsToTick(evt, 100, 1000);
+
+		ArrayList<String> expected = new ArrayList<String>();
+		expected.add("Target:2");
+		expected.add("Ready:5");
+		expected.add("Target:7");
+
+		assertTrue(expected.size() == log.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertTrue(expected.get(i).equals(log.get(i)));
+		}
+
+		// Tested once on entry and once after each signal
+		assertTrue(state.numTests == 3);
+	}
+
+	@Test
+	public void testRecentEvents() {
+		EventManager evt = EventManager.initEventManager("TestEVT");
+		evt.clear();
+		evt.setRecorderSize(4);
+
+		ArrayList<String> log = new ArrayList<String>();
+		evt.scheduleProcess(0, 0, false, new LogTarget(0, log));
+		evt.scheduleProcess(5, 2, false, new LogTarget(1, log));
+		evt.scheduleProcess(8, 0, false, new LogTarget(2, log));
+
+		ArrayList<String> recent = evt.getRecentEvents();
+		assertTrue(recent.size() == 3);
+		assertTrue(recent.get(1).equals("0\tSchedule\t5\t2\tTarget:1"));
+
+		TestFrameworkHelpers.runEventsToTick(evt, 100, 1000);
+
+		// Only the last four operations are kept
+		recent = evt.getRecentEvents();
+		assertTrue(recent.size() == 4);
+		assertTrue(recent.get(3).equals("8\tExit"));
+		assertTrue(recent.get(2).equals("8\tEvent\t8\t0\tTarget:2"));
+
+		evt.setRecorderSize(0);
+		evt.scheduleProcess(0, 0, false, new LogTarget(3, log));
+		assertTrue(evt.getRecentEvents().isEmpty());
+		evt.clear();
+	}
+
 	private static class LogTarget extends ProcessTarget {
 		final ArrayList<String> log;
 		final int num;
@@ -206,4 +378,85 @@ public class TestEventManager {
 			log.add("Target:" + num);
 		}
 	}
+
+	private static class WaitLogTarget extends ProcessTarget {
+		final EventManager evt;
+		final ArrayList<String> log;
+		final int num;
+		final long ticks;
+		WaitLogTarget(EventManager e, int i, long t, ArrayList<String> l) {
+			evt = e;
+			log = l;
+			num = i;
+			ticks = t;
+		}
+
+		@Override
+		public String getDescription() {
+			return "WaitTarget:" + num;
+		}
+
+		@Override
+		public void process() {
+			log.add("Start:" + num);
+			evt.waitTicks(ticks, 0, false);
+			log.add("End:" + num);
+		}
+	}
+
+	private static class CondState {
+		final EventCondition cond = new EventCondition("TestCond");
+		boolean ready = false;
+		int numTests = 0;
+	}
+
+	private static class CondWaitTarget extends ProcessTarget {
+		final EventManager evt;
+		final CondState state;
+		final ArrayList<String> log;
+		CondWaitTarget(EventManager e, CondState s, ArrayList<String> l) {
+			evt = e;
+			state = s;
+			log = l;
+		}
+
+		@Override
+		public String getDescription() {
+			return "CondWaitTarget";
+		}
+
+		@Override
+		public void process() {
+			while (true) {
+				state.numTests++;
+				if (state.ready)
+					break;
+				evt.waitUntil(state.cond);
+			}
+			evt.waitUntilEnded();
+			log.add("Ready:" + evt.currentTick());
+		}
+	}
+
+	private static class SignalTarget extends ProcessTarget {
+		final EventManager evt;
+		final CondState state;
+		final boolean ready;
+		SignalTarget(EventManager e, CondState s, boolean r) {
+			evt = e;
+			state = s;
+			ready = r;
+		}
+
+		@Override
+		public String getDescription() {
+			return "SignalTarget";
+		}
+
+		@Override
+		public void process() {
+			state.ready = ready;
+			evt.signal(state.cond);
+		}
+	}
 }
@@ -0,0 +1,128 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.events;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestEventSet {
+
+	/**
+	 * Apply the same random sequence of adds and removals to both EventSet
+	 * implementations and check that the events come out in the same order.
+	 */
+	@Test
+	public void testHeapMatchesArray() {
+		Random rand = new Random(1234);
+		EventSet array = new ArrayEventSet();
+		EventSet heap = new HeapEventSet();
+		ArrayList<Event> arrayEvents = new ArrayList<Event>();
+		ArrayList<Event> heapEvents = new ArrayList<Event>();
+
+		for (int i = 0; i < 20000; i++) {
+			int op = rand.nextInt(10);
+			if (op < 6) {
+				long tick = rand.nextInt(50);
+				int prio = rand.nextInt(3);
+				boolean fifo = rand.nextBoolean();
+				DummyTarget t = new DummyTarget(i);
+				Event a = new Event(0, tick, prio, t);
+				Event h = new Event(0, tick, prio, t);
+				array.add(a, fifo);
+				heap.add(h, fifo);
+				arrayEvents.add(a);
+				heapEvents.add(h);
+				continue;
+			}
+
+			if (op < 8 && arrayEvents.size() > 0) {
+				int idx = rand.nextInt(arrayEvents.size());
+				assertTrue(array.remove(arrayEvents.remove(idx)));
+				assertTrue(heap.remove(heapEvents.remove(idx)));
+				continue;
+			}
+
+			Event a = array.poll();
+			Event h = heap.poll();
+			if (a == null) {
+				assertTrue(h == null);
+				continue;
+			}
+			assertTrue(a.target == h.target);
+			arrayEvents.remove(a);
+			heapEvents.remove(h);
+		}
+
+		assertTrue(array.size() == heap.size());
+		while (array.size() > 0) {
+			assertTrue(array.poll().target == heap.poll().target);
+		}
+		assertTrue(heap.peek() == null);
+	}
+
+	@Test
+	public void testFind() {
+		EventSet heap = new HeapEventSet();
+		DummyTarget t = new DummyTarget(0);
+		heap.add(new Event(0, 10, 0, t), true);
+		Event first = new Event(0, 5, 1, t);
+		heap.add(first, true);
+		heap.add(new Event(0, 5, 2, t), false);
+
+		assertTrue(heap.find(t) == first);
+		assertTrue(heap.find(5, 1, t) == first);
+		assertTrue(heap.find(5, 3, t) == null);
+	}
+
+	@Test
+	public void testFindAfterRemove() {
+		EventSet array = new ArrayEventSet();
+		DummyTarget t = new DummyTarget(0);
+		Event e0 = new Event(0, 1, 0, t);
+		Event e1 = new Event(0, 2, 0, t);
+		Event e2 = new Event(0, 3, 0, t);
+		array.add(e0, false);
+		array.add(e1, false);
+		array.add(e2, false);
+
+		assertTrue(array.remove(e1));
+		assertTrue(!array.remove(e1));
+		assertTrue(array.find(2, 0, t) == null);
+		assertTrue(array.find(3, 0, t) == e2);
+		assertTrue(array.poll() == e0);
+		assertTrue(array.find(t) == e2);
+		assertTrue(array.poll() == e2);
+		assertTrue(array.find(t) == null);
+	}
+
+	private static class DummyTarget extends ProcessTarget {
+		final int num;
+		DummyTarget(int i) {
+			num = i;
+		}
+
+		@Override
+		public String getDescription() {
+			return "Target:" + num;
+		}
+
+		@Override
+		public void process() {}
+	}
+}
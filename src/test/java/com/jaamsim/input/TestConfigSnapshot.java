@@ -0,0 +1,125 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.input;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.jaamsim.units.DimensionlessUnit;
+import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.Input.ParseContext;
+import com.sandwell.JavaSimulation.ObjectType;
+
+public class TestConfigSnapshot {
+
+	private static void writeFile(File file, String text) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(text.getBytes("UTF-8"));
+		out.close();
+	}
+
+	private static void copyFile(File src, File dst) throws IOException {
+		InputStream in = new FileInputStream(src);
+		FileOutputStream out = new FileOutputStream(dst);
+		byte[] buf = new byte[4096];
+		while (true) {
+			int n = in.read(buf);
+			if (n < 0)
+				break;
+			out.write(buf, 0, n);
+		}
+		in.close();
+		out.close();
+	}
+
+	// Reads the source through the snapshot, as InputAgent.readStream does
+	private static void readSource(ConfigSnapshot snap, File file) throws IOException {
+		InputStream in = snap.addSource(file.toURI(), new FileInputStream(file));
+		while (in.read() != -1) {}
+		in.close();
+	}
+
+	private static ArrayList<String> tokens(String rec) {
+		ArrayList<String> ret = new ArrayList<String>();
+		Parser.tokenize(ret, rec, true);
+		return ret;
+	}
+
+	@Test
+	public void testSnapshot() throws IOException {
+		File cfg = File.createTempFile("snap", ".cfg");
+		cfg.deleteOnExit();
+		writeFile(cfg, "Define ObjectType { SnapType }\n");
+
+		File snapFile = ConfigSnapshot.getSnapshotFile(cfg);
+		snapFile.deleteOnExit();
+		assertTrue(snapFile.getName().endsWith(".cfgc"));
+
+		ParseContext pc = new ParseContext();
+		pc.jail = "";
+		pc.context = cfg.getParentFile().toURI();
+
+		ConfigSnapshot snap = new ConfigSnapshot(cfg);
+		readSource(snap, cfg);
+		snap.addDefine(tokens("Define ObjectType { SnapType }"));
+		snap.addKeyword(tokens("SnapType JavaClass { com.jaamsim.units.DimensionlessUnit }"), pc);
+		assertTrue(snap.getNumRecords() == 2);
+		snap.write(snapFile);
+
+		assertTrue(Entity.getNamedEntity("SnapType") == null);
+		// Only the configuration file the snapshot was made from can use it
+		File other = new File(cfg.getParentFile(), "other-" + cfg.getName());
+		other.deleteOnExit();
+		writeFile(other, "Define ObjectType { SnapType }\n");
+		assertTrue(!ConfigSnapshot.load(snapFile, other));
+		assertTrue(Entity.getNamedEntity("SnapType") == null);
+
+		// A copied model folder is checked against its own files
+		File copyDir = File.createTempFile("snapdir", "");
+		copyDir.delete();
+		copyDir.mkdir();
+		copyDir.deleteOnExit();
+		File copy = new File(copyDir, cfg.getName());
+		copy.deleteOnExit();
+		File copySnap = ConfigSnapshot.getSnapshotFile(copy);
+		copySnap.deleteOnExit();
+		writeFile(copy, "Define ObjectType { SnapType3 }\n");
+		copyFile(snapFile, copySnap);
+		assertTrue(!ConfigSnapshot.load(copySnap, copy));
+		assertTrue(Entity.getNamedEntity("SnapType") == null);
+
+		assertTrue(ConfigSnapshot.load(snapFile, cfg));
+		Entity ent = Entity.getNamedEntity("SnapType");
+		assertTrue(ent instanceof ObjectType);
+		assertTrue(((ObjectType)ent).getJavaClass() == DimensionlessUnit.class);
+
+		// A change to one of the sources invalidates the snapshot
+		writeFile(cfg, "Define ObjectType { SnapType2 }\n");
+		assertTrue(!ConfigSnapshot.load(snapFile, cfg));
+		assertTrue(Entity.getNamedEntity("SnapType2") == null);
+
+		// As does a missing source
+		cfg.delete();
+		assertTrue(!ConfigSnapshot.load(snapFile, cfg));
+	}
+}
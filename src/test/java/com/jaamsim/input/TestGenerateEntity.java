@@ -0,0 +1,100 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.input;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jaamsim.ProbabilityDistributions.RandomSelector;
+import com.jaamsim.ProbabilityDistributions.UniformDistribution;
+import com.jaamsim.units.DistanceUnit;
+import com.sandwell.JavaSimulation.Entity;
+import com.sandwell.JavaSimulation.ObjectType;
+import com.sandwell.JavaSimulation3D.DisplayEntity;
+
+public class TestGenerateEntity {
+
+	@Test
+	public void testCloneInputs() {
+		DisplayEntity entA = new DisplayEntity();
+		DisplayEntity entB = new DisplayEntity();
+		entA.setInputName("GenA");
+		entB.setInputName("GenB");
+
+		RandomSelector proto = InputAgent.defineEntityWithUniqueName(RandomSelector.class, "GenProto", true);
+		InputAgent.processEntity_Keyword_Value(proto, "EntityList", "GenA  GenB");
+		InputAgent.processEntity_Keyword_Value(proto, "ProbabilityList", "0.25  0.75");
+		InputAgent.processEntity_Keyword_Value(proto, "Description", "'A prototype'");
+
+		RandomSelector copy = InputAgent.generateEntity(proto, "Copy_of_GenProto-", 7);
+		assertTrue(copy.testFlag(Entity.FLAG_GENERATED));
+		assertTrue(copy.getInput("EntityList").getValue() == proto.getInput("EntityList").getValue());
+		assertTrue(copy.getInput("ProbabilityList").getValueString().equals(proto.getInput("ProbabilityList").getValueString()));
+		assertTrue(copy.getInput("Description").getValue().equals("A prototype"));
+
+		// The name is built on request and is not registered
+		assertTrue(copy.getInputName().equals("Copy_of_GenProto-7"));
+		assertTrue(Entity.getNamedEntity("Copy_of_GenProto-7") == null);
+
+		copy.validate();
+		copy.earlyInit();
+		assertTrue(copy.nextValue() != null);
+	}
+
+	@Test
+	public void testCloneUnitType() {
+		ObjectType t = InputAgent.defineEntityWithUniqueName(ObjectType.class, "GenUnitType", true);
+		InputAgent.processEntity_Keyword_Value(t, "JavaClass", "com.jaamsim.units.DistanceUnit");
+
+		UniformDistribution proto = InputAgent.defineEntityWithUniqueName(UniformDistribution.class, "GenDist", true);
+		InputAgent.processEntity_Keyword_Value(proto, "UnitType", "GenUnitType");
+
+		// The unit type set by parsing the prototype's input is copied as well
+		UniformDistribution copy = InputAgent.generateEntity(proto, "Copy_of_GenDist-", 1);
+		assertTrue(copy.getUnitType() == DistanceUnit.class);
+		assertTrue(((UnitTypeInput)copy.getInput("UnitType")).getUnitType() == DistanceUnit.class);
+	}
+
+	@Test
+	public void testKillRestore() {
+		DisplayEntity entA = new DisplayEntity();
+		DisplayEntity entB = new DisplayEntity();
+		DisplayEntity entC = new DisplayEntity();
+
+		entA.kill();
+		assertTrue(!Entity.getAll().contains(entA));
+		assertTrue(!DisplayEntity.getAll().contains(entA));
+		assertTrue(Entity.getAll().contains(entB));
+		assertTrue(Entity.getAll().contains(entC));
+
+		// A second kill must not remove another entity
+		int num = Entity.getAll().size();
+		entA.kill();
+		assertTrue(Entity.getAll().size() == num);
+
+		entA.restore();
+		assertTrue(!entA.testFlag(Entity.FLAG_DEAD));
+		assertTrue(Entity.getAll().contains(entA));
+		assertTrue(DisplayEntity.getAll().contains(entA));
+
+		entB.kill();
+		entC.kill();
+		entA.kill();
+		assertTrue(Entity.getAll().size() == num - 2);
+		assertTrue(!DisplayEntity.getAll().contains(entB));
+		assertTrue(!DisplayEntity.getAll().contains(entC));
+	}
+}
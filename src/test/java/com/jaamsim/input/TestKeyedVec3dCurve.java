@@ -89,4 +89,21 @@ public class TestKeyedVec3dCurve {
 		testNear(hundred.z, 3);
 	}
 
+
+	@Test
+	public void testSequential() {
+		KeyedVec3dCurve curve = new KeyedVec3dCurve();
+		for (int i = 0; i <= 100; i++)
+			curve.addKey(i, new Vec3d(i, 2 * i, 0));
+
+		// Walk forward, then back again
+		for (int i = 0; i <= 400; i++) {
+			double t = i * 0.25d;
+			testNear(curve.getValAtTime(t).y, 2 * t);
+		}
+		for (int i = 400; i >= 0; i--) {
+			double t = i * 0.25d;
+			testNear(curve.getValAtTime(t).y, 2 * t);
+		}
+	}
 }
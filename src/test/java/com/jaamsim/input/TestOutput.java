@@ -61,4 +61,58 @@ public class TestOutput {
 		}
 	}
 
+	public static class OutputTarget extends DisplayEntity {
+		@Output(name = "Primitive")
+		public double getPrimitive(double simTime) {
+			return simTime * 2.0d;
+		}
+
+		@Output(name = "Count")
+		public int getCount(double simTime) {
+			return 7;
+		}
+
+		@Output(name = "Boxed")
+		public Double getBoxed(double simTime) {
+			if (simTime < 0.0d)
+				return null;
+			return simTime + 1.0d;
+		}
+
+		@Output(name = "Failing")
+		public String getFailing(double simTime) {
+			throw new IllegalStateException("failed output");
+		}
+	}
+
+	@Test
+	public void testOutputValues() {
+		OutputTarget ent = new OutputTarget();
+		assertTrue(ent.hasOutput("Primitive"));
+		assertTrue(!ent.hasOutput("Missing"));
+
+		OutputHandle prim = ent.getOutputHandle("Primitive");
+		assertTrue(prim.getDoubleValue(3.0d) == 6.0d);
+		assertTrue(prim.getValue(3.0d, Double.class) == null);
+		assertTrue(prim.getValue(3.0d, double.class) == 6.0d);
+
+		assertTrue(ent.getOutputHandle("Count").getDoubleValue(0.0d) == 7.0d);
+
+		OutputHandle boxed = ent.getOutputHandle("Boxed");
+		assertTrue(boxed.getDoubleValue(1.0d) == 2.0d);
+		assertTrue(Double.isNaN(boxed.getDoubleValue(-1.0d)));
+		assertTrue(boxed.getValueAsDouble(-1.0d, 5.0d) == 5.0d);
+
+		assertTrue(ent.getOutputHandle("Name").getValue(0.0d, String.class) == null);
+
+		// Exceptions thrown by an output are passed on to the caller
+		boolean thrown = false;
+		try {
+			ent.getOutputHandle("Failing").getValue(0.0d, String.class);
+		}
+		catch (IllegalStateException e) {
+			thrown = true;
+		}
+		assertTrue(thrown);
+	}
 }
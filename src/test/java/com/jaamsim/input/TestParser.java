@@ -47,6 +47,19 @@ public void testTokenize() {
 	tok.clear();
 	Parser.tokenize(tok, "OBJECT KEYWORD{ ARG }\"FOO ,\t     ");
 	tokenMatch(tok, "OBJECT", "KEYWORD", "{", "ARG", "}", "\"FOO ,\t     ");
+
+	tok.clear();
+	Parser.tokenize(tok, "OBJECT KEYWORD{ ARG }\"FOO ,\t     ", true);
+	tokenMatch(tok, "OBJECT", "KEYWORD", "{", "ARG", "}");
+
+	// An unterminated quote runs to the end of the contents
+	tok.clear();
+	Parser.tokenize(tok, "OBJECT{'ARG ,\t A\"FOO 'BAR'", true);
+	tokenMatch(tok, "OBJECT", "{", "ARG ,\t A");
+
+	tok.clear();
+	Parser.tokenize(tok, "A'B'C}'D'{");
+	tokenMatch(tok, "A", "B", "C", "}", "D", "{");
 }
 
 private static void validateTokens(ArrayList<String> toks) {
@@ -0,0 +1,75 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.math;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestLookupCursor {
+
+	// The index a plain linear scan would return
+	private static int expected(double[] list, int len, double val) {
+		int ret = -1;
+		for (int i = 0; i < len; i++) {
+			if (list[i] <= val)
+				ret = i;
+		}
+		return ret;
+	}
+
+	@Test
+	public void testFloorIndex() {
+		double[] list = { 0.0d, 1.0d, 2.5d, 4.0d, 10.0d, 100.0d };
+		LookupCursor cursor = new LookupCursor();
+
+		assertTrue(cursor.floorIndex(list, list.length, -1.0d) == -1);
+		assertTrue(cursor.floorIndex(list, list.length, 0.0d) == 0);
+		assertTrue(cursor.floorIndex(list, list.length, 0.5d) == 0);
+		assertTrue(cursor.floorIndex(list, list.length, 2.5d) == 2);
+		assertTrue(cursor.floorIndex(list, list.length, 3.0d) == 2);
+		assertTrue(cursor.floorIndex(list, list.length, 1000.0d) == 5);
+		assertTrue(cursor.floorIndex(list, list.length, 1.0d) == 1);
+
+		// Only the first len entries are searched
+		assertTrue(cursor.floorIndex(list, 3, 1000.0d) == 2);
+		assertTrue(cursor.floorIndex(list, 0, 1000.0d) == -1);
+	}
+
+	@Test
+	public void testRandom() {
+		Random rng = new Random(42);
+		double[] list = new double[1000];
+		double t = 0.0d;
+		for (int i = 0; i < list.length; i++) {
+			t += rng.nextDouble();
+			list[i] = t;
+		}
+
+		// Mostly forward steps with occasional jumps back
+		LookupCursor cursor = new LookupCursor();
+		double val = -1.0d;
+		for (int i = 0; i < 100000; i++) {
+			if (rng.nextInt(50) == 0)
+				val = rng.nextDouble() * (t + 2.0d) - 1.0d;
+			else
+				val += rng.nextDouble() * 0.5d;
+
+			assertTrue(cursor.floorIndex(list, list.length, val) == expected(list, list.length, val));
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.math;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestRungeKutta45 {
+
+	// y1' = y2, y2' = -y1, with the solution y1 = sin(t)
+	private static class Oscillator implements RungeKutta45.Derivatives {
+		int numCalls = 0;
+
+		@Override
+		public void calcDerivatives(double t, double[] y, double[] dydt) {
+			dydt[0] = y[1];
+			dydt[1] = -y[0];
+			numCalls++;
+		}
+	}
+
+	// Integrates to the given time with steps adjusted to the tolerance, and returns the number of steps
+	private static int integrate(RungeKutta45.Derivatives f, double[] y, double end, double tol) {
+		RungeKutta45 rk = new RungeKutta45(y.length);
+		double[] yOut = new double[y.length];
+		double t = 0.0d;
+		double h = 0.1d;
+		int num = 0;
+		while (t < end) {
+			h = Math.min(h, end - t);
+			double err = rk.step(f, t, y, h, yOut, tol);
+			if (err <= 1.0d) {
+				t += h;
+				System.arraycopy(yOut, 0, y, 0, y.length);
+				num++;
+			}
+			h = RungeKutta45.getNextStepSize(h, err);
+		}
+		return num;
+	}
+
+	@Test
+	public void testSingleStep() {
+		// A cubic is solved exactly by a single step
+		RungeKutta45.Derivatives cubic = new RungeKutta45.Derivatives() {
+			@Override
+			public void calcDerivatives(double t, double[] y, double[] dydt) {
+				dydt[0] = 3.0d * t * t;
+			}
+		};
+		RungeKutta45 rk = new RungeKutta45(1);
+		double[] y = { 1.0d };
+		double[] yOut = new double[1];
+		double err = rk.step(cubic, 1.0d, y, 1.0d, yOut, 1.0e-6d);
+		assertTrue(Math.abs(yOut[0] - 8.0d) < 1.0e-12d);
+		assertTrue(err < 1.0e-6d);
+	}
+
+	@Test
+	public void testOscillator() {
+		double[] tols = { 1.0e-4d, 1.0e-7d, 1.0e-10d };
+		int lastSteps = 0;
+		for (double tol : tols) {
+			Oscillator f = new Oscillator();
+			double[] y = { 0.0d, 1.0d };
+			int num = integrate(f, y, 10.0d, tol);
+			assertTrue(Math.abs(y[0] - Math.sin(10.0d)) < 100.0d * tol);
+			assertTrue(Math.abs(y[1] - Math.cos(10.0d)) < 100.0d * tol);
+
+			// A tighter tolerance takes more steps
+			assertTrue(num > lastSteps);
+			lastSteps = num;
+		}
+	}
+
+	@Test
+	public void testStepSize() {
+		assertTrue(RungeKutta45.getNextStepSize(1.0d, 0.0d) == 5.0d);
+		assertTrue(RungeKutta45.getNextStepSize(1.0d, 1.0e6d) == 0.2d);
+		assertTrue(RungeKutta45.getNextStepSize(1.0d, 1.0d) == 0.9d);
+	}
+}
@@ -50,4 +50,21 @@ public class TestRandomSelector {
 
 		assertTrue( maxDiff < 0.001 );
 	}
+
+	@Test
+	public void OutputsBeforeInit() {
+		DisplayEntity entA = new DisplayEntity();
+		DisplayEntity entB = new DisplayEntity();
+		entA.setInputName( "InitA" );
+		entB.setInputName( "InitB" );
+
+		RandomSelector selector = InputAgent.defineEntityWithUniqueName(RandomSelector.class, "InitDist", true);
+		InputAgent.processEntity_Keyword_Value( selector, "EntityList", "InitA  InitB");
+		InputAgent.processEntity_Keyword_Value( selector, "ProbabilityList", "0.5  0.5");
+
+		// The outputs can be viewed before the model has been initialised
+		assertTrue( selector.getSampleDifference(0.0).length == 0 );
+		assertTrue( selector.getSampleCount(0.0).length == 0 );
+		assertTrue( selector.getNumberOfSamples(0.0) == 0 );
+	}
 }
@@ -0,0 +1,49 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.jaamsim.rng;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestAliasTable {
+
+	@Test
+	public void testFrequencies() {
+		double[] probs = { 0.5, 0.0, 0.3, 0.15, 0.05 };
+		AliasTable table = new AliasTable(probs);
+		MRG1999a rng = new MRG1999a(3, 0);
+
+		int num = 1000000;
+		int[] counts = new int[probs.length];
+		for (int i = 0; i < num; i++)
+			counts[table.getIndex(rng.nextUniform())]++;
+
+		assertTrue(counts[1] == 0);
+		for (int i = 0; i < probs.length; i++)
+			assertTrue(Math.abs((double)counts[i] / num - probs[i]) < 0.002);
+	}
+
+	@Test
+	public void testExactColumns() {
+		// Equal probabilities fill every column, so each index owns 1/n of U(0,1)
+		AliasTable table = new AliasTable(new double[] { 1.0, 1.0, 1.0, 1.0 });
+		assertTrue(table.getIndex(0.0) == 0);
+		assertTrue(table.getIndex(0.3) == 1);
+		assertTrue(table.getIndex(0.6) == 2);
+		assertTrue(table.getIndex(0.99) == 3);
+		assertTrue(table.getIndex(1.0) == 3);
+	}
+}
@@ -160,4 +160,38 @@ public class TestMRG1999a {
 			assertTrue(test2.toString().equals(known2[i]));
 		}
 	}
+
+	/**
+	 * Seeding by jumping ahead must match advancing one stream at a time.
+	 */
+	@Test
+	public void testStreamJump() {
+		int[] streams = { 0, 1, 2, 3, 7, 8, 100, 1023, 1500 };
+		for (int stream : streams) {
+			for (int substream : streams) {
+				long[] seeds = { 12345, 12345, 12345, 12345, 12345, 12345 };
+				for (int i = 0; i < stream; i++)
+					MRG1999a.advanceStream(seeds);
+				for (int i = 0; i < substream; i++)
+					MRG1999a.advanceSubstream(seeds);
+
+				String expected = String.format("%d, %d, %d, %d, %d, %d", seeds[0], seeds[1], seeds[2], seeds[3], seeds[4], seeds[5]);
+				MRG1999a test = new MRG1999a(stream, substream);
+				assertTrue(test.toString().equals(expected));
+			}
+		}
+	}
+
+	@Test
+	public void testNextUniforms() {
+		MRG1999a test1 = new MRG1999a(5, 3);
+		MRG1999a test2 = new MRG1999a(5, 3);
+		double[] vals = new double[1000];
+		test2.nextUniforms(vals, 10, 990);
+		for (int i = 10; i < 1000; i++) {
+			assertTrue(test1.nextUniform() == vals[i]);
+		}
+		assertTrue(vals[0] == 0.0d);
+		assertTrue(test1.toString().equals(test2.toString()));
+	}
 }
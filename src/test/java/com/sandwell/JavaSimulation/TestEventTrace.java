@@ -0,0 +1,73 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.sandwell.JavaSimulation;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class TestEventTrace {
+
+	@Test
+	public void testVarLong() throws IOException {
+		long[] vals = { 0L, 1L, 127L, 128L, 300L, 1L << 35, Long.MAX_VALUE, -1L };
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (long val : vals)
+			BinaryTraceRecord.writeVarLong(out, val);
+		out.close();
+
+		// Small values take a single byte
+		assertTrue(bytes.size() == 1 + 1 + 1 + 2 + 2 + 6 + 9 + 10);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (long val : vals)
+			assertTrue(BinaryTraceRecord.readVarLong(in) == val);
+	}
+
+	@Test
+	public void testWindow() {
+		TraceWindow<String> win = new TraceWindow<String>(3);
+		TraceKey a = new TraceKey("DefaultEventManager", 10, 5, "Ent1.method", 3);
+		TraceKey b = new TraceKey("DefaultEventManager", 10, 5, "Ent2.method", 3);
+
+		win.add(a, "a1");
+		win.add(b, "b1");
+		win.add(new TraceKey("DefaultEventManager", 10, 5, "Ent1.method", 3), "a2");
+		assertTrue(win.evict() == null);
+
+		// Equal keys are matched in the order they were read
+		assertTrue(win.remove(a).equals("a1"));
+		assertTrue(win.remove(new TraceKey("DefaultEventManager", 10, 5, "Ent1.method", 3)).equals("a2"));
+		assertTrue(win.remove(a) == null);
+		assertTrue(win.remove(new TraceKey("DefaultEventManager", 10, 4, "Ent2.method", 3)) == null);
+		assertTrue(win.size() == 1);
+
+		// Once full, the oldest unmatched record is dropped
+		win.add(new TraceKey("DefaultEventManager", 11, 5, null, 2), "c");
+		win.add(new TraceKey("DefaultEventManager", 12, 5, null, 2), "d");
+		win.add(new TraceKey("DefaultEventManager", 13, 5, null, 2), "e");
+		assertTrue(win.evict().equals("b1"));
+		assertTrue(win.evict() == null);
+		assertTrue(win.remove(b) == null);
+		assertTrue(win.remove(new TraceKey("DefaultEventManager", 11, 5, null, 2)).equals("c"));
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.sandwell.JavaSimulation;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.jaamsim.ProbabilityDistributions.UniformDistribution;
+import com.jaamsim.input.InputAgent;
+import com.jaamsim.input.Output;
+import com.jaamsim.rng.MRG1999a;
+
+public class TestReplications {
+
+	/**
+	 * Takes one sample from a distribution at the start of each replication
+	 * and records it at the end.
+	 */
+	public static class RepSampler extends Entity {
+		static final ArrayList<Double> samples = new ArrayList<Double>();
+		UniformDistribution dist;
+		double value;
+
+		public RepSampler() {}
+
+		@Override
+		public void startUp() {
+			super.startUp();
+			value = dist.getNextSample(0.0d);
+		}
+
+		@Override
+		public void doEnd() {
+			synchronized (samples) {
+				samples.add(value);
+			}
+		}
+
+		@Output(name = "Value")
+		public double getValue(double simTime) {
+			return value;
+		}
+	}
+
+	@Test
+	public void testReplications() throws IOException, InterruptedException {
+		Entity.initEVT();
+		killAll();
+		File dir = File.createTempFile("reps", "");
+		dir.delete();
+		dir.mkdir();
+		dir.deleteOnExit();
+		InputAgent.setConfigFile(new File(dir, "reps.cfg"));
+		RepSampler.samples.clear();
+
+		ObjectType t = InputAgent.defineEntityWithUniqueName(ObjectType.class, "RepTestType", true);
+		InputAgent.processEntity_Keyword_Value(t, "JavaClass", "com.jaamsim.units.DimensionlessUnit");
+
+		UniformDistribution dist = InputAgent.defineEntityWithUniqueName(UniformDistribution.class, "RepDist", true);
+		InputAgent.processEntity_Keyword_Value(dist, "UnitType", "RepTestType");
+		InputAgent.processEntity_Keyword_Value(dist, "MinValue", "0.0");
+		InputAgent.processEntity_Keyword_Value(dist, "MaxValue", "1.0");
+		InputAgent.processEntity_Keyword_Value(dist, "RandomSeed", "5");
+		InputAgent.processEntity_Keyword_Value(dist, "GlobalSubstreamSeed", "2");
+
+		RepSampler sampler = InputAgent.defineEntityWithUniqueName(RepSampler.class, "RepSampler", true);
+		sampler.dist = dist;
+
+		Simulation sim = InputAgent.defineEntityWithUniqueName(Simulation.class, "Simulation", true);
+		try {
+			InputAgent.processEntity_Keyword_Value(sim, "NumberOfReplications", "3");
+			InputAgent.processEntity_Keyword_Value(sim, "ReplicationOutputs", "{ RepSampler Value }");
+			runReplications(dir);
+		}
+		finally {
+			// The global seed, run inputs and replication number are shared with the other tests
+			InputAgent.processEntity_Keyword_Value(dist, "GlobalSubstreamSeed", "0");
+			InputAgent.processEntity_Keyword_Value(sim, "NumberOfReplications", "1");
+			Simulation.resetReplications();
+			InputAgent.setConfigFile(null);
+			killAll();
+		}
+	}
+
+	private static void runReplications(File dir) throws IOException, InterruptedException {
+		Simulation.start();
+		Simulation.resume(Double.POSITIVE_INFINITY);
+
+		// The last replication leaves the event manager paused
+		long timeout = System.currentTimeMillis() + 10000;
+		while (true) {
+			synchronized (RepSampler.samples) {
+				if (RepSampler.samples.size() == 3)
+					break;
+			}
+			assertTrue(System.currentTimeMillis() < timeout);
+			Thread.sleep(10);
+		}
+		Entity.root.waitForPause();
+
+		// The replication number is reset once the last replication has ended
+		assertTrue(Simulation.getReplicationNumber() == 0);
+
+		// Each replication uses its own substream from the block for seed 2
+		double sum = 0.0d;
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < 3; i++) {
+			double val = RepSampler.samples.get(i);
+			assertTrue(val == new MRG1999a(5, 2 * 3 + i).nextUniform());
+			sum += val;
+			min = Math.min(min, val);
+			max = Math.max(max, val);
+		}
+
+		File rep = new File(dir, "reps.rep");
+		rep.deleteOnExit();
+		BufferedReader in = new BufferedReader(new FileReader(rep));
+		try {
+			assertTrue(in.readLine().equals("Replications\t3"));
+			in.readLine();
+			String[] fields = in.readLine().split("\t");
+			assertTrue(fields[0].equals("RepSampler"));
+			assertTrue(fields[1].equals("Value"));
+			assertTrue(Math.abs(Double.parseDouble(fields[2]) - sum / 3.0d) < 1.0e-12);
+			assertTrue(Double.parseDouble(fields[4]) == min);
+			assertTrue(Double.parseDouble(fields[5]) == max);
+			assertTrue(in.readLine() == null);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	// Simulation.start() validates every entity, including those left by other tests
+	private static void killAll() {
+		while (Entity.getAll().size() > 0)
+			Entity.getAll().get(Entity.getAll().size() - 1).kill();
+	}
+}
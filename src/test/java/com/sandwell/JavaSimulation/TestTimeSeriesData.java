@@ -0,0 +1,184 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.sandwell.JavaSimulation;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.jaamsim.input.InputAgent;
+import com.jaamsim.units.DimensionlessUnit;
+import com.jaamsim.units.DistanceUnit;
+
+public class TestTimeSeriesData {
+
+	@Test
+	public void testParseDateTime() {
+		long day = 24L * 3600L * 1000000L;
+		assertTrue(Input.parseRFC8601DateTime("0000-01-02") == day);
+		assertTrue(Input.parseRFC8601DateTime("0001-01-01") == Input.usPerYr);
+		assertTrue(Input.parseRFC8601DateTime("0000-02-01 00:00:01") == 31 * day + 1000000L);
+		assertTrue(Input.parseRFC8601DateTime("0000-02-01T00:00:01") == 31 * day + 1000000L);
+		assertTrue(Input.parseRFC8601DateTime("1:00:00") == 3600L * 1000000L);
+
+		// The fixed form can be parsed from within a longer line
+		String line = "x,2010-03-04 05:06:07,1.0";
+		assertTrue(Input.parseFixedDateTime(line, 2, 21) == Input.parseRFC8601DateTime("2010-03-04 05:06:07"));
+		assertTrue(Input.parseFixedDateTime(line, 0, 10) == -1);
+
+		String[] bad = { "2010-13-01", "2010-02-30", "2010-01-01 24:00:00", "2010-01-01 00:60:00",
+		                 "2010/01/01", "201a-01-01", "2010-01-01 00:00", "2010-01-01X00:00:00" };
+		for (String each : bad) {
+			boolean caught = false;
+			try {
+				Input.parseRFC8601DateTime(each);
+			}
+			catch (InputErrorException e) {
+				caught = true;
+			}
+			assertTrue(caught);
+		}
+	}
+
+	@Test
+	public void testLoadFile() throws IOException {
+		File file = File.createTempFile("series", ".csv");
+		file.deleteOnExit();
+		File cache = new File(file.getPath() + ".tsb");
+		cache.deleteOnExit();
+
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(("Time,Value\n" +
+		           "# a comment\n" +
+		           "2010-01-01 00:00:00, 1.5\n" +
+		           "\n" +
+		           "'2010-01-01 06:00:00'\t2.5\n" +
+		           "2010-01-02 00:00:00 , -1.0 \n").getBytes("UTF-8"));
+		out.close();
+
+		TimeSeriesData data = TimeSeriesData.load(file.toURI(), DimensionlessUnit.class);
+		assertTrue(data.timeList.length == 3);
+		assertTrue(data.timeList[0] == 0.0d);
+		assertTrue(data.timeList[1] == 6.0d);
+		assertTrue(data.timeList[2] == 24.0d);
+		assertTrue(data.valueList[0] == 1.5d);
+		assertTrue(data.valueList[1] == 2.5d);
+		assertTrue(data.valueList[2] == -1.0d);
+		assertTrue(data.getMaxValue() == 2.5d);
+		assertTrue(data.getMinValue() == -1.0d);
+
+		// The binary copy is written, and the data is shared
+		assertTrue(cache.length() > 6 * 8);
+		assertTrue(TimeSeriesData.load(file.toURI(), DimensionlessUnit.class) == data);
+	}
+
+	@Test
+	public void testBadFile() throws IOException {
+		File file = File.createTempFile("series", ".csv");
+		file.deleteOnExit();
+		new File(file.getPath() + ".tsb").deleteOnExit();
+
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(("2010-01-01 00:00:00, 1.5\n" +
+		           "2010-01-01 00:00:00, 2.5\n").getBytes("UTF-8"));
+		out.close();
+
+		boolean caught = false;
+		try {
+			TimeSeriesData.load(file.toURI(), DimensionlessUnit.class);
+		}
+		catch (InputErrorException e) {
+			caught = e.getMessage().startsWith("Line 2");
+		}
+		assertTrue(caught);
+	}
+
+	@Test
+	public void testUnitFactors() throws IOException {
+		File file = File.createTempFile("series", ".csv");
+		file.deleteOnExit();
+		File cache = new File(file.getPath() + ".tsb");
+		cache.deleteOnExit();
+
+		DistanceUnit unit = InputAgent.defineEntityWithUniqueName(DistanceUnit.class, "TsTestUnit", true);
+		InputAgent.processEntity_Keyword_Value(unit, "ConversionFactorToSI", "1000");
+
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(("2010-01-01 00:00:00, 1.5, " + unit.getInputName() + "\n" +
+		           "2010-01-01 06:00:00, 2.5, " + unit.getInputName() + "\n").getBytes("UTF-8"));
+		out.close();
+
+		TimeSeriesData data = TimeSeriesData.load(file.toURI(), DistanceUnit.class);
+		assertTrue(data.valueList[0] == 1500.0d);
+		assertTrue(cache.isFile());
+
+		// A change to the conversion factor is not hidden by the shared data or the binary copy
+		InputAgent.processEntity_Keyword_Value(unit, "ConversionFactorToSI", "10");
+		data = TimeSeriesData.load(file.toURI(), DistanceUnit.class);
+		assertTrue(data.valueList[0] == 15.0d);
+		assertTrue(data.valueList[1] == 25.0d);
+		unit.kill();
+	}
+
+	@Test
+	public void testRange() {
+		DoubleVector times = new DoubleVector();
+		DoubleVector values = new DoubleVector();
+		times.add(0.0d);
+		values.add(-1.0d);
+		times.add(1.0d);
+		values.add(2.5d);
+		TimeSeriesData data = new TimeSeriesData(times, values);
+
+		TimeSeriesDataInput in = new TimeSeriesDataInput("Value", "Key Inputs", null);
+		in.checkRange(data);
+
+		in.setValidRange(0.0d, Double.POSITIVE_INFINITY);
+		boolean caught = false;
+		try {
+			in.checkRange(data);
+		}
+		catch (InputErrorException e) {
+			caught = true;
+		}
+		assertTrue(caught);
+	}
+
+	@Test
+	public void testClearedData() throws IOException, InterruptedException {
+		File file = File.createTempFile("series", ".csv");
+		file.deleteOnExit();
+		new File(file.getPath() + ".tsb").deleteOnExit();
+
+		FileOutputStream out = new FileOutputStream(file);
+		out.write("2010-01-01 00:00:00, 1.5\n".getBytes("UTF-8"));
+		out.close();
+
+		int num = TimeSeriesData.getNumLoadedFiles();
+		assertTrue(TimeSeriesData.load(file.toURI(), DimensionlessUnit.class) != null);
+		assertTrue(TimeSeriesData.getNumLoadedFiles() == num + 1);
+
+		// Once the data has been collected its entry is removed
+		for (int i = 0; i < 50 && TimeSeriesData.getNumLoadedFiles() > num; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertTrue(TimeSeriesData.getNumLoadedFiles() <= num);
+	}
+}
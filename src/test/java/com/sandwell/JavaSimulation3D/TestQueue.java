@@ -0,0 +1,174 @@
+/*
+ * JaamSim Discrete Event Simulation
+ * Copyright (C) 2014 Ausenco Engineering Canada Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package com.sandwell.JavaSimulation3D;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jaamsim.input.InputAgent;
+import com.sandwell.JavaSimulation.Entity;
+
+public class TestQueue {
+
+	@Test
+	public void testDequeAgainstList() {
+		DisplayEntity[] ents = new DisplayEntity[8];
+		for (int i = 0; i < ents.length; i++)
+			ents[i] = new DisplayEntity();
+
+		// Random inserts and removals, including enough entries to wrap and grow the buffer
+		EntityDeque deque = new EntityDeque();
+		ArrayList<DisplayEntity> list = new ArrayList<DisplayEntity>();
+		ArrayList<Double> times = new ArrayList<Double>();
+		Random rand = new Random(42);
+		for (int n = 0; n < 20000; n++) {
+			if (list.isEmpty() || rand.nextInt(5) < 3) {
+				int i = rand.nextInt(list.size() + 1);
+				DisplayEntity ent = ents[rand.nextInt(ents.length)];
+				deque.add(i, ent, n, 0.0d);
+				list.add(i, ent);
+				times.add(i, (double)n);
+			}
+			else {
+				int i = rand.nextInt(list.size());
+				assertTrue(deque.remove(i) == list.remove(i));
+				times.remove(i);
+			}
+
+			assertTrue(deque.size() == list.size());
+			if (n % 97 == 0) {
+				for (int i = 0; i < list.size(); i++) {
+					assertTrue(deque.get(i) == list.get(i));
+					assertTrue(deque.getTime(i) == times.get(i));
+				}
+				for (DisplayEntity each : ents)
+					assertTrue(deque.indexOf(each) == list.indexOf(each));
+			}
+		}
+
+		for (DisplayEntity each : ents)
+			each.kill();
+	}
+
+	@Test
+	public void testPriorityInsertion() {
+		EntityDeque deque = new EntityDeque();
+		double[] prios = { 3.0d, 1.0d, 2.0d, 1.0d, 3.0d, 0.0d };
+		DisplayEntity[] ents = new DisplayEntity[prios.length];
+		for (int i = 0; i < prios.length; i++) {
+			ents[i] = new DisplayEntity();
+			deque.add(deque.getInsertionIndex(prios[i]), ents[i], i, prios[i]);
+		}
+
+		// Sorted by priority, FIFO within equal priorities
+		int[] expected = { 5, 1, 3, 2, 0, 4 };
+		for (int i = 0; i < expected.length; i++)
+			assertTrue(deque.get(i) == ents[expected[i]]);
+
+		for (DisplayEntity each : ents)
+			each.kill();
+	}
+
+	@Test
+	public void testOrdering() {
+		Entity.initEVT();
+		Queue fifo = InputAgent.defineEntityWithUniqueName(Queue.class, "FifoQueue", true);
+		Queue lifo = InputAgent.defineEntityWithUniqueName(Queue.class, "LifoQueue", true);
+		InputAgent.processEntity_Keyword_Value(lifo, "Ordering", "LIFO");
+		fifo.earlyInit();
+		lifo.earlyInit();
+
+		DisplayEntity entA = new DisplayEntity();
+		DisplayEntity entB = new DisplayEntity();
+		DisplayEntity entC = new DisplayEntity();
+		for (Queue q : new Queue[] { fifo, lifo }) {
+			q.addLast(entA);
+			q.addLast(entB);
+			q.addLast(entC);
+		}
+
+		assertTrue(fifo.removeFirst() == entA);
+		assertTrue(lifo.removeFirst() == entC);
+		fifo.remove(entC);
+		lifo.remove(entA);
+		assertTrue(fifo.getCount() == 1 && fifo.get(0) == entB);
+		assertTrue(lifo.getCount() == 1 && lifo.get(0) == entB);
+		assertTrue(fifo.getNumberAdded(0.0d) == 3 && fifo.getNumberRemoved(0.0d) == 2);
+	}
+
+	@Test
+	public void testIndexOfKeys() {
+		DisplayEntity[] ents = new DisplayEntity[200];
+		for (int i = 0; i < ents.length; i++)
+			ents[i] = new DisplayEntity();
+
+		// Repeated inserts at the same place use up the room between keys
+		EntityDeque deque = new EntityDeque();
+		deque.add(0, ents[0], 0.0d, 0.0d);
+		deque.add(1, ents[1], 0.0d, 0.0d);
+		for (int i = 2; i < ents.length; i++)
+			deque.add(1, ents[i], 0.0d, 0.0d);
+
+		for (int i = 0; i < ents.length; i++)
+			assertTrue(deque.get(deque.indexOf(ents[i])) == ents[i]);
+		assertTrue(deque.indexOf(ents[1]) == ents.length - 1);
+
+		deque.remove(0);
+		assertTrue(deque.indexOf(ents[0]) == -1);
+		assertTrue(deque.indexOf(ents[2]) == ents.length - 3);
+
+		// Priority inserts between two groups, with some entities added twice
+		deque.clear();
+		for (int i = 0; i < ents.length; i++) {
+			double prio = (i % 3 == 0) ? 2.0d : 1.0d;
+			deque.add(deque.getInsertionIndex(prio), ents[i / 2], 0.0d, prio);
+		}
+		for (int i = 0; i < ents.length / 2; i++) {
+			int idx = deque.indexOf(ents[i]);
+			assertTrue(deque.get(idx) == ents[i]);
+			for (int j = 0; j < idx; j++)
+				assertTrue(deque.get(j) != ents[i]);
+		}
+		assertTrue(deque.indexOf(ents[ents.length / 2]) == -1);
+		for (int i = 1; i < deque.size(); i++)
+			assertTrue(deque.getPriority(i - 1) <= deque.getPriority(i));
+
+		for (DisplayEntity each : ents)
+			each.kill();
+	}
+
+	@Test
+	public void testPriorityAdd() {
+		Entity.initEVT();
+		Queue prio = InputAgent.defineEntityWithUniqueName(Queue.class, "PriorityAddQueue", true);
+		InputAgent.processEntity_Keyword_Value(prio, "Ordering", "PRIORITY");
+		InputAgent.processEntity_Keyword_Value(prio, "Priority", "1");
+		prio.earlyInit();
+
+		DisplayEntity entA = new DisplayEntity();
+		DisplayEntity entB = new DisplayEntity();
+		prio.addLast(entA);
+
+		// A positional insert keeps the queue sorted by priority
+		InputAgent.processEntity_Keyword_Value(prio, "Priority", "2");
+		prio.add(0, entB);
+		assertTrue(prio.get(0) == entA);
+		assertTrue(prio.get(1) == entB);
+	}
+}